@@ -4,6 +4,10 @@ public class CSVRuntimeException extends RuntimeException {
 
 	private static final long serialVersionUID = 1L;
 	
+	public CSVRuntimeException(String message) {
+		super(message);
+	}
+	
 	public CSVRuntimeException(Throwable cause) {
 		super(cause);
 	}
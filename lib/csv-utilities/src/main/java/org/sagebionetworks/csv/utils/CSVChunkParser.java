@@ -0,0 +1,290 @@
+package org.sagebionetworks.csv.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import au.com.bytecode.opencsv.CSVParser;
+import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVRuntimeException;
+import au.com.bytecode.opencsv.Constants;
+
+/**
+ * Parses CSV records held in a char array, following the exact same rules as a
+ * {@link CSVReader} with a {@link CSVParser}: empty lines are skipped, a BOM at
+ * the start of a line is ignored, an empty unquoted field is null and a line
+ * break within a quoted field is read as '\n'.
+ * <p>
+ * Unlike the {@link CSVParser} that parses one line String at a time with a
+ * new StringBuilder for each line, the fields are read directly from the given
+ * array into a single reusable buffer. The parser can also find the record
+ * boundaries in an array without creating the fields (see
+ * {@link #findLastRecordEnd(char[], int, int)}), which allows to split the
+ * input in chunks that are parsed in parallel.
+ * <p>
+ * A field longer than the maximum field length is a parse error, so that a
+ * malformed input (e.g. an unterminated quote) fails instead of being buffered
+ * until the end of the input.
+ * <p>
+ * An instance is not thread safe.
+ */
+public class CSVChunkParser {
+
+	/**
+	 * The default maximum number of chars in a single field, well above the
+	 * largest value that can be stored in a table.
+	 */
+	public static final int DEFAULT_MAX_FIELD_LENGTH = 8 * 1024 * 1024;
+
+	private static final char BYTE_ORDER_MARKER = '\uFEFF';
+
+	private final char separator;
+	private final char quotechar;
+	private final char escape;
+	private final boolean strictQuotes;
+	private final boolean ignoreLeadingWhiteSpace;
+	private final int maxFieldLength;
+
+	// The state of the current record
+	private final List<String> tokens = new ArrayList<>();
+	private char[] field = new char[CSVParser.INITIAL_READ_SIZE];
+	private int fieldLength;
+	private boolean fieldAllWhiteSpace;
+	private boolean inQuotes;
+	private boolean inField;
+	private boolean isNull;
+	private boolean materialize;
+
+	public CSVChunkParser() {
+		this(Constants.DEFAULT_SEPARATOR, Constants.DEFAULT_QUOTE_CHARACTER, Constants.DEFAULT_ESCAPE_CHARACTER);
+	}
+
+	public CSVChunkParser(char separator, char quotechar, char escape) {
+		this(separator, quotechar, escape, CSVParser.DEFAULT_STRICT_QUOTES, CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE);
+	}
+
+	public CSVChunkParser(char separator, char quotechar, char escape, boolean strictQuotes, boolean ignoreLeadingWhiteSpace) {
+		this(separator, quotechar, escape, strictQuotes, ignoreLeadingWhiteSpace, DEFAULT_MAX_FIELD_LENGTH);
+	}
+
+	public CSVChunkParser(char separator, char quotechar, char escape, boolean strictQuotes, boolean ignoreLeadingWhiteSpace,
+			int maxFieldLength) {
+		// Validates the characters the same way
+		new CSVParser(separator, quotechar, escape, strictQuotes, ignoreLeadingWhiteSpace);
+		if (maxFieldLength < 1) {
+			throw new IllegalArgumentException("The maximum field length must be greater than zero");
+		}
+		this.separator = separator;
+		this.quotechar = quotechar;
+		this.escape = escape;
+		this.strictQuotes = strictQuotes;
+		this.ignoreLeadingWhiteSpace = ignoreLeadingWhiteSpace;
+		this.maxFieldLength = maxFieldLength;
+	}
+
+	/**
+	 * Parse all the records in the given range of the array. The range must start
+	 * at the beginning of a record.
+	 *
+	 * @param buffer
+	 * @param from       The index of the first char to parse
+	 * @param to         The index after the last char to parse
+	 * @param endOfInput True if the range ends at the end of the input. When
+	 *                   false a trailing incomplete record is not parsed.
+	 * @param rowHandler Is passed each record in order
+	 * @return The index after the last record that was parsed
+	 * @throws CSVRuntimeException If a field is longer than the maximum field
+	 *                             length
+	 */
+	public int parse(char[] buffer, int from, int to, boolean endOfInput, Consumer<String[]> rowHandler) {
+		materialize = true;
+		return run(buffer, from, to, endOfInput, rowHandler);
+	}
+
+	/**
+	 * Find the end of the last complete record in the given range of the array,
+	 * without creating its fields. The range must start at the beginning of a
+	 * record.
+	 *
+	 * @param buffer
+	 * @param from
+	 * @param to
+	 * @return The index after the line break of the last complete record, or from
+	 *         if the range does not contain a complete record.
+	 * @throws CSVRuntimeException If a field is longer than the maximum field
+	 *                             length
+	 */
+	public int findLastRecordEnd(char[] buffer, int from, int to) {
+		materialize = false;
+		return run(buffer, from, to, false, null);
+	}
+
+	/**
+	 * Find the start of the next line in the given range of the array, without
+	 * considering quotes.
+	 *
+	 * @param buffer
+	 * @param from
+	 * @param to
+	 * @param endOfInput
+	 * @return The index after the next line break or -1 if the range does not
+	 *         contain a complete line
+	 */
+	public static int findNextLine(char[] buffer, int from, int to, boolean endOfInput) {
+		int lineEnd = from;
+		while (lineEnd < to && buffer[lineEnd] != '\n' && buffer[lineEnd] != '\r') {
+			lineEnd++;
+		}
+		return nextLineStart(buffer, lineEnd, to, endOfInput);
+	}
+
+	/**
+	 * @return The index after the line break that starts at the given index, or
+	 *         -1 if we cannot tell where the line ends without more input.
+	 */
+	private static int nextLineStart(char[] buffer, int lineEnd, int to, boolean endOfInput) {
+		if (lineEnd == to) {
+			return endOfInput ? to : -1;
+		}
+		if (buffer[lineEnd] == '\r') {
+			if (lineEnd + 1 == to) {
+				// The next char could be a '\n'
+				return endOfInput ? to : -1;
+			}
+			return buffer[lineEnd + 1] == '\n' ? lineEnd + 2 : lineEnd + 1;
+		}
+		return lineEnd + 1;
+	}
+
+	private int run(char[] buffer, int from, int to, boolean endOfInput, Consumer<String[]> rowHandler) {
+		startRecord();
+		int lastRecordEnd = from;
+		int position = from;
+		while (position < to) {
+			int lineEnd = position;
+			while (lineEnd < to && buffer[lineEnd] != '\n' && buffer[lineEnd] != '\r') {
+				lineEnd++;
+			}
+			int nextLine = nextLineStart(buffer, lineEnd, to, endOfInput);
+			if (nextLine < 0) {
+				// incomplete line
+				break;
+			}
+			if (lineEnd == position) {
+				// empty lines are skipped, even within a quoted field
+				position = nextLine;
+				continue;
+			}
+			int lineStart = buffer[position] == BYTE_ORDER_MARKER ? position + 1 : position;
+			parseLine(buffer, lineStart, lineEnd);
+			if (inQuotes) {
+				// continuing a quoted field on the next line
+				append('\n');
+				inField = false;
+				isNull = false;
+			} else {
+				addToken();
+				if (materialize) {
+					rowHandler.accept(tokens.toArray(new String[tokens.size()]));
+				}
+				startRecord();
+				lastRecordEnd = nextLine;
+			}
+			position = nextLine;
+		}
+		if (endOfInput && position == to && materialize && !tokens.isEmpty()) {
+			// Same as the CSVReader, the fields that were completed before an unterminated quote are kept
+			rowHandler.accept(tokens.toArray(new String[tokens.size()]));
+			lastRecordEnd = to;
+		}
+		return lastRecordEnd;
+	}
+
+	/**
+	 * Parse the chars of a single line, the equivalent of CSVParser.parseLine().
+	 */
+	private void parseLine(char[] buffer, int lineStart, int lineEnd) {
+		for (int i = lineStart; i < lineEnd; i++) {
+			char c = buffer[i];
+			if (escape != Constants.NO_ESCAPE_CHARACTER && c == escape) {
+				if ((inQuotes || inField) && i + 1 < lineEnd && (buffer[i + 1] == quotechar || buffer[i + 1] == escape)) {
+					append(buffer[i + 1]);
+					isNull = false;
+					i++;
+				}
+			} else if (c == quotechar) {
+				if (inQuotes && i + 1 < lineEnd && buffer[i + 1] == quotechar) {
+					// escaped quote
+					append(quotechar);
+					isNull = false;
+					i++;
+				} else {
+					// the tricky case of an embedded quote in the middle: a,bc"d"ef,g
+					if (!strictQuotes && i > lineStart && buffer[i - 1] != separator
+							&& !((inQuotes || inField) && (i + 1 >= lineEnd || buffer[i + 1] == separator))) {
+						if (ignoreLeadingWhiteSpace && fieldLength > 0 && fieldAllWhiteSpace) {
+							// discard white space leading up to quote
+							resetField();
+						} else {
+							append(c);
+							isNull = false;
+							continue;
+						}
+					}
+					inQuotes = !inQuotes;
+					inField = !inField;
+					if (inQuotes || inField) {
+						isNull = false;
+					}
+				}
+			} else if (c == separator && !inQuotes) {
+				addToken();
+				inField = false;
+				isNull = true;
+			} else if (!strictQuotes || inQuotes) {
+				append(c);
+				inField = true;
+				isNull = false;
+			}
+		}
+	}
+
+	private void startRecord() {
+		tokens.clear();
+		resetField();
+		inQuotes = false;
+		inField = false;
+		isNull = true;
+	}
+
+	private void addToken() {
+		if (materialize) {
+			tokens.add(isNull ? null : new String(field, 0, fieldLength));
+		}
+		resetField();
+	}
+
+	private void resetField() {
+		fieldLength = 0;
+		fieldAllWhiteSpace = true;
+	}
+
+	private void append(char c) {
+		if (fieldLength == maxFieldLength) {
+			throw new CSVRuntimeException("A field exceeds the maximum length of " + maxFieldLength + " characters");
+		}
+		if (materialize) {
+			if (fieldLength == field.length) {
+				char[] grown = new char[Math.min(field.length * 2, maxFieldLength)];
+				System.arraycopy(field, 0, grown, 0, fieldLength);
+				field = grown;
+			}
+			field[fieldLength] = c;
+		}
+		fieldLength++;
+		if (fieldAllWhiteSpace && !Character.isWhitespace(c)) {
+			fieldAllWhiteSpace = false;
+		}
+	}
+
+}
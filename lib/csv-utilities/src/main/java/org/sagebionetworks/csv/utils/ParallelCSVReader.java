@@ -0,0 +1,218 @@
+package org.sagebionetworks.csv.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import au.com.bytecode.opencsv.CSVParser;
+import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVRuntimeException;
+
+/**
+ * A {@link CSVReader} that parses large chunks of the input in parallel and
+ * returns the records in their original order.
+ * <p>
+ * The input is read in chunks of about {@link #DEFAULT_CHUNK_SIZE} chars. On
+ * the calling thread each chunk is cut at the end of its last complete record,
+ * a quote aware scan that does not create any field (see
+ * {@link CSVChunkParser#findLastRecordEnd(char[], int, int)}). The records of
+ * the chunk are then parsed on the given executor while the next chunks are
+ * read. Up to maxChunksInFlight chunks are read ahead of the caller.
+ * <p>
+ * A record that spans several chunks is accumulated in a buffer that grows
+ * geometrically, a field longer than maxFieldLength fails the read with an
+ * IOException.
+ * <p>
+ * The records are the same as the ones of a {@link CSVReader} created with the
+ * same parameters.
+ */
+public class ParallelCSVReader extends CSVReader {
+
+	public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+	public static final int DEFAULT_MAX_CHUNKS_IN_FLIGHT = Runtime.getRuntime().availableProcessors();
+
+	private final Reader reader;
+	private final ExecutorService executor;
+	private final int chunkSize;
+	private final int maxChunksInFlight;
+	private final char separator;
+	private final char quotechar;
+	private final char escape;
+	private final int maxFieldLength;
+	private final CSVChunkParser scanner;
+
+	private final Deque<Future<List<String[]>>> chunksInFlight = new ArrayDeque<>();
+	private Iterator<String[]> currentRows = Collections.emptyIterator();
+	// The chars read but not submitted yet, starting with the incomplete record left over from the previous chunk
+	private char[] pending = new char[0];
+	private int pendingLength = 0;
+	private int linesToSkip;
+	private boolean endOfInput = false;
+
+	public ParallelCSVReader(Reader reader, char separator, char quotechar, char escape, int skipLines, ExecutorService executor) {
+		this(reader, separator, quotechar, escape, skipLines, executor, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CHUNKS_IN_FLIGHT);
+	}
+
+	public ParallelCSVReader(Reader reader, char separator, char quotechar, char escape, int skipLines, ExecutorService executor,
+			int chunkSize, int maxChunksInFlight) {
+		this(reader, separator, quotechar, escape, skipLines, executor, chunkSize, maxChunksInFlight, CSVChunkParser.DEFAULT_MAX_FIELD_LENGTH);
+	}
+
+	public ParallelCSVReader(Reader reader, char separator, char quotechar, char escape, int skipLines, ExecutorService executor,
+			int chunkSize, int maxChunksInFlight, int maxFieldLength) {
+		super(reader, separator, quotechar, escape, skipLines);
+		if (executor == null) {
+			throw new IllegalArgumentException("The executor is required");
+		}
+		if (chunkSize < 1 || maxChunksInFlight < 1) {
+			throw new IllegalArgumentException("The chunk size and the maximum number of chunks in flight must be greater than zero");
+		}
+		this.reader = reader;
+		this.executor = executor;
+		this.chunkSize = chunkSize;
+		this.maxChunksInFlight = maxChunksInFlight;
+		this.separator = separator;
+		this.quotechar = quotechar;
+		this.escape = escape;
+		this.maxFieldLength = maxFieldLength;
+		this.scanner = createParser();
+		this.linesToSkip = skipLines;
+	}
+
+	@Override
+	public String[] readNext() throws IOException {
+		while (!currentRows.hasNext()) {
+			submitChunks();
+			if (chunksInFlight.isEmpty()) {
+				return null;
+			}
+			currentRows = waitForRows(chunksInFlight.poll()).iterator();
+		}
+		// Keep the workers busy while the caller processes the rows
+		submitChunks();
+		return currentRows.next();
+	}
+
+	@Override
+	public List<String[]> readAll() throws IOException {
+		List<String[]> rows = new ArrayList<>();
+		for (String[] row = readNext(); row != null; row = readNext()) {
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Future<List<String[]>> chunk : chunksInFlight) {
+			chunk.cancel(true);
+		}
+		chunksInFlight.clear();
+		super.close();
+	}
+
+	private void submitChunks() throws IOException {
+		while (!endOfInput && chunksInFlight.size() < maxChunksInFlight) {
+			readChunk();
+		}
+	}
+
+	/**
+	 * Read the next chunk of the input and submit the parsing of its complete
+	 * records.
+	 */
+	private void readChunk() throws IOException {
+		if (pending.length - pendingLength < chunkSize) {
+			// Grows geometrically, a record that spans many chunks is not copied again for each chunk
+			pending = Arrays.copyOf(pending, Math.max(pendingLength + chunkSize, pending.length * 2));
+		}
+		char[] buffer = pending;
+		int length = pendingLength;
+		int limit = length + chunkSize;
+		while (length < limit) {
+			int count = reader.read(buffer, length, limit - length);
+			if (count < 0) {
+				endOfInput = true;
+				break;
+			}
+			length += count;
+		}
+		int start = skipLines(buffer, length);
+		int end;
+		if (linesToSkip > 0) {
+			// Still skipping lines, nothing to parse yet
+			end = start;
+		} else if (endOfInput) {
+			end = length;
+		} else {
+			try {
+				end = scanner.findLastRecordEnd(buffer, start, length);
+			} catch (CSVRuntimeException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+		if (end == start) {
+			// No complete record, the buffer keeps growing with the next chunk
+			if (start > 0) {
+				System.arraycopy(buffer, start, buffer, 0, length - start);
+			}
+			pendingLength = length - start;
+			return;
+		}
+		// The buffer now belongs to the parsing task, anything after the last complete record is read again with the next chunk
+		pending = Arrays.copyOfRange(buffer, end, length);
+		pendingLength = pending.length;
+		chunksInFlight.add(executor.submit(() -> {
+			List<String[]> rows = new ArrayList<>();
+			// The chunk ends with a complete record or at the end of the input
+			createParser().parse(buffer, start, end, true, rows::add);
+			return rows;
+		}));
+	}
+
+	/**
+	 * Skip the requested number of lines at the start of the input, the same as
+	 * the CSVReader the lines are skipped regardless of quotes.
+	 *
+	 * @return The index of the first char after the skipped lines
+	 */
+	private int skipLines(char[] buffer, int length) {
+		int start = 0;
+		while (linesToSkip > 0 && start < length) {
+			int nextLine = CSVChunkParser.findNextLine(buffer, start, length, endOfInput);
+			if (nextLine < 0) {
+				// The line continues in the next chunk
+				break;
+			}
+			start = nextLine;
+			linesToSkip--;
+		}
+		return start;
+	}
+
+	private CSVChunkParser createParser() {
+		return new CSVChunkParser(separator, quotechar, escape, CSVParser.DEFAULT_STRICT_QUOTES,
+				CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE, maxFieldLength);
+	}
+
+	private static List<String[]> waitForRows(Future<List<String[]>> chunk) throws IOException {
+		try {
+			return chunk.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+}
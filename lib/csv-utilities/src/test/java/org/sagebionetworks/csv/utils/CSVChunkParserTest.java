@@ -0,0 +1,179 @@
+package org.sagebionetworks.csv.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import au.com.bytecode.opencsv.CSVParser;
+import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVRuntimeException;
+import au.com.bytecode.opencsv.Constants;
+
+public class CSVChunkParserTest {
+
+	private CSVChunkParser parser = new CSVChunkParser();
+
+	@Test
+	public void testParse() {
+		List<String[]> rows = parse("a,b,c\n1,,\"\"\n");
+		assertEquals(2, rows.size());
+		assertArrayEquals(new String[] { "a", "b", "c" }, rows.get(0));
+		// empty fields are null unless quoted
+		assertArrayEquals(new String[] { "1", null, "" }, rows.get(1));
+	}
+
+	@Test
+	public void testParseWithQuotes() {
+		List<String[]> rows = parse("\"a,b\",\"say \"\"hi\"\"\",\"c\\\"d\"\r\n");
+		assertEquals(1, rows.size());
+		assertArrayEquals(new String[] { "a,b", "say \"hi\"", "c\"d" }, rows.get(0));
+	}
+
+	@Test
+	public void testParseWithMultiLineField() {
+		List<String[]> rows = parse("1,\"line one\r\nline two\",3\n4,5,6");
+		assertEquals(2, rows.size());
+		assertArrayEquals(new String[] { "1", "line one\nline two", "3" }, rows.get(0));
+		assertArrayEquals(new String[] { "4", "5", "6" }, rows.get(1));
+	}
+
+	@Test
+	public void testParseWithEmptyLinesAndBOM() {
+		List<String[]> rows = parse("\uFEFFa,b\n\n\r\nc,d\n");
+		assertEquals(2, rows.size());
+		assertArrayEquals(new String[] { "a", "b" }, rows.get(0));
+		assertArrayEquals(new String[] { "c", "d" }, rows.get(1));
+	}
+
+	@Test
+	public void testParseWithIncompleteRecord() {
+		char[] chars = "a,b\n\"c,d\ne".toCharArray();
+		List<String[]> rows = new ArrayList<>();
+		// call under test
+		int end = parser.parse(chars, 0, chars.length, false, rows::add);
+		assertEquals(4, end);
+		assertEquals(1, rows.size());
+	}
+
+	@Test
+	public void testFindLastRecordEnd() {
+		char[] chars = "a,b\n\"c\nd\",e\nf,\"g".toCharArray();
+		// call under test
+		assertEquals(12, parser.findLastRecordEnd(chars, 0, chars.length));
+		assertEquals(4, parser.findLastRecordEnd(chars, 0, 8));
+		assertEquals(0, parser.findLastRecordEnd(chars, 0, 3));
+	}
+
+	@Test
+	public void testParseWithMaxFieldLength() {
+		parser = new CSVChunkParser(Constants.DEFAULT_SEPARATOR, Constants.DEFAULT_QUOTE_CHARACTER, Constants.DEFAULT_ESCAPE_CHARACTER,
+				CSVParser.DEFAULT_STRICT_QUOTES, CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE, 5);
+		// call under test
+		List<String[]> rows = parse("abcde,\"ab\nc\"\n");
+		assertEquals(1, rows.size());
+		assertArrayEquals(new String[] { "abcde", "ab\nc" }, rows.get(0));
+
+		String message = assertThrows(CSVRuntimeException.class, () -> {
+			// call under test
+			parse("a,abcdef\n");
+		}).getMessage();
+		assertEquals("A field exceeds the maximum length of 5 characters", message);
+	}
+
+	@Test
+	public void testFindLastRecordEndWithMaxFieldLength() {
+		parser = new CSVChunkParser(Constants.DEFAULT_SEPARATOR, Constants.DEFAULT_QUOTE_CHARACTER, Constants.DEFAULT_ESCAPE_CHARACTER,
+				CSVParser.DEFAULT_STRICT_QUOTES, CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE, 5);
+		// An unterminated quote spanning lines
+		char[] chars = "a,b\n\"cd\nef\ng".toCharArray();
+
+		String message = assertThrows(CSVRuntimeException.class, () -> {
+			// call under test
+			parser.findLastRecordEnd(chars, 0, chars.length);
+		}).getMessage();
+		assertEquals("A field exceeds the maximum length of 5 characters", message);
+	}
+
+	@Test
+	public void testConstructorWithInvalidMaxFieldLength() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			new CSVChunkParser(Constants.DEFAULT_SEPARATOR, Constants.DEFAULT_QUOTE_CHARACTER, Constants.DEFAULT_ESCAPE_CHARACTER,
+					CSVParser.DEFAULT_STRICT_QUOTES, CSVParser.DEFAULT_IGNORE_LEADING_WHITESPACE, 0);
+		}).getMessage();
+		assertEquals("The maximum field length must be greater than zero", message);
+	}
+
+	@Test
+	public void testFindLastRecordEndWithCarriageReturn() {
+		char[] chars = "a,b\r\nc,d\r".toCharArray();
+		// The last '\r' could be followed by a '\n'
+		assertEquals(5, parser.findLastRecordEnd(chars, 0, chars.length));
+		assertEquals(0, parser.findLastRecordEnd(chars, 0, 4));
+	}
+
+	@Test
+	public void testFindNextLine() {
+		char[] chars = "a,\"b\nc\r\nd\r".toCharArray();
+		assertEquals(5, CSVChunkParser.findNextLine(chars, 0, chars.length, false));
+		assertEquals(8, CSVChunkParser.findNextLine(chars, 5, chars.length, false));
+		assertEquals(-1, CSVChunkParser.findNextLine(chars, 8, chars.length, false));
+		assertEquals(10, CSVChunkParser.findNextLine(chars, 8, chars.length, true));
+	}
+
+	/**
+	 * The records must match the ones of the CSVReader for any input, including
+	 * malformed ones.
+	 */
+	@Test
+	public void testParseMatchesCSVReader() throws IOException {
+		Random random = new Random(123);
+		String alphabet = "ab ,;\"'\\\n\r\t\uFEFF";
+		for (int i = 0; i < 20_000; i++) {
+			String csv = randomString(random, alphabet, random.nextInt(40));
+			char separator = random.nextBoolean() ? ',' : ';';
+			char quote = random.nextBoolean() ? '"' : '\'';
+			char escape = random.nextBoolean() ? Constants.DEFAULT_ESCAPE_CHARACTER : Constants.NO_ESCAPE_CHARACTER;
+
+			List<String[]> expected = new CSVReader(new StringReader(csv), separator, quote, escape).readAll();
+			List<String[]> actual = new ArrayList<>();
+			char[] chars = csv.toCharArray();
+			// call under test
+			new CSVChunkParser(separator, quote, escape).parse(chars, 0, chars.length, true, actual::add);
+
+			assertRowsEquals(expected, actual, csv);
+		}
+	}
+
+	static String randomString(Random random, String alphabet, int length) {
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return builder.toString();
+	}
+
+	static void assertRowsEquals(List<String[]> expected, List<String[]> actual, String csv) {
+		assertEquals(expected.size(), actual.size(), csv);
+		for (int i = 0; i < expected.size(); i++) {
+			String[] row = actual.get(i);
+			assertArrayEquals(expected.get(i), row, () -> csv + " " + Arrays.toString(row));
+		}
+	}
+
+	private List<String[]> parse(String csv) {
+		char[] chars = csv.toCharArray();
+		List<String[]> rows = new ArrayList<>();
+		parser.parse(chars, 0, chars.length, true, rows::add);
+		return rows;
+	}
+
+}
@@ -0,0 +1,106 @@
+package org.sagebionetworks.csv.utils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVWriter;
+import au.com.bytecode.opencsv.Constants;
+
+/**
+ * JMH benchmark of the {@link CSVReader} (line by line CSVParser) against the
+ * {@link CSVChunkParser} on a single thread and the {@link ParallelCSVReader}.
+ * The name of the class keeps it out of the regular test run, run the main
+ * method from the test classpath (e.g. from an IDE or with exec:java and
+ * classpathScope=test).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CSVParserBenchmark {
+
+	@Param({ "100000" })
+	private int rowCount;
+
+	private String csv;
+	private char[] chars;
+	private ExecutorService executor;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		Random random = new Random(123);
+		StringWriter writer = new StringWriter();
+		try (CSVWriter csvWriter = new CSVWriter(writer)) {
+			csvWriter.writeNext(new String[] { "id", "count", "flag", "category", "description", "score" });
+			for (int i = 0; i < rowCount; i++) {
+				csvWriter.writeNext(new String[] { Integer.toString(i), Integer.toString(random.nextInt(1_000_000)),
+						Boolean.toString(random.nextBoolean()), "category" + random.nextInt(10),
+						"A \"quoted\" description, with a comma\nand a line break " + random.nextInt(),
+						i % 10 == 0 ? null : Double.toString(random.nextDouble()) });
+			}
+		}
+		csv = writer.toString();
+		chars = csv.toCharArray();
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public void csvReader(Blackhole blackhole) throws IOException {
+		try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+			for (String[] row = reader.readNext(); row != null; row = reader.readNext()) {
+				blackhole.consume(row);
+			}
+		}
+	}
+
+	@Benchmark
+	public void chunkParser(Blackhole blackhole) {
+		new CSVChunkParser().parse(chars, 0, chars.length, true, blackhole::consume);
+	}
+
+	@Benchmark
+	public void parallelCSVReader(Blackhole blackhole) throws IOException {
+		try (CSVReader reader = new ParallelCSVReader(new StringReader(csv), Constants.DEFAULT_SEPARATOR,
+				Constants.DEFAULT_QUOTE_CHARACTER, Constants.DEFAULT_ESCAPE_CHARACTER, 0, executor)) {
+			for (String[] row = reader.readNext(); row != null; row = reader.readNext()) {
+				blackhole.consume(row);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(CSVParserBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
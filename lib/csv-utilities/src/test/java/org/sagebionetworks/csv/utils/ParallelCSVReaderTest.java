@@ -0,0 +1,155 @@
+package org.sagebionetworks.csv.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.Constants;
+
+public class ParallelCSVReaderTest {
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void before() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testReadNext() throws IOException {
+		String csv = "a,b,c\n1,\"two\nlines\",3\r\n4,\"5,5\",\n";
+		ParallelCSVReader reader = createReader(csv, 0, 4, 2);
+		// call under test
+		assertArrayEquals(new String[] { "a", "b", "c" }, reader.readNext());
+		assertArrayEquals(new String[] { "1", "two\nlines", "3" }, reader.readNext());
+		assertArrayEquals(new String[] { "4", "5,5", null }, reader.readNext());
+		assertNull(reader.readNext());
+		assertNull(reader.readNext());
+		reader.close();
+	}
+
+	@Test
+	public void testReadNextWithRecordLargerThanChunk() throws IOException {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			value.append("line ").append(i).append(",\n");
+		}
+		String csv = "1,\"" + value + "\"\n2,last";
+		ParallelCSVReader reader = createReader(csv, 0, 8, 1);
+		// call under test
+		assertArrayEquals(new String[] { "1", value.toString() }, reader.readNext());
+		assertArrayEquals(new String[] { "2", "last" }, reader.readNext());
+		assertNull(reader.readNext());
+	}
+
+	@Test
+	public void testReadNextWithFieldLongerThanMax() throws IOException {
+		// An unterminated quote would otherwise be buffered until the end of the input
+		StringBuilder csv = new StringBuilder("1,\"");
+		for (int i = 0; i < 100; i++) {
+			csv.append("line ").append(i).append('\n');
+		}
+		ParallelCSVReader reader = new ParallelCSVReader(new StringReader(csv.toString()), Constants.DEFAULT_SEPARATOR,
+				Constants.DEFAULT_QUOTE_CHARACTER, Constants.DEFAULT_ESCAPE_CHARACTER, 0, executor, 8, 1, 50);
+
+		String message = assertThrows(IOException.class, () -> {
+			// call under test
+			reader.readNext();
+		}).getMessage();
+		assertEquals("A field exceeds the maximum length of 50 characters", message);
+	}
+
+	@Test
+	public void testReadNextWithSkipLines() throws IOException {
+		String csv = "skip \"one\nskip two\r\na,b\n";
+		ParallelCSVReader reader = createReader(csv, 2, 3, 1);
+		// call under test
+		assertArrayEquals(new String[] { "a", "b" }, reader.readNext());
+		assertNull(reader.readNext());
+	}
+
+	@Test
+	public void testReadNextWithEmptyInput() throws IOException {
+		ParallelCSVReader reader = createReader("", 0, 16, 2);
+		// call under test
+		assertNull(reader.readNext());
+	}
+
+	@Test
+	public void testReadNextWithReadFailure() throws IOException {
+		IOException exception = new IOException("Failed");
+		Reader failing = new Reader() {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				throw exception;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		ParallelCSVReader reader = new ParallelCSVReader(failing, Constants.DEFAULT_SEPARATOR, Constants.DEFAULT_QUOTE_CHARACTER,
+				Constants.DEFAULT_ESCAPE_CHARACTER, 0, executor);
+
+		assertEquals(exception, assertThrows(IOException.class, () -> {
+			// call under test
+			reader.readNext();
+		}));
+	}
+
+	@Test
+	public void testConstructorWithNullExecutor() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			new ParallelCSVReader(new StringReader(""), Constants.DEFAULT_SEPARATOR, Constants.DEFAULT_QUOTE_CHARACTER,
+					Constants.DEFAULT_ESCAPE_CHARACTER, 0, null);
+		}).getMessage();
+		assertEquals("The executor is required", message);
+	}
+
+	/**
+	 * Whatever the size of the chunks, the records must match the ones of the
+	 * CSVReader.
+	 */
+	@Test
+	public void testReadNextMatchesCSVReader() throws IOException {
+		Random random = new Random(456);
+		String alphabet = "ab ,\"\\\n\r\uFEFF";
+		for (int i = 0; i < 5_000; i++) {
+			String csv = CSVChunkParserTest.randomString(random, alphabet, random.nextInt(60));
+			int skipLines = random.nextInt(3);
+
+			List<String[]> expected = new CSVReader(new StringReader(csv), Constants.DEFAULT_SEPARATOR,
+					Constants.DEFAULT_QUOTE_CHARACTER, Constants.DEFAULT_ESCAPE_CHARACTER, skipLines).readAll();
+			// call under test
+			List<String[]> actual = createReader(csv, skipLines, 1 + random.nextInt(8), 1 + random.nextInt(3)).readAll();
+
+			CSVChunkParserTest.assertRowsEquals(expected, actual, csv);
+		}
+	}
+
+	private ParallelCSVReader createReader(String csv, int skipLines, int chunkSize, int maxChunksInFlight) {
+		return new ParallelCSVReader(new StringReader(csv), Constants.DEFAULT_SEPARATOR, Constants.DEFAULT_QUOTE_CHARACTER,
+				Constants.DEFAULT_ESCAPE_CHARACTER, skipLines, executor, chunkSize, maxChunksInFlight);
+	}
+
+}
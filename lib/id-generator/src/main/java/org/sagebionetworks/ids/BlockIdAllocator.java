@@ -0,0 +1,183 @@
+package org.sagebionetworks.ids;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client side allocator that reserves contiguous blocks of IDs from the
+ * {@link IdGenerator} and hands them out from memory. The next block for a type
+ * is requested in the background once the current block is running low, so
+ * that most calls to {@link #generateNewId(IdType)} never wait on the database.
+ * <p>
+ * Every ID of a block is inserted in the ID database when the block is
+ * reserved, therefore the restore script always includes the IDs handed out
+ * by this allocator. IDs of a block that are never handed out (e.g. on
+ * shutdown) are simply skipped.
+ */
+public class BlockIdAllocator {
+
+	public static final int DEFAULT_BLOCK_SIZE = 100;
+
+	private final IdGenerator idGenerator;
+	private final int blockSize;
+	private final int refillThreshold;
+	private final Executor refillExecutor;
+	private final Map<IdType, TypeAllocator> allocators = new ConcurrentHashMap<>();
+
+	public BlockIdAllocator(IdGenerator idGenerator, int blockSize) {
+		this(idGenerator, blockSize, Executors.newSingleThreadExecutor((Runnable runnable) -> {
+			Thread thread = new Thread(runnable, "id-block-refill");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	BlockIdAllocator(IdGenerator idGenerator, int blockSize, Executor refillExecutor) {
+		if (idGenerator == null) {
+			throw new IllegalArgumentException("IdGenerator cannot be null");
+		}
+		if (blockSize < 1 || blockSize > IdGeneratorImpl.MAX_IDS_PER_CALL) {
+			throw new IllegalArgumentException("Block size must be between 1 and " + IdGeneratorImpl.MAX_IDS_PER_CALL);
+		}
+		this.idGenerator = idGenerator;
+		this.blockSize = blockSize;
+		// Start fetching the next block when a quarter of the current block is left
+		this.refillThreshold = blockSize / 4;
+		this.refillExecutor = refillExecutor;
+	}
+
+	/**
+	 * Get a new ID for the given type. IDs handed out by this method are unique
+	 * but are not guaranteed to be increasing across nodes.
+	 *
+	 * @param type
+	 * @return
+	 */
+	public Long generateNewId(IdType type) {
+		if (type == null) {
+			throw new IllegalArgumentException("Type cannot be null");
+		}
+		return allocators.computeIfAbsent(type, TypeAllocator::new).next();
+	}
+
+	/**
+	 * Reserve the given ID, see {@link IdGenerator#reserveId(Long, IdType)}. Any
+	 * block held in memory for the type is discarded so that IDs issued after
+	 * this call are always greater than the reserved ID.
+	 *
+	 * @param idToLock
+	 * @param type
+	 */
+	public void reserveId(Long idToLock, IdType type) {
+		idGenerator.reserveId(idToLock, type);
+		TypeAllocator allocator = allocators.get(type);
+		if (allocator != null) {
+			allocator.discard();
+		}
+	}
+
+	/**
+	 * Stops the background refill, called on shutdown.
+	 */
+	public void shutdown() {
+		if (refillExecutor instanceof ExecutorService) {
+			((ExecutorService) refillExecutor).shutdownNow();
+		}
+	}
+
+	private static final class Block {
+
+		private final long last;
+		private final long refillAt;
+		private final AtomicLong next;
+
+		private Block(IdRange range, int refillThreshold) {
+			this.last = range.getLast();
+			this.refillAt = range.getLast() - refillThreshold;
+			this.next = new AtomicLong(range.getFirst());
+		}
+
+		private Block() {
+			this.last = 0;
+			this.refillAt = 0;
+			this.next = new AtomicLong(1);
+		}
+
+		/**
+		 * Prevent any other ID from being handed out from this block
+		 */
+		private void close() {
+			next.set(last + 1);
+		}
+	}
+
+	private final class TypeAllocator {
+
+		private final IdType type;
+		// Only read without the lock, writes happen while holding the lock
+		private volatile Block current = new Block();
+		private CompletableFuture<IdRange> pending;
+
+		private TypeAllocator(IdType type) {
+			this.type = type;
+		}
+
+		long next() {
+			while (true) {
+				Block block = current;
+				long id = block.next.getAndIncrement();
+				if (id <= block.last) {
+					if (id == block.refillAt) {
+						startRefill();
+					}
+					return id;
+				}
+				advance(block);
+			}
+		}
+
+		private synchronized void startRefill() {
+			if (pending == null) {
+				pending = CompletableFuture.supplyAsync(() -> idGenerator.generateNewIds(type, blockSize), refillExecutor);
+			}
+		}
+
+		/**
+		 * Replace the given exhausted block with the next block, waiting for the
+		 * refill if it did not complete yet.
+		 */
+		private synchronized void advance(Block exhausted) {
+			if (current != exhausted) {
+				// Another thread already moved to the next block
+				return;
+			}
+			startRefill();
+			CompletableFuture<IdRange> refill = pending;
+			pending = null;
+			try {
+				current = new Block(refill.join(), refillThreshold);
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+
+		private synchronized void discard() {
+			current.close();
+			current = new Block();
+			if (pending != null) {
+				pending.cancel(false);
+				pending = null;
+			}
+		}
+	}
+
+}
@@ -13,6 +13,18 @@ public interface IdGenerator {
 	 */
 	public Long generateNewId(IdType type);
 	
+	/**
+	 * Generate a block of new contiguous Ids with a single call to the database.
+	 * Each ID in the returned range is issued exactly as if it was generated with
+	 * {@link #generateNewId(IdType)}.
+	 * 
+	 * @param type
+	 * @param count The number of IDs to generate, at most
+	 *              {@link IdGeneratorImpl#MAX_IDS_PER_CALL}
+	 * @return
+	 */
+	public IdRange generateNewIds(IdType type, int count);
+	
 	/**
 	 * Ensure that the given ID is reserved.  If the ID is not already reserved then, 
 	 * this method will reserve it and all values below it.
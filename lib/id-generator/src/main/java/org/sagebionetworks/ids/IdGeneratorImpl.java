@@ -3,6 +3,8 @@ package org.sagebionetworks.ids;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
 
 import javax.sql.DataSource;
 
@@ -10,6 +12,7 @@ import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
@@ -20,6 +23,18 @@ import org.springframework.jdbc.core.JdbcTemplate;
  */
 public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 	
+	/**
+	 * The maximum number of IDs that can be issued with a single call to
+	 * {@link #generateNewIds(IdType, int)}.
+	 */
+	public static final int MAX_IDS_PER_CALL = 1000;
+	
+	private static final String INSERT_MULTIPLE_ROWS = "INSERT INTO %1$S (CREATED_ON) VALUES ";
+	
+	private static final String INSERT_ROW_VALUE = "(UNIX_TIMESTAMP()*1000)";
+	
+	private static final String SELECT_LAST_INSERT_ID = "SELECT LAST_INSERT_ID()";
+	
 	private static final String SELECT_COUNT_FROM_TYPE = "SELECT COUNT(*) FROM %1$S";
 
 	private static final String DELETE_LESS_THAN_MAX = "DELETE FROM %1$S WHERE ID < %2$d LIMIT %3$d";
@@ -53,6 +68,43 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 		return idGeneratorJdbcTemplate.queryForObject("CALL generateNewId(?)", Long.class, type.name());
 	}
 	
+	/**
+	 * Note: This is a call to a separate database and does not participate in the
+	 * caller's transaction. Do not add transaction annotations to this method.
+	 * <p>
+	 * A multi-row INSERT is a "simple insert" for InnoDB, the auto-increment values
+	 * it generates are always consecutive and LAST_INSERT_ID() returns the first
+	 * of them. Since the LAST_INSERT_ID() is tied to the connection both statements
+	 * are executed using the same connection. A row is inserted for each ID so the
+	 * max ID used by the restore script always includes the whole range.
+	 */
+	@Override
+	public IdRange generateNewIds(IdType type, int count) {
+		if (type == null) {
+			throw new IllegalArgumentException("Type cannot be null");
+		}
+		if (count < 1 || count > MAX_IDS_PER_CALL) {
+			throw new IllegalArgumentException("Count must be between 1 and " + MAX_IDS_PER_CALL);
+		}
+		StringBuilder insertSql = new StringBuilder(String.format(INSERT_MULTIPLE_ROWS, type.name()));
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				insertSql.append(",");
+			}
+			insertSql.append(INSERT_ROW_VALUE);
+		}
+		long firstId = idGeneratorJdbcTemplate.execute((ConnectionCallback<Long>) (Connection con) -> {
+			try (Statement statement = con.createStatement()) {
+				statement.executeUpdate(insertSql.toString());
+				try (ResultSet rs = statement.executeQuery(SELECT_LAST_INSERT_ID)) {
+					rs.next();
+					return rs.getLong(1);
+				}
+			}
+		});
+		return new IdRange(firstId, firstId + count - 1);
+	}
+	
 	/**
 	 * Note: This is a call to a separate database and does not participate in the
 	 * caller's transaction. Do not add transaction annotations to this method.
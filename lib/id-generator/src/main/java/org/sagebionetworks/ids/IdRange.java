@@ -0,0 +1,68 @@
+package org.sagebionetworks.ids;
+
+import java.util.Objects;
+
+/**
+ * A contiguous range of IDs issued by the {@link IdGenerator}, both ends are
+ * inclusive.
+ */
+public class IdRange {
+
+	private final long first;
+	private final long last;
+
+	public IdRange(long first, long last) {
+		if (last < first) {
+			throw new IllegalArgumentException("The last ID cannot be less than the first ID");
+		}
+		this.first = first;
+		this.last = last;
+	}
+
+	/**
+	 * @return The first ID in the range
+	 */
+	public long getFirst() {
+		return first;
+	}
+
+	/**
+	 * @return The last ID in the range (inclusive)
+	 */
+	public long getLast() {
+		return last;
+	}
+
+	/**
+	 * @return The number of IDs in the range
+	 */
+	public int size() {
+		return (int) (last - first + 1);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(first, last);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		IdRange other = (IdRange) obj;
+		return first == other.first && last == other.last;
+	}
+
+	@Override
+	public String toString() {
+		return "IdRange [first=" + first + ", last=" + last + "]";
+	}
+
+}
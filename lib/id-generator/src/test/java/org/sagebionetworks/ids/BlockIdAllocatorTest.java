@@ -0,0 +1,159 @@
+package org.sagebionetworks.ids;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class BlockIdAllocatorTest {
+
+	@Mock
+	private IdGenerator mockIdGenerator;
+
+	private List<Runnable> submitted;
+	private boolean runDirectly;
+	private Executor executor;
+	private BlockIdAllocator allocator;
+
+	@BeforeEach
+	public void before() {
+		submitted = new ArrayList<>();
+		runDirectly = false;
+		// Unless runDirectly is set, refills are only executed when the test runs them
+		executor = (Runnable runnable) -> {
+			if (runDirectly) {
+				runnable.run();
+			} else {
+				submitted.add(runnable);
+			}
+		};
+		allocator = new BlockIdAllocator(mockIdGenerator, 4, executor);
+	}
+
+	private void runSubmitted() {
+		List<Runnable> toRun = new ArrayList<>(submitted);
+		submitted.clear();
+		toRun.forEach(Runnable::run);
+	}
+
+	@Test
+	public void testGenerateNewIdWithDirectRefill() {
+		allocator = new BlockIdAllocator(mockIdGenerator, 4, Runnable::run);
+		when(mockIdGenerator.generateNewIds(any(), anyInt())).thenReturn(new IdRange(10, 13), new IdRange(20, 23));
+
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			// call under test
+			ids.add(allocator.generateNewId(IdType.ENTITY_ID));
+		}
+
+		assertEquals(List.of(10L, 11L, 12L, 13L, 20L, 21L), ids);
+		verify(mockIdGenerator, times(2)).generateNewIds(IdType.ENTITY_ID, 4);
+	}
+
+	@Test
+	public void testGenerateNewIdWithRefillInBackground() {
+		when(mockIdGenerator.generateNewIds(any(), anyInt())).thenReturn(new IdRange(10, 13), new IdRange(20, 23));
+		runDirectly = true;
+
+		// The first block is needed right away
+		assertEquals(10L, allocator.generateNewId(IdType.ENTITY_ID));
+		runDirectly = false;
+		assertEquals(11L, allocator.generateNewId(IdType.ENTITY_ID));
+		assertEquals(12L, allocator.generateNewId(IdType.ENTITY_ID));
+		// Reaching the threshold submits the refill for the next block without waiting on it
+		assertEquals(1, submitted.size());
+		assertEquals(13L, allocator.generateNewId(IdType.ENTITY_ID));
+		verify(mockIdGenerator, times(1)).generateNewIds(IdType.ENTITY_ID, 4);
+
+		runSubmitted();
+
+		assertEquals(20L, allocator.generateNewId(IdType.ENTITY_ID));
+		verify(mockIdGenerator, times(2)).generateNewIds(IdType.ENTITY_ID, 4);
+	}
+
+	@Test
+	public void testGenerateNewIdWithMultipleTypes() {
+		allocator = new BlockIdAllocator(mockIdGenerator, 4, Runnable::run);
+		when(mockIdGenerator.generateNewIds(IdType.ENTITY_ID, 4)).thenReturn(new IdRange(10, 13));
+		when(mockIdGenerator.generateNewIds(IdType.FILE_IDS, 4)).thenReturn(new IdRange(10, 13));
+
+		assertEquals(10L, allocator.generateNewId(IdType.ENTITY_ID));
+		assertEquals(10L, allocator.generateNewId(IdType.FILE_IDS));
+		assertEquals(11L, allocator.generateNewId(IdType.ENTITY_ID));
+	}
+
+	@Test
+	public void testGenerateNewIdWithRefillFailure() {
+		allocator = new BlockIdAllocator(mockIdGenerator, 4, Runnable::run);
+		IllegalStateException failure = new IllegalStateException("failed");
+		when(mockIdGenerator.generateNewIds(any(), anyInt())).thenThrow(failure).thenReturn(new IdRange(10, 13));
+
+		IllegalStateException result = assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			allocator.generateNewId(IdType.ENTITY_ID);
+		});
+
+		assertEquals(failure, result);
+		// The next call should try again
+		assertEquals(10L, allocator.generateNewId(IdType.ENTITY_ID));
+	}
+
+	@Test
+	public void testGenerateNewIdWithNullType() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			allocator.generateNewId(null);
+		});
+	}
+
+	@Test
+	public void testReserveId() {
+		allocator = new BlockIdAllocator(mockIdGenerator, 4, Runnable::run);
+		when(mockIdGenerator.generateNewIds(any(), anyInt())).thenReturn(new IdRange(10, 13), new IdRange(21, 24));
+
+		assertEquals(10L, allocator.generateNewId(IdType.ENTITY_ID));
+
+		// call under test
+		allocator.reserveId(20L, IdType.ENTITY_ID);
+
+		// The rest of the block is discarded
+		assertEquals(21L, allocator.generateNewId(IdType.ENTITY_ID));
+		verify(mockIdGenerator).reserveId(20L, IdType.ENTITY_ID);
+		verify(mockIdGenerator, times(2)).generateNewIds(IdType.ENTITY_ID, 4);
+	}
+
+	@Test
+	public void testReserveIdWithNoBlock() {
+		// call under test
+		allocator.reserveId(20L, IdType.ENTITY_ID);
+
+		verify(mockIdGenerator).reserveId(20L, IdType.ENTITY_ID);
+		verifyNoMoreInteractions(mockIdGenerator);
+	}
+
+	@Test
+	public void testConstructorWithInvalidBlockSize() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new BlockIdAllocator(mockIdGenerator, 0, executor);
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			new BlockIdAllocator(mockIdGenerator, IdGeneratorImpl.MAX_IDS_PER_CALL + 1, executor);
+		});
+	}
+}
@@ -0,0 +1,67 @@
+package org.sagebionetworks.ids;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * JMH benchmark of the IDs issued one at a time by the {@link IdGenerator}
+ * against the IDs handed out by the {@link BlockIdAllocator}. It uses the ID
+ * database of the stack configuration. The name of the class keeps it out of
+ * the regular test run, run the main method from the test classpath (e.g. from
+ * an IDE or with exec:java and classpathScope=test).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+	private ClassPathXmlApplicationContext context;
+	private IdGenerator idGenerator;
+	private BlockIdAllocator blockIdAllocator;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		context = new ClassPathXmlApplicationContext("id-generator.spb.xml");
+		idGenerator = context.getBean(IdGenerator.class);
+		blockIdAllocator = context.getBean(BlockIdAllocator.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Long generateNewId() {
+		return idGenerator.generateNewId(IdType.ENTITY_ID);
+	}
+
+	@Benchmark
+	public Long blockIdAllocator() {
+		return blockIdAllocator.generateNewId(IdType.ENTITY_ID);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(IdGeneratorBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -2,8 +2,10 @@ package org.sagebionetworks.ids;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -61,6 +63,48 @@ public class IdGeneratorImplTest {
 		assertEquals(next.longValue(), id.longValue()+1);
 	}
 	
+	@Test
+	public void testGenerateNewIds(){
+		Long id = idGenerator.generateNewId(IdType.ENTITY_ID);
+		// call under test
+		IdRange range = idGenerator.generateNewIds(IdType.ENTITY_ID, 10);
+		assertEquals(id + 1, range.getFirst());
+		assertEquals(id + 10, range.getLast());
+		assertEquals(10, range.size());
+		// The whole range must be included in the restore script
+		assertEquals(range.getLast(), idGenerator.getMaxValueForType(IdType.ENTITY_ID));
+		Long next = idGenerator.generateNewId(IdType.ENTITY_ID);
+		assertEquals(range.getLast() + 1, next.longValue());
+	}
+	
+	@Test
+	public void testGenerateNewIdsWithInvalidCount(){
+		assertThrows(IllegalArgumentException.class, () -> {
+			idGenerator.generateNewIds(IdType.ENTITY_ID, 0);
+		});
+		assertThrows(IllegalArgumentException.class, () -> {
+			idGenerator.generateNewIds(IdType.ENTITY_ID, IdGeneratorImpl.MAX_IDS_PER_CALL + 1);
+		});
+	}
+	
+	@Test
+	public void testBlockIdAllocatorWithGenerateNewId(){
+		int count = BlockIdAllocator.DEFAULT_BLOCK_SIZE * 3;
+		Set<Long> unique = new HashSet<Long>();
+		BlockIdAllocator allocator = new BlockIdAllocator(idGenerator, BlockIdAllocator.DEFAULT_BLOCK_SIZE);
+		try {
+			for (int i = 0; i < count; i++) {
+				assertTrue(unique.add(idGenerator.generateNewId(IdType.ENTITY_ID)));
+				// call under test
+				assertTrue(unique.add(allocator.generateNewId(IdType.ENTITY_ID)));
+			}
+		} finally {
+			allocator.shutdown();
+		}
+		// The IDs handed out by the allocator must be included in the restore script
+		assertTrue(idGenerator.getMaxValueForType(IdType.ENTITY_ID) >= Collections.max(unique));
+	}
+	
 	@Test
 	public void testGetMaxValueForTypeWithValue() {
 		// activity will always have a value
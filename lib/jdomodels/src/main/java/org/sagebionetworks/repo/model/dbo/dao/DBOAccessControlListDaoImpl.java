@@ -37,6 +37,7 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.sagebionetworks.ids.BlockIdAllocator;
 import org.sagebionetworks.ids.IdGenerator;
 import org.sagebionetworks.ids.IdType;
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
@@ -261,6 +262,8 @@ public class DBOAccessControlListDaoImpl implements AccessControlListDAO {
 	@Autowired
 	private IdGenerator idGenerator;
 	@Autowired
+	private BlockIdAllocator blockIdAllocator;
+	@Autowired
 	TransactionalMessenger transactionalMessenger;
 	@Autowired
 	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
@@ -303,8 +306,8 @@ public class DBOAccessControlListDaoImpl implements AccessControlListDAO {
 		// Now create each Resource Access
 		for (ResourceAccess ra : resourceAccess) {
 			DBOResourceAccess dboRa = new DBOResourceAccess();
-			// assign an id
-			dboRa.setId(idGenerator.generateNewId(IdType.ACL_RES_ACC_ID));
+			// assign an id, the resource access IDs are internal so they are handed out from blocks reserved in the background
+			dboRa.setId(blockIdAllocator.generateNewId(IdType.ACL_RES_ACC_ID));
 			dboRa.setOwner(dboId);
 			if (ra.getPrincipalId() == null) {
 				throw new IllegalArgumentException(
@@ -176,6 +176,8 @@ public class DBOGroupMembersDAOImpl implements GroupMembersDAO {
 		
 		// Update the etag on the parent group
 		userGroupDAO.touch(Long.parseLong(groupId));
+		// Update the etag of the members, cached user information is checked against it
+		userGroupDAO.touchAll(sortedMemberIds);
 	}
 
 	@WriteTransaction
@@ -201,6 +203,8 @@ public class DBOGroupMembersDAOImpl implements GroupMembersDAO {
 		
 		// Update the etag on the parent group
 		userGroupDAO.touch(Long.parseLong(groupId));
+		// Update the etag of the members, cached user information is checked against it
+		userGroupDAO.touchAll(sortedMemberIds);
 	}
 
 	@Override
@@ -93,6 +93,11 @@ public class DBOUserGroupDAOImpl implements UserGroupDAO {
 			" SET "+SqlConstants.COL_USER_GROUP_E_TAG+"=:"+ETAG_PARAM_NAME+
 			" WHERE "+SqlConstants.COL_USER_GROUP_ID+"=:"+ID_PARAM_NAME;
 	
+	private static final String UPDATE_ETAG_MULTI_BY_PRINCIPAL_IDS = 
+			"UPDATE "+SqlConstants.TABLE_USER_GROUP+
+			" SET "+SqlConstants.COL_USER_GROUP_E_TAG+"=:"+ETAG_PARAM_NAME+
+			" WHERE "+SqlConstants.COL_USER_GROUP_ID+" IN (:"+ID_PARAM_NAME+")";
+	
 	private static final String SELECT_IS_INDIVIDUAL = 
 			"SELECT "+COL_USER_GROUP_IS_INDIVIDUAL+
 			" FROM "+TABLE_USER_GROUP+
@@ -313,6 +318,18 @@ public class DBOUserGroupDAOImpl implements UserGroupDAO {
 		namedJdbcTemplate.update(UPDATE_ETAG_LIST, param);
 	}
 
+	@WriteTransaction
+	@Override
+	public void touchAll(Collection<Long> principalIds) {
+		if (principalIds.isEmpty()) {
+			return;
+		}
+		MapSqlParameterSource param = new MapSqlParameterSource();
+		param.addValue(ID_PARAM_NAME, principalIds);
+		param.addValue(ETAG_PARAM_NAME, UUID.randomUUID().toString());
+		namedJdbcTemplate.update(UPDATE_ETAG_MULTI_BY_PRINCIPAL_IDS, param);
+	}
+
 	@Override
 	public boolean isIndividual(Long principalId) {
 		MapSqlParameterSource param = new MapSqlParameterSource();
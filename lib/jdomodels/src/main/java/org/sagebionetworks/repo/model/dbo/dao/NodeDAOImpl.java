@@ -66,6 +66,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -102,6 +103,8 @@ import org.sagebionetworks.repo.model.annotation.v2.AnnotationsV2Utils;
 import org.sagebionetworks.repo.model.dao.FileHandleMetadataType;
 import org.sagebionetworks.repo.model.dbo.DBOBasicDao;
 import org.sagebionetworks.repo.model.dbo.DDLUtilsImpl;
+import org.sagebionetworks.repo.model.dbo.entity.NodeAncestor;
+import org.sagebionetworks.repo.model.dbo.entity.NodeClosureDao;
 import org.sagebionetworks.repo.model.dbo.persistence.DBONode;
 import org.sagebionetworks.repo.model.dbo.persistence.DBORevision;
 import org.sagebionetworks.repo.model.dbo.persistence.NodeMapper;
@@ -192,6 +195,8 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 	private static final String UPDATE_NODE = "UPDATE " + TABLE_NODE + " SET " + COL_NODE_NAME + " = ?, "
 			+ COL_NODE_PARENT_ID + " = ?, " + COL_NODE_ALIAS + " = ? WHERE " + COL_NODE_ID + " = ?";
 	
+	private static final String SQL_SELECT_PARENT_ID = "SELECT " + COL_NODE_PARENT_ID + " FROM " + TABLE_NODE + " WHERE " + COL_NODE_ID + " = ?";
+	
 	private static final String SQL_UPDATE_ANNOTATIONS_FORMAT = "UPDATE " + TABLE_REVISION + " SET %s"
 			+ " = ? WHERE " + COL_REVISION_OWNER_NODE + " = ? AND " + COL_REVISION_NUMBER + " = ?";
 
@@ -441,6 +446,20 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 			+ TABLE_NODE + " AS N JOIN PATH ON (N." + COL_NODE_ID + " = PATH." + COL_NODE_PARENT_ID + ")" + " WHERE N."
 			+ COL_NODE_ID + " IS NOT NULL AND DISTANCE < "+NodeConstants.MAX_PATH_DEPTH_PLUS_ONE+" )" + " SELECT %1s FROM PATH ORDER BY DISTANCE DESC";
 	
+	/**
+	 * Same as {@link #PATH_QUERY_TEMPLATE} for a set of nodes, each row also
+	 * includes the id of the node (ENTITY_ID) the path belongs to.
+	 */
+	private static final String SQL_SELECT_ENTITY_PATHS = "WITH RECURSIVE PATH (ENTITY_ID, " + COL_NODE_ID + ", "
+			+ COL_NODE_NAME + ", " + COL_NODE_TYPE + ", " + COL_NODE_PARENT_ID + ", DISTANCE) AS " + "(SELECT "
+			+ COL_NODE_ID + ", " + COL_NODE_ID + ", " + COL_NODE_NAME + ", " + COL_NODE_TYPE + ", " + COL_NODE_PARENT_ID
+			+ ", 1 FROM " + TABLE_NODE + " AS N WHERE " + COL_NODE_ID + " IN (:" + BIND_NODE_IDS + ")" + " UNION ALL"
+			+ " SELECT PATH.ENTITY_ID, N." + COL_NODE_ID + ", N." + COL_NODE_NAME + ", N." + COL_NODE_TYPE + ", N."
+			+ COL_NODE_PARENT_ID + ", PATH.DISTANCE+ 1 FROM " + TABLE_NODE + " AS N JOIN PATH ON (N." + COL_NODE_ID
+			+ " = PATH." + COL_NODE_PARENT_ID + ")" + " WHERE N." + COL_NODE_ID + " IS NOT NULL AND DISTANCE < "
+			+ NodeConstants.MAX_PATH_DEPTH_PLUS_ONE + " )" + " SELECT ENTITY_ID, " + COL_NODE_ID + ", " + COL_NODE_NAME
+			+ ", " + COL_NODE_TYPE + " FROM PATH ORDER BY ENTITY_ID, DISTANCE DESC";
+	
 	private static final String UPDATE_REVISION_FILE_HANDLE = "UPDATE " + TABLE_REVISION + " SET " + COL_REVISION_FILE_HANDLE_ID
 			+ " = ? WHERE " + COL_REVISION_OWNER_NODE + " = ? AND " + COL_REVISION_NUMBER + " = ?";
 
@@ -510,6 +529,9 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 	@Autowired
 	private DBOBasicDao dboBasicDao;
 	
+	@Autowired
+	private NodeClosureDao nodeClosureDao;
+	
 	private final Long ROOT_NODE_ID = Long.parseLong(StackConfigurationSingleton.singleton().getRootFolderEntityId());
 	
 	private static final String BIND_ID_KEY = "bindId";
@@ -605,6 +627,7 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 		} catch(IllegalArgumentException e){
 			checkExceptionDetails(dboNode.getName(), dboNode.getAlias(), KeyFactory.keyToString(dboNode.getParentId()), e);
 		}
+		nodeClosureDao.addNode(dboNode.getId(), dboNode.getParentId());
 		dboBasicDao.createNew(dboRevision);		
 		return getNode("" + dboNode.getId());
 	}
@@ -964,6 +987,7 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 		String newName = updatedNode.getName();
 		Long newParentId = NodeUtils.translateNodeId(updatedNode.getParentId());
 		String newAlias = NodeUtils.translateAlias(updatedNode.getAlias());
+		List<Long> currentParentId = this.jdbcTemplate.queryForList(SQL_SELECT_PARENT_ID, Long.class, nodeId);
 
 		// Update the node.
 		try {
@@ -973,6 +997,10 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 			checkExceptionDetails(updatedNode.getName(), updatedNode.getAlias(), updatedNode.getParentId(),
 					new IllegalArgumentException(e));
 		}
+		// Keep the closure of the sub-tree in sync when the node is moved, the closure of a large sub-tree is left to the reconciliation worker
+		if (!currentParentId.isEmpty() && !Objects.equals(currentParentId.get(0), newParentId)) {
+			nodeClosureDao.moveNode(nodeId, newParentId, NodeClosureDao.MAX_SYNCHRONOUS_MOVE_SIZE);
+		}
 		// update the revision
 		long currentRevision = getCurrentRevisionNumber(updatedNode.getId());
 		Long newActivity = NodeUtils.translateActivityId(updatedNode.getActivityId());
@@ -1150,13 +1178,20 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 	}
 
 	/**
-	 * Call the getEntityBenefactorId() function to get the node's benefactor.
+	 * Get the node's benefactor from the closure table, or call the
+	 * getEntityBenefactorId() function when the closure of the node is not
+	 * consistent with the hierarchy.
 	 * 
 	 * @param nodeId
 	 * @return
 	 */
 	private Long getBenefactorId(Long nodeId) {
 		ValidateArgument.required(nodeId, "nodeId");
+		Optional<List<NodeAncestor>> closurePath = nodeClosureDao.getPath(nodeId);
+		if (closurePath.isPresent()) {
+			return closurePath.get().stream().filter(ancestor -> ancestor.getAclId() != null).findFirst()
+					.map(NodeAncestor::getId).orElse(null);
+		}
 		Long benefactorId = this.jdbcTemplate.queryForObject(SQL_SELECT_GET_ENTITY_BENEFACTOR_ID, Long.class, nodeId);
 		return benefactorId;
 	}
@@ -1300,6 +1335,10 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 	
 	@Override
 	public List<Long> getEntityPathIds(String nodeId) {
+		Optional<List<NodeAncestor>> closurePath = nodeClosureDao.getPath(KeyFactory.stringToKey(nodeId));
+		if (closurePath.isPresent()) {
+			return rootToLeaf(closurePath.get()).stream().map(NodeAncestor::getId).collect(Collectors.toList());
+		}
 		String selectColumns = COL_NODE_ID;
 		String sql = String.format(PATH_QUERY_TEMPLATE, selectColumns);
 		List<Long> path = jdbcTemplate.queryForList(sql, Long.class, KeyFactory.stringToKey(nodeId));
@@ -1309,6 +1348,10 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 	
 	@Override
 	public List<NameIdType> getEntityPath(String nodeId) throws DatastoreException, NotFoundException {
+		Optional<List<NodeAncestor>> closurePath = nodeClosureDao.getPath(KeyFactory.stringToKey(nodeId));
+		if (closurePath.isPresent()) {
+			return toNameIdTypes(closurePath.get());
+		}
 		String selectColumns = COL_NODE_ID+","+COL_NODE_NAME+","+COL_NODE_TYPE;
 		String sql = String.format(PATH_QUERY_TEMPLATE, selectColumns);
 		List<NameIdType> path = jdbcTemplate.query(sql, NAME_ID_TYPE_ROWMAPPER, KeyFactory.stringToKey(nodeId));
@@ -1316,6 +1359,51 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 		return path;
 	}
 	
+	@Override
+	public Map<Long, List<NameIdType>> getEntityPaths(Collection<Long> nodeIds) {
+		ValidateArgument.required(nodeIds, "nodeIds");
+		if (nodeIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<Long, List<NameIdType>> paths = new HashMap<>(nodeIds.size());
+		nodeClosureDao.getPaths(nodeIds).forEach((nodeId, closurePath) -> paths.put(nodeId, toNameIdTypes(closurePath)));
+		
+		// The nodes without a valid closure are resolved with a single recursive query
+		Set<Long> remainingIds = nodeIds.stream().filter(nodeId -> !paths.containsKey(nodeId)).collect(Collectors.toSet());
+		if (remainingIds.isEmpty()) {
+			return paths;
+		}
+		MapSqlParameterSource params = new MapSqlParameterSource(BIND_NODE_IDS, remainingIds);
+		Map<Long, List<NameIdType>> recursivePaths = new HashMap<>(remainingIds.size());
+		namedParameterJdbcTemplate.query(SQL_SELECT_ENTITY_PATHS, params, (ResultSet rs) -> {
+			Long entityId = rs.getLong("ENTITY_ID");
+			recursivePaths.computeIfAbsent(entityId, k -> new ArrayList<>()).add(NAME_ID_TYPE_ROWMAPPER.mapRow(rs, rs.getRow()));
+		});
+		recursivePaths.forEach((nodeId, path) -> validatePath(KeyFactory.keyToString(nodeId), path));
+		paths.putAll(recursivePaths);
+		return paths;
+	}
+	
+	private static List<NameIdType> toNameIdTypes(List<NodeAncestor> closurePath) {
+		return rootToLeaf(closurePath).stream().map(ancestor -> new NameIdType()
+				.withId(KeyFactory.keyToString(ancestor.getId()))
+				.withName(ancestor.getName())
+				.withType(EntityTypeUtils.getEntityTypeClassName(ancestor.getType()))
+		).collect(Collectors.toList());
+	}
+	
+	/**
+	 * The closure paths start with the node itself, the entity path starts from the root.
+	 * 
+	 * @param closurePath
+	 * @return
+	 */
+	private static List<NodeAncestor> rootToLeaf(List<NodeAncestor> closurePath) {
+		List<NodeAncestor> path = new ArrayList<>(closurePath);
+		Collections.reverse(path);
+		return path;
+	}
+	
 	/**
 	 * Validate the provide path result is valid.
 	 * @param nodeId
@@ -1754,6 +1842,11 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 	public Optional<String> getProjectId(String nodeId) {
 		ValidateArgument.required(nodeId, "nodeId");
 		long nodeIdLong = KeyFactory.stringToKey(nodeId);
+		Optional<List<NodeAncestor>> closurePath = nodeClosureDao.getPath(nodeIdLong);
+		if (closurePath.isPresent()) {
+			return closurePath.get().stream().filter(ancestor -> EntityType.project.equals(ancestor.getType())).findFirst()
+					.map(ancestor -> KeyFactory.keyToString(ancestor.getId()));
+		}
 		Long projectId = this.jdbcTemplate.queryForObject(SELECT_FUNCTION_PROJECT_ID, Long.class, nodeIdLong);
 		if(projectId == null){
 			/*
@@ -31,9 +31,11 @@ import org.sagebionetworks.ids.IdGenerator;
 import org.sagebionetworks.ids.IdType;
 import org.sagebionetworks.repo.model.IdRangeMapper;
 import org.sagebionetworks.repo.model.dbo.DBOBasicDao;
+import org.sagebionetworks.repo.model.dbo.feature.FeatureStatusDao;
 import org.sagebionetworks.repo.model.dbo.persistence.table.ColumnModelUtils;
 import org.sagebionetworks.repo.model.dbo.persistence.table.DBOTableIdSequence;
 import org.sagebionetworks.repo.model.dbo.persistence.table.DBOTableRowChange;
+import org.sagebionetworks.repo.model.feature.Feature;
 import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.table.ColumnChange;
 import org.sagebionetworks.repo.model.table.ColumnModel;
@@ -43,6 +45,7 @@ import org.sagebionetworks.repo.model.table.TableChangeType;
 import org.sagebionetworks.repo.model.table.TableRowChange;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.table.cluster.utils.SparseChangeSetColumnarFormat;
 import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.util.FileProvider;
 import org.sagebionetworks.util.ValidateArgument;
@@ -135,18 +138,20 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 	private SynapseS3Client s3Client;
 	private FileProvider fileProvider;
 	private IdGenerator idGenerator;
+	private FeatureStatusDao featureStatusDao;
 	private String s3Bucket;
 
 	RowMapper<DBOTableIdSequence> sequenceRowMapper = new DBOTableIdSequence().getTableMapping();
 	RowMapper<DBOTableRowChange> rowChangeMapper = new DBOTableRowChange().getTableMapping();
 	
 	@Autowired
-	public TableRowTruthDAOImpl(DBOBasicDao basicDao, JdbcTemplate jdbcTemplate, SynapseS3Client s3Client, FileProvider fileProvider, IdGenerator idGenerator) {
+	public TableRowTruthDAOImpl(DBOBasicDao basicDao, JdbcTemplate jdbcTemplate, SynapseS3Client s3Client, FileProvider fileProvider, IdGenerator idGenerator, FeatureStatusDao featureStatusDao) {
 		this.basicDao = basicDao;
 		this.jdbcTemplate = jdbcTemplate;
 		this.s3Client = s3Client;
 		this.fileProvider = fileProvider;
 		this.idGenerator = idGenerator;
+		this.featureStatusDao = featureStatusDao;
 	}
 	
 	@Autowired
@@ -209,8 +214,13 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 	@Override
 	public String appendRowSetToTable(String userId, String tableId, String etag, long versionNumber,
 			List<ColumnModel> columns, final SparseChangeSetDto delta, long transactionId, boolean hasFileRefs) {
-		// Write the delta to S3
-		String key = saveToS3((OutputStream out) -> TableModelUtils.writeSparesChangeSetToGz(delta, out));
+		// Write the delta to S3, the columnar format is opt-in since a stack that predates it cannot read it back
+		String key;
+		if (featureStatusDao.isFeatureEnabled(Feature.USE_COLUMNAR_TABLE_CHANGE_SET_FORMAT).orElse(false)) {
+			key = saveToS3((OutputStream out) -> SparseChangeSetColumnarFormat.write(delta, out));
+		} else {
+			key = saveToS3((OutputStream out) -> TableModelUtils.writeSparesChangeSetToGz(delta, out));
+		}
 		// record the change
 		DBOTableRowChange changeDBO = new DBOTableRowChange();
 		changeDBO.setId(idGenerator.generateNewId(IdType.TABLE_CHANGE_ID));
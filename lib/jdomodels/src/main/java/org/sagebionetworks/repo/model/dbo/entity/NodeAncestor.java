@@ -0,0 +1,88 @@
+package org.sagebionetworks.repo.model.dbo.entity;
+
+import java.util.Objects;
+
+import org.sagebionetworks.repo.model.EntityType;
+
+/**
+ * An element of the path of a node read from the node closure table, with the
+ * information needed to check the path against the node hierarchy.
+ *
+ */
+public class NodeAncestor {
+
+	private final Long id;
+	private final String name;
+	private final EntityType type;
+	private final Long parentId;
+	private final Long aclId;
+
+	public NodeAncestor(Long id, String name, EntityType type, Long parentId, Long aclId) {
+		this.id = id;
+		this.name = name;
+		this.type = type;
+		this.parentId = parentId;
+		this.aclId = aclId;
+	}
+
+	/**
+	 * @return The id of the ancestor
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * @return The name of the ancestor
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The type of the ancestor
+	 */
+	public EntityType getType() {
+		return type;
+	}
+
+	/**
+	 * @return The current parent of the ancestor, null for the root
+	 */
+	public Long getParentId() {
+		return parentId;
+	}
+
+	/**
+	 * @return The id of the ACL of the ancestor, null if the ancestor does not
+	 *         have an ACL
+	 */
+	public Long getAclId() {
+		return aclId;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(aclId, id, name, parentId, type);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof NodeAncestor)) {
+			return false;
+		}
+		NodeAncestor other = (NodeAncestor) obj;
+		return Objects.equals(aclId, other.aclId) && Objects.equals(id, other.id) && Objects.equals(name, other.name)
+				&& Objects.equals(parentId, other.parentId) && type == other.type;
+	}
+
+	@Override
+	public String toString() {
+		return "NodeAncestor [id=" + id + ", name=" + name + ", type=" + type + ", parentId=" + parentId + ", aclId="
+				+ aclId + "]";
+	}
+
+}
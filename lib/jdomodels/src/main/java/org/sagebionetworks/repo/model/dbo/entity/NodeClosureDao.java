@@ -0,0 +1,94 @@
+package org.sagebionetworks.repo.model.dbo.entity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Abstraction for the node closure table, a denormalized copy of the node
+ * hierarchy with one row for each node and each of its ancestors. The table is
+ * maintained in the same transaction as the node hierarchy. Since it is not
+ * migrated, the paths read from the table are checked against the current
+ * parent of each node and a path that does not match is never returned.
+ *
+ */
+public interface NodeClosureDao {
+
+	/**
+	 * The maximum number of nodes in a sub-tree whose closure is rewritten in the
+	 * transaction that moves it. The closure of a larger sub-tree is repaired
+	 * by the reconciliation worker instead.
+	 */
+	long MAX_SYNCHRONOUS_MOVE_SIZE = 1_000;
+
+	/**
+	 * Add the closure rows of a new node. Must be called in the transaction that
+	 * creates the node.
+	 *
+	 * @param nodeId
+	 * @param parentId The parent of the node, null for a root node
+	 */
+	void addNode(Long nodeId, Long parentId);
+
+	/**
+	 * Update the closure rows of the node and all its descendants after the node
+	 * was moved to a new parent. Must be called in the transaction that moves the
+	 * node.
+	 *
+	 * @param nodeId
+	 * @param newParentId
+	 * @param maxSubTreeSize The maximum number of nodes in the sub-tree (including
+	 *                       the node itself) for the closure to be updated
+	 * @return False if the closure was not updated, either since the new parent
+	 *         is within the sub-tree of the node (the move creates a cycle) or
+	 *         since the sub-tree has more than maxSubTreeSize nodes. The rows
+	 *         left in the table no longer match the hierarchy and are rejected
+	 *         when read.
+	 */
+	boolean moveNode(Long nodeId, Long newParentId, long maxSubTreeSize);
+
+	/**
+	 * Get the path of the given node from the closure table.
+	 *
+	 * @param nodeId
+	 * @return The path starting with the node itself and ending with the root.
+	 *         Empty if the node does not exist or if its closure does not match
+	 *         the node hierarchy.
+	 */
+	Optional<List<NodeAncestor>> getPath(Long nodeId);
+
+	/**
+	 * Batch version of {@link #getPath(Long)}.
+	 *
+	 * @param nodeIds
+	 * @return Map of node id to its path, nodes without a valid path are not
+	 *         included
+	 */
+	Map<Long, List<NodeAncestor>> getPaths(Collection<Long> nodeIds);
+
+	/**
+	 * Find the nodes within the given id range whose closure rows do not match
+	 * the node hierarchy, including the nodes without closure rows.
+	 *
+	 * @param minNodeId Inclusive
+	 * @param maxNodeId Inclusive
+	 * @return
+	 */
+	List<Long> getInconsistentNodeIds(long minNodeId, long maxNodeId);
+
+	/**
+	 * Rebuild the closure rows of the given nodes from the node hierarchy.
+	 *
+	 * @param nodeIds
+	 */
+	void rebuildClosure(List<Long> nodeIds);
+
+	/**
+	 * @param minNodeId Inclusive
+	 * @return The smallest node id greater or equal to the given id, empty if
+	 *         there is no such node
+	 */
+	Optional<Long> getFirstNodeId(long minNodeId);
+
+}
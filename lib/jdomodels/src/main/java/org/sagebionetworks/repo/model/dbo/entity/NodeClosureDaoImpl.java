@@ -0,0 +1,216 @@
+package org.sagebionetworks.repo.model.dbo.entity;
+
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_NODE_CLOSURE_ANCESTOR_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_NODE_CLOSURE_DISTANCE;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_NODE_CLOSURE_NODE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_NODE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_NODE;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_NODE_CLOSURE;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import org.sagebionetworks.repo.model.EntityType;
+import org.sagebionetworks.repo.model.NodeConstants;
+import org.sagebionetworks.repo.model.dbo.DDLUtilsImpl;
+import org.sagebionetworks.repo.transactions.MandatoryWriteTransaction;
+import org.sagebionetworks.repo.transactions.WriteTransaction;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class NodeClosureDaoImpl implements NodeClosureDao {
+
+	public static final String GET_INCONSISTENT_NODE_IDS_SQL = DDLUtilsImpl
+			.loadSQLFromClasspath("sql/GetInconsistentNodeClosureIds.sql");
+
+	public static final String REBUILD_NODE_CLOSURE_SQL = DDLUtilsImpl
+			.loadSQLFromClasspath("sql/RebuildNodeClosure.sql");
+
+	private static final String SQL_INSERT_SELF = "INSERT INTO " + TABLE_NODE_CLOSURE + " ("
+			+ COL_NODE_CLOSURE_NODE_ID + ", " + COL_NODE_CLOSURE_ANCESTOR_ID + ", " + COL_NODE_CLOSURE_DISTANCE
+			+ ") VALUES (:nodeId, :nodeId, 0)";
+
+	private static final String SQL_INSERT_PARENT_ANCESTORS = "INSERT INTO " + TABLE_NODE_CLOSURE + " ("
+			+ COL_NODE_CLOSURE_NODE_ID + ", " + COL_NODE_CLOSURE_ANCESTOR_ID + ", " + COL_NODE_CLOSURE_DISTANCE
+			+ ") SELECT :nodeId, " + COL_NODE_CLOSURE_ANCESTOR_ID + ", " + COL_NODE_CLOSURE_DISTANCE + " + 1 FROM "
+			+ TABLE_NODE_CLOSURE + " WHERE " + COL_NODE_CLOSURE_NODE_ID + " = :parentId";
+
+	/**
+	 * Delete the rows linking any node of the sub-tree (S) to any strict ancestor
+	 * of the moved node (O).
+	 */
+	private static final String SQL_DELETE_OLD_ANCESTORS = "DELETE D FROM " + TABLE_NODE_CLOSURE + " D"
+			+ " JOIN " + TABLE_NODE_CLOSURE + " S ON (D.NODE_ID = S.NODE_ID)"
+			+ " JOIN " + TABLE_NODE_CLOSURE + " O ON (D.ANCESTOR_ID = O.ANCESTOR_ID)"
+			+ " WHERE S.ANCESTOR_ID = :nodeId AND O.NODE_ID = :nodeId AND O.DISTANCE > 0";
+
+	/**
+	 * Link each node of the sub-tree (S) to each ancestor of the new parent (P),
+	 * including the new parent itself. A row left over by an earlier change that
+	 * was not fully applied gets the new distance.
+	 */
+	private static final String SQL_INSERT_NEW_ANCESTORS = "INSERT INTO " + TABLE_NODE_CLOSURE + " (NODE_ID, ANCESTOR_ID, DISTANCE)"
+			+ " SELECT S.NODE_ID, P.ANCESTOR_ID, S.DISTANCE + P.DISTANCE + 1"
+			+ " FROM " + TABLE_NODE_CLOSURE + " S JOIN " + TABLE_NODE_CLOSURE + " P"
+			+ " WHERE S.ANCESTOR_ID = :nodeId AND P.NODE_ID = :parentId"
+			+ " ON DUPLICATE KEY UPDATE DISTANCE = VALUES(DISTANCE)";
+
+	private static final String SQL_IS_IN_SUB_TREE = "SELECT COUNT(*) FROM " + TABLE_NODE_CLOSURE + " WHERE "
+			+ COL_NODE_CLOSURE_NODE_ID + " = :parentId AND " + COL_NODE_CLOSURE_ANCESTOR_ID + " = :nodeId";
+
+	private static final String SQL_COUNT_SUB_TREE = "SELECT COUNT(*) FROM (SELECT 1 FROM " + TABLE_NODE_CLOSURE
+			+ " WHERE " + COL_NODE_CLOSURE_ANCESTOR_ID + " = :nodeId LIMIT :limit) S";
+
+	private static final String SQL_SELECT_PATHS = "SELECT C.NODE_ID, C.DISTANCE, N.ID, N.NAME, N.NODE_TYPE, N.PARENT_ID, A.ID AS ACL_ID"
+			+ " FROM " + TABLE_NODE_CLOSURE + " C JOIN " + TABLE_NODE + " N ON (C.ANCESTOR_ID = N.ID)"
+			+ " LEFT JOIN ACL A ON (N.ID = A.OWNER_ID AND A.OWNER_TYPE = 'ENTITY')"
+			+ " WHERE C.NODE_ID IN (:nodeIds) ORDER BY C.NODE_ID, C.DISTANCE";
+
+	private static final String SQL_DELETE_CLOSURE = "DELETE FROM " + TABLE_NODE_CLOSURE + " WHERE "
+			+ COL_NODE_CLOSURE_NODE_ID + " IN (:nodeIds)";
+
+	private static final String SQL_SELECT_FIRST_NODE_ID = "SELECT MIN(" + COL_NODE_ID + ") FROM " + TABLE_NODE + " WHERE "
+			+ COL_NODE_ID + " >= ?";
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+	@MandatoryWriteTransaction
+	@Override
+	public void addNode(Long nodeId, Long parentId) {
+		ValidateArgument.required(nodeId, "nodeId");
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		params.addValue("nodeId", nodeId);
+		params.addValue("parentId", parentId);
+		namedJdbcTemplate.update(SQL_INSERT_SELF, params);
+		if (parentId != null) {
+			namedJdbcTemplate.update(SQL_INSERT_PARENT_ANCESTORS, params);
+		}
+	}
+
+	@MandatoryWriteTransaction
+	@Override
+	public boolean moveNode(Long nodeId, Long newParentId, long maxSubTreeSize) {
+		ValidateArgument.required(nodeId, "nodeId");
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		params.addValue("nodeId", nodeId);
+		params.addValue("parentId", newParentId);
+		params.addValue("limit", maxSubTreeSize + 1);
+		if (namedJdbcTemplate.queryForObject(SQL_COUNT_SUB_TREE, params, Long.class) > maxSubTreeSize) {
+			// The rewrite is proportional to the size of the sub-tree times its depth,
+			// too expensive for the transaction of the move. The rows are left to the
+			// reconciliation worker.
+			return false;
+		}
+		if (newParentId != null && namedJdbcTemplate.queryForObject(SQL_IS_IN_SUB_TREE, params, Long.class) > 0) {
+			// Moving the node under one of its descendants creates a cycle that the
+			// closure cannot represent. The rows are left untouched: they no longer
+			// match the hierarchy so they are rejected when read.
+			return false;
+		}
+		namedJdbcTemplate.update(SQL_DELETE_OLD_ANCESTORS, params);
+		if (newParentId != null) {
+			namedJdbcTemplate.update(SQL_INSERT_NEW_ANCESTORS, params);
+		}
+		return true;
+	}
+
+	@Override
+	public Optional<List<NodeAncestor>> getPath(Long nodeId) {
+		ValidateArgument.required(nodeId, "nodeId");
+		return Optional.ofNullable(getPaths(Collections.singletonList(nodeId)).get(nodeId));
+	}
+
+	@Override
+	public Map<Long, List<NodeAncestor>> getPaths(Collection<Long> nodeIds) {
+		ValidateArgument.required(nodeIds, "nodeIds");
+		if (nodeIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<Long, List<NodeAncestor>> paths = new LinkedHashMap<>(nodeIds.size());
+		Set<Long> invalid = new HashSet<>();
+		namedJdbcTemplate.query(SQL_SELECT_PATHS, new MapSqlParameterSource("nodeIds", nodeIds), (rs) -> {
+			Long nodeId = rs.getLong("NODE_ID");
+			List<NodeAncestor> path = paths.computeIfAbsent(nodeId, k -> new ArrayList<>());
+			// A gap in the distances means that a row is missing
+			if (rs.getInt("DISTANCE") != path.size()) {
+				invalid.add(nodeId);
+			}
+			Long parentId = rs.getLong("PARENT_ID");
+			if (rs.wasNull()) {
+				parentId = null;
+			}
+			Long aclId = rs.getLong("ACL_ID");
+			if (rs.wasNull()) {
+				aclId = null;
+			}
+			path.add(new NodeAncestor(rs.getLong("ID"), rs.getString("NAME"), EntityType.valueOf(rs.getString("NODE_TYPE")),
+					parentId, aclId));
+		});
+		paths.keySet().removeAll(invalid);
+		paths.entrySet().removeIf(e -> !isPathConsistent(e.getKey(), e.getValue()));
+		return paths;
+	}
+
+	/**
+	 * A path read from the closure table is consistent if it starts with the node
+	 * itself, each element is the current parent of the previous one and the last
+	 * element is a root.
+	 *
+	 * @param nodeId
+	 * @param path
+	 * @return
+	 */
+	static boolean isPathConsistent(Long nodeId, List<NodeAncestor> path) {
+		if (path.isEmpty() || path.size() > NodeConstants.MAX_PATH_DEPTH || !nodeId.equals(path.get(0).getId())) {
+			return false;
+		}
+		for (int i = 1; i < path.size(); i++) {
+			if (!Objects.equals(path.get(i - 1).getParentId(), path.get(i).getId())) {
+				return false;
+			}
+		}
+		return path.get(path.size() - 1).getParentId() == null;
+	}
+
+	@Override
+	public List<Long> getInconsistentNodeIds(long minNodeId, long maxNodeId) {
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		params.addValue("minNodeId", minNodeId);
+		params.addValue("maxNodeId", maxNodeId);
+		params.addValue("depth", NodeConstants.MAX_PATH_DEPTH_PLUS_ONE);
+		return namedJdbcTemplate.queryForList(GET_INCONSISTENT_NODE_IDS_SQL, params, Long.class);
+	}
+
+	@WriteTransaction
+	@Override
+	public void rebuildClosure(List<Long> nodeIds) {
+		ValidateArgument.required(nodeIds, "nodeIds");
+		if (nodeIds.isEmpty()) {
+			return;
+		}
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		params.addValue("nodeIds", nodeIds);
+		params.addValue("depth", NodeConstants.MAX_PATH_DEPTH_PLUS_ONE);
+		namedJdbcTemplate.update(SQL_DELETE_CLOSURE, params);
+		namedJdbcTemplate.update(REBUILD_NODE_CLOSURE_SQL, params);
+	}
+
+	@Override
+	public Optional<Long> getFirstNodeId(long minNodeId) {
+		return Optional.ofNullable(namedJdbcTemplate.getJdbcTemplate().queryForObject(SQL_SELECT_FIRST_NODE_ID, Long.class, minNodeId));
+	}
+
+}
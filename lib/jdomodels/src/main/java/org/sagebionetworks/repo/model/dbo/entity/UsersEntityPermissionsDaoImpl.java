@@ -24,9 +24,12 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class UsersEntityPermissionsDaoImpl implements UsersEntityPermissionsDao {
 
-	public static final String GET_ENTITY_PERMISSION_SQL = DDLUtilsImpl
+	private static final String GET_ENTITY_PERMISSION_TEMPLATE = DDLUtilsImpl
 			.loadSQLFromClasspath("sql/GetEntityPermissions.sql");
 
+	public static final String GET_ENTITY_PERMISSION_SQL = String.format(GET_ENTITY_PERMISSION_TEMPLATE,
+			DDLUtilsImpl.loadSQLFromClasspath("sql/GetEntityBenefactorsFromClosure.sql"));
+
 	@Autowired
 	private NamedParameterJdbcTemplate namedJdbcTemplate;
 
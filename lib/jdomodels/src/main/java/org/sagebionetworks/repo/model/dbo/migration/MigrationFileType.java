@@ -4,7 +4,26 @@ import org.sagebionetworks.util.ValidateArgument;
 
 public enum MigrationFileType {
 
-	JSON, XML;
+	/**
+	 * A single JSON array of objects.
+	 */
+	JSON,
+	/**
+	 * Deprecated XStream format, can only be read.
+	 */
+	XML,
+	/**
+	 * Newline delimited JSON: one compact JSON object per line, so that a file can
+	 * be written and read one object at a time.
+	 */
+	NDJSON;
+
+	/**
+	 * @return The extension used for files of this type.
+	 */
+	public String getFileExtension() {
+		return name().toLowerCase();
+	}
 
 	public static MigrationFileType fromFileName(String fileName) {
 		ValidateArgument.required(fileName, "fileName");
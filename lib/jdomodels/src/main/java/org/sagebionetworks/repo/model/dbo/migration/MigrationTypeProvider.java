@@ -2,6 +2,7 @@ package org.sagebionetworks.repo.model.dbo.migration;
 
 import java.io.InputStream;
 import java.io.Writer;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +26,28 @@ public interface MigrationTypeProvider {
 
 	void writeObjects(List<?> backupObjects, Writer writer);
 
+	/**
+	 * Write the given backup objects in the given format.
+	 * 
+	 * @param backupObjects
+	 * @param writer
+	 * @param fileType      Either {@link MigrationFileType#JSON} or
+	 *                      {@link MigrationFileType#NDJSON}
+	 */
+	void writeObjects(List<?> backupObjects, Writer writer, MigrationFileType fileType);
+
 	<B> Optional<List<B>> readObjects(Class<? extends B> clazz, BackupAliasType backupAliasType, InputStream input,
 			MigrationFileType fileType);
 
+	/**
+	 * Lazily read the objects of a {@link MigrationFileType#NDJSON} file. Each call
+	 * to {@link Iterator#next()} reads a single line from the input, the input is
+	 * not closed.
+	 * 
+	 * @param clazz
+	 * @param input
+	 * @return
+	 */
+	<B> Iterator<B> streamObjects(Class<? extends B> clazz, InputStream input);
+
 }
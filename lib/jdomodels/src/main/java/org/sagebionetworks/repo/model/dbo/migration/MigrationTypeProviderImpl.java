@@ -1,13 +1,18 @@
 package org.sagebionetworks.repo.model.dbo.migration;
 
+import java.io.BufferedReader;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import org.apache.commons.io.IOUtils;
@@ -73,6 +78,39 @@ public class MigrationTypeProviderImpl implements MigrationTypeProvider {
 		}
 	}
 
+	@Override
+	public void writeObjects(List<?> backupObjects, Writer writer, MigrationFileType fileType) {
+		switch (fileType) {
+		case JSON:
+			writeObjects(backupObjects, writer);
+			return;
+		case NDJSON:
+			writeNDJSON(backupObjects, writer);
+			return;
+		default:
+			throw new IllegalArgumentException("Cannot write files of type: " + fileType);
+		}
+	}
+
+	/**
+	 * Write each object that contains data as a compact JSON object on its own
+	 * line. JSON escapes line breaks within strings so a line is always a single
+	 * object.
+	 */
+	void writeNDJSON(List<?> backupObjects, Writer writer) {
+		try {
+			for (Object o : backupObjects) {
+				Optional<JSONObject> option = JavaJSONUtil.writeToJSON(o);
+				if (option.isPresent()) {
+					option.get().write(writer);
+					writer.append('\n');
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	public <B> Optional<List<B>> readObjects(Class<? extends B> clazz, BackupAliasType backupAliasType,
 			InputStream input, MigrationFileType fileType) {
@@ -81,6 +119,8 @@ public class MigrationTypeProviderImpl implements MigrationTypeProvider {
 			return readXML(clazz, backupAliasType, input);
 		case JSON:
 			return readJSON(clazz, backupAliasType, input);
+		case NDJSON:
+			return readNDJSON(clazz, input);
 		default:
 			throw new IllegalStateException("Unknown type: " + fileType);
 		}
@@ -95,6 +135,50 @@ public class MigrationTypeProviderImpl implements MigrationTypeProvider {
 		}
 	}
 
+	<B> Optional<List<B>> readNDJSON(Class<? extends B> clazz, InputStream input) {
+		List<B> backupObjects = new LinkedList<>();
+		streamObjects(clazz, input).forEachRemaining(backupObjects::add);
+		return backupObjects.isEmpty() ? Optional.empty() : Optional.of(backupObjects);
+	}
+
+	@Override
+	public <B> Iterator<B> streamObjects(Class<? extends B> clazz, InputStream input) {
+		// The reader is not closed as it would close the input.
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		return new Iterator<B>() {
+
+			private String nextLine;
+
+			@Override
+			public boolean hasNext() {
+				try {
+					while (nextLine == null) {
+						String line = reader.readLine();
+						if (line == null) {
+							return false;
+						}
+						if (!line.isBlank()) {
+							nextLine = line;
+						}
+					}
+					return true;
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+			@Override
+			public B next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				String line = nextLine;
+				nextLine = null;
+				return JavaJSONUtil.readFromJSON(clazz, new JSONObject(line));
+			}
+		};
+	}
+
 	/**
 	 * This will be removed.
 	 * 
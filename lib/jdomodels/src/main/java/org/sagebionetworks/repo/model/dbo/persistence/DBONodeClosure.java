@@ -0,0 +1,116 @@
+package org.sagebionetworks.repo.model.dbo.persistence;
+
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_NODE_CLOSURE_ANCESTOR_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_NODE_CLOSURE_DISTANCE;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_NODE_CLOSURE_NODE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.DDL_FILE_NODE_CLOSURE;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_NODE_CLOSURE;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+import org.sagebionetworks.repo.model.dbo.DatabaseObject;
+import org.sagebionetworks.repo.model.dbo.FieldColumn;
+import org.sagebionetworks.repo.model.dbo.TableMapping;
+
+/**
+ * A DBO for a row of the node closure table: one row for each node and each of
+ * its ancestors, including the node itself at distance zero. Note: The closure
+ * does not migrate, as it is derived from the node hierarchy of each stack.
+ *
+ */
+public class DBONodeClosure implements DatabaseObject<DBONodeClosure> {
+
+	private static FieldColumn[] FIELDS = new FieldColumn[] {
+			new FieldColumn("nodeId", COL_NODE_CLOSURE_NODE_ID, true),
+			new FieldColumn("ancestorId", COL_NODE_CLOSURE_ANCESTOR_ID, true),
+			new FieldColumn("distance", COL_NODE_CLOSURE_DISTANCE), };
+
+	private Long nodeId;
+	private Long ancestorId;
+	private Integer distance;
+
+	@Override
+	public TableMapping<DBONodeClosure> getTableMapping() {
+		return new TableMapping<DBONodeClosure>() {
+
+			@Override
+			public DBONodeClosure mapRow(ResultSet rs, int rowNum) throws SQLException {
+				DBONodeClosure dbo = new DBONodeClosure();
+				dbo.setNodeId(rs.getLong(COL_NODE_CLOSURE_NODE_ID));
+				dbo.setAncestorId(rs.getLong(COL_NODE_CLOSURE_ANCESTOR_ID));
+				dbo.setDistance(rs.getInt(COL_NODE_CLOSURE_DISTANCE));
+				return dbo;
+			}
+
+			@Override
+			public String getTableName() {
+				return TABLE_NODE_CLOSURE;
+			}
+
+			@Override
+			public String getDDLFileName() {
+				return DDL_FILE_NODE_CLOSURE;
+			}
+
+			@Override
+			public FieldColumn[] getFieldColumns() {
+				return FIELDS;
+			}
+
+			@Override
+			public Class<? extends DBONodeClosure> getDBOClass() {
+				return DBONodeClosure.class;
+			}
+		};
+	}
+
+	public Long getNodeId() {
+		return nodeId;
+	}
+
+	public void setNodeId(Long nodeId) {
+		this.nodeId = nodeId;
+	}
+
+	public Long getAncestorId() {
+		return ancestorId;
+	}
+
+	public void setAncestorId(Long ancestorId) {
+		this.ancestorId = ancestorId;
+	}
+
+	public Integer getDistance() {
+		return distance;
+	}
+
+	public void setDistance(Integer distance) {
+		this.distance = distance;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(ancestorId, distance, nodeId);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DBONodeClosure)) {
+			return false;
+		}
+		DBONodeClosure other = (DBONodeClosure) obj;
+		return Objects.equals(ancestorId, other.ancestorId) && Objects.equals(distance, other.distance)
+				&& Objects.equals(nodeId, other.nodeId);
+	}
+
+	@Override
+	public String toString() {
+		return "DBONodeClosure [nodeId=" + nodeId + ", ancestorId=" + ancestorId + ", distance=" + distance + "]";
+	}
+
+}
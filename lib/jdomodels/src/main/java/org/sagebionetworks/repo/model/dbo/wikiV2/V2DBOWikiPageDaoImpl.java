@@ -1,5 +1,9 @@
 package org.sagebionetworks.repo.model.dbo.wikiV2;
 
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_FILES_BUCKET_NAME;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_FILES_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_FILES_KEY;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_FILES;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.V2_COL_WIKI_ATTACHMENT_RESERVATION_FILE_HANDLE_ID;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.V2_COL_WIKI_ATTACHMENT_RESERVATION_ID;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.V2_COL_WIKI_ETAG;
@@ -56,6 +60,7 @@ import org.sagebionetworks.repo.model.message.ChangeType;
 import org.sagebionetworks.repo.model.message.MessageToSend;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
 import org.sagebionetworks.repo.model.v2.dao.V2WikiPageDao;
+import org.sagebionetworks.repo.model.v2.dao.V2WikiPageMarkdownFile;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiHeader;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiHistorySnapshot;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiMarkdownVersion;
@@ -135,6 +140,16 @@ public class V2DBOWikiPageDaoImpl implements V2WikiPageDao {
 			"SELECT "+V2_COL_WIKI_MARKDOWN_ATTACHMENT_ID_LIST
 			+" FROM "+V2_TABLE_WIKI_MARKDOWN
 			+" WHERE "+V2_COL_WIKI_MARKDOWN_ID+" = ?";
+	private static final String SQL_SELECT_CURRENT_MARKDOWN_FILES = "SELECT WP." + V2_COL_WIKI_ID + ", WP."
+			+ V2_COL_WIKI_MARKDOWN_VERSION + ", WM." + V2_COL_WIKI_MARKDOWN_TITLE + ", WM." + V2_COL_WIKI_MARKDOWN_FILE_HANDLE_ID
+			+ ", F." + COL_FILES_BUCKET_NAME + ", F." + COL_FILES_KEY
+			+ " FROM " + V2_TABLE_WIKI_OWNERS + " WO"
+			+ " JOIN " + V2_TABLE_WIKI_PAGE + " WP ON (WP." + V2_COL_WIKI_ROOT_ID + " = WO." + V2_COL_WIKI_ONWERS_ROOT_WIKI_ID + ")"
+			+ " JOIN " + V2_TABLE_WIKI_MARKDOWN + " WM ON (WM." + V2_COL_WIKI_MARKDOWN_ID + " = WP." + V2_COL_WIKI_ID
+			+ " AND WM." + V2_COL_WIKI_MARKDOWN_VERSION_NUM + " = WP." + V2_COL_WIKI_MARKDOWN_VERSION + ")"
+			+ " JOIN " + TABLE_FILES + " F ON (F." + COL_FILES_ID + " = WM." + V2_COL_WIKI_MARKDOWN_FILE_HANDLE_ID + ")"
+			+ " WHERE WO." + V2_COL_WIKI_ONWERS_OWNER_ID + " = ? AND WO." + V2_COL_WIKI_ONWERS_OBJECT_TYPE + " = ?"
+			+ " ORDER BY WP." + V2_COL_WIKI_PARENT_ID + ", WP." + V2_COL_WIKI_TITLE + " LIMIT ?";
 	private static final String SQL_UPDATE_WIKI_ETAG =
 			"UPDATE " + V2_TABLE_WIKI_PAGE + " SET " + V2_COL_WIKI_ETAG + " = ? " +
 			"WHERE " + V2_COL_WIKI_ID + " = ?";
@@ -522,7 +537,31 @@ public class V2DBOWikiPageDaoImpl implements V2WikiPageDao {
 	public String getMarkdown(WikiPageKey key, Long version) throws IOException, NotFoundException {
 		V2WikiPage wiki = get(key, version);
 		S3FileHandle markdownHandle = (S3FileHandle) fileMetadataDao.get(wiki.getMarkdownFileHandleId());
-		S3Object s3Object = s3Client.getObject(markdownHandle.getBucketName(), markdownHandle.getKey());
+		return readMarkdown(markdownHandle.getBucketName(), markdownHandle.getKey());
+	}
+	
+	@Override
+	public List<V2WikiPageMarkdownFile> getCurrentMarkdownFiles(String ownerId, ObjectType ownerType, long limit) {
+		ValidateArgument.required(ownerId, "ownerId");
+		ValidateArgument.required(ownerType, "ownerType");
+		return jdbcTemplate.query(SQL_SELECT_CURRENT_MARKDOWN_FILES, (ResultSet rs, int rowNum) -> new V2WikiPageMarkdownFile(
+				rs.getString(V2_COL_WIKI_ID),
+				rs.getLong(V2_COL_WIKI_MARKDOWN_VERSION),
+				rs.getString(V2_COL_WIKI_MARKDOWN_TITLE),
+				rs.getLong(V2_COL_WIKI_MARKDOWN_FILE_HANDLE_ID),
+				rs.getString(COL_FILES_BUCKET_NAME),
+				rs.getString(COL_FILES_KEY)
+		), KeyFactory.stringToKey(ownerId), ownerType.name(), limit);
+	}
+	
+	@Override
+	public String downloadMarkdown(V2WikiPageMarkdownFile markdownFile) throws IOException {
+		ValidateArgument.required(markdownFile, "markdownFile");
+		return readMarkdown(markdownFile.getBucketName(), markdownFile.getKey());
+	}
+	
+	private String readMarkdown(String bucketName, String key) throws IOException {
+		S3Object s3Object = s3Client.getObject(bucketName, key);
 		String contentType = s3Object.getObjectMetadata().getContentType();
 		Charset charset = ContentTypeUtil.getCharsetFromContentTypeString(contentType);
 		try (InputStream in = s3Object.getObjectContent()) {
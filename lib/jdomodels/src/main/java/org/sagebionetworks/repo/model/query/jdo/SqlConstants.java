@@ -50,6 +50,13 @@ public class SqlConstants {
 	public static final String COL_REVISION_DEFINING_SQL	= "DEFINING_SQL";
 	public static final String DDL_FILE_REVISION			="schema/Revision-ddl.sql";
 	
+	// The node closure table
+	public static final String TABLE_NODE_CLOSURE				= "NODE_CLOSURE";
+	public static final String COL_NODE_CLOSURE_NODE_ID			= "NODE_ID";
+	public static final String COL_NODE_CLOSURE_ANCESTOR_ID		= "ANCESTOR_ID";
+	public static final String COL_NODE_CLOSURE_DISTANCE		= "DISTANCE";
+	public static final String DDL_FILE_NODE_CLOSURE			= "schema/NodeClosure-ddl.sql";
+	
 	public static final String TABLE_STACK_STATUS		= "STACK_STATUS";
 	
 	
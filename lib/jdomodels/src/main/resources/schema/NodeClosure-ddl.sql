@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS `NODE_CLOSURE` (
+  `NODE_ID` BIGINT NOT NULL,
+  `ANCESTOR_ID` BIGINT NOT NULL,
+  `DISTANCE` INT NOT NULL,
+  PRIMARY KEY (`NODE_ID`, `ANCESTOR_ID`),
+  INDEX `NODE_CLOSURE_ANCESTOR` (`ANCESTOR_ID`, `DISTANCE`),
+  CONSTRAINT `NODE_CLOSURE_NODE_FK` FOREIGN KEY (`NODE_ID`) REFERENCES `NODE` (`ID`) ON DELETE CASCADE,
+  CONSTRAINT `NODE_CLOSURE_ANCESTOR_FK` FOREIGN KEY (`ANCESTOR_ID`) REFERENCES `NODE` (`ID`) ON DELETE CASCADE
+)
@@ -0,0 +1,43 @@
+/*
+ * For each entity, the benefactor is the ancestor with an ACL at the smallest DISTANCE in the node closure table.
+ *
+ * The closure of an entity is only used when it matches the node hierarchy (VALID table): it contains the entity itself
+ * at distance zero, the parent of each ancestor is the ancestor at the next distance and the last ancestor is a root.
+ * For any other entity the WALK table walks the node hierarchy until an ACL is found, only the last row with an ACL_ID
+ * is kept.
+ */
+		WITH RECURSIVE
+			VALID AS (
+				SELECT C.NODE_ID
+					FROM NODE_CLOSURE C JOIN NODE N ON (C.ANCESTOR_ID = N.ID)
+					LEFT JOIN NODE_CLOSURE P ON (C.NODE_ID = P.NODE_ID AND N.PARENT_ID = P.ANCESTOR_ID AND P.DISTANCE = C.DISTANCE + 1)
+					WHERE C.NODE_ID IN (:entityIds)
+					GROUP BY C.NODE_ID
+					HAVING SUM(C.DISTANCE = 0 AND C.ANCESTOR_ID = C.NODE_ID) = 1
+						AND SUM(N.PARENT_ID IS NULL) = 1
+						AND SUM(N.PARENT_ID IS NOT NULL AND P.NODE_ID IS NULL) = 0
+						AND COUNT(*) = MAX(C.DISTANCE) + 1
+						AND COUNT(*) < :depth
+			),
+			CLOSEST AS (
+				SELECT C.NODE_ID, MIN(C.DISTANCE) AS DISTANCE
+					FROM VALID JOIN NODE_CLOSURE C ON (VALID.NODE_ID = C.NODE_ID)
+					JOIN ACL A ON (C.ANCESTOR_ID = A.OWNER_ID AND A.OWNER_TYPE = 'ENTITY')
+					GROUP BY C.NODE_ID
+			),
+			WALK (ENTITY_ID, PARENT_ID, BENEFACTOR_ID, ACL_ID, DEPTH) AS (
+				SELECT N.ID, N.PARENT_ID, N.ID AS BENEFACTOR_ID, A.ID AS ACL_ID, 1 AS DEPTH
+					FROM NODE N LEFT JOIN ACL A ON (N.ID = A.OWNER_ID AND A.OWNER_TYPE = 'ENTITY')
+					WHERE N.ID IN (:entityIds) AND N.ID NOT IN (SELECT NODE_ID FROM VALID)
+				UNION DISTINCT
+				SELECT WALK.ENTITY_ID, N.PARENT_ID, N.ID AS BENEFACTOR_ID,
+					A.ID AS ACL_ID, WALK.DEPTH + 1 AS DEPTH
+					FROM WALK JOIN NODE N ON (WALK.PARENT_ID = N.ID)
+					LEFT JOIN ACL A ON (N.ID = A.OWNER_ID AND A.OWNER_TYPE = 'ENTITY')
+					WHERE WALK.ACL_ID IS NULL AND DEPTH < :depth
+			)
+		SELECT CLOSEST.NODE_ID AS ENTITY_ID, C.ANCESTOR_ID AS BENEFACTOR_ID, A.ID AS ACL_ID
+			FROM CLOSEST JOIN NODE_CLOSURE C ON (CLOSEST.NODE_ID = C.NODE_ID AND CLOSEST.DISTANCE = C.DISTANCE)
+			JOIN ACL A ON (C.ANCESTOR_ID = A.OWNER_ID AND A.OWNER_TYPE = 'ENTITY')
+		UNION ALL
+		SELECT ENTITY_ID, BENEFACTOR_ID, ACL_ID FROM WALK WHERE ACL_ID IS NOT NULL
@@ -1,7 +1,7 @@
 /*
- * For each entity, the RECURSIVE BEN table will contain one row for the entity plus an additional row for each entity in its
- * hierarchy until an ACL is found.  Note: Only the last row with an ACL_ID will have a correct benefactorId.  The finally
- * BEN table will only contain the last valid row for each entity since all rows with null ACL ids are filtered out.
+ * For each entity, the BEN table contains one row with the entity's benefactor and the ID of the benefactor's ACL.
+ * The BEN table is defined by GetEntityBenefactorsFromClosure.sql: the benefactors are looked up in the node closure table,
+ * walking the node hierarchy for the entities whose closure does not match the hierarchy.
  * 
  * The ACC table will contain one row for each distinct permission that the user has been granted to any of their principals
  * on the ACL identified from the BEN table.
@@ -12,19 +12,7 @@
  */
 WITH
 	BEN AS (
-		WITH RECURSIVE BEN (ENTITY_ID, PARENT_ID, BENEFACTOR_ID, ACL_ID, DEPTH) AS
-			(
-				SELECT N.ID, N.PARENT_ID, N.ID AS BENEFACTOR_ID, A.ID AS ACL_ID, 1 AS DEPTH
-					FROM NODE N LEFT JOIN ACL A ON (N.ID = A.OWNER_ID AND A.OWNER_TYPE = 'ENTITY')
-					WHERE N.ID IN (:entityIds)
-				UNION DISTINCT
-				SELECT BEN.ENTITY_ID, N.PARENT_ID, N.ID AS BENEFACTOR_ID,
-					A.ID AS ACL_ID, BEN.DEPTH + 1 AS DEPTH 
-					FROM BEN JOIN NODE N ON (BEN.PARENT_ID = N.ID) 
-					LEFT JOIN ACL A ON (N.ID = A.OWNER_ID AND A.OWNER_TYPE = 'ENTITY')
-					WHERE BEN.ACL_ID IS NULL AND DEPTH < :depth
-			)
-		SELECT ENTITY_ID, BENEFACTOR_ID, ACL_ID FROM BEN WHERE ACL_ID IS NOT NULL
+%1$s
 	),
 	ACC AS (
 		SELECT DISTINCT RA.OWNER_ID AS ACL_ID, RAT.STRING_ELE AS ACCESS_TYPE
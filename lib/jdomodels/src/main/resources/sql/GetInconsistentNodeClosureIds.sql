@@ -0,0 +1,22 @@
+/*
+ * The EXP table contains the expected closure rows of each node in the id range, computed from the node hierarchy:
+ * one row for the node itself at distance zero, plus one row for each of its ancestors. The depth limit prevents an
+ * infinite loop for a circular path.
+ *
+ * A node is inconsistent if an expected row is missing from the closure table, or if the closure table contains a row
+ * that is not expected.
+ */
+WITH RECURSIVE EXP (NODE_ID, ANCESTOR_ID, PARENT_ID, DISTANCE) AS (
+	SELECT N.ID, N.ID, N.PARENT_ID, 0 FROM NODE N WHERE N.ID BETWEEN :minNodeId AND :maxNodeId
+	UNION ALL
+	SELECT EXP.NODE_ID, N.ID, N.PARENT_ID, EXP.DISTANCE + 1
+		FROM EXP JOIN NODE N ON (EXP.PARENT_ID = N.ID)
+		WHERE EXP.DISTANCE < :depth
+)
+SELECT EXP.NODE_ID FROM EXP LEFT JOIN NODE_CLOSURE C
+	ON (EXP.NODE_ID = C.NODE_ID AND EXP.ANCESTOR_ID = C.ANCESTOR_ID AND EXP.DISTANCE = C.DISTANCE)
+	WHERE C.NODE_ID IS NULL
+UNION
+SELECT C.NODE_ID FROM NODE_CLOSURE C LEFT JOIN EXP
+	ON (EXP.NODE_ID = C.NODE_ID AND EXP.ANCESTOR_ID = C.ANCESTOR_ID AND EXP.DISTANCE = C.DISTANCE)
+	WHERE C.NODE_ID BETWEEN :minNodeId AND :maxNodeId AND EXP.NODE_ID IS NULL
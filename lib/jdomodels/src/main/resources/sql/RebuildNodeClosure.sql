@@ -0,0 +1,13 @@
+/*
+ * Insert the closure rows of the given nodes computed from the node hierarchy: one row for the node itself at distance
+ * zero, plus one row for each of its ancestors. The depth limit prevents an infinite loop for a circular path.
+ */
+INSERT IGNORE INTO NODE_CLOSURE (NODE_ID, ANCESTOR_ID, DISTANCE)
+WITH RECURSIVE EXP (NODE_ID, ANCESTOR_ID, PARENT_ID, DISTANCE) AS (
+	SELECT N.ID, N.ID, N.PARENT_ID, 0 FROM NODE N WHERE N.ID IN (:nodeIds)
+	UNION ALL
+	SELECT EXP.NODE_ID, N.ID, N.PARENT_ID, EXP.DISTANCE + 1
+		FROM EXP JOIN NODE N ON (EXP.PARENT_ID = N.ID)
+		WHERE EXP.DISTANCE < :depth
+)
+SELECT NODE_ID, ANCESTOR_ID, DISTANCE FROM EXP
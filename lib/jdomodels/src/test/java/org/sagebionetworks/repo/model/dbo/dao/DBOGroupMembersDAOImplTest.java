@@ -12,6 +12,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.After;
 import org.junit.Before;
@@ -176,10 +177,15 @@ public class DBOGroupMembersDAOImplTest {
 		List<UserGroup> newMembers = groupMembersDAO.getMembers(testGroup.getId());
 		assertEquals("Number of users should match", 3, newMembers.size());
 		
-		// Each user should be present, with unaltered etags
-		assertTrue("User one should be in the retrieved member list", newMembers.contains(testUserOne));
-		assertTrue("User two should be in the retrieved member list", newMembers.contains(testUserTwo));
-		assertTrue("User three should be in the retrieved member list", newMembers.contains(testUserThree));
+		// Each user should be present
+		Set<String> newMemberIds = newMembers.stream().map(UserGroup::getId).collect(Collectors.toSet());
+		assertTrue("User one should be in the retrieved member list", newMemberIds.contains(testUserOne.getId()));
+		assertTrue("User two should be in the retrieved member list", newMemberIds.contains(testUserTwo.getId()));
+		assertTrue("User three should be in the retrieved member list", newMemberIds.contains(testUserThree.getId()));
+		
+		// Verify that the etag of the members has changed
+		UserGroup updatedUserOne = userGroupDAO.get(Long.parseLong(testUserOne.getId()));
+		assertTrue("Etag must have changed", !testUserOne.getEtag().equals(updatedUserOne.getEtag()));
 		
 		// Verify that the parent group's etag has changed
 		UserGroup updatedTestGroup = userGroupDAO.get(Long.parseLong(testGroup.getId()));
@@ -235,6 +241,7 @@ public class DBOGroupMembersDAOImplTest {
 		// Remove all but one of the users from the group
 		List<String> remover = new ArrayList<String>(adder);
 		String antisocial = remover.remove(0);
+		String userTwoEtag = userGroupDAO.get(Long.parseLong(testUserTwo.getId())).getEtag();
 		assertTrue(groupMembersDAO.areMemberOf(testGroup.getId(), new HashSet<String>(remover)));
 		groupMembersDAO.removeMembers(testGroup.getId(), remover);
 
@@ -247,6 +254,10 @@ public class DBOGroupMembersDAOImplTest {
 		fewerMembers.get(0).setEtag(null);
 		assertEquals("Last member should match the one removed from the DTO", antisocial, fewerMembers.get(0).getId());
 		
+		// Verify that the etag of the removed members has changed
+		UserGroup updatedUserTwo = userGroupDAO.get(Long.parseLong(testUserTwo.getId()));
+		assertTrue("Etag must have changed", !userTwoEtag.equals(updatedUserTwo.getEtag()));
+		
 		// Verify that the parent group's etag has changed
 		updatedTestGroup = userGroupDAO.get(Long.parseLong(testGroup.getId()));
 		assertTrue("Etag must have changed", !testGroup.getEtag().equals(updatedTestGroup.getEtag()));
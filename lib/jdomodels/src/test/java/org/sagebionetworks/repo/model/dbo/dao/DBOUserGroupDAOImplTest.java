@@ -7,6 +7,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -115,6 +116,31 @@ public class DBOUserGroupDAOImplTest {
 		assertFalse(userGroupDAO.isIndividual(principalId));
 	}
 
+	@Test
+	public void testTouchAll() throws Exception {
+		UserGroup group = new UserGroup();
+		group.setIsIndividual(true);
+		Long one = userGroupDAO.create(group);
+		groupsToDelete.add(one.toString());
+		Long two = userGroupDAO.create(group);
+		groupsToDelete.add(two.toString());
+		Long three = userGroupDAO.create(group);
+		groupsToDelete.add(three.toString());
+		String etagOne = userGroupDAO.get(one).getEtag();
+		String etagTwo = userGroupDAO.get(two).getEtag();
+		String etagThree = userGroupDAO.get(three).getEtag();
+
+		// call under test
+		userGroupDAO.touchAll(Arrays.asList(one, two));
+
+		assertFalse(etagOne.equals(userGroupDAO.get(one).getEtag()));
+		assertFalse(etagTwo.equals(userGroupDAO.get(two).getEtag()));
+		assertEquals(etagThree, userGroupDAO.get(three).getEtag());
+
+		// Empty list should work
+		userGroupDAO.touchAll(Collections.emptyList());
+	}
+
 
 	@Test
 	public void testBootstrapUsers() throws DatastoreException, NotFoundException {
@@ -1745,6 +1745,68 @@ public class NodeDAOImplTest {
 		});
 	}
 	
+	@Test
+	public void testGetEntityPaths() throws Exception {
+		Node node = privateCreateNew("parent");
+		node.setNodeType(EntityType.project);
+		String parentId = nodeDao.createNew(node);
+		toDelete.add(parentId);
+		node = privateCreateNew("child");
+		node.setNodeType(EntityType.folder);
+		node.setParentId(parentId);
+		String childId = nodeDao.createNew(node);
+		toDelete.add(childId);
+		node = privateCreateNew("grandChild");
+		node.setNodeType(EntityType.folder);
+		node.setParentId(childId);
+		String grandId = nodeDao.createNew(node);
+		toDelete.add(grandId);
+		
+		Long parentIdLong = KeyFactory.stringToKey(parentId);
+		Long grandIdLong = KeyFactory.stringToKey(grandId);
+		
+		// call under test
+		Map<Long, List<NameIdType>> paths = nodeDao.getEntityPaths(Arrays.asList(parentIdLong, grandIdLong, 99999999L));
+		
+		assertEquals(2, paths.size());
+		assertEquals(nodeDao.getEntityPath(parentId), paths.get(parentIdLong));
+		assertEquals(nodeDao.getEntityPath(grandId), paths.get(grandIdLong));
+		assertEquals(Arrays.asList(parentId, childId, grandId),
+				paths.get(grandIdLong).stream().map(NameIdType::getId).collect(Collectors.toList()));
+	}
+	
+	@Test
+	public void testGetEntityPathsWithoutClosure() throws Exception {
+		Node node = privateCreateNew("parent");
+		node.setNodeType(EntityType.project);
+		String parentId = nodeDao.createNew(node);
+		toDelete.add(parentId);
+		node = privateCreateNew("child");
+		node.setNodeType(EntityType.folder);
+		node.setParentId(parentId);
+		String childId = nodeDao.createNew(node);
+		toDelete.add(childId);
+		
+		Long parentIdLong = KeyFactory.stringToKey(parentId);
+		Long childIdLong = KeyFactory.stringToKey(childId);
+		List<NameIdType> expectedPath = nodeDao.getEntityPath(childId);
+		// The paths must be resolved from the hierarchy when the closure is missing
+		migrationJdbcTemplate.update("DELETE FROM NODE_CLOSURE WHERE NODE_ID = ?", childIdLong);
+		
+		// call under test
+		Map<Long, List<NameIdType>> paths = nodeDao.getEntityPaths(Arrays.asList(parentIdLong, childIdLong));
+		
+		assertEquals(2, paths.size());
+		assertEquals(expectedPath, paths.get(childIdLong));
+		assertEquals(1, paths.get(parentIdLong).size());
+	}
+	
+	@Test
+	public void testGetEntityPathsWithEmpty() throws Exception {
+		// call under test
+		assertEquals(Collections.emptyMap(), nodeDao.getEntityPaths(Collections.emptyList()));
+	}
+	
 	/**
 	 * Maybe we should prevent users from creating such a loop.
 	 * 
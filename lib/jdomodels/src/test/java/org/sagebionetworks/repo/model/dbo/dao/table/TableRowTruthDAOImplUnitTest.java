@@ -1,7 +1,9 @@
 package org.sagebionetworks.repo.model.dbo.dao.table;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -9,10 +11,15 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,6 +31,13 @@ import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.ids.IdGenerator;
 import org.sagebionetworks.repo.model.dbo.DBOBasicDao;
+import org.sagebionetworks.repo.model.dbo.feature.FeatureStatusDao;
+import org.sagebionetworks.repo.model.dbo.persistence.table.DBOTableRowChange;
+import org.sagebionetworks.repo.model.feature.Feature;
+import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
+import org.sagebionetworks.table.cluster.utils.SparseChangeSetColumnarFormat;
+import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.util.FileProvider;
 import org.springframework.jdbc.core.JdbcTemplate;
 
@@ -41,6 +55,8 @@ public class TableRowTruthDAOImplUnitTest {
 	@Mock
 	IdGenerator mockIdGenerator;
 	@Mock
+	FeatureStatusDao mockFeatureStatusDao;
+	@Mock
 	StackConfiguration mockConfig;
 	@Mock
 	File mockFile;
@@ -91,4 +107,68 @@ public class TableRowTruthDAOImplUnitTest {
 		verify(mockFile).delete();
 	}
 	
+	@Test
+	public void testAppendRowSetToTable() throws IOException {
+		when(mockFeatureStatusDao.isFeatureEnabled(any())).thenReturn(Optional.empty());
+		ByteArrayOutputStream out = setupAppendRowSetToTable();
+		SparseChangeSetDto delta = createChangeSet();
+		
+		// Call under test
+		dao.appendRowSetToTable("123", "syn456", "etag", 2L, Collections.emptyList(), delta, 7L, false);
+		
+		verify(mockFeatureStatusDao).isFeatureEnabled(Feature.USE_COLUMNAR_TABLE_CHANGE_SET_FORMAT);
+		verify(mockBasicDao).createNew(any(DBOTableRowChange.class));
+		
+		assertFalse(SparseChangeSetColumnarFormat.isColumnarFormat(new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()))));
+		assertEquals(delta, TableModelUtils.readSparseChangeSetDtoFromGzStream(new ByteArrayInputStream(out.toByteArray())));
+	}
+	
+	@Test
+	public void testAppendRowSetToTableWithColumnarFormatEnabled() throws IOException {
+		when(mockFeatureStatusDao.isFeatureEnabled(any())).thenReturn(Optional.of(true));
+		ByteArrayOutputStream out = setupAppendRowSetToTable();
+		SparseChangeSetDto delta = createChangeSet();
+		
+		// Call under test
+		dao.appendRowSetToTable("123", "syn456", "etag", 2L, Collections.emptyList(), delta, 7L, false);
+		
+		verify(mockFeatureStatusDao).isFeatureEnabled(Feature.USE_COLUMNAR_TABLE_CHANGE_SET_FORMAT);
+		verify(mockBasicDao).createNew(any(DBOTableRowChange.class));
+		
+		assertTrue(SparseChangeSetColumnarFormat.isColumnarFormat(new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()))));
+		assertEquals(delta, TableModelUtils.readSparseChangeSetDtoFromGzStream(new ByteArrayInputStream(out.toByteArray())));
+	}
+	
+	@Test
+	public void testAppendRowSetToTableWithColumnarFormatDisabled() throws IOException {
+		when(mockFeatureStatusDao.isFeatureEnabled(any())).thenReturn(Optional.of(false));
+		ByteArrayOutputStream out = setupAppendRowSetToTable();
+		SparseChangeSetDto delta = createChangeSet();
+		
+		// Call under test
+		dao.appendRowSetToTable("123", "syn456", "etag", 2L, Collections.emptyList(), delta, 7L, false);
+		
+		assertFalse(SparseChangeSetColumnarFormat.isColumnarFormat(new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()))));
+		assertEquals(delta, TableModelUtils.readSparseChangeSetDtoFromGzStream(new ByteArrayInputStream(out.toByteArray())));
+	}
+	
+	private ByteArrayOutputStream setupAppendRowSetToTable() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		when(mockFileProvider.createTempFile(anyString(), anyString())).thenReturn(mockFile);
+		when(mockFileProvider.createFileOutputStream(any(File.class))).thenReturn(out);
+		return out;
+	}
+	
+	private static SparseChangeSetDto createChangeSet() {
+		SparseRowDto row = new SparseRowDto();
+		row.setRowId(1L);
+		row.setVersionNumber(2L);
+		row.setValues(Collections.singletonMap("11", "foo"));
+		SparseChangeSetDto delta = new SparseChangeSetDto();
+		delta.setTableId("syn456");
+		delta.setColumnIds(Collections.singletonList("11"));
+		delta.setRows(Collections.singletonList(row));
+		return delta;
+	}
+	
 }
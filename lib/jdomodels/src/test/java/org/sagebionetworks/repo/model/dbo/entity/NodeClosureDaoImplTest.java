@@ -0,0 +1,294 @@
+package org.sagebionetworks.repo.model.dbo.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.sagebionetworks.repo.model.EntityType;
+import org.sagebionetworks.repo.model.Node;
+import org.sagebionetworks.repo.model.NodeDAO;
+import org.sagebionetworks.repo.model.helper.DaoObjectHelper;
+import org.sagebionetworks.repo.model.jdo.KeyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = { "classpath:jdomodels-test-context.xml" })
+public class NodeClosureDaoImplTest {
+
+	@Autowired
+	private NodeDAO nodeDao;
+
+	@Autowired
+	private DaoObjectHelper<Node> nodeDaoHelper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private NodeClosureDao nodeClosureDao;
+
+	@Autowired
+	private TransactionTemplate readCommitedTransactionTemplate;
+
+	private Node project;
+	private Node folder;
+	private Node file;
+	private Long projectId;
+	private Long folderId;
+	private Long fileId;
+
+	@BeforeEach
+	public void before() {
+		project = nodeDaoHelper.create(n -> {
+			n.setName("project");
+		});
+		folder = nodeDaoHelper.create(n -> {
+			n.setName("folder");
+			n.setParentId(project.getId());
+			n.setNodeType(EntityType.folder);
+		});
+		file = nodeDaoHelper.create(n -> {
+			n.setName("file");
+			n.setParentId(folder.getId());
+			n.setNodeType(EntityType.file);
+		});
+		projectId = KeyFactory.stringToKey(project.getId());
+		folderId = KeyFactory.stringToKey(folder.getId());
+		fileId = KeyFactory.stringToKey(file.getId());
+	}
+
+	@AfterEach
+	public void after() {
+		nodeDao.truncateAll();
+	}
+
+	List<Long> getPathIds(Long nodeId) {
+		return nodeClosureDao.getPath(nodeId).get().stream().map(NodeAncestor::getId).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testGetPath() {
+		// call under test
+		Optional<List<NodeAncestor>> path = nodeClosureDao.getPath(fileId);
+		List<NodeAncestor> expected = Arrays.asList(
+				new NodeAncestor(fileId, "file", EntityType.file, folderId, null),
+				new NodeAncestor(folderId, "folder", EntityType.folder, projectId, null),
+				new NodeAncestor(projectId, "project", EntityType.project, null, null));
+		assertEquals(Optional.of(expected), path);
+	}
+
+	@Test
+	public void testGetPaths() {
+		// call under test
+		Map<Long, List<NodeAncestor>> paths = nodeClosureDao.getPaths(Arrays.asList(projectId, fileId, -1L));
+		assertEquals(2, paths.size());
+		assertEquals(1, paths.get(projectId).size());
+		assertEquals(3, paths.get(fileId).size());
+	}
+
+	@Test
+	public void testGetPathsWithEmpty() {
+		// call under test
+		assertEquals(Collections.emptyMap(), nodeClosureDao.getPaths(Collections.emptyList()));
+	}
+
+	@Test
+	public void testMoveNode() {
+		Node projectTwo = nodeDaoHelper.create(n -> {
+			n.setName("projectTwo");
+		});
+		Long projectTwoId = KeyFactory.stringToKey(projectTwo.getId());
+		folder.setParentId(projectTwo.getId());
+
+		// call under test
+		nodeDao.updateNode(folder);
+
+		assertEquals(Arrays.asList(folderId, projectTwoId), getPathIds(folderId));
+		assertEquals(Arrays.asList(fileId, folderId, projectTwoId), getPathIds(fileId));
+		assertEquals(Collections.emptyList(), nodeClosureDao.getInconsistentNodeIds(projectId, projectTwoId));
+	}
+
+	@Test
+	public void testMoveNodeTwiceWithLeftoverRows() {
+		Node projectTwo = nodeDaoHelper.create(n -> {
+			n.setName("projectTwo");
+		});
+		Long projectTwoId = KeyFactory.stringToKey(projectTwo.getId());
+		// Simulates a row left by an earlier change that was not fully applied
+		jdbcTemplate.update("INSERT INTO NODE_CLOSURE (NODE_ID, ANCESTOR_ID, DISTANCE) VALUES (?, ?, ?)", fileId, projectTwoId, 5);
+		folder.setParentId(projectTwo.getId());
+
+		// call under test
+		nodeDao.updateNode(folder);
+
+		assertEquals(Arrays.asList(fileId, folderId, projectTwoId), getPathIds(fileId));
+
+		jdbcTemplate.update("INSERT INTO NODE_CLOSURE (NODE_ID, ANCESTOR_ID, DISTANCE) VALUES (?, ?, ?)", fileId, projectId, 5);
+		folder.setParentId(project.getId());
+
+		// call under test
+		nodeDao.updateNode(folder);
+
+		assertEquals(Arrays.asList(fileId, folderId, projectId), getPathIds(fileId));
+		assertEquals(Collections.emptyList(), nodeClosureDao.getInconsistentNodeIds(projectId, projectTwoId));
+	}
+
+	@Test
+	public void testMoveNodeToRoot() {
+		folder.setParentId(null);
+
+		// call under test
+		nodeDao.updateNode(folder);
+
+		assertEquals(Arrays.asList(fileId, folderId), getPathIds(fileId));
+		assertEquals(Collections.emptyList(), nodeClosureDao.getInconsistentNodeIds(projectId, fileId));
+	}
+
+	@Test
+	public void testMoveNodeUnderDescendant() {
+		// call under test
+		assertFalse(readCommitedTransactionTemplate.execute(status -> nodeClosureDao.moveNode(folderId, fileId, NodeClosureDao.MAX_SYNCHRONOUS_MOVE_SIZE)));
+
+		// The closure was not changed
+		assertEquals(Arrays.asList(fileId, folderId, projectId), getPathIds(fileId));
+		assertEquals(Long.valueOf(3L), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM NODE_CLOSURE WHERE ANCESTOR_ID = ?", Long.class, projectId));
+	}
+
+	@Test
+	public void testMoveNodeUnderDescendantWithNodeUpdate() {
+		folder.setParentId(file.getId());
+
+		// call under test
+		nodeDao.updateNode(folder);
+
+		// The closure no longer matches the hierarchy
+		assertFalse(nodeClosureDao.getPath(folderId).isPresent());
+		assertFalse(nodeClosureDao.getPath(fileId).isPresent());
+		assertTrue(nodeClosureDao.getPath(projectId).isPresent());
+	}
+
+	@Test
+	public void testMoveNodeWithSubTreeOverLimit() {
+		Node projectTwo = nodeDaoHelper.create(n -> {
+			n.setName("projectTwo");
+		});
+		Long projectTwoId = KeyFactory.stringToKey(projectTwo.getId());
+		jdbcTemplate.update("UPDATE NODE SET PARENT_ID = ? WHERE ID = ?", projectTwoId, folderId);
+
+		// call under test
+		assertFalse(readCommitedTransactionTemplate.execute(status -> nodeClosureDao.moveNode(folderId, projectTwoId, 1L)));
+
+		// The stale rows are rejected until the closure is rebuilt
+		assertFalse(nodeClosureDao.getPath(folderId).isPresent());
+		assertFalse(nodeClosureDao.getPath(fileId).isPresent());
+		assertEquals(Arrays.asList(folderId, fileId), nodeClosureDao.getInconsistentNodeIds(projectId, projectTwoId).stream().sorted().collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testMoveNodeWithSubTreeAtLimit() {
+		Node projectTwo = nodeDaoHelper.create(n -> {
+			n.setName("projectTwo");
+		});
+		Long projectTwoId = KeyFactory.stringToKey(projectTwo.getId());
+		jdbcTemplate.update("UPDATE NODE SET PARENT_ID = ? WHERE ID = ?", projectTwoId, folderId);
+
+		// call under test
+		assertTrue(readCommitedTransactionTemplate.execute(status -> nodeClosureDao.moveNode(folderId, projectTwoId, 2L)));
+
+		assertEquals(Arrays.asList(fileId, folderId, projectTwoId), getPathIds(fileId));
+	}
+
+	@Test
+	public void testMoveNodeUnderSelf() {
+		// call under test
+		assertFalse(readCommitedTransactionTemplate.execute(status -> nodeClosureDao.moveNode(folderId, folderId, NodeClosureDao.MAX_SYNCHRONOUS_MOVE_SIZE)));
+
+		assertEquals(Arrays.asList(folderId, projectId), getPathIds(folderId));
+	}
+
+	@Test
+	public void testDeleteNode() {
+		// call under test
+		nodeDao.delete(folder.getId());
+
+		assertFalse(nodeClosureDao.getPath(fileId).isPresent());
+		assertFalse(nodeClosureDao.getPath(folderId).isPresent());
+		assertEquals(Long.valueOf(0L), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM NODE_CLOSURE WHERE ANCESTOR_ID = ?", Long.class, folderId));
+	}
+
+	@Test
+	public void testGetPathWithMissingRows() {
+		jdbcTemplate.update("DELETE FROM NODE_CLOSURE WHERE NODE_ID = ?", folderId);
+
+		// call under test
+		assertFalse(nodeClosureDao.getPath(folderId).isPresent());
+		// The rows of the file are still consistent with the hierarchy
+		assertTrue(nodeClosureDao.getPath(fileId).isPresent());
+		assertEquals(Arrays.asList(folderId), nodeClosureDao.getInconsistentNodeIds(projectId, fileId));
+
+		// call under test
+		nodeClosureDao.rebuildClosure(Arrays.asList(folderId));
+
+		assertEquals(Arrays.asList(folderId, projectId), getPathIds(folderId));
+		assertEquals(Collections.emptyList(), nodeClosureDao.getInconsistentNodeIds(projectId, fileId));
+	}
+
+	@Test
+	public void testGetPathWithStaleRows() {
+		Node projectTwo = nodeDaoHelper.create(n -> {
+			n.setName("projectTwo");
+		});
+		Long projectTwoId = KeyFactory.stringToKey(projectTwo.getId());
+		// Simulates a change of the hierarchy that was not applied to the closure
+		jdbcTemplate.update("UPDATE NODE SET PARENT_ID = ? WHERE ID = ?", projectTwoId, folderId);
+
+		// call under test
+		assertFalse(nodeClosureDao.getPath(folderId).isPresent());
+		assertFalse(nodeClosureDao.getPath(fileId).isPresent());
+		List<Long> inconsistent = nodeClosureDao.getInconsistentNodeIds(projectId, projectTwoId);
+		assertEquals(Arrays.asList(folderId, fileId), inconsistent.stream().sorted().collect(Collectors.toList()));
+
+		// call under test
+		nodeClosureDao.rebuildClosure(inconsistent);
+
+		assertEquals(Arrays.asList(fileId, folderId, projectTwoId), getPathIds(fileId));
+		assertEquals(Collections.emptyList(), nodeClosureDao.getInconsistentNodeIds(projectId, projectTwoId));
+	}
+
+	@Test
+	public void testGetFirstNodeId() {
+		// call under test
+		assertEquals(Optional.of(projectId), nodeClosureDao.getFirstNodeId(0L));
+		assertEquals(Optional.of(fileId), nodeClosureDao.getFirstNodeId(fileId));
+		assertEquals(Optional.empty(), nodeClosureDao.getFirstNodeId(fileId + 1));
+	}
+
+	@Test
+	public void testIsPathConsistent() {
+		NodeAncestor self = new NodeAncestor(1L, "one", EntityType.folder, 2L, null);
+		NodeAncestor parent = new NodeAncestor(2L, "two", EntityType.project, null, null);
+		assertTrue(NodeClosureDaoImpl.isPathConsistent(1L, Arrays.asList(self, parent)));
+		assertFalse(NodeClosureDaoImpl.isPathConsistent(1L, Collections.emptyList()));
+		assertFalse(NodeClosureDaoImpl.isPathConsistent(2L, Arrays.asList(self, parent)));
+		// the parent is missing
+		assertFalse(NodeClosureDaoImpl.isPathConsistent(1L, Arrays.asList(self)));
+		// the last element is not a root
+		assertFalse(NodeClosureDaoImpl.isPathConsistent(1L,
+				Arrays.asList(self, new NodeAncestor(2L, "two", EntityType.folder, 3L, null))));
+	}
+}
@@ -29,6 +29,7 @@ import org.sagebionetworks.repo.model.helper.AccessControlListObjectHelper;
 import org.sagebionetworks.repo.model.helper.DaoObjectHelper;
 import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -62,6 +63,9 @@ public class UsersEntityPermissionsDaoImplTest {
 	@Autowired
 	UsersEntityPermissionsDao entityPermissionDao;
 
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
 	Long userOneId;
 	Long userTwoId;
 	Long userThreeId;
@@ -661,6 +665,53 @@ public class UsersEntityPermissionsDaoImplTest {
 		assertEquals(expected, results);
 	}
 
+	@Test
+	public void testGetEntityPermissionsWithMissingClosure() {
+		setupNodeHierarchy(userOneId);
+		List<Long> entityIds = Arrays.asList(fileId, folderId);
+		aclHelper.create((a) -> {
+			a.setId(folder.getId());
+			a.getResourceAccess().add(createResourceAccess(userOneId, ACCESS_TYPE.READ));
+		});
+		aclHelper.create((a) -> {
+			a.setId(project.getId());
+			a.getResourceAccess().add(createResourceAccess(userTwoId, ACCESS_TYPE.READ));
+		});
+		// The benefactor of the file is found walking the hierarchy, the folder still uses the closure
+		jdbcTemplate.update("DELETE FROM NODE_CLOSURE WHERE NODE_ID = ?", fileId);
+		// call under test
+		List<UserEntityPermissionsState> results = entityPermissionDao.getEntityPermissions(userOneGroups, entityIds);
+		List<UserEntityPermissionsState> expected = Arrays.asList(
+				createExpectedState(file).withBenefactorId(folderId).withEntityType(EntityType.file)
+						.withHasRead(true).withDoesEntityExist(true),
+				createExpectedState(folder).withBenefactorId(folderId).withEntityType(EntityType.folder)
+						.withHasRead(true).withDoesEntityExist(true));
+		assertEquals(expected, results);
+	}
+
+	@Test
+	public void testGetEntityPermissionsWithStaleClosure() {
+		setupNodeHierarchy(userOneId);
+		List<Long> entityIds = Arrays.asList(fileId);
+		aclHelper.create((a) -> {
+			a.setId(folder.getId());
+			a.getResourceAccess().add(createResourceAccess(userTwoId, ACCESS_TYPE.READ));
+		});
+		aclHelper.create((a) -> {
+			a.setId(project.getId());
+			a.getResourceAccess().add(createResourceAccess(userOneId, ACCESS_TYPE.READ));
+		});
+		// Simulates a move of the file that was not applied to the closure
+		jdbcTemplate.update("UPDATE NODE SET PARENT_ID = ? WHERE ID = ?", projectId, fileId);
+		file.setParentId(project.getId());
+		// call under test
+		List<UserEntityPermissionsState> results = entityPermissionDao.getEntityPermissions(userOneGroups, entityIds);
+		List<UserEntityPermissionsState> expected = Arrays.asList(
+				createExpectedState(file).withBenefactorId(projectId).withEntityType(EntityType.file)
+						.withHasRead(true).withDoesEntityExist(true));
+		assertEquals(expected, results);
+	}
+
 	/**
 	 * Helper to setup a node hierarchy with the provided user as the creator.
 	 * 
@@ -16,6 +16,16 @@ public class MigrationFileTypeTest {
 		assertEquals(MigrationFileType.XML, MigrationFileType.fromFileName("foo.xml"));
 		assertEquals(MigrationFileType.XML, MigrationFileType.fromFileName("foo.XML"));
 		assertEquals(MigrationFileType.XML, MigrationFileType.fromFileName("foo.1.XML"));
+		assertEquals(MigrationFileType.NDJSON, MigrationFileType.fromFileName("foo.2.ndjson"));
+	}
+
+	@Test
+	public void testGetFileExtension() {
+		for (MigrationFileType type : MigrationFileType.values()) {
+			// call under test
+			assertEquals(type, MigrationFileType.fromFileName("foo.1." + type.getFileExtension()));
+		}
+		assertEquals("ndjson", MigrationFileType.NDJSON.getFileExtension());
 	}
 
 	@Test
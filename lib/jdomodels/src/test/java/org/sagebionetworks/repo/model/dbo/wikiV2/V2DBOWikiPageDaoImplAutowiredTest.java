@@ -11,6 +11,7 @@ import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.V2_TABLE_WIK
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -34,6 +35,7 @@ import org.sagebionetworks.repo.model.dbo.file.FileHandleDao;
 import org.sagebionetworks.repo.model.file.FileHandle;
 import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.sagebionetworks.repo.model.v2.dao.V2WikiPageDao;
+import org.sagebionetworks.repo.model.v2.dao.V2WikiPageMarkdownFile;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiHeader;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiHistorySnapshot;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiMarkdownVersion;
@@ -600,6 +602,42 @@ public class V2DBOWikiPageDaoImplAutowiredTest {
 		
 	}
 	
+	@Test
+	public void testGetCurrentMarkdownFiles() throws NotFoundException {
+		String ownerId = "syn2224";
+		ObjectType ownerType = ObjectType.ENTITY;
+		V2WikiPage root = new V2WikiPage();
+		root.setTitle("Root");
+		root.setCreatedBy(creatorUserGroupId);
+		root.setModifiedBy(creatorUserGroupId);
+		root.setMarkdownFileHandleId(markdownOne.getId());
+		root = wikiPageDao.create(root, new HashMap<String, FileHandle>(), ownerId, ownerType, new ArrayList<String>());
+		toDelete.add(WikiPageKeyHelper.createWikiPageKey(ownerId, ownerType, root.getId()));
+		
+		V2WikiPage child = new V2WikiPage();
+		child.setTitle("Child");
+		child.setCreatedBy(creatorUserGroupId);
+		child.setModifiedBy(creatorUserGroupId);
+		child.setParentWikiId(root.getId());
+		child.setMarkdownFileHandleId(markdownOne.getId());
+		child = wikiPageDao.create(child, new HashMap<String, FileHandle>(), ownerId, ownerType, new ArrayList<String>());
+		
+		// Update the markdown of the child, only the current version is returned
+		child.setMarkdownFileHandleId(markdownTwo.getId());
+		child = wikiPageDao.updateWikiPage(child, new HashMap<String, FileHandle>(), ownerId, ownerType, new ArrayList<String>());
+		
+		List<V2WikiPageMarkdownFile> expected = Arrays.asList(
+				new V2WikiPageMarkdownFile(root.getId(), 0L, "Root", Long.valueOf(markdownOne.getId()), markdownOne.getBucketName(), markdownOne.getKey()),
+				new V2WikiPageMarkdownFile(child.getId(), 1L, "Child", Long.valueOf(markdownTwo.getId()), markdownTwo.getBucketName(), markdownTwo.getKey()));
+		
+		// call under test
+		assertEquals(expected, wikiPageDao.getCurrentMarkdownFiles(ownerId, ownerType, 10L));
+		// call under test
+		assertEquals(expected.subList(0, 1), wikiPageDao.getCurrentMarkdownFiles(ownerId, ownerType, 1L));
+		// call under test
+		assertEquals(Collections.emptyList(), wikiPageDao.getCurrentMarkdownFiles("syn2225", ownerType, 10L));
+	}
+	
 	@Test
 	public void testDelete() throws NotFoundException, InterruptedException{
 		V2WikiPage page = new V2WikiPage();
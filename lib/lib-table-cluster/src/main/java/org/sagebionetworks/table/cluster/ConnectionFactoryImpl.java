@@ -11,8 +11,10 @@ import javax.sql.DataSource;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.lib.dbuserhelper.DBUserHelper;
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.table.cluster.config.TableClusterConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -36,6 +38,12 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 	 */
 	private BasicDataSource singleConnectionPool;
 
+	/**
+	 * Connections that allow LOAD DATA LOCAL INFILE, only used to restore a table
+	 * index.
+	 */
+	private BasicDataSource loadDataConnectionPool;
+
 	private DBUserHelper dbUserHelper;
 
 	/**
@@ -46,8 +54,11 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 	private TableIndexDAO tableIndexDao;
 	
 	@Autowired
-	public ConnectionFactoryImpl(BasicDataSource tableDatabaseConnectionPool, TableIndexDAO tableIndexDao, DBUserHelper dbuh) {
+	public ConnectionFactoryImpl(BasicDataSource tableDatabaseConnectionPool, TableIndexDAO tableIndexDao, DBUserHelper dbuh,
+			StackConfiguration stackConfig) {
 		this.singleConnectionPool = tableDatabaseConnectionPool;
+		this.loadDataConnectionPool = TableClusterConfig.createLoadDataConnectionPool(tableDatabaseConnectionPool,
+				stackConfig.getTableLoadDataMaxNumberConnections());
 		this.tableIndexDao = tableIndexDao;
 		this.dbUserHelper = dbuh;
 	}
@@ -65,6 +76,7 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 	public void initialize() {
 		// ensure the index has the correct tables
 		tableIndexDao.setDataSource(singleConnectionPool);
+		tableIndexDao.setLoadDataSource(loadDataConnectionPool);
 		tableIndexDao.createObjectReplicationTablesIfDoesNotExist();
 		createDBUser();
 	}
@@ -86,6 +98,9 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 			log.debug("Closing connection pool to: " + singleConnectionPool.getUrl());
 			singleConnectionPool.close();
 		}
+		if (loadDataConnectionPool != null) {
+			loadDataConnectionPool.close();
+		}
 	}
 
 	@Override
@@ -63,6 +63,7 @@ import org.sagebionetworks.repo.model.table.TableConstants;
 import org.sagebionetworks.repo.model.table.parser.AllLongTypeParser;
 import org.sagebionetworks.repo.model.table.parser.BooleanParser;
 import org.sagebionetworks.repo.model.table.parser.DoubleParser;
+import org.sagebionetworks.table.cluster.utils.LoadDataInputStream;
 import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.table.model.Grouping;
 import org.sagebionetworks.table.model.SparseRow;
@@ -1918,6 +1919,27 @@ public class SQLUtils {
 		return builder.toString();
 	}
 	
+	/**
+	 * Create SQL to bulk load into a table for the IdAndVersion with the given
+	 * headers. The data is read from a client side stream in the default LOAD DATA
+	 * text format: tab separated fields, one row per line, backslash escapes and
+	 * \N for null (see {@link LoadDataInputStream}).
+	 * 
+	 * @param idAndVersion
+	 * @param headers
+	 * @return
+	 */
+	public static String createLoadDataIntoTableIndex(IdAndVersion idAndVersion, String[] headers) {
+		String tableName = getTableNameForId(idAndVersion, TableIndexType.INDEX);
+		StringBuilder builder = new StringBuilder();
+		builder.append("LOAD DATA LOCAL INFILE 'stream' INTO TABLE ");
+		builder.append(tableName);
+		builder.append(" CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'");
+		boolean useBindVariables = false;
+		buildHeaders(builder, headers, useBindVariables);
+		return builder.toString();
+	}
+	
 	static void buildHeaders(StringBuilder builder, String[] headers, boolean useBindVariables) {
 		builder.append(" (");
 		boolean isFirst = true;
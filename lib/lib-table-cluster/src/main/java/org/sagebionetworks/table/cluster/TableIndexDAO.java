@@ -448,6 +448,14 @@ public interface TableIndexDAO {
 	 */
 	void setDataSource(DataSource dataSource);
 
+	/**
+	 * Set the database connection used to restore a table index with LOAD DATA
+	 * LOCAL INFILE. Without it the table index is restored with batch inserts.
+	 * 
+	 * @param loadDataSource
+	 */
+	void setLoadDataSource(DataSource loadDataSource);
+
 	/**
 	 * Get a single page (up to the provided limit) of rowIds that are out-of-date
 	 * for the given view. A row is out-of-date if any of these conditions are true:
@@ -543,7 +551,9 @@ public interface TableIndexDAO {
 	List<String> streamTableIndexData(IdAndVersion tableId, CSVWriterStream stream) throws IOException;
 
 	/**
-	 * Restore the table index using the data from the given iterator
+	 * Restore the table index using the data from the given iterator. The rows are
+	 * streamed to the database with LOAD DATA LOCAL INFILE when a load data source
+	 * is set and the server allows it, with batch inserts otherwise.
 	 * 
 	 * @param idAndVersion
 	 * @param input
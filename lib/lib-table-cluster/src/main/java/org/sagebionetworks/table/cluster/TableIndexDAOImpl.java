@@ -55,6 +55,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -75,6 +77,8 @@ import java.util.stream.Collectors;
 import javax.sql.DataSource;
 
 import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.json.JSONArray;
 import org.sagebionetworks.repo.model.IdAndChecksum;
 import org.sagebionetworks.repo.model.IdAndEtag;
@@ -101,6 +105,7 @@ import org.sagebionetworks.table.cluster.metadata.ObjectFieldTypeMapper;
 import org.sagebionetworks.table.cluster.search.RowSearchContent;
 import org.sagebionetworks.table.cluster.search.TableRowData;
 import org.sagebionetworks.table.cluster.search.TypedCellValue;
+import org.sagebionetworks.table.cluster.utils.LoadDataInputStream;
 import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.table.cluster.view.filter.ViewFilter;
 import org.sagebionetworks.table.model.Grouping;
@@ -131,6 +136,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.mysql.cj.jdbc.JdbcStatement;
 
 /**
  * Note: This dao is created as a beans to support profiling calls to the dao. See: PLFM-5984.
@@ -138,6 +144,8 @@ import com.google.common.collect.Sets;
 @Repository
 public class TableIndexDAOImpl implements TableIndexDAO {
 	
+	private static final Logger LOG = LogManager.getLogger(TableIndexDAOImpl.class);
+
 	private static String OBJECT_REPLICATION_TABLE_CREATE = SQLUtils.loadSQLFromClasspath("schema/ObjectReplication.sql");
 	private static String ANNOTATION_REPLICATION_TABLE_CREATE = SQLUtils.loadSQLFromClasspath("schema/AnnotationReplication.sql");
 	private static String REPLICATION_SYNCH_EXPIRATION_TABLE_CREATE = SQLUtils.loadSQLFromClasspath("schema/ReplicationSynchExpiration.sql");
@@ -257,6 +265,8 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 	private TransactionTemplate readTransactionTemplate;
 	private JdbcTemplate template;
 	private NamedParameterJdbcTemplate namedTemplate;
+	private TransactionTemplate loadDataTransactionTemplate;
+	private JdbcTemplate loadDataTemplate;
 	private ObjectFieldModelResolverFactory objectFieldModelResolverFactory;
 	
 	@Autowired
@@ -289,6 +299,15 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		this.namedTemplate = new NamedParameterJdbcTemplate(this.template);
 	}
 
+	@Override
+	public void setLoadDataSource(DataSource loadDataSource) {
+		if (loadDataTemplate != null) {
+			throw new IllegalStateException("Load DataSource can only be set once");
+		}
+		this.loadDataTransactionTemplate = createTransactionTemplate(new DataSourceTransactionManager(loadDataSource), false);
+		this.loadDataTemplate = new JdbcTemplate(loadDataSource);
+	}
+
 	private static TransactionTemplate createTransactionTemplate(DataSourceTransactionManager transactionManager, boolean readOnly) {
 		// This will define how transaction are run for this instance.
 		DefaultTransactionDefinition transactionDef;
@@ -440,7 +459,7 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 	public RowSet query(final TranslatedQuery query) {
 		ValidateArgument.required(query, "The query");
 		
-		final List<Row> rows = new LinkedList<Row>();
+		final List<Row> rows = new ArrayList<Row>();
 		final RowSet rowSet = new RowSet();
 		
 		rowSet.setRows(rows);
@@ -1489,6 +1508,58 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		ValidateArgument.required(input.hasNext(), "input is empty");
 		// The first row is the header
 		String[] headers = input.next();
+		if (loadDataTemplate != null && restoreTableIndexDataWithLoadData(idAndVersion, headers, input, maxBytesPerBatch)) {
+			return;
+		}
+		restoreTableIndexDataWithBatchInsert(idAndVersion, headers, input, maxBytesPerBatch);
+	}
+
+	/**
+	 * Stream the rows to the database with a LOAD DATA LOCAL INFILE statement per
+	 * batch, using the connections of the load data source. The rows are encoded
+	 * while the driver sends them, see {@link LoadDataInputStream}.
+	 * 
+	 * <p>
+	 * A LOCAL load turns the conversion errors (e.g. a truncated value) and the
+	 * skipped rows into warnings, a batch with any warning is rolled back and the
+	 * restore fails.
+	 * 
+	 * @return False if the bulk load is not available (e.g. local_infile is
+	 *         disabled on the server), in which case the rows that were not
+	 *         loaded yet are left in the input.
+	 */
+	boolean restoreTableIndexDataWithLoadData(IdAndVersion idAndVersion, String[] headers, Iterator<String[]> input, long maxBytesPerBatch) {
+		String sql = SQLUtils.createLoadDataIntoTableIndex(idAndVersion, headers);
+		while (input.hasNext()) {
+			LoadDataInputStream stream = new LoadDataInputStream(input, maxBytesPerBatch);
+			try {
+				loadDataTransactionTemplate.executeWithoutResult(txStatus -> {
+					int count = loadDataTemplate.execute((Statement statement) -> {
+						statement.unwrap(JdbcStatement.class).setLocalInfileInputStream(stream);
+						int updateCount = statement.executeUpdate(sql);
+						SQLWarning warning = statement.getWarnings();
+						if (warning != null) {
+							throw new IllegalStateException("Loading " + idAndVersion + " raised warnings: " + warning.getMessage());
+						}
+						return updateCount;
+					});
+					if (count != stream.getRowCount()) {
+						throw new IllegalStateException("Loaded " + count + " rows out of " + stream.getRowCount() + " into " + idAndVersion);
+					}
+				});
+			} catch (DataAccessException e) {
+				if (stream.getRowCount() > 0) {
+					// Some rows were consumed so we cannot fall back
+					throw e;
+				}
+				LOG.warn("Bulk load is not available, restoring " + idAndVersion + " with batch inserts: " + e.getMessage());
+				return false;
+			}
+		}
+		return true;
+	}
+
+	void restoreTableIndexDataWithBatchInsert(IdAndVersion idAndVersion, String[] headers, Iterator<String[]> input, long maxBytesPerBatch) {
 		String sql = SQLUtils.createInsertIntoTableIndex(idAndVersion, headers);
 
 		// push the data in batches
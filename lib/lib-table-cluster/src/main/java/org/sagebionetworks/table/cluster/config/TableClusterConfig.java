@@ -42,4 +42,31 @@ public class TableClusterConfig {
 		return connectionPool;
 	}
 
+	/**
+	 * Create a pool with the same settings as the given pool whose connections
+	 * allow LOAD DATA LOCAL INFILE. It is only used to restore a table index, where
+	 * the data is always sent from a stream set on the statement, so the other
+	 * connections never accept a file request from the server. No connection is
+	 * opened until a restore needs one, and the pool has its own small limit so
+	 * concurrent restores cannot take as many connections as the main pool.
+	 * 
+	 * @param connectionPool
+	 * @param maxNumberConnections
+	 * @return
+	 */
+	public static BasicDataSource createLoadDataConnectionPool(BasicDataSource connectionPool, int maxNumberConnections) {
+		BasicDataSource loadDataPool = new BasicDataSource();
+		loadDataPool.setDriverClassName(connectionPool.getDriverClassName());
+		loadDataPool.setUrl(connectionPool.getUrl());
+		loadDataPool.setUsername(connectionPool.getUsername());
+		loadDataPool.setPassword(connectionPool.getPassword());
+		loadDataPool.setMinIdle(0);
+		loadDataPool.setMaxIdle(1);
+		loadDataPool.setMaxTotal(maxNumberConnections);
+		loadDataPool.setTestOnBorrow(connectionPool.getTestOnBorrow());
+		loadDataPool.setValidationQuery(connectionPool.getValidationQuery());
+		loadDataPool.addConnectionProperty("allowLoadLocalInfile", String.valueOf(true));
+		return loadDataPool;
+	}
+
 }
@@ -2,7 +2,9 @@ package org.sagebionetworks.table.cluster.utils;
 
 import java.io.Reader;
 import java.io.Writer;
+import java.util.concurrent.ExecutorService;
 
+import org.sagebionetworks.csv.utils.ParallelCSVReader;
 import org.sagebionetworks.repo.model.table.ColumnConstants;
 import org.sagebionetworks.repo.model.table.ColumnModel;
 import org.sagebionetworks.repo.model.table.ColumnType;
@@ -29,6 +31,22 @@ public class CSVUtils {
 	 * @return
 	 */
 	public static CSVReader createCSVReader(Reader reader, CsvTableDescriptor descriptor, Long linesToSkip) {
+		return createCSVReader(reader, descriptor, linesToSkip, null);
+	}
+
+	/**
+	 * Create CSVReader with the correct parameters using the provided parameters
+	 * or default values. When an executor is provided the returned reader parses
+	 * large chunks of the CSV in parallel on the executor, see
+	 * {@link ParallelCSVReader}.
+	 * 
+	 * @param reader
+	 * @param descriptor
+	 * @param linesToSkip
+	 * @param executor    Optional
+	 * @return
+	 */
+	public static CSVReader createCSVReader(Reader reader, CsvTableDescriptor descriptor, Long linesToSkip, ExecutorService executor) {
 		char separator = Constants.DEFAULT_SEPARATOR;
 		char quotechar = Constants.DEFAULT_QUOTE_CHARACTER;
 		char escape = Constants.DEFAULT_ESCAPE_CHARACTER;
@@ -62,6 +80,9 @@ public class CSVUtils {
 			skipLines = linesToSkip.intValue();
 		}
 		// Create the reader.
+		if (executor != null) {
+			return new ParallelCSVReader(reader, separator, quotechar, escape, skipLines, executor);
+		}
 		return new CSVReader(reader, separator, quotechar, escape, skipLines);
 	}
 	
@@ -0,0 +1,174 @@
+package org.sagebionetworks.table.cluster.utils;
+
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * An {@link InputStream} that encodes rows on the fly in the default text
+ * format of a MySQL LOAD DATA statement: UTF-8, fields separated by a tab, rows
+ * terminated by a new line, with backslash escapes for the backslash, tab, new
+ * line, carriage return and NUL characters and \N for a null value.
+ * <p>
+ * Rows are pulled from the given iterator only as the stream is read, one row
+ * is encoded at a time in a reusable buffer. The stream ends when the iterator
+ * is exhausted or once the rows read reach the given number of bytes, so that
+ * the same iterator can be used to create the stream of the next batch.
+ */
+public class LoadDataInputStream extends InputStream {
+
+	private static final byte FIELD_TERMINATOR = '\t';
+	private static final byte LINE_TERMINATOR = '\n';
+	private static final byte ESCAPE = '\\';
+	private static final byte[] NULL_VALUE = new byte[] { ESCAPE, 'N' };
+	private static final byte REPLACEMENT = '?';
+
+	private final Iterator<String[]> rows;
+	private final long maxBytes;
+
+	private byte[] buffer = new byte[1024];
+	private int length = 0;
+	private int position = 0;
+	private long bytesRead = 0;
+	private long rowCount = 0;
+
+	/**
+	 * @param rows     The rows to encode.
+	 * @param maxBytes The stream ends after the row that reaches this number of
+	 *                 bytes, a stream always includes at least one row when
+	 *                 available.
+	 */
+	public LoadDataInputStream(Iterator<String[]> rows, long maxBytes) {
+		ValidateArgument.required(rows, "rows");
+		ValidateArgument.requirement(maxBytes > 0, "maxBytes must be greater than zero");
+		this.rows = rows;
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	public int read() {
+		if (position == length && !nextRow()) {
+			return -1;
+		}
+		return buffer[position++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		int count = 0;
+		while (count < len) {
+			if (position == length && !nextRow()) {
+				break;
+			}
+			int toCopy = Math.min(len - count, length - position);
+			System.arraycopy(buffer, position, b, off + count, toCopy);
+			position += toCopy;
+			count += toCopy;
+		}
+		return count == 0 ? -1 : count;
+	}
+
+	/**
+	 * @return The number of rows that were pulled from the iterator by this
+	 *         stream.
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Encode the next row in the buffer.
+	 *
+	 * @return False if the stream ended.
+	 */
+	private boolean nextRow() {
+		if (bytesRead >= maxBytes || !rows.hasNext()) {
+			return false;
+		}
+		String[] row = rows.next();
+		length = 0;
+		position = 0;
+		for (int i = 0; i < row.length; i++) {
+			if (i > 0) {
+				append(FIELD_TERMINATOR);
+			}
+			if (row[i] == null) {
+				append(NULL_VALUE[0]);
+				append(NULL_VALUE[1]);
+			} else {
+				appendValue(row[i]);
+			}
+		}
+		append(LINE_TERMINATOR);
+		rowCount++;
+		bytesRead += length;
+		return true;
+	}
+
+	/**
+	 * Append the escaped UTF-8 bytes of the given value.
+	 */
+	private void appendValue(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				appendEscaped('\\');
+				break;
+			case '\t':
+				appendEscaped('t');
+				break;
+			case '\n':
+				appendEscaped('n');
+				break;
+			case '\r':
+				appendEscaped('r');
+				break;
+			case '\0':
+				appendEscaped('0');
+				break;
+			default:
+				if (c < 0x80) {
+					append((byte) c);
+				} else if (c < 0x800) {
+					append((byte) (0xC0 | (c >> 6)));
+					append((byte) (0x80 | (c & 0x3F)));
+				} else if (Character.isSurrogate(c)) {
+					if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+						int codePoint = Character.toCodePoint(c, value.charAt(++i));
+						append((byte) (0xF0 | (codePoint >> 18)));
+						append((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+						append((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+						append((byte) (0x80 | (codePoint & 0x3F)));
+					} else {
+						// Same as String.getBytes(), a lone surrogate cannot be encoded
+						append(REPLACEMENT);
+					}
+				} else {
+					append((byte) (0xE0 | (c >> 12)));
+					append((byte) (0x80 | ((c >> 6) & 0x3F)));
+					append((byte) (0x80 | (c & 0x3F)));
+				}
+			}
+		}
+	}
+
+	private void appendEscaped(char c) {
+		append(ESCAPE);
+		append((byte) c);
+	}
+
+	private void append(byte b) {
+		if (length == buffer.length) {
+			byte[] grown = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, grown, 0, length);
+			buffer = grown;
+		}
+		buffer[length++] = b;
+	}
+
+}
@@ -0,0 +1,547 @@
+package org.sagebionetworks.table.cluster.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Versioned, columnar binary format for a {@link SparseChangeSetDto}.
+ * <p>
+ * The format starts with the {@link #MAGIC} bytes and a version byte, followed
+ * by a GZIP compressed body. Since the legacy JSON change sets are plain GZIP
+ * streams (that start with 0x1f 0x8b) both formats can be told apart by the
+ * first bytes of a stream, see {@link #isColumnarFormat(InputStream)}.
+ * <p>
+ * The body contains the header of the change set (table ID, etag and column
+ * IDs) followed by blocks of up to {@value #ROWS_PER_BLOCK} rows terminated by
+ * an empty block, so that the rows can be decoded one block at a time. Within
+ * a block each column is written separately: the state of each cell (absent,
+ * null or with a value) followed by the values of the column, encoded as delta
+ * var-ints when all the values are integers, through a dictionary when the
+ * column has few distinct values, or as plain UTF-8 strings otherwise.
+ */
+public class SparseChangeSetColumnarFormat {
+
+	static final byte[] MAGIC = new byte[] { 'S', 'C', 'S', 'C' };
+	static final int CURRENT_VERSION = 1;
+	static final int ROWS_PER_BLOCK = 1000;
+
+	static final byte CELL_ABSENT = 0;
+	static final byte CELL_NULL = 1;
+	static final byte CELL_VALUE = 2;
+
+	static final byte ENCODING_LONG = 0;
+	static final byte ENCODING_DICTIONARY = 1;
+	static final byte ENCODING_PLAIN = 2;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Write the given change set to the given stream in the current version of
+	 * the format. The given stream is closed.
+	 *
+	 * @param set
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void write(SparseChangeSetDto set, OutputStream out) throws IOException {
+		ValidateArgument.required(set, "set");
+		ValidateArgument.required(out, "out");
+		try (OutputStream outStream = out) {
+			outStream.write(MAGIC);
+			outStream.write(CURRENT_VERSION);
+			DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(outStream, BUFFER_SIZE), BUFFER_SIZE));
+			writeString(data, set.getTableId());
+			writeString(data, set.getEtag());
+			writeStringList(data, set.getColumnIds());
+			List<SparseRowDto> rows = set.getRows();
+			data.writeBoolean(rows != null);
+			if (rows != null) {
+				for (int start = 0; start < rows.size(); start += ROWS_PER_BLOCK) {
+					writeBlock(data, rows.subList(start, Math.min(rows.size(), start + ROWS_PER_BLOCK)));
+				}
+			}
+			// An empty block marks the end of the rows
+			writeVarLong(data, 0);
+			data.close();
+		}
+	}
+
+	/**
+	 * Does the given stream contain a change set in the columnar format? The
+	 * position of the stream is not changed.
+	 *
+	 * @param in A stream that supports {@link InputStream#mark(int)}
+	 * @return
+	 * @throws IOException
+	 */
+	public static boolean isColumnarFormat(InputStream in) throws IOException {
+		ValidateArgument.required(in, "in");
+		ValidateArgument.requirement(in.markSupported(), "The stream must support mark()");
+		in.mark(MAGIC.length);
+		try {
+			byte[] header = new byte[MAGIC.length];
+			int read = 0;
+			while (read < header.length) {
+				int count = in.read(header, read, header.length - read);
+				if (count < 0) {
+					return false;
+				}
+				read += count;
+			}
+			return Arrays.equals(MAGIC, header);
+		} finally {
+			in.reset();
+		}
+	}
+
+	/**
+	 * Read a change set in the columnar format from the given stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static SparseChangeSetDto read(InputStream in) throws IOException {
+		List<SparseRowDto> rows = new ArrayList<>();
+		SparseChangeSetDto set = read(in, rows::add);
+		if (set.getRows() != null) {
+			set.setRows(rows);
+		}
+		return set;
+	}
+
+	/**
+	 * Stream over a change set in the columnar format, each row is passed to the
+	 * given handler as soon as its block is decoded. Only one block of rows is
+	 * kept in memory.
+	 *
+	 * @param in
+	 * @param rowHandler
+	 * @return The header of the change set, the rows of the result are empty (or
+	 *         null if the change set has no rows).
+	 * @throws IOException
+	 */
+	public static SparseChangeSetDto read(InputStream in, Consumer<SparseRowDto> rowHandler) throws IOException {
+		ValidateArgument.required(in, "in");
+		ValidateArgument.required(rowHandler, "rowHandler");
+		byte[] header = new byte[MAGIC.length];
+		DataInputStream raw = new DataInputStream(in);
+		raw.readFully(header);
+		if (!Arrays.equals(MAGIC, header)) {
+			throw new IllegalArgumentException("The stream does not contain a columnar change set");
+		}
+		int version = raw.readUnsignedByte();
+		if (version != CURRENT_VERSION) {
+			throw new IllegalArgumentException("Unsupported columnar change set version: " + version);
+		}
+		DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE));
+		SparseChangeSetDto set = new SparseChangeSetDto();
+		set.setTableId(readString(data));
+		set.setEtag(readString(data));
+		set.setColumnIds(readStringList(data));
+		if (data.readBoolean()) {
+			set.setRows(new ArrayList<>());
+		}
+		int rowCount;
+		while ((rowCount = readVarInt(data)) > 0) {
+			for (SparseRowDto row : readBlock(data, rowCount)) {
+				rowHandler.accept(row);
+			}
+		}
+		return set;
+	}
+
+	static void writeBlock(DataOutputStream out, List<SparseRowDto> rows) throws IOException {
+		int rowCount = rows.size();
+		writeVarLong(out, rowCount);
+		List<Long> rowIds = new ArrayList<>(rowCount);
+		List<Long> versions = new ArrayList<>(rowCount);
+		List<String> etags = new ArrayList<>(rowCount);
+		byte[] valuesStates = new byte[rowCount];
+		// The keys of the values in the order they are first seen
+		Set<String> keys = new LinkedHashSet<>();
+		for (int i = 0; i < rowCount; i++) {
+			SparseRowDto row = rows.get(i);
+			rowIds.add(row.getRowId());
+			versions.add(row.getVersionNumber());
+			etags.add(row.getEtag());
+			valuesStates[i] = row.getValues() == null ? CELL_NULL : CELL_VALUE;
+			if (row.getValues() != null) {
+				keys.addAll(row.getValues().keySet());
+			}
+		}
+		writeLongColumn(out, rowIds);
+		writeLongColumn(out, versions);
+		writeStringColumn(out, etags);
+		writeStates(out, valuesStates);
+		writeVarLong(out, keys.size());
+		for (String key : keys) {
+			writeString(out, key);
+			byte[] states = new byte[rowCount];
+			List<String> values = new ArrayList<>(rowCount);
+			for (int i = 0; i < rowCount; i++) {
+				Map<String, String> rowValues = rows.get(i).getValues();
+				if (rowValues == null || !rowValues.containsKey(key)) {
+					states[i] = CELL_ABSENT;
+				} else {
+					String value = rowValues.get(key);
+					states[i] = value == null ? CELL_NULL : CELL_VALUE;
+					if (value != null) {
+						values.add(value);
+					}
+				}
+			}
+			writeStates(out, states);
+			writeValues(out, values);
+		}
+	}
+
+	static List<SparseRowDto> readBlock(DataInputStream in, int rowCount) throws IOException {
+		Long[] rowIds = readLongColumn(in, rowCount);
+		Long[] versions = readLongColumn(in, rowCount);
+		String[] etags = readStringColumn(in, rowCount);
+		byte[] valuesStates = readStates(in, rowCount);
+		List<SparseRowDto> rows = new ArrayList<>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			SparseRowDto row = new SparseRowDto();
+			row.setRowId(rowIds[i]);
+			row.setVersionNumber(versions[i]);
+			row.setEtag(etags[i]);
+			if (valuesStates[i] == CELL_VALUE) {
+				row.setValues(new LinkedHashMap<>());
+			}
+			rows.add(row);
+		}
+		int keyCount = readVarInt(in);
+		for (int k = 0; k < keyCount; k++) {
+			String key = readString(in);
+			byte[] states = readStates(in, rowCount);
+			List<String> values = readValues(in);
+			int valueIndex = 0;
+			for (int i = 0; i < rowCount; i++) {
+				if (states[i] == CELL_NULL) {
+					rows.get(i).getValues().put(key, null);
+				} else if (states[i] == CELL_VALUE) {
+					rows.get(i).getValues().put(key, values.get(valueIndex++));
+				}
+			}
+		}
+		return rows;
+	}
+
+	static void writeLongColumn(DataOutputStream out, List<Long> column) throws IOException {
+		byte[] states = new byte[column.size()];
+		List<Long> values = new ArrayList<>(column.size());
+		for (int i = 0; i < states.length; i++) {
+			Long value = column.get(i);
+			states[i] = value == null ? CELL_NULL : CELL_VALUE;
+			if (value != null) {
+				values.add(value);
+			}
+		}
+		writeStates(out, states);
+		writeVarLong(out, values.size());
+		writeLongs(out, values);
+	}
+
+	static Long[] readLongColumn(DataInputStream in, int rowCount) throws IOException {
+		byte[] states = readStates(in, rowCount);
+		long[] values = readLongs(in, readVarInt(in));
+		Long[] column = new Long[rowCount];
+		int valueIndex = 0;
+		for (int i = 0; i < rowCount; i++) {
+			if (states[i] == CELL_VALUE) {
+				column[i] = values[valueIndex++];
+			}
+		}
+		return column;
+	}
+
+	static void writeStringColumn(DataOutputStream out, List<String> column) throws IOException {
+		byte[] states = new byte[column.size()];
+		List<String> values = new ArrayList<>(column.size());
+		for (int i = 0; i < states.length; i++) {
+			String value = column.get(i);
+			states[i] = value == null ? CELL_NULL : CELL_VALUE;
+			if (value != null) {
+				values.add(value);
+			}
+		}
+		writeStates(out, states);
+		writeValues(out, values);
+	}
+
+	static String[] readStringColumn(DataInputStream in, int rowCount) throws IOException {
+		byte[] states = readStates(in, rowCount);
+		List<String> values = readValues(in);
+		String[] column = new String[rowCount];
+		int valueIndex = 0;
+		for (int i = 0; i < rowCount; i++) {
+			if (states[i] == CELL_VALUE) {
+				column[i] = values.get(valueIndex++);
+			}
+		}
+		return column;
+	}
+
+	/**
+	 * Write the non-null values of a column with the most compact encoding.
+	 *
+	 * @param out
+	 * @param values
+	 * @throws IOException
+	 */
+	static void writeValues(DataOutputStream out, List<String> values) throws IOException {
+		byte encoding = chooseEncoding(values);
+		out.writeByte(encoding);
+		writeVarLong(out, values.size());
+		switch (encoding) {
+		case ENCODING_LONG:
+			List<Long> longs = new ArrayList<>(values.size());
+			for (String value : values) {
+				longs.add(Long.parseLong(value));
+			}
+			writeLongs(out, longs);
+			break;
+		case ENCODING_DICTIONARY:
+			Map<String, Integer> dictionary = new LinkedHashMap<>();
+			for (String value : values) {
+				dictionary.putIfAbsent(value, dictionary.size());
+			}
+			writeVarLong(out, dictionary.size());
+			for (String value : dictionary.keySet()) {
+				writeString(out, value);
+			}
+			for (String value : values) {
+				writeVarLong(out, dictionary.get(value));
+			}
+			break;
+		default:
+			for (String value : values) {
+				writeString(out, value);
+			}
+		}
+	}
+
+	static List<String> readValues(DataInputStream in) throws IOException {
+		byte encoding = in.readByte();
+		int count = readVarInt(in);
+		List<String> values = new ArrayList<>(count);
+		switch (encoding) {
+		case ENCODING_LONG:
+			for (long value : readLongs(in, count)) {
+				values.add(Long.toString(value));
+			}
+			break;
+		case ENCODING_DICTIONARY:
+			String[] dictionary = new String[readVarInt(in)];
+			for (int i = 0; i < dictionary.length; i++) {
+				dictionary[i] = readString(in);
+			}
+			for (int i = 0; i < count; i++) {
+				values.add(dictionary[readVarInt(in)]);
+			}
+			break;
+		case ENCODING_PLAIN:
+			for (int i = 0; i < count; i++) {
+				values.add(readString(in));
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown value encoding: " + encoding);
+		}
+		return values;
+	}
+
+	/**
+	 * @param values
+	 * @return {@link #ENCODING_LONG} if all the values are integers that convert
+	 *         back to the same string, {@link #ENCODING_DICTIONARY} if at most
+	 *         half of the values are distinct and {@link #ENCODING_PLAIN}
+	 *         otherwise
+	 */
+	static byte chooseEncoding(List<String> values) {
+		if (values.isEmpty()) {
+			return ENCODING_PLAIN;
+		}
+		boolean allLongs = true;
+		Set<String> distinct = new HashSet<>();
+		for (String value : values) {
+			allLongs = allLongs && isCanonicalLong(value);
+			distinct.add(value);
+		}
+		if (allLongs) {
+			return ENCODING_LONG;
+		}
+		return distinct.size() * 2 <= values.size() ? ENCODING_DICTIONARY : ENCODING_PLAIN;
+	}
+
+	/**
+	 * @param value
+	 * @return True if the given value is a long that {@link Long#toString(long)}
+	 *         converts back to the exact same string (e.g. no leading zeros or
+	 *         plus sign)
+	 */
+	static boolean isCanonicalLong(String value) {
+		int length = value.length();
+		int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+		if (length == start || length > 20 || "-0".equals(value)) {
+			return false;
+		}
+		if (value.charAt(start) == '0' && length > start + 1) {
+			return false;
+		}
+		for (int i = start; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		try {
+			Long.parseLong(value);
+			return true;
+		} catch (NumberFormatException e) {
+			// overflow
+			return false;
+		}
+	}
+
+	/**
+	 * Write each value as the zig-zag var-int of its difference with the
+	 * previous value, sorted or repeated values (e.g. row IDs and versions) take
+	 * a single byte.
+	 */
+	static void writeLongs(DataOutputStream out, List<Long> values) throws IOException {
+		long previous = 0;
+		for (Long value : values) {
+			long delta = value - previous;
+			writeVarLong(out, (delta << 1) ^ (delta >> 63));
+			previous = value;
+		}
+	}
+
+	static long[] readLongs(DataInputStream in, int count) throws IOException {
+		long[] values = new long[count];
+		long previous = 0;
+		for (int i = 0; i < count; i++) {
+			long zigZag = readVarLong(in);
+			previous += (zigZag >>> 1) ^ -(zigZag & 1);
+			values[i] = previous;
+		}
+		return values;
+	}
+
+	/**
+	 * The states of the cells of a column, packed four to a byte.
+	 */
+	static void writeStates(DataOutputStream out, byte[] states) throws IOException {
+		for (int i = 0; i < states.length; i += 4) {
+			int packed = 0;
+			for (int j = 0; j < 4 && i + j < states.length; j++) {
+				packed |= states[i + j] << (j * 2);
+			}
+			out.writeByte(packed);
+		}
+	}
+
+	static byte[] readStates(DataInputStream in, int count) throws IOException {
+		byte[] states = new byte[count];
+		for (int i = 0; i < count; i += 4) {
+			int packed = in.readUnsignedByte();
+			for (int j = 0; j < 4 && i + j < count; j++) {
+				states[i + j] = (byte) ((packed >> (j * 2)) & 3);
+			}
+		}
+		return states;
+	}
+
+	static void writeStringList(DataOutputStream out, List<String> values) throws IOException {
+		// zero is reserved for null
+		writeVarLong(out, values == null ? 0 : values.size() + 1L);
+		if (values != null) {
+			for (String value : values) {
+				writeString(out, value);
+			}
+		}
+	}
+
+	static List<String> readStringList(DataInputStream in) throws IOException {
+		int size = readVarInt(in) - 1;
+		if (size < 0) {
+			return null;
+		}
+		List<String> values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(readString(in));
+		}
+		return values;
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			// zero is reserved for null
+			writeVarLong(out, 0);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length + 1L);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		int length = readVarInt(in) - 1;
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new EOFException("Malformed var-int");
+	}
+
+	static int readVarInt(DataInputStream in) throws IOException {
+		return Math.toIntExact(readVarLong(in));
+	}
+
+}
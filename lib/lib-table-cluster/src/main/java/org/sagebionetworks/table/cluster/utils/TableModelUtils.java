@@ -1,5 +1,6 @@
 package org.sagebionetworks.table.cluster.utils;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -481,16 +482,25 @@ public class TableModelUtils {
 	}
 	
 	/**
-	 * Read GZIP compressed JSON from the passed stream.
+	 * Read a change set from the passed stream. The stream can either contain
+	 * GZIP compressed JSON or the {@link SparseChangeSetColumnarFormat}.
 	 * 
 	 * @param zippedStream
 	 * @return
 	 * @throws IOException
 	 */
 	public static SparseChangeSetDto readSparseChangeSetDtoFromGzStream(InputStream zippedStream) throws IOException {
+		BufferedInputStream in = new BufferedInputStream(zippedStream);
+		if (SparseChangeSetColumnarFormat.isColumnarFormat(in)) {
+			try {
+				return SparseChangeSetColumnarFormat.read(in);
+			} finally {
+				in.close();
+			}
+		}
 		GZIPInputStream zipIn = null;
 		try{
-			zipIn = new GZIPInputStream(zippedStream);
+			zipIn = new GZIPInputStream(in);
 			String json = IOUtils.toString(zipIn, UTF_8);
 			return EntityFactory.createEntityFromJSONString(json, SparseChangeSetDto.class);
 		} catch (JSONObjectAdapterException e) {
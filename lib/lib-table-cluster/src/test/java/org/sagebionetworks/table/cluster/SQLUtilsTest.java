@@ -2795,6 +2795,16 @@ public class SQLUtilsTest {
 		assertEquals("INSERT INTO T999_23 (foo,bar) VALUES  (?,?)", sql);
 	}
 	
+	@Test
+	public void testCreateLoadDataIntoTableIndex() {
+		String[] headers = new String[] {"foo","bar"};
+		tableId = IdAndVersion.parse("syn999.23");
+		// call under test
+		String sql = SQLUtils.createLoadDataIntoTableIndex(tableId, headers);
+		assertEquals("LOAD DATA LOCAL INFILE 'stream' INTO TABLE T999_23 CHARACTER SET utf8mb4"
+				+ " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' (foo,bar)", sql);
+	}
+	
 	@Test
 	public void testCalcualteBytes() {
 		String[] row = new String[] {"foo","barbar"};
@@ -10,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.sagebionetworks.repo.model.table.TableConstants.ANNOTATION_REPLICATION_COL_MAX_STRING_LENGTH;
 import static org.sagebionetworks.repo.model.table.TableConstants.ANNOTATION_REPLICATION_COL_OBJECT_ID;
 import static org.sagebionetworks.repo.model.table.TableConstants.ANNOTATION_REPLICATION_COL_OBJECT_TYPE;
@@ -2620,6 +2621,87 @@ public class TableIndexDAOImplTest {
 		long count = tableIndexDAO.getRowCountForTable(tableId);
 		assertEquals(rows.size()-1, count);
 	}
+	
+	@Test
+	public void testRestoreTableIndexDataWithLoadDataMatchesBatchInsert() throws IOException {
+		tableId = IdAndVersion.parse("syn123.45");
+		indexDescription = new ViewIndexDescription(tableId, TableType.entityview, -1L);
+		// delete all data
+		tableIndexDAO.deleteObjectData(mainType, Lists.newArrayList(2L,3L));
+		tableIndexDAO.deleteTable(tableId);
+		
+		List<ColumnModel> schema = Arrays.asList(
+			TableModelTestUtils.createColumn(1L, "foo", ColumnType.INTEGER_LIST), 
+			TableModelTestUtils.createColumn(2L, "bar", ColumnType.DOUBLE),
+			TableModelTestUtils.createColumn(3L, "baz", ColumnType.STRING)
+		);
+		
+		List<String[]> rows = Arrays.asList(
+			new String[] {"ROW_ID", "ROW_VERSION", "ROW_ETAG", "ROW_BENEFACTOR" , "_C1_", "_C2_", "_DBL_C2_", "_C3_"},
+			new String[] {"2", "2", "etag2", "2", "[123, 456, 789]", null, "NaN", "tab\tnew\nline\\N \u00e9\ud83d\ude00"}, 
+			new String[] {"3", "2", "etag3", "2", "[321, 654]", "1.7976931348623157E308", "Infinity", ""},
+			new String[] {"4", "2", "etag4", "2", null, "1.5", null, null}
+		);
+		
+		createOrUpdateTable(schema, indexDescription);
+		// small batch size to force multiple batches.
+		long maxBytesPerBatch = 10;
+		
+		// call under test
+		boolean loaded = ((TableIndexDAOImpl) tableIndexDAO).restoreTableIndexDataWithLoadData(tableId, rows.get(0), rows.subList(1, rows.size()).iterator(), maxBytesPerBatch);
+		
+		assumeTrue(loaded, "LOAD DATA LOCAL INFILE is disabled on the test database");
+		
+		InMemoryCSVWriterStream loadDataStream = new InMemoryCSVWriterStream();
+		tableIndexDAO.streamTableIndexData(tableId, loadDataStream);
+		
+		tableIndexDAO.deleteTable(tableId);
+		createOrUpdateTable(schema, indexDescription);
+		
+		((TableIndexDAOImpl) tableIndexDAO).restoreTableIndexDataWithBatchInsert(tableId, rows.get(0), rows.subList(1, rows.size()).iterator(), maxBytesPerBatch);
+		
+		InMemoryCSVWriterStream batchInsertStream = new InMemoryCSVWriterStream();
+		tableIndexDAO.streamTableIndexData(tableId, batchInsertStream);
+		
+		assertEquals(rows.size(), loadDataStream.getRows().size());
+		for (int i = 0; i < rows.size(); i++) {
+			assertArrayEquals(batchInsertStream.getRows().get(i), loadDataStream.getRows().get(i));
+		}
+	}
+	
+	@Test
+	public void testRestoreTableIndexDataWithLoadDataAndTruncatedValue() {
+		tableId = IdAndVersion.parse("syn123.45");
+		indexDescription = new ViewIndexDescription(tableId, TableType.entityview, -1L);
+		// delete all data
+		tableIndexDAO.deleteObjectData(mainType, Lists.newArrayList(2L,3L));
+		tableIndexDAO.deleteTable(tableId);
+		
+		// The string column is limited to 50 characters
+		List<ColumnModel> schema = Arrays.asList(
+			TableModelTestUtils.createColumn(1L, "foo", ColumnType.STRING)
+		);
+		
+		String[] headers = new String[] {"ROW_ID", "ROW_VERSION", "ROW_ETAG", "ROW_BENEFACTOR" , "_C1_"};
+		List<String[]> validRows = Collections.singletonList(new String[] {"2", "2", "etag2", "2", "short"});
+		List<String[]> truncatedRows = Collections.singletonList(new String[] {"3", "2", "etag3", "2", "a".repeat(51)});
+		
+		createOrUpdateTable(schema, indexDescription);
+		long maxBytesPerBatch = 1000;
+		
+		boolean loaded = ((TableIndexDAOImpl) tableIndexDAO).restoreTableIndexDataWithLoadData(tableId, headers, validRows.iterator(), maxBytesPerBatch);
+		
+		assumeTrue(loaded, "LOAD DATA LOCAL INFILE is disabled on the test database");
+		
+		String message = assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			((TableIndexDAOImpl) tableIndexDAO).restoreTableIndexDataWithLoadData(tableId, headers, truncatedRows.iterator(), maxBytesPerBatch);
+		}).getMessage();
+		
+		assertTrue(message.startsWith("Loading " + tableId + " raised warnings: "), message);
+		// The batch with the truncated value is rolled back
+		assertEquals(1L, tableIndexDAO.getRowCountForTable(tableId));
+	}
 
 	@Test
 	public void testCopyEntityReplicationToTableScopeEmpty(){
@@ -2,17 +2,23 @@ package org.sagebionetworks.table.cluster.utils;
 
 
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.jupiter.api.Test;
+import org.sagebionetworks.csv.utils.ParallelCSVReader;
 import org.sagebionetworks.repo.model.table.ColumnConstants;
 import org.sagebionetworks.repo.model.table.ColumnModel;
 import org.sagebionetworks.repo.model.table.ColumnType;
@@ -363,6 +369,24 @@ public class CSVUtilsTest {
 		assertEquals(0, csvReader.getSkipLines());
 	}
 	
+	@Test
+	public void testCreateCSVReaderWithExecutor() throws IOException {
+		CsvTableDescriptor descriptor = new CsvTableDescriptor();
+		descriptor.setSeparator("\t");
+		StringReader reader = new StringReader("skip\n1\t2\t3");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// call under test
+			CSVReader csvReader = CSVUtils.createCSVReader(reader, descriptor, 1L, executor);
+			assertTrue(csvReader instanceof ParallelCSVReader);
+			assertEquals('\t', csvReader.getSeparator());
+			assertArrayEquals(new String[] { "1", "2", "3" }, csvReader.readNext());
+			assertNull(csvReader.readNext());
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
 	@Test
 	public void testCreateCSVReaderTabSeperator(){
 		// an empty body should result in all of the default values.
@@ -0,0 +1,148 @@
+package org.sagebionetworks.table.cluster.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class LoadDataInputStreamTest {
+
+	@Test
+	public void testRead() throws IOException {
+		List<String[]> rows = Arrays.asList(
+			new String[] { "1", "foo", null },
+			new String[] { "2", "", "bar" }
+		);
+		LoadDataInputStream stream = new LoadDataInputStream(rows.iterator(), Long.MAX_VALUE);
+		// call under test
+		assertEquals("1\tfoo\t\\N\n2\t\tbar\n", readAll(stream));
+		assertEquals(2L, stream.getRowCount());
+	}
+
+	@Test
+	public void testReadWithEscapes() throws IOException {
+		List<String[]> rows = Collections.singletonList(new String[] { "a\\b", "c\td", "e\nf\rg", "h\0i", "\\N" });
+		LoadDataInputStream stream = new LoadDataInputStream(rows.iterator(), Long.MAX_VALUE);
+		// call under test
+		assertEquals("a\\\\b\tc\\td\te\\nf\\rg\th\\0i\t\\\\N\n", readAll(stream));
+	}
+
+	@Test
+	public void testReadWithMultiByteCharacters() throws IOException {
+		String value = "\u00e9\u4e2d\ud83d\ude00";
+		LoadDataInputStream stream = new LoadDataInputStream(Collections.singletonList(new String[] { value }).iterator(), Long.MAX_VALUE);
+		// call under test
+		byte[] bytes = readAllBytes(stream);
+		assertEquals(value + "\n", new String(bytes, StandardCharsets.UTF_8));
+		assertEquals((value + "\n").getBytes(StandardCharsets.UTF_8).length, bytes.length);
+	}
+
+	@Test
+	public void testReadWithLoneSurrogate() throws IOException {
+		String value = "a\ud83db";
+		LoadDataInputStream stream = new LoadDataInputStream(Collections.singletonList(new String[] { value }).iterator(), Long.MAX_VALUE);
+		// call under test
+		assertEquals("a?b\n", readAll(stream));
+	}
+
+	@Test
+	public void testReadSingleBytes() {
+		LoadDataInputStream stream = new LoadDataInputStream(Collections.singletonList(new String[] { "a", "b" }).iterator(), Long.MAX_VALUE);
+		// call under test
+		assertEquals('a', stream.read());
+		assertEquals('\t', stream.read());
+		assertEquals('b', stream.read());
+		assertEquals('\n', stream.read());
+		assertEquals(-1, stream.read());
+	}
+
+	@Test
+	public void testReadWithMaxBytes() throws IOException {
+		Iterator<String[]> rows = Arrays.asList(
+			new String[] { "11", "22" },
+			new String[] { "3", "4" },
+			new String[] { "5", "6" }
+		).iterator();
+
+		LoadDataInputStream stream = new LoadDataInputStream(rows, 7);
+		// call under test
+		assertEquals("11\t22\n3\t4\n", readAll(stream));
+		assertEquals(2L, stream.getRowCount());
+
+		// The next stream continues with the remaining rows
+		stream = new LoadDataInputStream(rows, 1);
+		assertEquals("5\t6\n", readAll(stream));
+		assertEquals(1L, stream.getRowCount());
+		assertFalse(rows.hasNext());
+	}
+
+	@Test
+	public void testReadWithRowLargerThanBuffer() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			builder.append((char) ('a' + i % 26));
+		}
+		String value = builder.toString();
+		LoadDataInputStream stream = new LoadDataInputStream(Collections.singletonList(new String[] { value, value }).iterator(), 1);
+		// call under test
+		assertEquals(value + "\t" + value + "\n", readAll(stream));
+	}
+
+	@Test
+	public void testReadWithNoRows() throws IOException {
+		LoadDataInputStream stream = new LoadDataInputStream(Collections.emptyIterator(), 1);
+		// call under test
+		assertEquals(-1, stream.read(new byte[10], 0, 10));
+		assertEquals(0L, stream.getRowCount());
+	}
+
+	@Test
+	public void testReadWithZeroLength() {
+		Iterator<String[]> rows = Collections.singletonList(new String[] { "a" }).iterator();
+		LoadDataInputStream stream = new LoadDataInputStream(rows, 1);
+		// call under test
+		assertEquals(0, stream.read(new byte[10], 0, 0));
+		assertTrue(rows.hasNext());
+	}
+
+	@Test
+	public void testConstructorWithNullRows() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			new LoadDataInputStream(null, 1);
+		}).getMessage();
+		assertEquals("rows is required.", message);
+	}
+
+	@Test
+	public void testConstructorWithZeroMaxBytes() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			new LoadDataInputStream(Collections.emptyIterator(), 0);
+		}).getMessage();
+		assertEquals("maxBytes must be greater than zero", message);
+	}
+
+	private static String readAll(InputStream stream) throws IOException {
+		return new String(readAllBytes(stream), StandardCharsets.UTF_8);
+	}
+
+	private static byte[] readAllBytes(InputStream stream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[3];
+		for (int count = stream.read(buffer); count >= 0; count = stream.read(buffer)) {
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+
+}
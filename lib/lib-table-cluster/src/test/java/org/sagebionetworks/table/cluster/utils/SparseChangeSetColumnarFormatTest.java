@@ -0,0 +1,215 @@
+package org.sagebionetworks.table.cluster.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
+
+import com.google.common.collect.Lists;
+
+public class SparseChangeSetColumnarFormatTest {
+
+	private SparseChangeSetDto dto;
+
+	@BeforeEach
+	public void before() {
+		dto = new SparseChangeSetDto();
+		dto.setTableId("syn123");
+		dto.setEtag("etag");
+		dto.setColumnIds(Lists.newArrayList("1", "2", "3", "4"));
+		dto.setRows(new ArrayList<>());
+	}
+
+	@Test
+	public void testWriteRead() throws IOException {
+		Map<String, String> values = new HashMap<>();
+		values.put("1", "foo");
+		values.put("2", "123");
+		values.put("3", null);
+		values.put("4", "true");
+		dto.getRows().add(createRow(0L, 101L, "rowEtag", values));
+		values = new HashMap<>();
+		values.put("2", "-456");
+		values.put("4", "true");
+		dto.getRows().add(createRow(1L, 101L, null, values));
+		// a row without values and a row with empty values
+		dto.getRows().add(createRow(null, null, null, null));
+		dto.getRows().add(createRow(2L, 100L, null, new HashMap<>()));
+
+		// call under test
+		assertEquals(dto, writeRead(dto));
+	}
+
+	@Test
+	public void testWriteReadWithMultipleBlocks() throws IOException {
+		int rowCount = SparseChangeSetColumnarFormat.ROWS_PER_BLOCK * 2 + 3;
+		for (int i = 0; i < rowCount; i++) {
+			Map<String, String> values = new HashMap<>();
+			values.put("1", "value" + i);
+			values.put("2", Integer.toString(i % 7));
+			if (i % 3 == 0) {
+				values.put("3", "sparse" + (i % 2));
+			}
+			dto.getRows().add(createRow((long) i, 3L, null, values));
+		}
+		List<SparseRowDto> streamed = new ArrayList<>();
+
+		byte[] bytes = write(dto);
+		// call under test
+		SparseChangeSetDto header = SparseChangeSetColumnarFormat.read(new ByteArrayInputStream(bytes), streamed::add);
+
+		assertEquals(dto.getTableId(), header.getTableId());
+		assertEquals(dto.getEtag(), header.getEtag());
+		assertEquals(dto.getColumnIds(), header.getColumnIds());
+		assertEquals(Collections.emptyList(), header.getRows());
+		assertEquals(dto.getRows(), streamed);
+	}
+
+	@Test
+	public void testWriteReadWithNulls() throws IOException {
+		dto = new SparseChangeSetDto();
+
+		SparseChangeSetDto copy = writeRead(dto);
+		assertEquals(dto, copy);
+		assertNull(copy.getRows());
+		assertNull(copy.getColumnIds());
+	}
+
+	@Test
+	public void testWriteReadWithEmptyRows() throws IOException {
+		assertEquals(dto, writeRead(dto));
+	}
+
+	@Test
+	public void testWriteReadWithLongEdgeCases() throws IOException {
+		List<String> longs = Lists.newArrayList("0", "-1", Long.toString(Long.MAX_VALUE),
+				Long.toString(Long.MIN_VALUE), "42");
+		for (int i = 0; i < longs.size(); i++) {
+			Map<String, String> values = new HashMap<>();
+			values.put("1", longs.get(i));
+			dto.getRows().add(createRow(Long.MAX_VALUE - i, Long.MIN_VALUE + i, null, values));
+		}
+		assertEquals(dto, writeRead(dto));
+	}
+
+	@Test
+	public void testWriteReadWithUnicode() throws IOException {
+		Map<String, String> values = new HashMap<>();
+		values.put("1", "été ☃ 😀");
+		values.put("2", "");
+		dto.getRows().add(createRow(0L, 0L, null, values));
+		assertEquals(dto, writeRead(dto));
+	}
+
+	@Test
+	public void testChooseEncoding() {
+		assertEquals(SparseChangeSetColumnarFormat.ENCODING_PLAIN,
+				SparseChangeSetColumnarFormat.chooseEncoding(Collections.emptyList()));
+		assertEquals(SparseChangeSetColumnarFormat.ENCODING_LONG,
+				SparseChangeSetColumnarFormat.chooseEncoding(Lists.newArrayList("1", "-2", "3")));
+		assertEquals(SparseChangeSetColumnarFormat.ENCODING_DICTIONARY,
+				SparseChangeSetColumnarFormat.chooseEncoding(Lists.newArrayList("true", "false", "true", "true")));
+		assertEquals(SparseChangeSetColumnarFormat.ENCODING_PLAIN,
+				SparseChangeSetColumnarFormat.chooseEncoding(Lists.newArrayList("a", "b", "c", "a")));
+		// Not all the values are integers
+		assertEquals(SparseChangeSetColumnarFormat.ENCODING_PLAIN,
+				SparseChangeSetColumnarFormat.chooseEncoding(Lists.newArrayList("1", "2.5")));
+	}
+
+	@Test
+	public void testIsCanonicalLong() {
+		assertTrue(SparseChangeSetColumnarFormat.isCanonicalLong("0"));
+		assertTrue(SparseChangeSetColumnarFormat.isCanonicalLong("-123"));
+		assertTrue(SparseChangeSetColumnarFormat.isCanonicalLong(Long.toString(Long.MIN_VALUE)));
+		assertFalse(SparseChangeSetColumnarFormat.isCanonicalLong(""));
+		assertFalse(SparseChangeSetColumnarFormat.isCanonicalLong("-"));
+		assertFalse(SparseChangeSetColumnarFormat.isCanonicalLong("-0"));
+		assertFalse(SparseChangeSetColumnarFormat.isCanonicalLong("007"));
+		assertFalse(SparseChangeSetColumnarFormat.isCanonicalLong("+7"));
+		assertFalse(SparseChangeSetColumnarFormat.isCanonicalLong("1e3"));
+		assertFalse(SparseChangeSetColumnarFormat.isCanonicalLong("9223372036854775808"));
+	}
+
+	@Test
+	public void testIsColumnarFormat() throws IOException {
+		BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(write(dto)));
+		// call under test
+		assertTrue(SparseChangeSetColumnarFormat.isColumnarFormat(in));
+		// The stream is not consumed
+		assertEquals(dto, SparseChangeSetColumnarFormat.read(in));
+	}
+
+	@Test
+	public void testIsColumnarFormatWithJSON() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TableModelUtils.writeSparesChangeSetToGz(dto, out);
+		// call under test
+		assertFalse(SparseChangeSetColumnarFormat.isColumnarFormat(new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()))));
+	}
+
+	@Test
+	public void testIsColumnarFormatWithShortStream() throws IOException {
+		// call under test
+		assertFalse(SparseChangeSetColumnarFormat.isColumnarFormat(new BufferedInputStream(new ByteArrayInputStream(new byte[] { 'S' }))));
+	}
+
+	@Test
+	public void testReadWithUnsupportedVersion() throws IOException {
+		byte[] bytes = write(dto);
+		bytes[SparseChangeSetColumnarFormat.MAGIC.length] = SparseChangeSetColumnarFormat.CURRENT_VERSION + 1;
+
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			SparseChangeSetColumnarFormat.read(new ByteArrayInputStream(bytes));
+		}).getMessage();
+		assertEquals("Unsupported columnar change set version: 2", message);
+	}
+
+	@Test
+	public void testReadWithJSON() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TableModelUtils.writeSparesChangeSetToGz(dto, out);
+
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			SparseChangeSetColumnarFormat.read(new ByteArrayInputStream(out.toByteArray()));
+		}).getMessage();
+		assertEquals("The stream does not contain a columnar change set", message);
+	}
+
+	static SparseRowDto createRow(Long rowId, Long versionNumber, String etag, Map<String, String> values) {
+		SparseRowDto row = new SparseRowDto();
+		row.setRowId(rowId);
+		row.setVersionNumber(versionNumber);
+		row.setEtag(etag);
+		row.setValues(values);
+		return row;
+	}
+
+	private static byte[] write(SparseChangeSetDto set) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SparseChangeSetColumnarFormat.write(set, out);
+		return out.toByteArray();
+	}
+
+	private static SparseChangeSetDto writeRead(SparseChangeSetDto set) throws IOException {
+		return SparseChangeSetColumnarFormat.read(new ByteArrayInputStream(write(set)));
+	}
+
+}
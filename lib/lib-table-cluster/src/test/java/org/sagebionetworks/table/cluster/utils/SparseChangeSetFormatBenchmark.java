@@ -0,0 +1,127 @@
+package org.sagebionetworks.table.cluster.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
+
+import com.google.common.collect.Lists;
+
+/**
+ * JMH benchmark of the encoding and decoding of a change set written as GZIP
+ * JSON and in the {@link SparseChangeSetColumnarFormat}. The name of the class
+ * keeps it out of the regular test run, run the main method from the test
+ * classpath (e.g. from an IDE or with exec:java and classpathScope=test).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SparseChangeSetFormatBenchmark {
+
+	@Param({ "100000" })
+	private int rowCount;
+
+	private SparseChangeSetDto set;
+	private byte[] json;
+	private byte[] columnar;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		set = createChangeSet(rowCount);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TableModelUtils.writeSparesChangeSetToGz(set, out);
+		json = out.toByteArray();
+		out = new ByteArrayOutputStream();
+		SparseChangeSetColumnarFormat.write(set, out);
+		columnar = out.toByteArray();
+	}
+
+	@Benchmark
+	public void writeJson(Blackhole blackhole) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TableModelUtils.writeSparesChangeSetToGz(set, out);
+		blackhole.consume(out.size());
+	}
+
+	@Benchmark
+	public void writeColumnar(Blackhole blackhole) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SparseChangeSetColumnarFormat.write(set, out);
+		blackhole.consume(out.size());
+	}
+
+	@Benchmark
+	public void readJson(Blackhole blackhole) throws IOException {
+		blackhole.consume(TableModelUtils.readSparseChangeSetDtoFromGzStream(new ByteArrayInputStream(json)));
+	}
+
+	@Benchmark
+	public void readColumnar(Blackhole blackhole) throws IOException {
+		blackhole.consume(SparseChangeSetColumnarFormat.read(new ByteArrayInputStream(columnar)));
+	}
+
+	/**
+	 * A change set with a mix of the typical column types: integers, booleans,
+	 * low cardinality strings, free text and sparse cells.
+	 */
+	private static SparseChangeSetDto createChangeSet(int rowCount) {
+		Random random = new Random(123);
+		List<String> categories = Lists.newArrayList("red", "green", "blue", "yellow");
+		SparseChangeSetDto set = new SparseChangeSetDto();
+		set.setTableId("syn123");
+		set.setEtag(UUID.randomUUID().toString());
+		set.setColumnIds(Lists.newArrayList("1001", "1002", "1003", "1004", "1005", "1006"));
+		List<SparseRowDto> rows = new ArrayList<>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			SparseRowDto row = new SparseRowDto();
+			row.setRowId((long) i);
+			row.setVersionNumber(12L);
+			Map<String, String> values = new HashMap<>();
+			values.put("1001", Integer.toString(random.nextInt(1_000_000)));
+			values.put("1002", Boolean.toString(random.nextBoolean()));
+			values.put("1003", categories.get(random.nextInt(categories.size())));
+			values.put("1004", "Sample " + random.nextInt() + " collected at site " + random.nextInt(100));
+			values.put("1005", Long.toString(1_600_000_000_000L + random.nextInt(1_000_000)));
+			if (i % 10 == 0) {
+				values.put("1006", Double.toString(random.nextDouble()));
+			}
+			row.setValues(values);
+			rows.add(row);
+		}
+		set.setRows(rows);
+		return set;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SparseChangeSetFormatBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -1685,6 +1685,27 @@ public class TableModelUtilsTest {
 		assertEquals(dto, copy);
 	}
 	
+	@Test
+	public void testReadSparseChangeSetDtoFromGzStreamWithColumnarFormat() throws IOException{
+		SparseChangeSetDto dto = new SparseChangeSetDto();
+		dto.setTableId("syn123");
+		dto.setColumnIds(Lists.newArrayList("1","2","3"));
+		SparseRowDto rowDto = new SparseRowDto();
+		rowDto.setRowId(0L);
+		rowDto.setVersionNumber(101L);
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("1", "foo");
+		values.put("2", "bar");
+		rowDto.setValues(values);
+		dto.setRows(Lists.newArrayList(rowDto));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SparseChangeSetColumnarFormat.write(dto, out);
+		// call under test
+		SparseChangeSetDto copy = TableModelUtils.readSparseChangeSetDtoFromGzStream(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(dto, copy);
+	}
+	
 
 	@Test
 	public void testValidatePartialRowString(){
@@ -0,0 +1,62 @@
+package org.sagebionetworks.workers.util.aws.message;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import org.sagebionetworks.util.progress.ProgressCallback;
+
+import com.amazonaws.services.sqs.model.Message;
+
+/**
+ * A {@link MessageDrivenRunner} whose processing of a message completes
+ * asynchronously, for example a runner that waits for the response of a remote
+ * service. A container that supports this type of runner does not hold a
+ * thread while the message is processed, the message is acknowledged when the
+ * returned future completes. Other containers fall back to
+ * {@link #run(ProgressCallback, Message)} that waits for the future.
+ *
+ */
+public interface AsyncMessageDrivenRunner extends MessageDrivenRunner {
+
+	/**
+	 * Start processing the given message. The message will be deleted from the
+	 * queue when the returned future completes, unless it completes exceptionally
+	 * with a {@link RecoverableMessageException} in which case the message is
+	 * returned to the queue.
+	 *
+	 * @param progressCallback
+	 * @param message
+	 * @return A future that completes once the message is processed
+	 * @throws RecoverableMessageException If the message cannot be processed at
+	 *                                     this time
+	 */
+	CompletableFuture<Void> runAsync(ProgressCallback progressCallback, Message message) throws RecoverableMessageException, Exception;
+
+	@Override
+	default void run(ProgressCallback progressCallback, Message message) throws RecoverableMessageException, Exception {
+		try {
+			runAsync(progressCallback, message).get();
+		} catch (ExecutionException e) {
+			Throwable cause = unwrapCause(e);
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @param ex
+	 * @return The cause of the given exception if it is a
+	 *         {@link CompletionException} or an {@link ExecutionException}, the
+	 *         exception itself otherwise
+	 */
+	static Throwable unwrapCause(Throwable ex) {
+		if ((ex instanceof CompletionException || ex instanceof ExecutionException) && ex.getCause() != null) {
+			return ex.getCause();
+		}
+		return ex;
+	}
+
+}
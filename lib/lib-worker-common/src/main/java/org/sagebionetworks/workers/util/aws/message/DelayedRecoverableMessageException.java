@@ -0,0 +1,29 @@
+package org.sagebionetworks.workers.util.aws.message;
+
+/**
+ * A {@link RecoverableMessageException} for a message that should not be
+ * processed again before the given number of seconds, e.g. because the
+ * resource needed to process the message is known to be unavailable until
+ * then.
+ * 
+ */
+public class DelayedRecoverableMessageException extends RecoverableMessageException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int retryVisibilityTimeoutSec;
+
+	public DelayedRecoverableMessageException(String message, int retryVisibilityTimeoutSec) {
+		super(message);
+		this.retryVisibilityTimeoutSec = retryVisibilityTimeoutSec;
+	}
+
+	/**
+	 * @return The minimum number of seconds before the message is visible again
+	 *         in the queue
+	 */
+	public int getRetryVisibilityTimeoutSec() {
+		return retryVisibilityTimeoutSec;
+	}
+
+}
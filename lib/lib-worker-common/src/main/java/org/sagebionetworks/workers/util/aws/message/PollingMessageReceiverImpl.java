@@ -208,6 +208,9 @@ public class PollingMessageReceiverImpl implements ProgressingRunner {
 			}
 			// Ensure this message is visible again within a short period of time
 			int retryVisibility = getRetryVisibilityTimeout(message);
+			if (e instanceof DelayedRecoverableMessageException) {
+				retryVisibility = Math.max(retryVisibility, ((DelayedRecoverableMessageException) e).getRetryVisibilityTimeoutSec());
+			}
 			resetMessageVisibilityTimeout(message, retryVisibility);
 		} finally {
 			// unconditionally remove the listener for this message
@@ -0,0 +1,57 @@
+package org.sagebionetworks.workers.util.aws.message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.sqs.model.Message;
+
+public class AsyncMessageDrivenRunnerTest {
+
+	private Message message = new Message();
+
+	@Test
+	public void testRun() throws Exception {
+		CompletableFuture<Void> response = CompletableFuture.completedFuture(null);
+		AsyncMessageDrivenRunner runner = (callback, message) -> response;
+
+		// call under test
+		runner.run(null, message);
+	}
+
+	@Test
+	public void testRunWithRecoverableException() throws Exception {
+		RecoverableMessageException ex = new RecoverableMessageException("Try again later");
+		AsyncMessageDrivenRunner runner = (callback, message) -> CompletableFuture.failedFuture(ex);
+
+		assertEquals(ex, assertThrows(RecoverableMessageException.class, () -> {
+			// call under test
+			runner.run(null, message);
+		}));
+	}
+
+	@Test
+	public void testRunWithError() throws Exception {
+		AssertionError error = new AssertionError("Failed");
+		AsyncMessageDrivenRunner runner = (callback, message) -> CompletableFuture.failedFuture(error);
+
+		assertEquals(error, assertThrows(ExecutionException.class, () -> {
+			// call under test
+			runner.run(null, message);
+		}).getCause());
+	}
+
+	@Test
+	public void testUnwrapCause() {
+		IllegalStateException cause = new IllegalStateException();
+		assertEquals(cause, AsyncMessageDrivenRunner.unwrapCause(new CompletionException(cause)));
+		assertEquals(cause, AsyncMessageDrivenRunner.unwrapCause(new ExecutionException(cause)));
+		assertEquals(cause, AsyncMessageDrivenRunner.unwrapCause(cause));
+	}
+
+}
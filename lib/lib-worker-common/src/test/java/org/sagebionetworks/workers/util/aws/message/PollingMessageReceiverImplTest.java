@@ -238,6 +238,35 @@ public class PollingMessageReceiverImplTest {
 		verify(mockProgressCallback).removeProgressListener(any(ProgressListener.class));
 	}
 	
+	@Test
+	public void testMessageNoDeleteDelayedRecoverableMessageException()
+			throws Throwable {
+		
+		when(mockHasQueueUrl.getQueueUrl()).thenReturn(queueUrl);
+		when(mockAmazonSQSClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(results, emptyResults);
+
+		int retryVisibilityTimeoutSec = PollingMessageReceiverImpl.RETRY_MAX_MESSAGE_VISIBILITY_TIMEOUT_SEC + 5;
+		
+		// setup the runner to throw a DelayedRecoverableMessageException
+		doThrow(new DelayedRecoverableMessageException("Try again later.", retryVisibilityTimeoutSec)).when(
+				mockRunner)
+				.run(any(ProgressCallback.class), any(Message.class));
+
+		PollingMessageReceiverImpl receiver = new PollingMessageReceiverImpl(
+				mockAmazonSQSClient, config);
+		when(mockGate.canRun()).thenReturn(true, false);
+
+		// call under test
+		receiver.run(mockProgressCallback);
+		verify(mockAmazonSQSClient, never()).deleteMessage(
+				any(DeleteMessageRequest.class));
+		// The message should not be visible before the requested delay
+		ChangeMessageVisibilityRequest expectedRequest = new ChangeMessageVisibilityRequest(
+				this.queueUrl, this.message.getReceiptHandle(), retryVisibilityTimeoutSec);
+		verify(mockAmazonSQSClient, times(1)).changeMessageVisibility(
+				expectedRequest);
+	}
+	
 	@Test
 	public void testMessageWithRecoverableMessageException() throws Throwable {
 		
@@ -0,0 +1,254 @@
+package org.sagebionetworks.asynchronous.workers.concurrent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.sagebionetworks.util.ValidateArgument;
+
+import com.amazonaws.services.sqs.AmazonSQSClient;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+
+/**
+ * Coalesces the message deletes and visibility changes issued by the worker
+ * jobs into {@link DeleteMessageBatchRequest} and
+ * {@link ChangeMessageVisibilityBatchRequest} calls per queue. A batch is sent
+ * as soon as it is full ({@value #MAX_BATCH_SIZE} entries), otherwise it is
+ * sent after a short delay from the first pending entry.
+ * <p>
+ * Failures are logged and otherwise ignored: a message that is not deleted will
+ * become visible again and a missed visibility change is retried on the next
+ * progress tick of the job.
+ */
+public class BatchingMessageAcknowledger {
+
+	/**
+	 * The maximum number of entries in a single SQS batch request.
+	 */
+	public static final int MAX_BATCH_SIZE = 10;
+	/**
+	 * The default maximum time a pending entry waits before being sent.
+	 */
+	public static final long DEFAULT_FLUSH_DELAY_MS = 200;
+
+	private static final Log log = LogFactory.getLog(BatchingMessageAcknowledger.class);
+
+	private final AmazonSQSClient amazonSQSClient;
+	private final ScheduledExecutorService scheduler;
+	private final long flushDelayMS;
+	private final Map<String, QueueBuffer> buffers = new ConcurrentHashMap<>();
+
+	private final AtomicLong requestedCount = new AtomicLong();
+	private final AtomicLong apiCallCount = new AtomicLong();
+
+	public BatchingMessageAcknowledger(AmazonSQSClient amazonSQSClient) {
+		this(amazonSQSClient, Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+			Thread thread = new Thread(runnable, "sqs-batch-acknowledger");
+			thread.setDaemon(true);
+			return thread;
+		}), DEFAULT_FLUSH_DELAY_MS);
+	}
+
+	BatchingMessageAcknowledger(AmazonSQSClient amazonSQSClient, ScheduledExecutorService scheduler, long flushDelayMS) {
+		ValidateArgument.required(amazonSQSClient, "amazonSQSClient");
+		ValidateArgument.required(scheduler, "scheduler");
+		this.amazonSQSClient = amazonSQSClient;
+		this.scheduler = scheduler;
+		this.flushDelayMS = flushDelayMS;
+	}
+
+	/**
+	 * Schedule the deletion of the message with the given receipt handle. Any
+	 * pending visibility change for the same message is dropped.
+	 *
+	 * @param queueUrl
+	 * @param receiptHandle
+	 */
+	public void deleteMessage(String queueUrl, String receiptHandle) {
+		ValidateArgument.required(queueUrl, "queueUrl");
+		ValidateArgument.required(receiptHandle, "receiptHandle");
+		requestedCount.incrementAndGet();
+		getBuffer(queueUrl).addDelete(receiptHandle);
+	}
+
+	/**
+	 * Schedule a change of the visibility timeout of the message with the given
+	 * receipt handle. A pending change for the same message is replaced.
+	 *
+	 * @param queueUrl
+	 * @param receiptHandle
+	 * @param visibilityTimeoutSec
+	 */
+	public void changeMessageVisibility(String queueUrl, String receiptHandle, int visibilityTimeoutSec) {
+		ValidateArgument.required(queueUrl, "queueUrl");
+		ValidateArgument.required(receiptHandle, "receiptHandle");
+		requestedCount.incrementAndGet();
+		getBuffer(queueUrl).addVisibilityChange(receiptHandle, visibilityTimeoutSec);
+	}
+
+	/**
+	 * Immediately send all the pending entries for all the queues.
+	 */
+	public void flush() {
+		buffers.values().forEach(QueueBuffer::flush);
+	}
+
+	/**
+	 * Send all the pending entries and stop the background flush.
+	 */
+	public void shutdown() {
+		scheduler.shutdown();
+		flush();
+	}
+
+	/**
+	 * @return The number of deletes and visibility changes requested so far
+	 */
+	public long getRequestedCount() {
+		return requestedCount.get();
+	}
+
+	/**
+	 * @return The number of SQS batch requests sent so far
+	 */
+	public long getApiCallCount() {
+		return apiCallCount.get();
+	}
+
+	/**
+	 * @return The number of SQS calls saved compared to sending one request for
+	 *         each delete and visibility change
+	 */
+	public long getSavedApiCallCount() {
+		return requestedCount.get() - apiCallCount.get();
+	}
+
+	private QueueBuffer getBuffer(String queueUrl) {
+		return buffers.computeIfAbsent(queueUrl, QueueBuffer::new);
+	}
+
+	void sendDeleteBatch(String queueUrl, List<String> receiptHandles) {
+		List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(receiptHandles.size());
+		for (int i = 0; i < receiptHandles.size(); i++) {
+			entries.add(new DeleteMessageBatchRequestEntry().withId(String.valueOf(i)).withReceiptHandle(receiptHandles.get(i)));
+		}
+		apiCallCount.incrementAndGet();
+		try {
+			logFailures("delete", amazonSQSClient
+					.deleteMessageBatch(new DeleteMessageBatchRequest().withQueueUrl(queueUrl).withEntries(entries)).getFailed());
+		} catch (Exception e) {
+			log.warn("failed to delete messages", e);
+		}
+	}
+
+	void sendVisibilityBatch(String queueUrl, Map<String, Integer> visibilityChanges) {
+		List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(visibilityChanges.size());
+		visibilityChanges.forEach((receiptHandle, visibilityTimeoutSec) -> {
+			entries.add(new ChangeMessageVisibilityBatchRequestEntry().withId(String.valueOf(entries.size()))
+					.withReceiptHandle(receiptHandle).withVisibilityTimeout(visibilityTimeoutSec));
+		});
+		apiCallCount.incrementAndGet();
+		try {
+			logFailures("change visibility of", amazonSQSClient.changeMessageVisibilityBatch(
+					new ChangeMessageVisibilityBatchRequest().withQueueUrl(queueUrl).withEntries(entries)).getFailed());
+		} catch (Exception e) {
+			log.warn("failed to change message visibility", e);
+		}
+	}
+
+	private static void logFailures(String operation, List<BatchResultErrorEntry> failed) {
+		if (failed == null) {
+			return;
+		}
+		failed.forEach(error -> {
+			log.warn("failed to " + operation + " message: " + error.getCode() + " " + error.getMessage());
+		});
+	}
+
+	/**
+	 * The pending entries of a single queue. All access to the pending entries is
+	 * synchronized, the requests are sent without holding the lock.
+	 */
+	private final class QueueBuffer {
+
+		private final String queueUrl;
+		private final List<String> pendingDeletes = new ArrayList<>(MAX_BATCH_SIZE);
+		private final Map<String, Integer> pendingVisibility = new LinkedHashMap<>();
+		private boolean flushScheduled = false;
+
+		private QueueBuffer(String queueUrl) {
+			this.queueUrl = queueUrl;
+		}
+
+		void addDelete(String receiptHandle) {
+			List<String> fullBatch = null;
+			synchronized (this) {
+				pendingVisibility.remove(receiptHandle);
+				pendingDeletes.add(receiptHandle);
+				if (pendingDeletes.size() >= MAX_BATCH_SIZE) {
+					fullBatch = new ArrayList<>(pendingDeletes);
+					pendingDeletes.clear();
+				} else {
+					scheduleFlush();
+				}
+			}
+			if (fullBatch != null) {
+				sendDeleteBatch(queueUrl, fullBatch);
+			}
+		}
+
+		void addVisibilityChange(String receiptHandle, int visibilityTimeoutSec) {
+			Map<String, Integer> fullBatch = null;
+			synchronized (this) {
+				pendingVisibility.put(receiptHandle, visibilityTimeoutSec);
+				if (pendingVisibility.size() >= MAX_BATCH_SIZE) {
+					fullBatch = new LinkedHashMap<>(pendingVisibility);
+					pendingVisibility.clear();
+				} else {
+					scheduleFlush();
+				}
+			}
+			if (fullBatch != null) {
+				sendVisibilityBatch(queueUrl, fullBatch);
+			}
+		}
+
+		private void scheduleFlush() {
+			if (!flushScheduled && !scheduler.isShutdown()) {
+				flushScheduled = true;
+				scheduler.schedule(this::flush, flushDelayMS, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		void flush() {
+			List<String> deletes;
+			Map<String, Integer> visibility;
+			synchronized (this) {
+				flushScheduled = false;
+				deletes = new ArrayList<>(pendingDeletes);
+				pendingDeletes.clear();
+				visibility = new LinkedHashMap<>(pendingVisibility);
+				pendingVisibility.clear();
+			}
+			if (!visibility.isEmpty()) {
+				sendVisibilityBatch(queueUrl, visibility);
+			}
+			if (!deletes.isEmpty()) {
+				sendDeleteBatch(queueUrl, deletes);
+			}
+		}
+	}
+
+}
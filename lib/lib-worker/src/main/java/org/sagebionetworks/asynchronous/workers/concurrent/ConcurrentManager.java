@@ -84,13 +84,20 @@ public interface ConcurrentManager {
 	 *                                    expected to call
 	 *                                    {@link ProgressListener#progressMade()} to
 	 *                                    periodically refresh the message timeout.
+	 * @param waitTimeSeconds             The maximum number of seconds to wait for
+	 *                                    a message to arrive (long polling). Zero
+	 *                                    returns immediately. Note: The current AWS
+	 *                                    limit is 20 seconds.
+	 * @param executionMode               The kind of threads used to run the
+	 *                                    jobs.
 	 * @param worker                      For each message polled this worker will
 	 *                                    receive a call to:
 	 *                                    {@link MessageDrivenRunner#run(ProgressCallback, com.amazonaws.services.sqs.model.Message)}
 	 * @return
 	 */
 	List<WorkerJob> pollForMessagesAndStartJobs(String queueUrl, int maxNumberOfMessages,
-			int messageVisibilityTimeoutSec, MessageDrivenRunner worker);
+			int messageVisibilityTimeoutSec, int waitTimeSeconds, WorkerExecutionMode executionMode,
+			MessageDrivenRunner worker);
 	
 	/**
 	 * Allows the client to be shared with the rest of the stack.
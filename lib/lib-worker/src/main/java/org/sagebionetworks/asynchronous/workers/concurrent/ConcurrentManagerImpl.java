@@ -1,45 +1,60 @@
 package org.sagebionetworks.asynchronous.workers.concurrent;
 
+import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.database.semaphore.CountingSemaphore;
 import org.sagebionetworks.repo.model.StackStatusDao;
 import org.sagebionetworks.util.ValidateArgument;
 import org.sagebionetworks.util.progress.ProgressCallback;
 import org.sagebionetworks.util.progress.ProgressListener;
+import org.sagebionetworks.workers.util.aws.message.AsyncMessageDrivenRunner;
+import org.sagebionetworks.workers.util.aws.message.DelayedRecoverableMessageException;
 import org.sagebionetworks.workers.util.aws.message.MessageDrivenRunner;
 import org.sagebionetworks.workers.util.aws.message.RecoverableMessageException;
 
 import com.amazonaws.services.sqs.AmazonSQSClient;
-import com.amazonaws.services.sqs.model.ChangeMessageVisibilityRequest;
-import com.amazonaws.services.sqs.model.DeleteMessageRequest;
 import com.amazonaws.services.sqs.model.Message;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 
 public class ConcurrentManagerImpl implements ConcurrentManager {
 
 	private static final int TWO_SECONDS = 2;
+	/**
+	 * The maximum wait time of a long poll supported by SQS.
+	 */
+	public static final int MAX_WAIT_TIME_SECONDS = 20;
 	private static final Log log = LogFactory.getLog(ConcurrentWorkerStack.class);
 
 	private final CountingSemaphore countingSemaphore;
 	private final ExecutorService executorService;
+	// Created on the first job of a VIRTUAL stack
+	private volatile ExecutorService virtualExecutorService;
 	private final AmazonSQSClient amazonSQSClient;
+	private final BatchingMessageAcknowledger acknowledger;
 	private final StackStatusDao stackStatusDao;
+	private final StackConfiguration stackConfiguration;
 	private volatile boolean isShutdown;
 
 	public ConcurrentManagerImpl(CountingSemaphore countingSemaphore, AmazonSQSClient amazonSQSClient,
-			StackStatusDao stackStatusDao) {
+			BatchingMessageAcknowledger acknowledger, StackStatusDao stackStatusDao, StackConfiguration stackConfiguration) {
 		super();
 		this.countingSemaphore = countingSemaphore;
 		this.amazonSQSClient = amazonSQSClient;
+		this.acknowledger = acknowledger;
 		this.stackStatusDao = stackStatusDao;
+		this.stackConfiguration = stackConfiguration;
 		/*
 		 * Note: We do not use a fix sized thread pool because we do not know how many
 		 * threads will be needed for all of the workers on this machine. Each SQS
@@ -63,6 +78,63 @@ public class ConcurrentManagerImpl implements ConcurrentManager {
 		}));
 	}
 
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor() is only available from Java 21,
+	 * it is looked up at runtime so that this code still compiles for older
+	 * releases.
+	 * 
+	 * @return {@link Optional#empty()} if the runtime does not support virtual
+	 *         threads.
+	 */
+	static Optional<ExecutorService> createVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			if (System.getProperty("jdk.tracePinnedThreads") == null) {
+				log.info("Virtual threads are available, set -Djdk.tracePinnedThreads=short to report pinned carrier threads.");
+			}
+			return Optional.of((ExecutorService) factory.invoke(null));
+		} catch (NoSuchMethodException e) {
+			log.info("Virtual threads are not supported by this runtime, VIRTUAL worker stacks will use platform threads.");
+			return Optional.empty();
+		} catch (ReflectiveOperationException e) {
+			log.warn("Failed to create the virtual thread executor, VIRTUAL worker stacks will use platform threads.", e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Get the executor that runs the jobs of a stack with the given mode. The
+	 * executor of the {@link WorkerExecutionMode#VIRTUAL} stacks is created on the
+	 * first call: it runs each job on a new virtual thread when the virtual threads
+	 * are enabled in the stack configuration and supported by the runtime,
+	 * otherwise it is the shared cached thread pool. Virtual threads are started
+	 * on demand, so every message received still gets a thread immediately and
+	 * the per stack maxThreadsPerMachine still caps the number of concurrent jobs.
+	 * 
+	 * @param executionMode
+	 * @return
+	 */
+	ExecutorService getExecutor(WorkerExecutionMode executionMode) {
+		if (!WorkerExecutionMode.VIRTUAL.equals(executionMode)) {
+			return executorService;
+		}
+		ExecutorService executor = virtualExecutorService;
+		if (executor == null) {
+			synchronized (this) {
+				executor = virtualExecutorService;
+				if (executor == null) {
+					if (stackConfiguration.getWorkerVirtualThreadsEnabled()) {
+						executor = createVirtualThreadExecutor().orElse(executorService);
+					} else {
+						executor = executorService;
+					}
+					virtualExecutorService = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
 	@Override
 	public boolean isStackAvailableForWrite() {
 		return stackStatusDao.isStackReadWrite();
@@ -106,8 +178,9 @@ public class ConcurrentManagerImpl implements ConcurrentManager {
 
 	@Override
 	public List<WorkerJob> pollForMessagesAndStartJobs(String queueUrl, int maxNumberOfMessages,
-			int messageVisibilityTimeoutSec, MessageDrivenRunner worker) {
+			int messageVisibilityTimeoutSec, int waitTimeSeconds, WorkerExecutionMode executionMode, MessageDrivenRunner worker) {
 		ValidateArgument.required(queueUrl, "queueUrl");
+		ValidateArgument.required(executionMode, "executionMode");
 		ValidateArgument.required(worker, "worker");
 		ValidateArgument.requirement(maxNumberOfMessages >= 1,
 				"maxNumberOfMessages must be greater than or equals to 1.");
@@ -115,10 +188,12 @@ public class ConcurrentManagerImpl implements ConcurrentManager {
 				"maxNumberOfMessages must be less than or equals to 10.");
 		ValidateArgument.requirement(messageVisibilityTimeoutSec >= 10,
 				"messageVisibilityTimeoutSec must be greater than or equals to 10.");
+		ValidateArgument.requirement(waitTimeSeconds >= 0 && waitTimeSeconds <= MAX_WAIT_TIME_SECONDS,
+				"waitTimeSeconds must be between 0 and " + MAX_WAIT_TIME_SECONDS + ".");
 
 		ReceiveMessageRequest request = new ReceiveMessageRequest()
 			.withQueueUrl(queueUrl)
-			.withWaitTimeSeconds(0)
+			.withWaitTimeSeconds(waitTimeSeconds)
 			.withMaxNumberOfMessages(maxNumberOfMessages)
 			.withVisibilityTimeout(messageVisibilityTimeoutSec); 
 		
@@ -131,41 +206,48 @@ public class ConcurrentManagerImpl implements ConcurrentManager {
 		
 		// For each message start a new job.
 		return messages.stream().map((message) -> {
-			return startWorkerJob(queueUrl, messageVisibilityTimeoutSec, worker, message);
+			return startWorkerJob(queueUrl, messageVisibilityTimeoutSec, executionMode, worker, message);
 		}).collect(Collectors.toList());
 	}
 
 	/**
-	 * For the given message, submit a new worker instance to the thread pool.
+	 * For the given message, submit a new worker instance to the thread pool. The
+	 * visibility refreshes and the final delete of the message are batched with
+	 * the other jobs polling the same queue by the
+	 * {@link BatchingMessageAcknowledger}. An {@link AsyncMessageDrivenRunner}
+	 * only uses the thread to start processing the message, the message is
+	 * acknowledged when the future returned by the runner completes.
 	 * 
 	 * @param queueUrl
 	 * @param messageVisibilityTimeoutSec
+	 * @param executionMode
 	 * @param worker
 	 * @param message
 	 * @return
 	 */
-	WorkerJob startWorkerJob(String queueUrl, int messageVisibilityTimeoutSec, MessageDrivenRunner worker,
-			Message message) {
+	WorkerJob startWorkerJob(String queueUrl, int messageVisibilityTimeoutSec, WorkerExecutionMode executionMode,
+			MessageDrivenRunner worker, Message message) {
 		ConcurrentProgressCallback callback = new ConcurrentProgressCallback(messageVisibilityTimeoutSec);
 		ProgressListener listener = () -> {
-			amazonSQSClient.changeMessageVisibility(new ChangeMessageVisibilityRequest().withQueueUrl(queueUrl)
-					.withReceiptHandle(message.getReceiptHandle()).withVisibilityTimeout(messageVisibilityTimeoutSec));
+			acknowledger.changeMessageVisibility(queueUrl, message.getReceiptHandle(), messageVisibilityTimeoutSec);
 		};
 		callback.addProgressListener(listener);
-		Future<Void> future = executorService.submit(() -> {
+		ExecutorService executor = getExecutor(executionMode);
+		if (worker instanceof AsyncMessageDrivenRunner) {
+			return new WorkerJob(startAsyncWorker(queueUrl, executor, (AsyncMessageDrivenRunner) worker, message, callback, listener), callback);
+		}
+		Future<Void> future = executor.submit(() -> {
 			boolean deleteMessage = true;
 			try {
 				worker.run(callback, message);
 			} catch (RecoverableMessageException e) {
 				deleteMessage = false;
-				amazonSQSClient.changeMessageVisibility(new ChangeMessageVisibilityRequest().withQueueUrl(queueUrl)
-						.withReceiptHandle(message.getReceiptHandle()).withVisibilityTimeout(TWO_SECONDS));
+				acknowledger.changeMessageVisibility(queueUrl, message.getReceiptHandle(), getRetryVisibilityTimeoutSec(e));
 			} finally {
 				try {
 					callback.removeProgressListener(listener);
 					if (deleteMessage && !isShutdown) {
-						amazonSQSClient.deleteMessage(new DeleteMessageRequest().withQueueUrl(queueUrl)
-								.withReceiptHandle(message.getReceiptHandle()));
+						acknowledger.deleteMessage(queueUrl, message.getReceiptHandle());
 					}
 				} catch (Exception e) {
 					log.warn("failed to delete message", e);
@@ -176,6 +258,53 @@ public class ConcurrentManagerImpl implements ConcurrentManager {
 		return new WorkerJob(future, callback);
 	}
 
+	/**
+	 * Start the given asynchronous worker on the given executor. The returned
+	 * future completes when the future of the worker completes and the message is
+	 * acknowledged, it completes exceptionally if the worker failed with any
+	 * exception other than a {@link RecoverableMessageException}.
+	 */
+	CompletableFuture<Void> startAsyncWorker(String queueUrl, ExecutorService executor, AsyncMessageDrivenRunner worker,
+			Message message, ConcurrentProgressCallback callback, ProgressListener listener) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return worker.runAsync(callback, message);
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			}
+		}, executor).thenCompose(Function.identity()).handle((result, ex) -> {
+			Throwable cause = ex == null ? null : AsyncMessageDrivenRunner.unwrapCause(ex);
+			boolean recoverable = cause instanceof RecoverableMessageException;
+			try {
+				callback.removeProgressListener(listener);
+				if (recoverable) {
+					acknowledger.changeMessageVisibility(queueUrl, message.getReceiptHandle(), getRetryVisibilityTimeoutSec((RecoverableMessageException) cause));
+				} else if (!isShutdown) {
+					acknowledger.deleteMessage(queueUrl, message.getReceiptHandle());
+				}
+			} catch (Exception e) {
+				log.warn("failed to acknowledge message", e);
+			}
+			if (cause != null && !recoverable) {
+				throw new CompletionException(cause);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * @param e
+	 * @return The visibility timeout of a message that should be processed again,
+	 *         at least the delay requested by a
+	 *         {@link DelayedRecoverableMessageException}
+	 */
+	static int getRetryVisibilityTimeoutSec(RecoverableMessageException e) {
+		if (e instanceof DelayedRecoverableMessageException) {
+			return Math.max(TWO_SECONDS, ((DelayedRecoverableMessageException) e).getRetryVisibilityTimeoutSec());
+		}
+		return TWO_SECONDS;
+	}
+
 	@Override
 	public AmazonSQSClient getAmazonSQSClient() {
 		return amazonSQSClient;
@@ -9,6 +9,7 @@ import java.util.concurrent.Future;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.sagebionetworks.util.ValidateArgument;
+import org.sagebionetworks.workers.util.aws.message.AsyncMessageDrivenRunner;
 import org.sagebionetworks.workers.util.aws.message.MessageDrivenRunner;
 
 import com.amazonaws.services.sqs.AmazonSQSClient;
@@ -56,6 +57,8 @@ public class ConcurrentWorkerStack implements Runnable {
 	private final int semaphoreMaxLockCount;
 	private final int semaphoreLockAndMessageVisibilityTimeoutSec;
 	private final int maxThreadsPerMachine;
+	private final int messageWaitTimeSec;
+	private final WorkerExecutionMode executionMode;
 	private final MessageDrivenRunner worker;
 
 	// derived parameters
@@ -78,6 +81,8 @@ public class ConcurrentWorkerStack implements Runnable {
 		semaphoreMaxLockCount = -1;
 		semaphoreLockAndMessageVisibilityTimeoutSec = -1;
 		maxThreadsPerMachine = -1;
+		messageWaitTimeSec = -1;
+		executionMode = null;
 		worker = null;
 		lockRefreshFrequencyMS = -1;
 		queueUrl = null;
@@ -85,7 +90,8 @@ public class ConcurrentWorkerStack implements Runnable {
 
 	private ConcurrentWorkerStack(ConcurrentManager manager, Boolean canRunInReadOnly, String semaphoreLockKey,
 			Integer semaphoreMaxLockCount, Integer semaphoreLockAndMessageVisibilityTimeoutSec,
-			Integer maxThreadsPerMachine, MessageDrivenRunner worker, String queueName) {
+			Integer maxThreadsPerMachine, Integer messageWaitTimeSec, WorkerExecutionMode executionMode, MessageDrivenRunner worker,
+			String queueName) {
 		super();
 		ValidateArgument.required(manager, "manager");
 		ValidateArgument.required(semaphoreLockKey, "semaphoreLockKey");
@@ -100,6 +106,12 @@ public class ConcurrentWorkerStack implements Runnable {
 				"maxThreadsPerMachine must be greater than or equal to 1.");
 		ValidateArgument.required(worker, "worker");
 		ValidateArgument.required(queueName, "queueName");
+		int waitTimeSec = messageWaitTimeSec == null ? 0 : messageWaitTimeSec;
+		ValidateArgument.requirement(waitTimeSec >= 0 && waitTimeSec <= ConcurrentManagerImpl.MAX_WAIT_TIME_SECONDS,
+				"messageWaitTimeSec must be between 0 and " + ConcurrentManagerImpl.MAX_WAIT_TIME_SECONDS + " seconds.");
+		// A long poll blocks the loop, it must not delay the refresh of the locks and messages
+		ValidateArgument.requirement(waitTimeSec * 3 < semaphoreLockAndMessageVisibilityTimeoutSec,
+				"messageWaitTimeSec must be less than a third of semaphoreLockAndMessageVisibilityTimeoutSec.");
 
 		this.manager = manager;
 		this.canRunInReadOnly = Boolean.TRUE.equals(canRunInReadOnly);
@@ -107,6 +119,8 @@ public class ConcurrentWorkerStack implements Runnable {
 		this.semaphoreMaxLockCount = semaphoreMaxLockCount;
 		this.semaphoreLockAndMessageVisibilityTimeoutSec = semaphoreLockAndMessageVisibilityTimeoutSec;
 		this.maxThreadsPerMachine = maxThreadsPerMachine;
+		this.messageWaitTimeSec = waitTimeSec;
+		this.executionMode = executionMode == null ? WorkerExecutionMode.PLATFORM : executionMode;
 		this.worker = worker;
 		this.lockRefreshFrequencyMS = (semaphoreLockAndMessageVisibilityTimeoutSec * 1000) / 3;
 		this.queueUrl = manager.getSqsQueueUrl(queueName);
@@ -253,7 +267,7 @@ public class ConcurrentWorkerStack implements Runnable {
 		}
 
 		return runningJobs.addAll(manager.pollForMessagesAndStartJobs(queueUrl, maxNumberOfMessagesToRecieve,
-				semaphoreLockAndMessageVisibilityTimeoutSec, worker));
+				semaphoreLockAndMessageVisibilityTimeoutSec, messageWaitTimeSec, executionMode, worker));
 	}
 	
 	
@@ -317,6 +331,8 @@ public class ConcurrentWorkerStack implements Runnable {
 		private Integer semaphoreMaxLockCount;
 		private Integer semaphoreLockAndMessageVisibilityTimeoutSec;
 		private Integer maxThreadsPerMachine;
+		private Integer messageWaitTimeSec;
+		private WorkerExecutionMode executionMode;
 		private String queueName;
 		private MessageDrivenRunner worker;
 
@@ -385,7 +401,10 @@ public class ConcurrentWorkerStack implements Runnable {
 
 		/**
 		 * Sets the maximum number of threads per machine that will be used to run this
-		 * worker. Must be greater than or equal to one. Required.
+		 * worker. For an {@link AsyncMessageDrivenRunner} this is the maximum number
+		 * of messages in flight on the machine, since no thread is held while the
+		 * future of a message is pending. Must be greater than or equal to one.
+		 * Required.
 		 * 
 		 * @param maxThreadsPerMachine
 		 * @return
@@ -395,6 +414,35 @@ public class ConcurrentWorkerStack implements Runnable {
 			return this;
 		}
 
+		/**
+		 * Opt-in long polling: the maximum number of seconds each poll waits for a
+		 * message to arrive in an empty queue. Long polling greatly reduces the number
+		 * of empty receive calls for idle queues, but blocks the stack while waiting,
+		 * so it must be less than a third of the lock and visibility timeout. At most
+		 * 20 seconds. Defaults to zero (short polling).
+		 * 
+		 * @param messageWaitTimeSec
+		 * @return
+		 */
+		public Builder withMessageWaitTimeSec(Integer messageWaitTimeSec) {
+			this.messageWaitTimeSec = messageWaitTimeSec;
+			return this;
+		}
+
+		/**
+		 * The kind of threads used to run the jobs of this stack, see
+		 * {@link WorkerExecutionMode}. The number of concurrent jobs is still capped by
+		 * {@link #withMaxThreadsPerMachine(Integer)}. Defaults to
+		 * {@link WorkerExecutionMode#PLATFORM}.
+		 * 
+		 * @param executionMode
+		 * @return
+		 */
+		public Builder withExecutionMode(WorkerExecutionMode executionMode) {
+			this.executionMode = executionMode;
+			return this;
+		}
+
 		/**
 		 * The {@link MessageDrivenRunner} is the worker that will be invoke to process
 		 * each SQS messages polled by this worker stack. The worker should be a
@@ -420,7 +468,7 @@ public class ConcurrentWorkerStack implements Runnable {
 
 		public ConcurrentWorkerStack build() {
 			return new ConcurrentWorkerStack(singleton, canRunInReadOnly, semaphoreLockKey, semaphoreMaxLockCount,
-					semaphoreLockAndMessageVisibilityTimeoutSec, maxThreadsPerMachine, worker, queueName);
+					semaphoreLockAndMessageVisibilityTimeoutSec, maxThreadsPerMachine, messageWaitTimeSec, executionMode, worker, queueName);
 		}
 	}
 
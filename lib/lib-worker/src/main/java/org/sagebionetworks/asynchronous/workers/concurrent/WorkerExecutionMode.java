@@ -0,0 +1,24 @@
+package org.sagebionetworks.asynchronous.workers.concurrent;
+
+/**
+ * The kind of threads used to run the jobs of a {@link ConcurrentWorkerStack}.
+ *
+ */
+public enum WorkerExecutionMode {
+
+	/**
+	 * Each job runs on a platform thread from a shared cached thread pool. This is
+	 * the default.
+	 */
+	PLATFORM,
+	/**
+	 * Each job runs on its own virtual thread. Suited for workers that mostly block
+	 * on I/O (JDBC, S3, SQS). Only used when the virtual threads are enabled in the
+	 * stack configuration and supported by the runtime (Java 21 and up), otherwise
+	 * the jobs run as {@link #PLATFORM}. Run the JVM with
+	 * -Djdk.tracePinnedThreads=short to find the synchronized blocks that pin a
+	 * carrier thread while blocking.
+	 */
+	VIRTUAL
+
+}
@@ -0,0 +1,184 @@
+package org.sagebionetworks.asynchronous.workers.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.amazonaws.services.sqs.AmazonSQSClient;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchingMessageAcknowledgerTest {
+
+	@Mock
+	private AmazonSQSClient mockAmazonSQSClient;
+	@Mock
+	private ScheduledExecutorService mockScheduler;
+
+	private BatchingMessageAcknowledger acknowledger;
+	private String queueUrl;
+
+	@BeforeEach
+	public void before() {
+		acknowledger = new BatchingMessageAcknowledger(mockAmazonSQSClient, mockScheduler, 100);
+		queueUrl = "https://aws-some-queue";
+	}
+
+	@Test
+	public void testDeleteMessageWithFullBatch() {
+		when(mockAmazonSQSClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(new DeleteMessageBatchResult());
+		List<DeleteMessageBatchRequestEntry> expectedEntries = new ArrayList<>();
+		for (int i = 0; i < BatchingMessageAcknowledger.MAX_BATCH_SIZE; i++) {
+			// call under test
+			acknowledger.deleteMessage(queueUrl, "handle" + i);
+			expectedEntries.add(new DeleteMessageBatchRequestEntry().withId(String.valueOf(i)).withReceiptHandle("handle" + i));
+		}
+
+		verify(mockAmazonSQSClient).deleteMessageBatch(new DeleteMessageBatchRequest().withQueueUrl(queueUrl).withEntries(expectedEntries));
+		// The flush is only scheduled once for the pending entries
+		verify(mockScheduler).schedule(any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+		assertEquals(10L, acknowledger.getRequestedCount());
+		assertEquals(1L, acknowledger.getApiCallCount());
+		assertEquals(9L, acknowledger.getSavedApiCallCount());
+	}
+
+	@Test
+	public void testDeleteMessageWithPartialBatch() {
+		// call under test
+		acknowledger.deleteMessage(queueUrl, "one");
+		acknowledger.deleteMessage(queueUrl, "two");
+
+		verify(mockScheduler).schedule(any(Runnable.class), anyLong(), any());
+		verifyNoMoreInteractions(mockAmazonSQSClient);
+	}
+
+	@Test
+	public void testFlush() {
+		when(mockAmazonSQSClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(new DeleteMessageBatchResult());
+		when(mockAmazonSQSClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+				.thenReturn(new ChangeMessageVisibilityBatchResult());
+
+		acknowledger.deleteMessage(queueUrl, "one");
+		acknowledger.changeMessageVisibility(queueUrl, "two", 30);
+		acknowledger.changeMessageVisibility(queueUrl, "three", 30);
+		// replaces the first change for the same message
+		acknowledger.changeMessageVisibility(queueUrl, "two", 2);
+
+		// call under test
+		acknowledger.flush();
+
+		verify(mockAmazonSQSClient).changeMessageVisibilityBatch(new ChangeMessageVisibilityBatchRequest().withQueueUrl(queueUrl).withEntries(
+				new ChangeMessageVisibilityBatchRequestEntry().withId("0").withReceiptHandle("two").withVisibilityTimeout(2),
+				new ChangeMessageVisibilityBatchRequestEntry().withId("1").withReceiptHandle("three").withVisibilityTimeout(30)));
+		verify(mockAmazonSQSClient).deleteMessageBatch(new DeleteMessageBatchRequest().withQueueUrl(queueUrl)
+				.withEntries(new DeleteMessageBatchRequestEntry().withId("0").withReceiptHandle("one")));
+		assertEquals(2L, acknowledger.getSavedApiCallCount());
+
+		// Nothing left to send
+		acknowledger.flush();
+		verifyNoMoreInteractions(mockAmazonSQSClient);
+	}
+
+	@Test
+	public void testFlushWithDeleteOfPendingVisibilityChange() {
+		when(mockAmazonSQSClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(new DeleteMessageBatchResult());
+
+		acknowledger.changeMessageVisibility(queueUrl, "one", 30);
+		acknowledger.deleteMessage(queueUrl, "one");
+
+		// call under test
+		acknowledger.flush();
+
+		verify(mockAmazonSQSClient, never()).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+		verify(mockAmazonSQSClient).deleteMessageBatch(new DeleteMessageBatchRequest().withQueueUrl(queueUrl)
+				.withEntries(new DeleteMessageBatchRequestEntry().withId("0").withReceiptHandle("one")));
+	}
+
+	@Test
+	public void testFlushWithMultipleQueues() {
+		when(mockAmazonSQSClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(new DeleteMessageBatchResult());
+
+		acknowledger.deleteMessage(queueUrl, "one");
+		acknowledger.deleteMessage("https://aws-other-queue", "two");
+
+		// call under test
+		acknowledger.flush();
+
+		verify(mockAmazonSQSClient, times(2)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+		verify(mockAmazonSQSClient).deleteMessageBatch(new DeleteMessageBatchRequest().withQueueUrl(queueUrl)
+				.withEntries(new DeleteMessageBatchRequestEntry().withId("0").withReceiptHandle("one")));
+		verify(mockAmazonSQSClient).deleteMessageBatch(new DeleteMessageBatchRequest().withQueueUrl("https://aws-other-queue")
+				.withEntries(new DeleteMessageBatchRequestEntry().withId("0").withReceiptHandle("two")));
+	}
+
+	@Test
+	public void testFlushWithFailures() {
+		when(mockAmazonSQSClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+				.thenReturn(new DeleteMessageBatchResult().withFailed(new BatchResultErrorEntry().withId("0").withCode("ReceiptHandleIsInvalid")));
+		when(mockAmazonSQSClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+				.thenThrow(new IllegalStateException("nope"));
+
+		acknowledger.deleteMessage(queueUrl, "one");
+		acknowledger.changeMessageVisibility(queueUrl, "two", 30);
+
+		// call under test, failures are only logged
+		acknowledger.flush();
+
+		verify(mockAmazonSQSClient).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+		verify(mockAmazonSQSClient).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+	}
+
+	@Test
+	public void testShutdown() {
+		when(mockAmazonSQSClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(new DeleteMessageBatchResult());
+		acknowledger.deleteMessage(queueUrl, "one");
+
+		// call under test
+		acknowledger.shutdown();
+
+		verify(mockScheduler).shutdown();
+		verify(mockAmazonSQSClient).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+	}
+
+	@Test
+	public void testDeleteMessageWithNullHandle() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			acknowledger.deleteMessage(queueUrl, null);
+		}).getMessage();
+		assertEquals("receiptHandle is required.", message);
+	}
+
+	@Test
+	public void testChangeMessageVisibilityWithNullQueue() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			acknowledger.changeMessageVisibility(null, "one", 30);
+		}).getMessage();
+		assertEquals("queueUrl is required.", message);
+	}
+}
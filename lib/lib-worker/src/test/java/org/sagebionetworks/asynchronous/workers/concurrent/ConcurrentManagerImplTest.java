@@ -3,6 +3,7 @@ package org.sagebionetworks.asynchronous.workers.concurrent;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -11,6 +12,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -19,7 +21,9 @@ import static org.mockito.Mockito.when;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -30,16 +34,17 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.database.semaphore.CountingSemaphore;
 import org.sagebionetworks.repo.model.StackStatusDao;
 import org.sagebionetworks.util.progress.ProgressCallback;
 import org.sagebionetworks.util.progress.ProgressListener;
+import org.sagebionetworks.workers.util.aws.message.AsyncMessageDrivenRunner;
 import org.sagebionetworks.workers.util.aws.message.MessageDrivenRunner;
+import org.sagebionetworks.workers.util.aws.message.DelayedRecoverableMessageException;
 import org.sagebionetworks.workers.util.aws.message.RecoverableMessageException;
 
 import com.amazonaws.services.sqs.AmazonSQSClient;
-import com.amazonaws.services.sqs.model.ChangeMessageVisibilityRequest;
-import com.amazonaws.services.sqs.model.DeleteMessageRequest;
 import com.amazonaws.services.sqs.model.GetQueueUrlResult;
 import com.amazonaws.services.sqs.model.Message;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
@@ -53,14 +58,20 @@ public class ConcurrentManagerImplTest {
 	@Mock
 	private AmazonSQSClient mockAmazonSQSClient;
 	@Mock
+	private BatchingMessageAcknowledger mockAcknowledger;
+	@Mock
 	private StackStatusDao mockStackStatusDao;
 	@Mock
+	private StackConfiguration mockStackConfiguration;
+	@Mock
 	private ProgressCallback mockCallback;
 	@Mock
 	private Runnable mockRunner;
 	@Mock
 	private MessageDrivenRunner mockWorker;
 	@Mock
+	private AsyncMessageDrivenRunner mockAsyncWorker;
+	@Mock
 	private Message mockMessage;
 	@Mock
 	private ProgressListener mockProgressListener;
@@ -74,6 +85,8 @@ public class ConcurrentManagerImplTest {
 	private int maxLockCount;
 	private String queueUrl;
 	private int maxThreadCount;
+	private int waitTimeSec;
+	private WorkerExecutionMode executionMode;
 
 	@BeforeEach
 	public void before() {
@@ -82,6 +95,8 @@ public class ConcurrentManagerImplTest {
 		maxLockCount = 3;
 		queueUrl = "https://aws-some-queue";
 		maxThreadCount = 5;
+		waitTimeSec = 0;
+		executionMode = WorkerExecutionMode.PLATFORM;
 	}
 
 	@Test
@@ -230,7 +245,7 @@ public class ConcurrentManagerImplTest {
 		}).when(mockWorker).run(any(), any());
 
 		// call under test
-		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, mockWorker, mockMessage);
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockWorker, mockMessage);
 		assertNotNull(job);
 		assertNotNull(job.getListener());
 		// progress made should refresh the lock
@@ -241,13 +256,11 @@ public class ConcurrentManagerImplTest {
 		// the listener should be removed after the job is finished so this should be a no-op.
 		job.getListener().progressMade();
 
-		verify(mockAmazonSQSClient, times(1)).changeMessageVisibility(any());
-		verify(mockAmazonSQSClient, times(1)).changeMessageVisibility(new ChangeMessageVisibilityRequest()
-				.withQueueUrl(queueUrl).withReceiptHandle(receiptHandle).withVisibilityTimeout(lockTimeoutSec));
+		verify(mockAcknowledger, times(1)).changeMessageVisibility(any(), any(), anyInt());
+		verify(mockAcknowledger, times(1)).changeMessageVisibility(queueUrl, receiptHandle, lockTimeoutSec);
 
 		verify(mockWorker).run((ProgressCallback) job.getListener(), mockMessage);
-		verify(mockAmazonSQSClient)
-				.deleteMessage(new DeleteMessageRequest().withQueueUrl(queueUrl).withReceiptHandle(receiptHandle));
+		verify(mockAcknowledger).deleteMessage(queueUrl, receiptHandle);
 	}
 
 	@Test
@@ -262,19 +275,17 @@ public class ConcurrentManagerImplTest {
 		}).when(mockWorker).run(any(), any());
 
 		// call under test
-		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, mockWorker, mockMessage);
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockWorker, mockMessage);
 		assertNotNull(job);
 		assertNotNull(job.getListener());
 		// progress made should refresh the lock
 		job.getListener().progressMade();
 		waitForFuture(job.getFuture());
 
-		verify(mockAmazonSQSClient, times(2)).changeMessageVisibility(any());
-		verify(mockAmazonSQSClient, times(1)).changeMessageVisibility(new ChangeMessageVisibilityRequest()
-				.withQueueUrl(queueUrl).withReceiptHandle(receiptHandle).withVisibilityTimeout(lockTimeoutSec));
+		verify(mockAcknowledger, times(2)).changeMessageVisibility(any(), any(), anyInt());
+		verify(mockAcknowledger, times(1)).changeMessageVisibility(queueUrl, receiptHandle, lockTimeoutSec);
 		// second call to put the message back in the queue in 5 seconds.
-		verify(mockAmazonSQSClient, times(1)).changeMessageVisibility(new ChangeMessageVisibilityRequest()
-				.withQueueUrl(queueUrl).withReceiptHandle(receiptHandle).withVisibilityTimeout(2));
+		verify(mockAcknowledger, times(1)).changeMessageVisibility(queueUrl, receiptHandle, 2);
 
 		assertNotNull(job.getFuture());
 		assertTrue(job.getFuture().isDone());
@@ -282,7 +293,22 @@ public class ConcurrentManagerImplTest {
 		job.getFuture().get();
 
 		verify(mockWorker).run((ProgressCallback) job.getListener(), mockMessage);
-		verify(mockAmazonSQSClient, never()).deleteMessage(any());
+		verify(mockAcknowledger, never()).deleteMessage(any(), any());
+	}
+
+	@Test
+	public void testStartWorkerJobWithDelayedRecoverableException() throws RecoverableMessageException, Exception {
+		String receiptHandle = "receiptHandle";
+		when(mockMessage.getReceiptHandle()).thenReturn(receiptHandle);
+
+		doThrow(new DelayedRecoverableMessageException("Try again later", 10)).when(mockWorker).run(any(), any());
+
+		// call under test
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockWorker, mockMessage);
+		waitForFuture(job.getFuture());
+
+		verify(mockAcknowledger).changeMessageVisibility(queueUrl, receiptHandle, 10);
+		verify(mockAcknowledger, never()).deleteMessage(any(), any());
 	}
 
 	/**
@@ -310,7 +336,7 @@ public class ConcurrentManagerImplTest {
 		doThrow(toThrow).when(mockWorker).run(any(), any());
 
 		// call under test
-		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, mockWorker, mockMessage);
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockWorker, mockMessage);
 		assertNotNull(job);
 		assertNotNull(job.getListener());
 		Throwable cause = assertThrows(ExecutionException.class, () -> {
@@ -318,9 +344,117 @@ public class ConcurrentManagerImplTest {
 		}).getCause();
 		assertEquals(toThrow, cause);
 
-		verify(mockAmazonSQSClient, never()).changeMessageVisibility(any());
-		verify(mockAmazonSQSClient)
-				.deleteMessage(new DeleteMessageRequest().withQueueUrl(queueUrl).withReceiptHandle(receiptHandle));
+		verify(mockAcknowledger, never()).changeMessageVisibility(any(), any(), anyInt());
+		verify(mockAcknowledger).deleteMessage(queueUrl, receiptHandle);
+	}
+
+	@Test
+	public void testStartWorkerJobWithAsyncWorker() throws RecoverableMessageException, Exception {
+		String receiptHandle = "receiptHandle";
+		when(mockMessage.getReceiptHandle()).thenReturn(receiptHandle);
+		CompletableFuture<Void> response = new CompletableFuture<>();
+		when(mockAsyncWorker.runAsync(any(), any())).thenReturn(response);
+
+		// call under test
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockAsyncWorker, mockMessage);
+		assertNotNull(job);
+
+		verify(mockAsyncWorker, timeout(5000)).runAsync((ProgressCallback) job.getListener(), mockMessage);
+		// The message is acknowledged only once the response completes
+		assertFalse(job.getFuture().isDone());
+		verify(mockAcknowledger, never()).deleteMessage(any(), any());
+
+		response.complete(null);
+
+		waitForFuture(job.getFuture());
+		verify(mockAcknowledger).deleteMessage(queueUrl, receiptHandle);
+		verify(mockAcknowledger, never()).changeMessageVisibility(any(), any(), anyInt());
+		verify(mockAsyncWorker, never()).run(any(), any());
+	}
+
+	@Test
+	public void testStartWorkerJobWithAsyncWorkerAndRecoverableException() throws RecoverableMessageException, Exception {
+		String receiptHandle = "receiptHandle";
+		when(mockMessage.getReceiptHandle()).thenReturn(receiptHandle);
+		CompletableFuture<Void> response = new CompletableFuture<>();
+		response.completeExceptionally(new RecoverableMessageException("Try again later"));
+		when(mockAsyncWorker.runAsync(any(), any())).thenReturn(response);
+
+		// call under test
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockAsyncWorker, mockMessage);
+
+		// should not throw anything.
+		waitForFuture(job.getFuture());
+		verify(mockAcknowledger).changeMessageVisibility(queueUrl, receiptHandle, 2);
+		verify(mockAcknowledger, never()).deleteMessage(any(), any());
+	}
+
+	@Test
+	public void testStartWorkerJobWithAsyncWorkerAndDelayedRecoverableException() throws RecoverableMessageException, Exception {
+		String receiptHandle = "receiptHandle";
+		when(mockMessage.getReceiptHandle()).thenReturn(receiptHandle);
+		CompletableFuture<Void> response = new CompletableFuture<>();
+		response.completeExceptionally(new DelayedRecoverableMessageException("Try again later", 10));
+		when(mockAsyncWorker.runAsync(any(), any())).thenReturn(response);
+
+		// call under test
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockAsyncWorker, mockMessage);
+
+		// should not throw anything.
+		waitForFuture(job.getFuture());
+		verify(mockAcknowledger).changeMessageVisibility(queueUrl, receiptHandle, 10);
+		verify(mockAcknowledger, never()).deleteMessage(any(), any());
+	}
+
+	@Test
+	public void testStartWorkerJobWithAsyncWorkerAndDelayedRecoverableExceptionUnderMinimum() throws RecoverableMessageException, Exception {
+		String receiptHandle = "receiptHandle";
+		when(mockMessage.getReceiptHandle()).thenReturn(receiptHandle);
+		when(mockAsyncWorker.runAsync(any(), any())).thenThrow(new DelayedRecoverableMessageException("Try again later", 1));
+
+		// call under test
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockAsyncWorker, mockMessage);
+
+		// should not throw anything.
+		waitForFuture(job.getFuture());
+		verify(mockAcknowledger).changeMessageVisibility(queueUrl, receiptHandle, 2);
+		verify(mockAcknowledger, never()).deleteMessage(any(), any());
+	}
+
+	@Test
+	public void testStartWorkerJobWithAsyncWorkerAndRecoverableExceptionOnStart() throws RecoverableMessageException, Exception {
+		String receiptHandle = "receiptHandle";
+		when(mockMessage.getReceiptHandle()).thenReturn(receiptHandle);
+		when(mockAsyncWorker.runAsync(any(), any())).thenThrow(new RecoverableMessageException("Try again later"));
+
+		// call under test
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockAsyncWorker, mockMessage);
+
+		// should not throw anything.
+		waitForFuture(job.getFuture());
+		verify(mockAcknowledger).changeMessageVisibility(queueUrl, receiptHandle, 2);
+		verify(mockAcknowledger, never()).deleteMessage(any(), any());
+	}
+
+	@Test
+	public void testStartWorkerJobWithAsyncWorkerAndOtherException() throws RecoverableMessageException, Exception {
+		String receiptHandle = "receiptHandle";
+		when(mockMessage.getReceiptHandle()).thenReturn(receiptHandle);
+		IllegalArgumentException toThrow = new IllegalArgumentException("Not recoverable");
+		CompletableFuture<Void> response = new CompletableFuture<>();
+		response.completeExceptionally(toThrow);
+		when(mockAsyncWorker.runAsync(any(), any())).thenReturn(response);
+
+		// call under test
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockAsyncWorker, mockMessage);
+
+		Throwable cause = assertThrows(ExecutionException.class, () -> {
+			waitForFuture(job.getFuture());
+		}).getCause();
+		assertEquals(toThrow, cause);
+
+		verify(mockAcknowledger, never()).changeMessageVisibility(any(), any(), anyInt());
+		verify(mockAcknowledger).deleteMessage(queueUrl, receiptHandle);
 	}
 
 	@Test
@@ -330,13 +464,13 @@ public class ConcurrentManagerImplTest {
 
 		// call under test
 		List<WorkerJob> jobs = manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec,
-				mockWorker);
+				waitTimeSec, executionMode, mockWorker);
 		assertEquals(Collections.emptyList(), jobs);
 
 		verify(mockAmazonSQSClient).receiveMessage(new ReceiveMessageRequest().withQueueUrl(queueUrl)
 				.withWaitTimeSeconds(0).withMaxNumberOfMessages(maxThreadCount).withVisibilityTimeout(lockTimeoutSec));
 
-		verify(manager, never()).startWorkerJob(any(), anyInt(), any(), any());
+		verify(manager, never()).startWorkerJob(any(), anyInt(), any(), any(), any());
 	}
 	
 	@Test
@@ -348,7 +482,7 @@ public class ConcurrentManagerImplTest {
 		
 		// call under test
 		List<WorkerJob> jobs = manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec,
-				mockWorker);
+				waitTimeSec, executionMode, mockWorker);
 		assertEquals(Collections.emptyList(), jobs);
 
 		verify(mockAmazonSQSClient).receiveMessage(new ReceiveMessageRequest()
@@ -359,7 +493,7 @@ public class ConcurrentManagerImplTest {
 			.withMessageAttributeNames("All")
 		);
 
-		verify(manager, never()).startWorkerJob(any(), anyInt(), any(), any());
+		verify(manager, never()).startWorkerJob(any(), anyInt(), any(), any(), any());
 	}
 
 	@Test
@@ -373,7 +507,7 @@ public class ConcurrentManagerImplTest {
 
 		// call under test
 		List<WorkerJob> jobs = manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec,
-				mockWorker);
+				waitTimeSec, executionMode, mockWorker);
 
 		assertNotNull(jobs);
 		assertEquals(2, jobs.size());
@@ -381,9 +515,9 @@ public class ConcurrentManagerImplTest {
 		verify(mockAmazonSQSClient).receiveMessage(new ReceiveMessageRequest().withQueueUrl(queueUrl)
 				.withWaitTimeSeconds(0).withMaxNumberOfMessages(maxThreadCount).withVisibilityTimeout(lockTimeoutSec));
 
-		verify(manager, times(2)).startWorkerJob(any(), anyInt(), any(), any());
-		verify(manager).startWorkerJob(queueUrl, lockTimeoutSec, mockWorker, messages.get(0));
-		verify(manager).startWorkerJob(queueUrl, lockTimeoutSec, mockWorker, messages.get(1));
+		verify(manager, times(2)).startWorkerJob(any(), anyInt(), any(), any(), any());
+		verify(manager).startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockWorker, messages.get(0));
+		verify(manager).startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockWorker, messages.get(1));
 	}
 
 	@Test
@@ -391,7 +525,7 @@ public class ConcurrentManagerImplTest {
 		queueUrl = null;
 		String message = assertThrows(IllegalArgumentException.class, () -> {
 			// call under test
-			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, mockWorker);
+			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, waitTimeSec, executionMode, mockWorker);
 		}).getMessage();
 		assertEquals("queueUrl is required.", message);
 	}
@@ -401,7 +535,7 @@ public class ConcurrentManagerImplTest {
 		mockWorker = null;
 		String message = assertThrows(IllegalArgumentException.class, () -> {
 			// call under test
-			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, mockWorker);
+			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, waitTimeSec, executionMode, mockWorker);
 		}).getMessage();
 		assertEquals("worker is required.", message);
 	}
@@ -411,7 +545,7 @@ public class ConcurrentManagerImplTest {
 		maxThreadCount = 0;
 		String message = assertThrows(IllegalArgumentException.class, () -> {
 			// call under test
-			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, mockWorker);
+			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, waitTimeSec, executionMode, mockWorker);
 		}).getMessage();
 		assertEquals("maxNumberOfMessages must be greater than or equals to 1.", message);
 	}
@@ -421,7 +555,7 @@ public class ConcurrentManagerImplTest {
 		maxThreadCount = 11;
 		String message = assertThrows(IllegalArgumentException.class, () -> {
 			// call under test
-			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, mockWorker);
+			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, waitTimeSec, executionMode, mockWorker);
 		}).getMessage();
 		assertEquals("maxNumberOfMessages must be less than or equals to 10.", message);
 	}
@@ -431,11 +565,100 @@ public class ConcurrentManagerImplTest {
 		lockTimeoutSec = 9;
 		String message = assertThrows(IllegalArgumentException.class, () -> {
 			// call under test
-			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, mockWorker);
+			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, waitTimeSec, executionMode, mockWorker);
 		}).getMessage();
 		assertEquals("messageVisibilityTimeoutSec must be greater than or equals to 10.", message);
 	}
 	
+	@Test
+	public void testPollForMessagesAndStartJobsWithLongPolling() {
+		waitTimeSec = 20;
+		when(mockAmazonSQSClient.receiveMessage(any(ReceiveMessageRequest.class)))
+				.thenReturn(new ReceiveMessageResult().withMessages(Collections.emptyList()));
+
+		// call under test
+		List<WorkerJob> jobs = manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec,
+				waitTimeSec, executionMode, mockWorker);
+		assertEquals(Collections.emptyList(), jobs);
+
+		verify(mockAmazonSQSClient).receiveMessage(new ReceiveMessageRequest().withQueueUrl(queueUrl)
+				.withWaitTimeSeconds(20).withMaxNumberOfMessages(maxThreadCount).withVisibilityTimeout(lockTimeoutSec));
+	}
+
+	@Test
+	public void testPollForMessagesAndStartJobsWithWaitTimeMoreThanTwenty() {
+		waitTimeSec = 21;
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, waitTimeSec, executionMode, mockWorker);
+		}).getMessage();
+		assertEquals("waitTimeSeconds must be between 0 and 20.", message);
+	}
+
+	@Test
+	public void testPollForMessagesAndStartJobsWithNullExecutionMode() {
+		executionMode = null;
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			manager.pollForMessagesAndStartJobs(queueUrl, maxThreadCount, lockTimeoutSec, waitTimeSec, executionMode, mockWorker);
+		}).getMessage();
+		assertEquals("executionMode is required.", message);
+	}
+
+	@Test
+	public void testStartWorkerJobWithVirtualMode() throws RecoverableMessageException, Exception {
+		executionMode = WorkerExecutionMode.VIRTUAL;
+		String receiptHandle = "receiptHandle";
+		when(mockMessage.getReceiptHandle()).thenReturn(receiptHandle);
+		when(mockStackConfiguration.getWorkerVirtualThreadsEnabled()).thenReturn(true);
+
+		// call under test
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockWorker, mockMessage);
+
+		waitForFuture(job.getFuture());
+
+		verify(mockWorker).run((ProgressCallback) job.getListener(), mockMessage);
+		verify(mockAcknowledger).deleteMessage(queueUrl, receiptHandle);
+	}
+
+	@Test
+	public void testGetExecutorWithPlatformMode() {
+		// call under test
+		ExecutorService executor = manager.getExecutor(WorkerExecutionMode.PLATFORM);
+
+		assertNotNull(executor);
+		assertSame(executor, manager.getExecutor(WorkerExecutionMode.PLATFORM));
+		verify(mockStackConfiguration, never()).getWorkerVirtualThreadsEnabled();
+	}
+
+	@Test
+	public void testGetExecutorWithVirtualModeDisabled() {
+		when(mockStackConfiguration.getWorkerVirtualThreadsEnabled()).thenReturn(false);
+
+		// call under test
+		ExecutorService executor = manager.getExecutor(WorkerExecutionMode.VIRTUAL);
+
+		// Falls back to the cached thread pool
+		assertSame(manager.getExecutor(WorkerExecutionMode.PLATFORM), executor);
+	}
+
+	@Test
+	public void testGetExecutorWithVirtualModeEnabled() {
+		when(mockStackConfiguration.getWorkerVirtualThreadsEnabled()).thenReturn(true);
+
+		// call under test
+		ExecutorService executor = manager.getExecutor(WorkerExecutionMode.VIRTUAL);
+
+		// Created once
+		assertSame(executor, manager.getExecutor(WorkerExecutionMode.VIRTUAL));
+		verify(mockStackConfiguration).getWorkerVirtualThreadsEnabled();
+
+		Optional<ExecutorService> virtualExecutor = ConcurrentManagerImpl.createVirtualThreadExecutor();
+		virtualExecutor.ifPresent(ExecutorService::shutdown);
+		// On a runtime without virtual threads the cached thread pool is used
+		assertEquals(virtualExecutor.isPresent(), executor != manager.getExecutor(WorkerExecutionMode.PLATFORM));
+	}
+
 	@Test
 	public void testStartWorkerJobWithShutDown() throws RecoverableMessageException, Exception {
 		String receiptHandle = "receiptHandle";
@@ -450,7 +673,7 @@ public class ConcurrentManagerImplTest {
 		manager.forceShutdown();
 
 		// call under test
-		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, mockWorker, mockMessage);
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockWorker, mockMessage);
 		assertNotNull(job);
 		assertNotNull(job.getListener());
 		// progress made should refresh the lock
@@ -461,13 +684,12 @@ public class ConcurrentManagerImplTest {
 		// the listener should be removed after the job is finished so this should be a no-op.
 		job.getListener().progressMade();
 
-		verify(mockAmazonSQSClient, times(1)).changeMessageVisibility(any());
-		verify(mockAmazonSQSClient, times(1)).changeMessageVisibility(new ChangeMessageVisibilityRequest()
-				.withQueueUrl(queueUrl).withReceiptHandle(receiptHandle).withVisibilityTimeout(lockTimeoutSec));
+		verify(mockAcknowledger, times(1)).changeMessageVisibility(any(), any(), anyInt());
+		verify(mockAcknowledger, times(1)).changeMessageVisibility(queueUrl, receiptHandle, lockTimeoutSec);
 
 		verify(mockWorker).run((ProgressCallback) job.getListener(), mockMessage);
 		// the message should not be deleted after shutdown.
-		verify(mockAmazonSQSClient, never()).deleteMessage(any());
+		verify(mockAcknowledger, never()).deleteMessage(any(), any());
 	}
 	
 	@Test
@@ -482,10 +704,10 @@ public class ConcurrentManagerImplTest {
 			throw firstException;
 		}).when(mockWorker).run(any(), any());
 
-		when(mockAmazonSQSClient.deleteMessage(any())).thenThrow(new IllegalArgumentException("two"));
+		doThrow(new IllegalArgumentException("two")).when(mockAcknowledger).deleteMessage(any(), any());
 
 		// call under test
-		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, mockWorker, mockMessage);
+		WorkerJob job = manager.startWorkerJob(queueUrl, lockTimeoutSec, executionMode, mockWorker, mockMessage);
 		assertNotNull(job);
 		assertNotNull(job.getListener());
 		// progress made should refresh the lock
@@ -500,12 +722,10 @@ public class ConcurrentManagerImplTest {
 		// no-op.
 		job.getListener().progressMade();
 
-		verify(mockAmazonSQSClient, times(1)).changeMessageVisibility(any());
-		verify(mockAmazonSQSClient, times(1)).changeMessageVisibility(new ChangeMessageVisibilityRequest()
-				.withQueueUrl(queueUrl).withReceiptHandle(receiptHandle).withVisibilityTimeout(lockTimeoutSec));
+		verify(mockAcknowledger, times(1)).changeMessageVisibility(any(), any(), anyInt());
+		verify(mockAcknowledger, times(1)).changeMessageVisibility(queueUrl, receiptHandle, lockTimeoutSec);
 
 		verify(mockWorker).run((ProgressCallback) job.getListener(), mockMessage);
-		verify(mockAmazonSQSClient)
-				.deleteMessage(new DeleteMessageRequest().withQueueUrl(queueUrl).withReceiptHandle(receiptHandle));
+		verify(mockAcknowledger).deleteMessage(queueUrl, receiptHandle);
 	}
 }
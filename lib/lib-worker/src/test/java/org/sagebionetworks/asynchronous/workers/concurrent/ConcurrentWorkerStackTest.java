@@ -63,6 +63,8 @@ public class ConcurrentWorkerStackTest {
 	private Integer semaphoreMaxLockCount;
 	private Integer semaphoreLockAndMessageVisibilityTimeoutSec;
 	private Integer maxThreadsPerMachine;
+	private Integer messageWaitTimeSec;
+	private WorkerExecutionMode executionMode;
 	private String queueName;
 	private String queueUrl;
 
@@ -73,6 +75,8 @@ public class ConcurrentWorkerStackTest {
 		semaphoreMaxLockCount = 10;
 		semaphoreLockAndMessageVisibilityTimeoutSec = 30;
 		maxThreadsPerMachine = 8;
+		messageWaitTimeSec = null;
+		executionMode = null;
 		queueName = "queue-name";
 		queueUrl = "https://aws-some-queue";
 	}
@@ -81,7 +85,8 @@ public class ConcurrentWorkerStackTest {
 		return ConcurrentWorkerStack.builder().withSingleton(mockManager).withCanRunInReadOnly(canRunInReadOnly)
 				.withSemaphoreLockKey(semaphoreLockKey).withSemaphoreMaxLockCount(semaphoreMaxLockCount)
 				.withSemaphoreLockAndMessageVisibilityTimeoutSec(semaphoreLockAndMessageVisibilityTimeoutSec)
-				.withMaxThreadsPerMachine(maxThreadsPerMachine).withWorker(mockWorker).withQueueName(queueName).build();
+				.withMaxThreadsPerMachine(maxThreadsPerMachine).withMessageWaitTimeSec(messageWaitTimeSec)
+				.withExecutionMode(executionMode).withWorker(mockWorker).withQueueName(queueName).build();
 	}
 
 	@Test
@@ -187,6 +192,28 @@ public class ConcurrentWorkerStackTest {
 		assertEquals("maxThreadsPerMachine must be greater than or equal to 1.", message);
 	}
 
+	@Test
+	public void testBuildWithWaitTimeMoreThanTwenty() {
+		semaphoreLockAndMessageVisibilityTimeoutSec = 120;
+		messageWaitTimeSec = 21;
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			createStack();
+		}).getMessage();
+		assertEquals("messageWaitTimeSec must be between 0 and 20 seconds.", message);
+	}
+
+	@Test
+	public void testBuildWithWaitTimeNotLessThanRefreshFrequency() {
+		messageWaitTimeSec = 10;
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			createStack();
+		}).getMessage();
+		assertEquals("messageWaitTimeSec must be less than a third of semaphoreLockAndMessageVisibilityTimeoutSec.",
+				message);
+	}
+
 	@Test
 	public void testRunWithCannotProcessMoreMessages() throws InterruptedException {
 		ConcurrentWorkerStack stack = Mockito.spy(createStack());
@@ -597,7 +624,7 @@ public class ConcurrentWorkerStackTest {
 				new WorkerJob(futureTwo, mockProgressListenerTwo),
 				new WorkerJob(futureThree, mockProgressListenerThree));
 
-		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), any())).thenReturn(jobs);
+		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(jobs);
 
 		// call under test
 		boolean result = stack.attemptToAddMoreWorkers();
@@ -609,9 +636,44 @@ public class ConcurrentWorkerStackTest {
 		verify(stack).canProcessMoreMessages();
 		int maxNumberOfMessages = maxThreadsPerMachine;
 		verify(mockManager).pollForMessagesAndStartJobs(queueUrl, maxNumberOfMessages,
-				semaphoreLockAndMessageVisibilityTimeoutSec, mockWorker);
+				semaphoreLockAndMessageVisibilityTimeoutSec, 0, WorkerExecutionMode.PLATFORM, mockWorker);
 
 	}
+
+	@Test
+	public void testAttemptToAddMoreWorkersWithVirtualMode() {
+		executionMode = WorkerExecutionMode.VIRTUAL;
+		when(mockManager.getSqsQueueUrl(any())).thenReturn(queueUrl);
+		ConcurrentWorkerStack stack = Mockito.spy(createStack());
+		stack.resetAllState();
+
+		doReturn(true).when(stack).canProcessMoreMessages();
+		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(List.of());
+
+		// call under test
+		stack.attemptToAddMoreWorkers();
+
+		verify(mockManager).pollForMessagesAndStartJobs(queueUrl, maxThreadsPerMachine,
+				semaphoreLockAndMessageVisibilityTimeoutSec, 0, WorkerExecutionMode.VIRTUAL, mockWorker);
+	}
+
+	@Test
+	public void testAttemptToAddMoreWorkersWithLongPolling() {
+		messageWaitTimeSec = 9;
+		when(mockManager.getSqsQueueUrl(any())).thenReturn(queueUrl);
+		ConcurrentWorkerStack stack = Mockito.spy(createStack());
+		stack.resetAllState();
+
+		doReturn(true).when(stack).canProcessMoreMessages();
+		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(List.of());
+
+		// call under test
+		boolean result = stack.attemptToAddMoreWorkers();
+
+		assertFalse(result);
+		verify(mockManager).pollForMessagesAndStartJobs(queueUrl, maxThreadsPerMachine,
+				semaphoreLockAndMessageVisibilityTimeoutSec, 9, WorkerExecutionMode.PLATFORM, mockWorker);
+	}
 	
 	@Test
 	public void testAttemptToAddMoreWorkersWithNoAddedWorkers() {
@@ -624,7 +686,7 @@ public class ConcurrentWorkerStackTest {
 
 		List<WorkerJob> jobs = Collections.emptyList();
 
-		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), any())).thenReturn(jobs);
+		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(jobs);
 
 		// call under test
 		boolean result = stack.attemptToAddMoreWorkers();
@@ -636,7 +698,7 @@ public class ConcurrentWorkerStackTest {
 		verify(stack).canProcessMoreMessages();
 		int maxNumberOfMessages = maxThreadsPerMachine;
 		verify(mockManager).pollForMessagesAndStartJobs(queueUrl, maxNumberOfMessages,
-				semaphoreLockAndMessageVisibilityTimeoutSec, mockWorker);
+				semaphoreLockAndMessageVisibilityTimeoutSec, 0, WorkerExecutionMode.PLATFORM, mockWorker);
 
 	}
 
@@ -657,7 +719,7 @@ public class ConcurrentWorkerStackTest {
 		stack.getRunningJobs().add(allJobs.get(0));
 
 		// three will get added
-		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), any()))
+		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), anyInt(), any(), any()))
 				.thenReturn(List.of(allJobs.get(1), allJobs.get(2), allJobs.get(3)));
 
 		// call under test
@@ -670,7 +732,7 @@ public class ConcurrentWorkerStackTest {
 		verify(stack).canProcessMoreMessages();
 		int maxNumberOfMessages = 3;
 		verify(mockManager).pollForMessagesAndStartJobs(queueUrl, maxNumberOfMessages,
-				semaphoreLockAndMessageVisibilityTimeoutSec, mockWorker);
+				semaphoreLockAndMessageVisibilityTimeoutSec, 0, WorkerExecutionMode.PLATFORM, mockWorker);
 
 	}
 
@@ -689,7 +751,7 @@ public class ConcurrentWorkerStackTest {
 		doReturn(true).when(stack).canProcessMoreMessages();
 
 		// three will get added
-		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), any())).thenReturn(allJobs);
+		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(allJobs);
 
 		// call under test
 		boolean result = stack.attemptToAddMoreWorkers();
@@ -701,7 +763,7 @@ public class ConcurrentWorkerStackTest {
 		verify(stack).canProcessMoreMessages();
 		int maxNumberOfMessages = 10;
 		verify(mockManager).pollForMessagesAndStartJobs(queueUrl, maxNumberOfMessages,
-				semaphoreLockAndMessageVisibilityTimeoutSec, mockWorker);
+				semaphoreLockAndMessageVisibilityTimeoutSec, 0, WorkerExecutionMode.PLATFORM, mockWorker);
 
 	}
 
@@ -720,7 +782,7 @@ public class ConcurrentWorkerStackTest {
 		doReturn(true).when(stack).canProcessMoreMessages();
 
 		// three will get added
-		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), any())).thenReturn(allJobs);
+		when(mockManager.pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(allJobs);
 
 		// call under test
 		boolean result = stack.attemptToAddMoreWorkers();
@@ -732,7 +794,7 @@ public class ConcurrentWorkerStackTest {
 		verify(stack).canProcessMoreMessages();
 		int maxNumberOfMessages = 10;
 		verify(mockManager).pollForMessagesAndStartJobs(queueUrl, maxNumberOfMessages,
-				semaphoreLockAndMessageVisibilityTimeoutSec, mockWorker);
+				semaphoreLockAndMessageVisibilityTimeoutSec, 0, WorkerExecutionMode.PLATFORM, mockWorker);
 
 	}
 
@@ -759,7 +821,7 @@ public class ConcurrentWorkerStackTest {
 
 		verify(mockManager).getSqsQueueUrl(queueName);
 		assertEquals(allJobs, stack.getRunningJobs());
-		verify(mockManager, never()).pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), any());
+		verify(mockManager, never()).pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), anyInt(), any(), any());
 	}
 
 	@Test
@@ -785,6 +847,6 @@ public class ConcurrentWorkerStackTest {
 
 		verify(mockManager).getSqsQueueUrl(queueName);
 		assertEquals(allJobs, stack.getRunningJobs());
-		verify(mockManager, never()).pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), any());
+		verify(mockManager, never()).pollForMessagesAndStartJobs(any(), anyInt(), anyInt(), anyInt(), any(), any());
 	}
 }
@@ -0,0 +1,88 @@
+package org.sagebionetworks.asynchronous.workers.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of the number of jobs per second that a burst of blocking jobs
+ * completes with each {@link WorkerExecutionMode}. Each job sleeps to simulate
+ * a worker waiting on JDBC, S3 or SQS. On a runtime without virtual threads
+ * both modes use a cached thread pool. The name of the class keeps it out of
+ * the regular test run, run the main method from the test classpath (e.g. from
+ * an IDE or with exec:java and classpathScope=test).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WorkerExecutionModeBenchmark {
+
+	private static final int JOBS_PER_BURST = 1000;
+
+	@Param({ "PLATFORM", "VIRTUAL" })
+	private WorkerExecutionMode executionMode;
+
+	@Param({ "10" })
+	private long jobSleepMS;
+
+	private ExecutorService executor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		if (WorkerExecutionMode.VIRTUAL.equals(executionMode)) {
+			executor = ConcurrentManagerImpl.createVirtualThreadExecutor().orElseGet(Executors::newCachedThreadPool);
+		} else {
+			executor = Executors.newCachedThreadPool();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(JOBS_PER_BURST)
+	public void runBurst() throws InterruptedException, ExecutionException {
+		List<Future<?>> futures = new ArrayList<>(JOBS_PER_BURST);
+		for (int i = 0; i < JOBS_PER_BURST; i++) {
+			futures.add(executor.submit(() -> {
+				Thread.sleep(jobSleepMS);
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(WorkerExecutionModeBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
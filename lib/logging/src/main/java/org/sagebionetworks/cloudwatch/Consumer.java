@@ -2,11 +2,9 @@ package org.sagebionetworks.cloudwatch;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -25,7 +23,11 @@ import com.amazonaws.services.cloudwatch.model.StatisticSet;
 /**
  * Sends metric information to AmazonWebServices CloudWatch. It's the consumer
  * in the producer/consumer pattern and it handles the Watchers in the Observer
- * pattern. Watchers can monitor success or failure of "puts" to CloudWatch
+ * pattern. Watchers can monitor success or failure of "puts" to CloudWatch.
+ * <p>
+ * The data added between two puts is rolled up by the
+ * {@link ProfileDataAggregator}, so that a single metric datum is sent for each
+ * metric and minute.
  * 
  * @author ntiedema
  */
@@ -34,8 +36,7 @@ public class Consumer {
 	
 	public static final int MAX_BATCH_SIZE = 20;
 
-	// We us an atomic reference to the list instead of using synchronization.
-	private ConcurrentLinkedQueue<ProfileData> listProfileData = new ConcurrentLinkedQueue<ProfileData>();
+	private ProfileDataAggregator aggregator = new ProfileDataAggregator();
 
 	// need a cloudWatch client
 	@Autowired
@@ -56,16 +57,15 @@ public class Consumer {
 	}
 
 	/**
-	 * Takes a ProfileData and adds it to synchronized list. If ProfileData item
-	 * is null, it does not add to the list.
+	 * Takes a ProfileData and adds it to the aggregate of its metric.
 	 * 
 	 * @param addToListMDS
 	 *            ProfileData Data Transfer Object
 	 * @throws IllegalArgumentException
-	 *             if the given object is null
+	 *             if the given object is null or has no namespace, name or unit
 	 */
 	public void addProfileData(ProfileData addToList) {
-		listProfileData.add(addToList);
+		aggregator.add(addToList);
 	}
 	
 	/**
@@ -74,18 +74,23 @@ public class Consumer {
 	 * @param toAdd
 	 */
 	public void addProfileData(List<ProfileData> toAdd) {
-		listProfileData.addAll(toAdd);
+		toAdd.forEach(aggregator::add);
 	}
 
 	/**
-	 * removes ProfileData from synchronized list and sends to CloudWatch.
+	 * removes the ProfileData aggregated since the last put and sends it to CloudWatch.
 	 * 
 	 * @return List<String> where each string represents "put" success/failure
 	 */
 	public List<String> executeCloudWatchPut() {
 		try {
-			// collect the ProfileData from synchronized list
-			List<ProfileData> nextBunch = pollListFromQueue();
+			// collect the ProfileData aggregated since the last put
+			List<ProfileData> nextBunch = aggregator.drain();
+			
+			long droppedCount = aggregator.getAndResetDroppedCount();
+			if (droppedCount > 0) {
+				log.warn("Dropped {} metric data points: more than {} distinct metrics were added since the last put", droppedCount, ProfileDataAggregator.MAX_AGGREGATES);
+			}
 
 			//here I have a list of potentially different namespaces
 			//convert to a map (key is namespace, value is list of metricDatums)
@@ -123,22 +128,10 @@ public class Consumer {
 			throw new RuntimeException(e1);
 		}
 	}
-	/**
-	 * Poll all data currently on the queue and add it to a list.
-	 * @return
-	 */
-	private List<ProfileData> pollListFromQueue(){
-		List<ProfileData> list = new LinkedList<ProfileData>();
-		for(ProfileData pd = this.listProfileData.poll(); pd != null; pd = this.listProfileData.poll()){
-			// Add to the list
-			list.add(pd);
-		}
-		return list;
-	}
 	
 	// for testing only
 	public void clearProfileData() {
-		this.listProfileData.clear();
+		this.aggregator.clear();
 	}
 
 	/**
@@ -233,6 +226,17 @@ public class Consumer {
 			statisticValues.setSum(pd.getMetricStats().getSum());
 			toReturn.setStatisticValues(statisticValues);
 		}
+		
+		if (pd.getValueCounts() != null && !pd.getValueCounts().isEmpty()) {
+			List<Double> values = new ArrayList<>(pd.getValueCounts().size());
+			List<Double> counts = new ArrayList<>(pd.getValueCounts().size());
+			pd.getValueCounts().forEach((value, count) -> {
+				values.add(value);
+				counts.add(count);
+			});
+			toReturn.setValues(values);
+			toReturn.setCounts(counts);
+		}
 		return toReturn;
 	}
 
@@ -16,6 +16,7 @@ public class ProfileData {
 	Date timestamp;
 	Map<String, String> dimension;
 	MetricStats metricStats;
+	Map<Double, Double> valueCounts;
 	
 	/**
 	 * Default ProfileData constructor.  Want class to be able to expand, so default
@@ -140,17 +141,34 @@ public class ProfileData {
 		return this;
 	}
 
+	public Map<Double, Double> getValueCounts() {
+		return valueCounts;
+	}
+
+	/**
+	 * Setter for a histogram of values, each value is mapped to the number of
+	 * times it was observed. CloudWatch computes the percentiles of the metric from
+	 * the histogram. At most 150 distinct values can be sent in a single metric.
+	 * 
+	 * @param valueCounts
+	 * @return
+	 */
+	public ProfileData setValueCounts(Map<Double, Double> valueCounts) {
+		this.valueCounts = valueCounts;
+		return this;
+	}
+
 	@Override
 	public String toString() {
 		return "ProfileData [namespace=" + namespace + ", name=" + name
 				+ ", value=" + value + ", unit=" + unit + ", timestamp="
 				+ timestamp + ", dimension=" + dimension + ", metricStats="
-				+ metricStats + "]";
+				+ metricStats + ", valueCounts=" + valueCounts + "]";
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(dimension, metricStats, name, namespace, timestamp, unit, value);
+		return Objects.hash(dimension, metricStats, name, namespace, timestamp, unit, value, valueCounts);
 	}
 
 	@Override
@@ -168,7 +186,7 @@ public class ProfileData {
 		return Objects.equals(dimension, other.dimension) && Objects.equals(metricStats, other.metricStats)
 				&& Objects.equals(name, other.name) && Objects.equals(namespace, other.namespace)
 				&& Objects.equals(timestamp, other.timestamp) && Objects.equals(unit, other.unit)
-				&& Objects.equals(value, other.value);
+				&& Objects.equals(value, other.value) && Objects.equals(valueCounts, other.valueCounts);
 	}
 	
 }
@@ -0,0 +1,278 @@
+package org.sagebionetworks.cloudwatch;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Rolls up the {@link ProfileData} added between two flushes so that a single
+ * metric datum is sent for each metric (namespace, name, unit and dimensions)
+ * in each minute, instead of one datum per data point:
+ * <ul>
+ * <li>Plain values and value counts are merged into a single histogram of value
+ * counts, CloudWatch can still compute the percentiles of the metric from
+ * it</li>
+ * <li>Metric stats are merged into a single set of statistics</li>
+ * </ul>
+ * The memory is bounded: at most {@link #MAX_AGGREGATES} metrics are kept
+ * between two flushes (any other data is dropped) and each histogram keeps at
+ * most {@link #MAX_DISTINCT_VALUES} distinct values (any other value is counted
+ * with the closest value already in the histogram).
+ */
+public class ProfileDataAggregator {
+
+	public static final int MAX_AGGREGATES = 10_000;
+	// CloudWatch accepts at most 150 distinct values in a single metric datum
+	public static final int MAX_VALUES_PER_DATUM = 150;
+	public static final int MAX_DISTINCT_VALUES = 5 * MAX_VALUES_PER_DATUM;
+	// The standard resolution of CloudWatch
+	public static final long PERIOD_MS = 60_000;
+
+	private final ConcurrentHashMap<AggregateKey, Aggregate> aggregates = new ConcurrentHashMap<>();
+	// Keeps the order in which the metrics are first added
+	private final ConcurrentLinkedQueue<AggregateKey> keys = new ConcurrentLinkedQueue<>();
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/**
+	 * Add the given data to the aggregate of its metric.
+	 *
+	 * @param data
+	 * @return False if the data was dropped since the maximum number of aggregates
+	 *         was reached
+	 */
+	public boolean add(ProfileData data) {
+		ValidateArgument.required(data, "profileData");
+		ValidateArgument.required(data.getNamespace(), "profileData.namespace");
+		ValidateArgument.required(data.getName(), "profileData.name");
+		ValidateArgument.required(data.getUnit(), "profileData.unit");
+		
+		boolean added = true;
+		if (data.getMetricStats() != null) {
+			added &= merge(new AggregateKey(data, true), data);
+		}
+		if (data.getValue() != null || (data.getValueCounts() != null && !data.getValueCounts().isEmpty())) {
+			added &= merge(new AggregateKey(data, false), data);
+		}
+		return added;
+	}
+
+	private boolean merge(AggregateKey key, ProfileData data) {
+		// The merge is performed while holding the lock of the entry, so that it
+		// cannot overlap with the removal of the aggregate in drain()
+		Aggregate aggregate = aggregates.compute(key, (k, current) -> {
+			if (current == null) {
+				if (aggregates.size() >= MAX_AGGREGATES) {
+					return null;
+				}
+				current = new Aggregate(k);
+				keys.add(k);
+			}
+			current.add(data);
+			return current;
+		});
+		if (aggregate == null) {
+			droppedCount.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all the aggregates and converts them to profile data, in the order
+	 * their metrics were first added.
+	 *
+	 * @return
+	 */
+	public List<ProfileData> drain() {
+		List<ProfileData> data = new ArrayList<>();
+		for (AggregateKey key = keys.poll(); key != null; key = keys.poll()) {
+			Aggregate aggregate = aggregates.remove(key);
+			if (aggregate != null) {
+				data.addAll(aggregate.toProfileData());
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * @return The number of data points dropped since the last call, and resets it
+	 *         to zero
+	 */
+	public long getAndResetDroppedCount() {
+		return droppedCount.getAndSet(0);
+	}
+
+	public void clear() {
+		aggregates.clear();
+		keys.clear();
+	}
+
+	static class AggregateKey {
+
+		private final String namespace;
+		private final String name;
+		private final String unit;
+		private final Map<String, String> dimension;
+		// The start of the minute of the timestamp, null if the data has no timestamp
+		private final Long period;
+		private final boolean stats;
+
+		AggregateKey(ProfileData data, boolean stats) {
+			this.namespace = data.getNamespace();
+			this.name = data.getName();
+			this.unit = data.getUnit();
+			this.dimension = data.getDimension() == null ? null : new HashMap<>(data.getDimension());
+			this.period = data.getTimestamp() == null ? null : data.getTimestamp().getTime() / PERIOD_MS * PERIOD_MS;
+			this.stats = stats;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(dimension, name, namespace, period, stats, unit);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			AggregateKey other = (AggregateKey) obj;
+			return Objects.equals(dimension, other.dimension) && Objects.equals(name, other.name)
+					&& Objects.equals(namespace, other.namespace) && Objects.equals(period, other.period)
+					&& stats == other.stats && Objects.equals(unit, other.unit);
+		}
+
+	}
+
+	/**
+	 * Not thread safe, all the access are guarded by the lock of the map entry.
+	 */
+	static class Aggregate {
+
+		private final AggregateKey key;
+		private final TreeMap<Double, Double> valueCounts = new TreeMap<>();
+		private MetricStats stats;
+		// The latest timestamp of the data in the aggregate
+		private Date timestamp;
+
+		Aggregate(AggregateKey key) {
+			this.key = key;
+		}
+
+		void add(ProfileData data) {
+			if (data.getTimestamp() != null && (timestamp == null || data.getTimestamp().after(timestamp))) {
+				timestamp = data.getTimestamp();
+			}
+			if (key.stats) {
+				addStats(data.getMetricStats());
+			} else {
+				if (data.getValue() != null) {
+					addValue(data.getValue(), 1.0);
+				}
+				if (data.getValueCounts() != null) {
+					data.getValueCounts().forEach(this::addValue);
+				}
+			}
+		}
+
+		private void addStats(MetricStats other) {
+			if (stats == null) {
+				stats = new MetricStats()
+						.setMinimum(other.getMinimum())
+						.setMaximum(other.getMaximum())
+						.setCount(other.getCount())
+						.setSum(other.getSum());
+				return;
+			}
+			stats.setMinimum(combine(stats.getMinimum(), other.getMinimum(), Math::min));
+			stats.setMaximum(combine(stats.getMaximum(), other.getMaximum(), Math::max));
+			stats.setCount(combine(stats.getCount(), other.getCount(), Double::sum));
+			stats.setSum(combine(stats.getSum(), other.getSum(), Double::sum));
+		}
+
+		private static Double combine(Double first, Double second, BinaryOperator<Double> operator) {
+			if (first == null) {
+				return second;
+			}
+			if (second == null) {
+				return first;
+			}
+			return operator.apply(first, second);
+		}
+
+		private void addValue(Double value, Double count) {
+			if (value == null || count == null) {
+				return;
+			}
+			Double bucket = value;
+			if (valueCounts.size() >= MAX_DISTINCT_VALUES && !valueCounts.containsKey(value)) {
+				bucket = closestValue(value);
+			}
+			valueCounts.merge(bucket, count, Double::sum);
+		}
+
+		private Double closestValue(Double value) {
+			Double floor = valueCounts.floorKey(value);
+			Double ceiling = valueCounts.ceilingKey(value);
+			if (floor == null) {
+				return ceiling;
+			}
+			if (ceiling == null) {
+				return floor;
+			}
+			return value - floor <= ceiling - value ? floor : ceiling;
+		}
+
+		List<ProfileData> toProfileData() {
+			List<ProfileData> data = new ArrayList<>();
+			if (key.stats) {
+				data.add(newProfileData().setMetricStats(stats));
+				return data;
+			}
+			if (valueCounts.size() == 1 && valueCounts.firstEntry().getValue() == 1.0) {
+				// A single data point is sent as it is
+				data.add(newProfileData().setValue(valueCounts.firstKey()));
+				return data;
+			}
+			Map<Double, Double> chunk = new TreeMap<>();
+			for (Map.Entry<Double, Double> entry : valueCounts.entrySet()) {
+				if (chunk.size() == MAX_VALUES_PER_DATUM) {
+					data.add(newProfileData().setValueCounts(chunk));
+					chunk = new TreeMap<>();
+				}
+				chunk.put(entry.getKey(), entry.getValue());
+			}
+			data.add(newProfileData().setValueCounts(chunk));
+			return data;
+		}
+
+		private ProfileData newProfileData() {
+			ProfileData data = new ProfileData()
+					.setNamespace(key.namespace)
+					.setName(key.name)
+					.setUnit(key.unit)
+					.setDimension(key.dimension);
+			if (timestamp != null) {
+				data.setTimestamp(timestamp);
+			}
+			return data;
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package org.sagebionetworks.kinesis;
+
+/**
+ * What the {@link AwsKinesisFirehoseRecordBuffer} does with a record when the
+ * buffer of its stream is full
+ */
+public enum AwsKinesisBackpressurePolicy {
+
+	/**
+	 * The caller waits until there is room in the buffer
+	 */
+	BLOCK,
+	/**
+	 * The record is discarded and counted
+	 */
+	DROP,
+	/**
+	 * The record is appended to a file on local disk and delivered once the
+	 * buffer of the stream is drained
+	 */
+	SPILL
+
+}
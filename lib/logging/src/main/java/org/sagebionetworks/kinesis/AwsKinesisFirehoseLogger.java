@@ -5,4 +5,17 @@ import java.util.List;
 public interface AwsKinesisFirehoseLogger {
 
 	void logBatch(String kinesisDataStreamSuffix, List<? extends AwsKinesisLogRecord> logRecords) throws AwsKinesisDeliveryException;
+
+	/**
+	 * Serializes the given records and adds them to the buffer of the stream,
+	 * the records are sent by a background flusher. Delivery failures are not
+	 * reported to the caller.
+	 * 
+	 * @param kinesisDataStreamSuffix
+	 * @param logRecords
+	 * @throws AwsKinesisDeliveryException If the thread is interrupted while
+	 *                                     waiting for room in a full buffer
+	 * @see AwsKinesisFirehoseRecordBuffer
+	 */
+	void logBatchAsync(String kinesisDataStreamSuffix, List<? extends AwsKinesisLogRecord> logRecords) throws AwsKinesisDeliveryException;
 }
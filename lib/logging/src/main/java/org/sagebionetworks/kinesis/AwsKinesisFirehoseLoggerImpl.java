@@ -15,14 +15,17 @@ public class AwsKinesisFirehoseLoggerImpl implements AwsKinesisFirehoseLogger {
 	
 	private AwsKinesisLogRecordSerializer kinesisRecordSerializer;
 	
+	private AwsKinesisFirehoseRecordBuffer recordBuffer;
+	
 	private String stack;
 	
 	private String instance;
 
 	@Autowired
-	public AwsKinesisFirehoseLoggerImpl(AwsKinesisFirehoseBatchClient kinesisFirehoseBatchClient,  AwsKinesisLogRecordSerializer kinesisRecordSerializer) {
+	public AwsKinesisFirehoseLoggerImpl(AwsKinesisFirehoseBatchClient kinesisFirehoseBatchClient,  AwsKinesisLogRecordSerializer kinesisRecordSerializer, AwsKinesisFirehoseRecordBuffer recordBuffer) {
 		this.kinesisFirehoseBatchClient = kinesisFirehoseBatchClient;
 		this.kinesisRecordSerializer = kinesisRecordSerializer;
+		this.recordBuffer = recordBuffer;
 	}
 	
 	@Autowired
@@ -40,17 +43,7 @@ public class AwsKinesisFirehoseLoggerImpl implements AwsKinesisFirehoseLogger {
 			return;
 		}
 		
-		// Override the stack and instance if needed
-		logRecords.forEach( record-> {
-			if (record.getStack() == null) {
-				record.withStack(stack);
-			}
-			if (record.getInstance() == null) {
-				record.withInstance(instance);
-			}
-		});
-
-		AwsKinesisRecordIterator recordIterator = new AwsKinesisRecordIterator(logRecords, kinesisRecordSerializer, AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT);
+		AwsKinesisRecordIterator recordIterator = recordIterator(logRecords);
 
 		String streamName = kinesisStreamName(kinesisDataStreamSuffix);
 		
@@ -79,6 +72,37 @@ public class AwsKinesisFirehoseLoggerImpl implements AwsKinesisFirehoseLogger {
 		
 	}
 	
+	@Override
+	public void logBatchAsync(String kinesisDataStreamSuffix, List<? extends AwsKinesisLogRecord> logRecords) {
+		ValidateArgument.required(kinesisDataStreamSuffix, "The kinesisDataStreamSuffix");
+		ValidateArgument.required(logRecords, "The logRecords");
+		
+		if (logRecords.isEmpty()) {
+			return;
+		}
+		
+		AwsKinesisRecordIterator recordIterator = recordIterator(logRecords);
+		
+		String streamName = kinesisStreamName(kinesisDataStreamSuffix);
+		
+		// The buffer packs the records in batches
+		recordIterator.forEachRemaining(record -> recordBuffer.add(streamName, record));
+	}
+	
+	private AwsKinesisRecordIterator recordIterator(List<? extends AwsKinesisLogRecord> logRecords) {
+		// Override the stack and instance if needed
+		logRecords.forEach( record-> {
+			if (record.getStack() == null) {
+				record.withStack(stack);
+			}
+			if (record.getInstance() == null) {
+				record.withInstance(instance);
+			}
+		});
+		
+		return new AwsKinesisRecordIterator(logRecords, kinesisRecordSerializer, AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT);
+	}
+	
 	private String kinesisStreamName(String kinesisDataStreamSuffix) {
 		return stack + instance + kinesisDataStreamSuffix;
 	}
@@ -0,0 +1,441 @@
+package org.sagebionetworks.kinesis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.MetricStats;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.DefaultClock;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.services.kinesisfirehose.model.Record;
+
+/**
+ * Bounded buffer of the records sent with
+ * {@link AwsKinesisFirehoseLogger#logBatchAsync(String, List)}. Each stream has
+ * its own queue that is drained by a background flusher every
+ * {@value #FLUSH_INTERVAL_MS} ms, or as soon as a full batch is queued. The
+ * flusher packs the records into batches of up to
+ * {@link AwsKinesisFirehoseConstants#PUT_BATCH_MAX_RECORD_LIMIT} records and
+ * {@link AwsKinesisFirehoseConstants#REQUEST_SIZE_LIMIT} bytes.
+ * <p>
+ * When the queue of a stream is full the configured
+ * {@link AwsKinesisBackpressurePolicy} is applied. The queue depth, the
+ * delivery latency and the number of dropped and spilled records of each
+ * stream are published to CloudWatch if a {@link Consumer} is available.
+ * <p>
+ * The flusher thread is only started when the first record is added, and is
+ * stopped with the buffered records sent when the Spring context is closed.
+ */
+@Service
+public class AwsKinesisFirehoseRecordBuffer implements DisposableBean {
+
+	private static final Logger LOG = LogManager.getLogger(AwsKinesisFirehoseRecordBuffer.class);
+
+	public static final long FLUSH_INTERVAL_MS = 1000;
+
+	public static final int DEFAULT_CAPACITY = 10_000;
+
+	public static final AwsKinesisBackpressurePolicy DEFAULT_POLICY = AwsKinesisBackpressurePolicy.BLOCK;
+
+	public static final String METRIC_NAMESPACE = "Kinesis-Async-Logger";
+	public static final String METRIC_QUEUE_DEPTH = "QueueDepth";
+	public static final String METRIC_DELIVERY_LATENCY = "DeliveryLatency";
+	public static final String METRIC_DROPPED_COUNT = "DroppedRecords";
+	public static final String METRIC_SPILLED_COUNT = "SpilledRecords";
+	public static final String DIMENSION_STREAM = "Stream";
+
+	private static final String SPILL_FILE_SUFFIX = ".spill";
+	private static final String REPLAY_FILE_SUFFIX = ".replay";
+
+	private final AwsKinesisFirehoseBatchClient kinesisFirehoseBatchClient;
+	private final ScheduledExecutorService scheduler;
+	private final Clock clock;
+	private final Path spillDirectory;
+	private final Map<String, StreamBuffer> buffers = new ConcurrentHashMap<>();
+	private final AtomicBoolean flusherStarted = new AtomicBoolean();
+
+	private AwsKinesisBackpressurePolicy policy = DEFAULT_POLICY;
+	private int capacity = DEFAULT_CAPACITY;
+	private String metricNamespace = METRIC_NAMESPACE;
+	private Consumer consumer;
+
+	@Autowired
+	public AwsKinesisFirehoseRecordBuffer(AwsKinesisFirehoseBatchClient kinesisFirehoseBatchClient) {
+		this(kinesisFirehoseBatchClient, Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+			Thread thread = new Thread(runnable, "kinesis-async-flusher");
+			thread.setDaemon(true);
+			return thread;
+		}), new DefaultClock(), Paths.get(System.getProperty("java.io.tmpdir"), "kinesis-spill"));
+	}
+
+	AwsKinesisFirehoseRecordBuffer(AwsKinesisFirehoseBatchClient kinesisFirehoseBatchClient, ScheduledExecutorService scheduler, Clock clock,
+			Path spillDirectory) {
+		ValidateArgument.required(kinesisFirehoseBatchClient, "The kinesisFirehoseBatchClient");
+		ValidateArgument.required(scheduler, "The scheduler");
+		ValidateArgument.required(clock, "The clock");
+		ValidateArgument.required(spillDirectory, "The spillDirectory");
+		this.kinesisFirehoseBatchClient = kinesisFirehoseBatchClient;
+		this.scheduler = scheduler;
+		this.clock = clock;
+		this.spillDirectory = spillDirectory;
+	}
+
+	@Autowired
+	public void configure(StackConfiguration stackConfiguration) {
+		String policyConfig = stackConfiguration.getKinesisAsyncBackpressurePolicy();
+		Integer capacityConfig = stackConfiguration.getKinesisAsyncBufferCapacity();
+
+		this.policy = policyConfig == null ? DEFAULT_POLICY : AwsKinesisBackpressurePolicy.valueOf(policyConfig);
+		this.capacity = capacityConfig == null ? DEFAULT_CAPACITY : capacityConfig;
+		this.metricNamespace = METRIC_NAMESPACE + " - " + stackConfiguration.getStackInstance();
+
+		ValidateArgument.requirement(capacity > 0, "The capacity of the buffer must be greater than 0");
+	}
+
+	/**
+	 * The metrics are published only if a consumer is available
+	 *
+	 * @param consumer
+	 */
+	@Autowired(required = false)
+	public void setConsumer(Consumer consumer) {
+		this.consumer = consumer;
+	}
+
+	/**
+	 * Add the given record to the buffer of the stream with the given name,
+	 * applying the backpressure policy if the buffer is full
+	 *
+	 * @param streamName
+	 * @param record
+	 * @throws AwsKinesisDeliveryException If the thread is interrupted while
+	 *                                     waiting for room in the buffer
+	 */
+	public void add(String streamName, AwsKinesisRecord record) throws AwsKinesisDeliveryException {
+		ValidateArgument.required(streamName, "The streamName");
+		ValidateArgument.required(record, "The record");
+
+		startFlusher();
+		buffers.computeIfAbsent(streamName, StreamBuffer::new).add(record);
+	}
+
+	private void startFlusher() {
+		if (!flusherStarted.get() && flusherStarted.compareAndSet(false, true)) {
+			scheduler.scheduleWithFixedDelay(this::flushAndPublishMetrics, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @param streamName
+	 * @return The number of records waiting in the buffer of the stream with the
+	 *         given name, does not include spilled records
+	 */
+	public int getQueueDepth(String streamName) {
+		StreamBuffer buffer = buffers.get(streamName);
+		return buffer == null ? 0 : buffer.queue.size();
+	}
+
+	/**
+	 * Immediately send all the buffered and spilled records of all the streams
+	 */
+	public void flush() {
+		buffers.values().forEach(StreamBuffer::flush);
+	}
+
+	/**
+	 * Send the current metrics of each stream to the consumer, if any
+	 */
+	public void publishMetrics() {
+		if (consumer == null) {
+			return;
+		}
+		Date timestamp = new Date(clock.currentTimeMillis());
+		buffers.values().forEach(buffer -> consumer.addProfileData(buffer.collectMetrics(timestamp)));
+	}
+
+	/**
+	 * Stop the background flusher and send all the buffered records
+	 */
+	public void shutdown() {
+		scheduler.shutdown();
+		flush();
+	}
+
+	/**
+	 * Invoked by Spring when the context is closed
+	 */
+	@Override
+	public void destroy() {
+		shutdown();
+	}
+
+	void flushAndPublishMetrics() {
+		// An exception would stop the next executions of the flusher
+		try {
+			flush();
+			publishMetrics();
+		} catch (Exception e) {
+			LOG.error("Failed to flush the kinesis record buffers", e);
+		}
+	}
+
+	private ProfileData buildProfileData(Date timestamp, String streamName, String metricName, StandardUnit unit) {
+		return new ProfileData()
+				.setNamespace(metricNamespace)
+				.setName(metricName)
+				.setUnit(unit.name())
+				.setTimestamp(timestamp)
+				.setDimension(Collections.singletonMap(DIMENSION_STREAM, streamName));
+	}
+
+	/**
+	 * A record waiting in the buffer with the time it was added
+	 */
+	private static final class PendingRecord {
+
+		private final AwsKinesisRecord record;
+		private final long addedOn;
+
+		private PendingRecord(AwsKinesisRecord record, long addedOn) {
+			this.record = record;
+			this.addedOn = addedOn;
+		}
+
+	}
+
+	/**
+	 * The buffer of a single stream. The flush is synchronized so that a single
+	 * thread sends the records of a stream at any time.
+	 */
+	private final class StreamBuffer {
+
+		private final String streamName;
+		private final BlockingQueue<PendingRecord> queue;
+		private final Path spillFile;
+		private final Object spillLock = new Object();
+		private final AtomicBoolean flushRequested = new AtomicBoolean();
+		private final AtomicLong droppedCount = new AtomicLong();
+		private final AtomicLong spilledCount = new AtomicLong();
+
+		// The batch that is being packed, only accessed during a flush
+		private List<PendingRecord> batch = new ArrayList<>();
+		private int batchSize = 0;
+
+		// The delivery latency since the last metrics were collected, guarded by this
+		private long latencyCount = 0;
+		private long latencySum = 0;
+		private long latencyMin = Long.MAX_VALUE;
+		private long latencyMax = 0;
+
+		private StreamBuffer(String streamName) {
+			this.streamName = streamName;
+			this.queue = new ArrayBlockingQueue<>(capacity);
+			this.spillFile = spillDirectory.resolve(streamName + SPILL_FILE_SUFFIX);
+		}
+
+		void add(AwsKinesisRecord record) {
+			PendingRecord pending = new PendingRecord(record, clock.currentTimeMillis());
+
+			if (!queue.offer(pending)) {
+				switch (policy) {
+				case BLOCK:
+					try {
+						queue.put(pending);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new AwsKinesisDeliveryException("Interrupted while waiting for room in the buffer of stream " + streamName, e);
+					}
+					break;
+				case DROP:
+					droppedCount.incrementAndGet();
+					break;
+				case SPILL:
+					spill(pending);
+					break;
+				default:
+					throw new IllegalStateException("Unsupported policy: " + policy);
+				}
+			}
+
+			// Do not wait for the next scheduled flush if a full batch is ready
+			if (queue.size() >= AwsKinesisFirehoseConstants.PUT_BATCH_MAX_RECORD_LIMIT && !scheduler.isShutdown()
+					&& flushRequested.compareAndSet(false, true)) {
+				scheduler.execute(this::flush);
+			}
+		}
+
+		synchronized void flush() {
+			flushRequested.set(false);
+
+			List<PendingRecord> drained = new ArrayList<>(queue.size());
+			queue.drainTo(drained);
+			drained.forEach(this::pack);
+			sendBatch();
+
+			replaySpill();
+		}
+
+		List<ProfileData> collectMetrics(Date timestamp) {
+			List<ProfileData> metrics = new ArrayList<>(4);
+
+			metrics.add(buildProfileData(timestamp, streamName, METRIC_QUEUE_DEPTH, StandardUnit.Count).setValue((double) queue.size()));
+			metrics.add(buildProfileData(timestamp, streamName, METRIC_DROPPED_COUNT, StandardUnit.Count).setValue((double) droppedCount.getAndSet(0)));
+			metrics.add(buildProfileData(timestamp, streamName, METRIC_SPILLED_COUNT, StandardUnit.Count).setValue((double) spilledCount.getAndSet(0)));
+
+			synchronized (this) {
+				if (latencyCount > 0) {
+					metrics.add(buildProfileData(timestamp, streamName, METRIC_DELIVERY_LATENCY, StandardUnit.Milliseconds).setMetricStats(new MetricStats()
+							.setCount((double) latencyCount)
+							.setSum((double) latencySum)
+							.setMinimum((double) latencyMin)
+							.setMaximum((double) latencyMax)));
+					latencyCount = 0;
+					latencySum = 0;
+					latencyMin = Long.MAX_VALUE;
+					latencyMax = 0;
+				}
+			}
+
+			return metrics;
+		}
+
+		private void pack(PendingRecord next) {
+			if (batchSize + next.record.size() > AwsKinesisFirehoseConstants.REQUEST_SIZE_LIMIT
+					|| batch.size() == AwsKinesisFirehoseConstants.PUT_BATCH_MAX_RECORD_LIMIT) {
+				sendBatch();
+			}
+			batch.add(next);
+			batchSize += next.record.size();
+		}
+
+		private void sendBatch() {
+			if (batch.isEmpty()) {
+				return;
+			}
+
+			List<PendingRecord> toSend = batch;
+
+			batch = new ArrayList<>();
+			batchSize = 0;
+
+			try {
+				kinesisFirehoseBatchClient.sendBatch(streamName, toSend.stream().map(pending -> pending.record).collect(Collectors.toList()));
+			} catch (Exception e) {
+				// The batch client already retried the delivery, the records are lost
+				LOG.error("Failed to deliver {} buffered kinesis records to stream {}", toSend.size(), streamName, e);
+				droppedCount.addAndGet(toSend.size());
+				return;
+			}
+
+			long now = clock.currentTimeMillis();
+
+			for (PendingRecord sent : toSend) {
+				long latency = Math.max(0, now - sent.addedOn);
+				latencyCount++;
+				latencySum += latency;
+				latencyMin = Math.min(latencyMin, latency);
+				latencyMax = Math.max(latencyMax, latency);
+			}
+		}
+
+		private void spill(PendingRecord pending) {
+			ByteBuffer data = pending.record.getRecord().getData().duplicate();
+			byte[] bytes = new byte[data.remaining()];
+			data.get(bytes);
+
+			synchronized (spillLock) {
+				try {
+					Files.createDirectories(spillDirectory);
+					try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+							Files.newOutputStream(spillFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+						out.writeLong(pending.addedOn);
+						out.writeInt(bytes.length);
+						out.write(bytes);
+					}
+				} catch (IOException e) {
+					LOG.error("Failed to spill a kinesis record of stream {} to {}, the record is dropped", streamName, spillFile, e);
+					droppedCount.incrementAndGet();
+					return;
+				}
+			}
+
+			spilledCount.incrementAndGet();
+		}
+
+		private void replaySpill() {
+			Path replayFile = spillDirectory.resolve(streamName + REPLAY_FILE_SUFFIX);
+
+			// New records are spilled to a new file while the current one is sent
+			synchronized (spillLock) {
+				if (!Files.exists(spillFile)) {
+					return;
+				}
+				try {
+					Files.move(spillFile, replayFile, StandardCopyOption.REPLACE_EXISTING);
+				} catch (IOException e) {
+					LOG.error("Failed to move the spill file {}", spillFile, e);
+					return;
+				}
+			}
+
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(replayFile)))) {
+				while (true) {
+					long addedOn;
+					try {
+						addedOn = in.readLong();
+					} catch (EOFException e) {
+						break;
+					}
+					byte[] bytes = new byte[in.readInt()];
+					in.readFully(bytes);
+					pack(new PendingRecord(new AwsKinesisRecord(new Record().withData(ByteBuffer.wrap(bytes)), bytes.length), addedOn));
+				}
+				sendBatch();
+			} catch (IOException e) {
+				LOG.error("Failed to read the spill file {}", replayFile, e);
+			} finally {
+				try {
+					Files.deleteIfExists(replayFile);
+				} catch (IOException e) {
+					LOG.error("Failed to delete the spill file {}", replayFile, e);
+				}
+			}
+		}
+
+	}
+
+}
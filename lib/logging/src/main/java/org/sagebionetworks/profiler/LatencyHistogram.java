@@ -0,0 +1,201 @@
+package org.sagebionetworks.profiler;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * Similar to an HDR histogram, each power of two range of values is split in
+ * {@value #SUB_BUCKET_COUNT} linear sub-buckets, so that the value reported for
+ * a bucket is within about 3% of the recorded values, from a few nanoseconds to
+ * 2^{@value #MAX_EXPONENT} nanoseconds (about 68 seconds). Larger values are
+ * counted in the last bucket, the exact maximum is tracked separately.
+ * <p>
+ * Recording a value is a few atomic increments and never blocks, a
+ * {@link Snapshot} of the histogram can be taken at any time while values are
+ * recorded.
+ */
+public class LatencyHistogram {
+
+	static final int SUB_BUCKET_BITS = 4;
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	static final int MAX_EXPONENT = 36;
+	static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Record a single latency.
+	 *
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucketIndex(value));
+		sum.add(value);
+		for (long current = min.get(); value < current && !min.compareAndSet(current, value); current = min.get()) {
+			// retry until the min is updated or another thread recorded a smaller value
+		}
+		for (long current = max.get(); value > current && !max.compareAndSet(current, value); current = max.get()) {
+			// retry until the max is updated or another thread recorded a larger value
+		}
+	}
+
+	/**
+	 * @return A copy of the current state of the histogram.
+	 */
+	public Snapshot getSnapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+		}
+		return new Snapshot(copy, sum.sum(), min.get(), max.get());
+	}
+
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+	}
+
+	static long bucketLowerBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		return ((long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT)) << shift;
+	}
+
+	/**
+	 * @return The value reported for the values counted in the bucket with the
+	 *         given index, the middle of the bucket.
+	 */
+	static long bucketValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		long width = 1L << (index / SUB_BUCKET_COUNT - 1);
+		return bucketLowerBound(index) + (width - 1) / 2;
+	}
+
+	/**
+	 * An immutable copy of a {@link LatencyHistogram}.
+	 */
+	public static class Snapshot {
+
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long min;
+		private final long max;
+
+		Snapshot(long[] counts, long sum, long min, long max) {
+			this.counts = counts;
+			this.count = Arrays.stream(counts).sum();
+			this.sum = sum;
+			this.min = count == 0 ? 0 : min;
+			this.max = count == 0 ? 0 : max;
+		}
+
+		/**
+		 * @return The number of recorded values.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return The sum of the recorded values in nanoseconds.
+		 */
+		public long getSum() {
+			return sum;
+		}
+
+		public long getMin() {
+			return min;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		public double getMean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+
+		/**
+		 * @param percentile Between 0 and 100
+		 * @return The value below which the given percentage of the recorded values
+		 *         fall, 0 if nothing was recorded.
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					// The exact min and max are better estimates than the bucket value
+					return Math.min(Math.max(bucketValue(i), min), max);
+				}
+			}
+			return max;
+		}
+
+		/**
+		 * @return The value of each non-empty bucket mapped to the number of values
+		 *         counted in the bucket, in increasing order of value.
+		 */
+		public Map<Long, Long> getValueCounts() {
+			Map<Long, Long> valueCounts = new LinkedHashMap<>();
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] > 0) {
+					valueCounts.put(Math.min(Math.max(bucketValue(i), min), max), counts[i]);
+				}
+			}
+			return valueCounts;
+		}
+
+		/**
+		 * @param previous An earlier snapshot of the same histogram.
+		 * @return A snapshot of the values recorded since the given snapshot. Its
+		 *         min and max are estimated from the buckets.
+		 */
+		public Snapshot minus(Snapshot previous) {
+			long[] delta = new long[counts.length];
+			int first = -1;
+			int last = -1;
+			for (int i = 0; i < counts.length; i++) {
+				delta[i] = counts[i] - previous.counts[i];
+				if (delta[i] > 0) {
+					first = first < 0 ? i : first;
+					last = i;
+				}
+			}
+			if (first < 0) {
+				return new Snapshot(delta, 0, 0, 0);
+			}
+			long deltaMin = Math.max(bucketLowerBound(first), min);
+			long deltaMax = last == BUCKET_COUNT - 1 ? max : Math.min(bucketLowerBound(last + 1) - 1, max);
+			return new Snapshot(delta, sum - previous.sum, deltaMin, deltaMax);
+		}
+
+	}
+
+}
@@ -0,0 +1,125 @@
+package org.sagebionetworks.profiler;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps a {@link LatencyHistogram} for each profiled bean method.
+ * <p>
+ * The {@link Profiler} looks up the {@link MethodKey} of a call by the class of
+ * the target and the invoked method, the name of the method is only built the
+ * first time. Only one in samplingRate calls is recorded, chosen at random, so
+ * that the profiling can be left on for every call in production.
+ */
+public class MethodLatencyProfiler {
+
+	private final int samplingRate;
+
+	private final ClassValue<Map<Method, MethodKey>> keysByClass = new ClassValue<Map<Method, MethodKey>>() {
+		@Override
+		protected Map<Method, MethodKey> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	// Overloaded methods share the same histogram
+	private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * @param samplingRate One in samplingRate calls is recorded, 1 to record every
+	 *                     call and 0 to disable the profiler.
+	 */
+	public MethodLatencyProfiler(int samplingRate) {
+		if (samplingRate < 0) {
+			throw new IllegalArgumentException("The samplingRate cannot be negative");
+		}
+		this.samplingRate = samplingRate;
+	}
+
+	public int getSamplingRate() {
+		return samplingRate;
+	}
+
+	/**
+	 * @return True if the current call should be recorded.
+	 */
+	public boolean shouldSample() {
+		if (samplingRate <= 1) {
+			return samplingRate == 1;
+		}
+		return ThreadLocalRandom.current().nextInt(samplingRate) == 0;
+	}
+
+	/**
+	 * @param targetClass The class of the bean
+	 * @param method      The invoked method
+	 * @return The key of the given method of the given class
+	 */
+	public MethodKey getMethodKey(Class<?> targetClass, Method method) {
+		Map<Method, MethodKey> keys = keysByClass.get(targetClass);
+		MethodKey key = keys.get(method);
+		if (key == null) {
+			key = keys.computeIfAbsent(method, m -> {
+				String name = targetClass.getName() + "." + m.getName();
+				return new MethodKey(name, histograms.computeIfAbsent(name, n -> new LatencyHistogram()));
+			});
+		}
+		return key;
+	}
+
+	/**
+	 * Record the latency of a call.
+	 *
+	 * @param key
+	 * @param elapsedNanos
+	 */
+	public void record(MethodKey key, long elapsedNanos) {
+		key.getHistogram().record(elapsedNanos);
+	}
+
+	/**
+	 * @return A snapshot of the histogram of each method that was recorded, by
+	 *         method name.
+	 */
+	public Map<String, LatencyHistogram.Snapshot> getSnapshots() {
+		Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+		histograms.forEach((name, histogram) -> {
+			LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+			if (snapshot.getCount() > 0) {
+				snapshots.put(name, snapshot);
+			}
+		});
+		return snapshots;
+	}
+
+	/**
+	 * The precomputed key of a profiled method.
+	 */
+	public static class MethodKey {
+
+		private final String name;
+		private final LatencyHistogram histogram;
+
+		MethodKey(String name, LatencyHistogram histogram) {
+			this.name = name;
+			this.histogram = histogram;
+		}
+
+		/**
+		 * @return The name of the class of the target followed by the name of the
+		 *         method.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		LatencyHistogram getHistogram() {
+			return histogram;
+		}
+
+	}
+
+}
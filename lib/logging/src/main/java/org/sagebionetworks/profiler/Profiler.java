@@ -1,43 +1,59 @@
 package org.sagebionetworks.profiler;
 
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.sagebionetworks.profiler.MethodLatencyProfiler.MethodKey;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * This is a Profiler that logs the results.
- * 
+ *
+ * The latency of a sample of the calls is recorded by the
+ * {@link MethodLatencyProfiler}, the frames of every call are captured while a
+ * {@link ProfileHandler} asks for them.
+ *
  * @author jmhill
- * 
+ *
  */
 @Aspect
 public class Profiler {
 	@Autowired
 	private ProfilerFrameStackManager frameStackManager;
 
+	@Autowired
+	private MethodLatencyProfiler methodLatencyProfiler;
+
 	// execution(* org.sagebionetworks..*.*(..)) means profile any bean in the
 	// package org.sagebionetworks or any sub-packages
 	@Around("execution(* org.sagebionetworks..*.*(..)) && !within(org.sagebionetworks.profiler.*)")
 	public Object doBasicProfiling(ProceedingJoinPoint pjp) throws Throwable {
+		boolean captureFrames = frameStackManager.shouldCaptureData();
+		boolean sample = methodLatencyProfiler.shouldSample();
 		// Do nothing if logging is not on
-		if (!frameStackManager.shouldCaptureData()) {
+		if (!captureFrames && !sample) {
 			// Just proceed if logging is off.
 			return pjp.proceed();
 		}
 
-		Signature signature = pjp.getSignature();
-		Class<?> declaring = pjp.getTarget().getClass();
-		String methodName = declaring.getName() + "." + signature.getName();
+		MethodSignature signature = (MethodSignature) pjp.getSignature();
+		MethodKey methodKey = methodLatencyProfiler.getMethodKey(pjp.getTarget().getClass(), signature.getMethod());
 
 		long startTime = System.nanoTime();
 		try {
-			frameStackManager.startProfiling(methodName);
+			if (captureFrames) {
+				frameStackManager.startProfiling(methodKey.getName());
+			}
 			return pjp.proceed();
 		} finally {
-			long endTime = System.nanoTime();
-			frameStackManager.endProfiling(methodName, (endTime - startTime) / 1000000);
+			long elapsedNanos = System.nanoTime() - startTime;
+			if (sample) {
+				methodLatencyProfiler.record(methodKey, elapsedNanos);
+			}
+			if (captureFrames) {
+				frameStackManager.endProfiling(methodKey.getName(), elapsedNanos / 1000000);
+			}
 		}
 	}
 
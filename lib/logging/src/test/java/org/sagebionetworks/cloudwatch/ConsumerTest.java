@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -75,6 +76,29 @@ public class ConsumerTest {
 		assertEquals(expectedDatum, mdResult);
 	}
 	
+	@Test
+	public void testMakeMetricDatumWithValueCounts(){
+		Map<Double, Double> valueCounts = new TreeMap<>();
+		valueCounts.put(10.0, 3.0);
+		valueCounts.put(100.0, 1.0);
+		ProfileData pd = new ProfileData()
+			.setName("name")
+			.setNamespace("nameSpace")
+			.setTimestamp(new Date())
+			.setUnit("Milliseconds")
+			.setValueCounts(valueCounts);
+		
+		MetricDatum expectedDatum = new MetricDatum()
+			.withMetricName(pd.getName())
+			.withUnit(pd.getUnit())
+			.withTimestamp(pd.getTimestamp())
+			.withValues(10.0, 100.0)
+			.withCounts(3.0, 1.0);
+		
+		MetricDatum mdResult = Consumer.makeMetricDatum(pd);
+		assertEquals(expectedDatum, mdResult);
+	}
+	
 	@Test
 	public void testGetAllNamespaces(){
 		// Create two namepace, the first with two elements, and the second with 3 elements.
@@ -158,6 +182,49 @@ public class ConsumerTest {
 		verify(mockClient, times(1)).putMetricData(batch1);
 	}
 	
+	@Test
+	public void testExecuteCloudWatchPutWithAggregation(){
+		Date timestamp = new Date();
+		// The same metric observed many times is sent as a single datum
+		for (int i = 0; i < Consumer.MAX_BATCH_SIZE * 5; i++) {
+			consumer.addProfileData(new ProfileData()
+				.setNamespace("namespace")
+				.setName("latency")
+				.setUnit("Milliseconds")
+				.setTimestamp(timestamp)
+				.setValue((double) (i % 2)));
+		}
+		
+		PutMetricDataRequest expected = new PutMetricDataRequest()
+			.withNamespace("namespace")
+			.withMetricData(new MetricDatum()
+				.withMetricName("latency")
+				.withUnit("Milliseconds")
+				.withTimestamp(timestamp)
+				.withValues(0.0, 1.0)
+				.withCounts(50.0, 50.0));
+		
+		// call under test
+		consumer.executeCloudWatchPut();
+		
+		verify(mockClient).putMetricData(expected);
+		
+		// Everything was sent
+		consumer.executeCloudWatchPut();
+		
+		verifyNoMoreInteractions(mockClient);
+	}
+	
+	@Test
+	public void testAddProfileDataWithNoName() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			consumer.addProfileData(List.of(new ProfileData().setNamespace("namespace").setUnit("Count").setValue(1.0)));
+		}).getMessage();
+		
+		assertEquals("profileData.name is required.", message);
+	}
+	
 	@Test
 	public void testSendMetricsWithException() {
 		IllegalStateException ex = new IllegalStateException("nope");
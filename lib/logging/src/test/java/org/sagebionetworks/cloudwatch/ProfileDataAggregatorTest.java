@@ -0,0 +1,227 @@
+package org.sagebionetworks.cloudwatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ProfileDataAggregatorTest {
+
+	private ProfileDataAggregator aggregator;
+	private Date timestamp;
+
+	@BeforeEach
+	public void before() {
+		aggregator = new ProfileDataAggregator();
+		// The start of a minute
+		timestamp = new Date(1_700_000_040_000L);
+	}
+
+	@Test
+	public void testDrainWithNoData() {
+		// call under test
+		assertEquals(Collections.emptyList(), aggregator.drain());
+	}
+
+	@Test
+	public void testDrainWithSingleValue() {
+		aggregator.add(newProfileData("name").setValue(12.0).setTimestamp(timestamp));
+
+		List<ProfileData> expected = List.of(newProfileData("name").setValue(12.0).setTimestamp(timestamp));
+
+		// call under test
+		assertEquals(expected, aggregator.drain());
+		assertEquals(Collections.emptyList(), aggregator.drain());
+	}
+
+	@Test
+	public void testDrainWithValues() {
+		aggregator.add(newProfileData("name").setValue(12.0).setTimestamp(timestamp));
+		aggregator.add(newProfileData("name").setValue(12.0).setTimestamp(new Date(timestamp.getTime() + 2_000)));
+		aggregator.add(newProfileData("name").setValueCounts(Map.of(12.0, 3.0, 20.0, 1.0)).setTimestamp(new Date(timestamp.getTime() + 1_000)));
+
+		List<ProfileData> expected = List.of(newProfileData("name")
+				.setValueCounts(Map.of(12.0, 5.0, 20.0, 1.0))
+				// The latest timestamp
+				.setTimestamp(new Date(timestamp.getTime() + 2_000)));
+
+		// call under test
+		assertEquals(expected, aggregator.drain());
+	}
+
+	@Test
+	public void testDrainWithMetricStats() {
+		aggregator.add(newProfileData("name").setMetricStats(new MetricStats().setMinimum(1.0).setMaximum(5.0).setCount(2.0).setSum(6.0)));
+		aggregator.add(newProfileData("name").setMetricStats(new MetricStats().setMinimum(0.5).setMaximum(3.0).setCount(3.0).setSum(4.0)));
+		// Plain values are not merged with the stats
+		aggregator.add(newProfileData("name").setValue(12.0));
+
+		List<ProfileData> expected = List.of(
+				newProfileData("name").setMetricStats(new MetricStats().setMinimum(0.5).setMaximum(5.0).setCount(5.0).setSum(10.0)),
+				newProfileData("name").setValue(12.0));
+
+		// call under test
+		assertEquals(expected, aggregator.drain());
+	}
+
+	@Test
+	public void testDrainWithDifferentMetrics() {
+		aggregator.add(newProfileData("one").setValue(1.0).setTimestamp(timestamp));
+		aggregator.add(newProfileData("two").setValue(2.0).setTimestamp(timestamp));
+		aggregator.add(newProfileData("one").setValue(1.0).setTimestamp(timestamp).setDimension(Map.of("foo", "bar")));
+		aggregator.add(newProfileData("one").setValue(1.0).setTimestamp(timestamp).setUnit("Milliseconds"));
+		aggregator.add(newProfileData("one").setValue(1.0).setTimestamp(timestamp).setNamespace("otherNamespace"));
+		// Next minute
+		aggregator.add(newProfileData("one").setValue(1.0).setTimestamp(new Date(timestamp.getTime() + 60_000)));
+		// Same metric as the first one
+		aggregator.add(newProfileData("one").setValue(3.0).setTimestamp(timestamp));
+
+		List<ProfileData> expected = List.of(
+				newProfileData("one").setValueCounts(Map.of(1.0, 1.0, 3.0, 1.0)).setTimestamp(timestamp),
+				newProfileData("two").setValue(2.0).setTimestamp(timestamp),
+				newProfileData("one").setValue(1.0).setTimestamp(timestamp).setDimension(Map.of("foo", "bar")),
+				newProfileData("one").setValue(1.0).setTimestamp(timestamp).setUnit("Milliseconds"),
+				newProfileData("one").setValue(1.0).setTimestamp(timestamp).setNamespace("otherNamespace"),
+				newProfileData("one").setValue(1.0).setTimestamp(new Date(timestamp.getTime() + 60_000)));
+
+		// call under test
+		assertEquals(expected, aggregator.drain());
+	}
+
+	@Test
+	public void testDrainWithManyValues() {
+		for (int i = 0; i < ProfileDataAggregator.MAX_VALUES_PER_DATUM + 10; i++) {
+			aggregator.add(newProfileData("name").setValue((double) i));
+		}
+
+		// call under test
+		List<ProfileData> result = aggregator.drain();
+
+		assertEquals(2, result.size());
+		assertEquals(ProfileDataAggregator.MAX_VALUES_PER_DATUM, result.get(0).getValueCounts().size());
+		assertEquals(Double.valueOf(0.0), ((TreeMap<Double, Double>) result.get(0).getValueCounts()).firstKey());
+		assertEquals(10, result.get(1).getValueCounts().size());
+		assertEquals(Double.valueOf(ProfileDataAggregator.MAX_VALUES_PER_DATUM + 9.0), ((TreeMap<Double, Double>) result.get(1).getValueCounts()).lastKey());
+	}
+
+	@Test
+	public void testAddWithMaxDistinctValues() {
+		for (int i = 0; i < ProfileDataAggregator.MAX_DISTINCT_VALUES; i++) {
+			aggregator.add(newProfileData("name").setValue(i * 10.0));
+		}
+
+		// call under test
+		aggregator.add(newProfileData("name").setValue(21.0));
+		aggregator.add(newProfileData("name").setValue(-5.0));
+		aggregator.add(newProfileData("name").setValue(1_000_000.0));
+
+		List<ProfileData> result = aggregator.drain();
+
+		Map<Double, Double> valueCounts = new TreeMap<>();
+		result.forEach(data -> valueCounts.putAll(data.getValueCounts()));
+
+		assertEquals(ProfileDataAggregator.MAX_DISTINCT_VALUES, valueCounts.size());
+		// Counted with the closest values
+		assertEquals(Double.valueOf(2.0), valueCounts.get(20.0));
+		assertEquals(Double.valueOf(2.0), valueCounts.get(0.0));
+		assertEquals(Double.valueOf(2.0), valueCounts.get((ProfileDataAggregator.MAX_DISTINCT_VALUES - 1) * 10.0));
+	}
+
+	@Test
+	public void testAddWithMaxAggregates() {
+		for (int i = 0; i < ProfileDataAggregator.MAX_AGGREGATES; i++) {
+			assertTrue(aggregator.add(newProfileData("name" + i).setValue(1.0)));
+		}
+
+		// Existing metrics can still be updated
+		assertTrue(aggregator.add(newProfileData("name0").setValue(1.0)));
+
+		// call under test
+		assertFalse(aggregator.add(newProfileData("other").setValue(1.0)));
+
+		assertEquals(1L, aggregator.getAndResetDroppedCount());
+		assertEquals(0L, aggregator.getAndResetDroppedCount());
+		assertEquals(ProfileDataAggregator.MAX_AGGREGATES, aggregator.drain().size());
+
+		// Once drained new metrics are accepted
+		assertTrue(aggregator.add(newProfileData("other").setValue(1.0)));
+	}
+
+	@Test
+	public void testAddWithNoValue() {
+		// call under test
+		assertTrue(aggregator.add(newProfileData("name")));
+
+		assertEquals(Collections.emptyList(), aggregator.drain());
+	}
+
+	@Test
+	public void testAddWithNoUnit() {
+		ProfileData data = new ProfileData().setNamespace("namespace").setName("name").setValue(1.0);
+
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			aggregator.add(data);
+		}).getMessage();
+
+		assertEquals("profileData.unit is required.", message);
+	}
+
+	@Test
+	public void testAddConcurrentlyWithDrain() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<ProfileData> drained = new ArrayList<>();
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 10_000; i++) {
+						aggregator.add(newProfileData("name" + i % 10).setValue((double) (i % 100)));
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				while (!future.isDone()) {
+					drained.addAll(aggregator.drain());
+				}
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		drained.addAll(aggregator.drain());
+
+		double count = 0;
+		for (ProfileData data : drained) {
+			if (data.getValue() != null) {
+				count++;
+			} else {
+				count += data.getValueCounts().values().stream().mapToDouble(Double::doubleValue).sum();
+			}
+		}
+
+		// No data is lost
+		assertEquals(40_000.0, count);
+	}
+
+	private static ProfileData newProfileData(String name) {
+		return new ProfileData()
+				.setNamespace("namespace")
+				.setName(name)
+				.setUnit("Count");
+	}
+
+}
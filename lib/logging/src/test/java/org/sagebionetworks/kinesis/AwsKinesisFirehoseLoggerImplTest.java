@@ -39,6 +39,9 @@ class AwsKinesisFirehoseLoggerImplTest {
 
 	@Mock
 	private AwsKinesisLogRecordSerializer mockRecordSerializer;
+
+	@Mock
+	private AwsKinesisFirehoseRecordBuffer mockRecordBuffer;
 	
 	@Mock
 	private AwsKinesisLogRecord mockRecord1;
@@ -191,4 +194,65 @@ class AwsKinesisFirehoseLoggerImplTest {
 		verifyNoMoreInteractions(mockKinesisFirehoseBatchClient);
 	}
 
+	@Test
+	public void testLogBatchAsync() {
+		List<AwsKinesisLogRecord> mockRecordList = Lists.newArrayList(mockRecord1, mockRecord2);
+
+		when(mockRecord1.withStack(stack)).thenReturn(mockRecord1);
+		when(mockRecord2.withStack(stack)).thenReturn(mockRecord2);
+		when(mockRecordSerializer.toBytes(mockRecord1)).thenReturn(new byte[1]);
+		when(mockRecordSerializer.toBytes(mockRecord2)).thenReturn(new byte[2]);
+
+		// method under test
+		kinesisFirehoseLogger.logBatchAsync(kinesisStreamSuffix, mockRecordList);
+
+		verify(mockRecord1).withStack(stack);
+		verify(mockRecord1).withInstance(instance);
+		verify(mockRecord2).withStack(stack);
+		verify(mockRecord2).withInstance(instance);
+
+		// Both records fit in a single kinesis record
+		verify(mockRecordBuffer).add(eq("devtestmyKinesisStream"), any(AwsKinesisRecord.class));
+
+		verifyNoMoreInteractions(mockRecordBuffer);
+		verifyZeroInteractions(mockKinesisFirehoseBatchClient);
+	}
+
+	@Test
+	public void testLogBatchAsyncWithMultipleRecords() {
+		List<AwsKinesisLogRecord> mockRecordList = Collections.nCopies(3, mockRecord1);
+
+		when(mockRecord1.withStack(stack)).thenReturn(mockRecord1);
+		when(mockRecordSerializer.toBytes(any())).thenReturn(new byte[AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT - AwsKinesisFirehoseConstants.NEW_LINE_BYTES.length]);
+
+		// method under test
+		kinesisFirehoseLogger.logBatchAsync(kinesisStreamSuffix, mockRecordList);
+
+		verify(mockRecordBuffer, times(3)).add(eq("devtestmyKinesisStream"), any(AwsKinesisRecord.class));
+		verifyZeroInteractions(mockKinesisFirehoseBatchClient);
+	}
+
+	@Test
+	public void testLogBatchAsyncWithEmptyRecords() {
+
+		// method under test
+		kinesisFirehoseLogger.logBatchAsync(kinesisStreamSuffix, Collections.emptyList());
+
+		verifyZeroInteractions(mockRecordBuffer);
+	}
+
+	@Test
+	public void testLogBatchAsyncWithNoStream() {
+		List<AwsKinesisLogRecord> mockRecordList = Lists.newArrayList(mockRecord1);
+
+		String errorMessage = assertThrows(IllegalArgumentException.class, () -> {
+			// method under test
+			kinesisFirehoseLogger.logBatchAsync(null, mockRecordList);
+		}).getMessage();
+
+		assertEquals("The kinesisDataStreamSuffix is required.", errorMessage);
+
+		verifyZeroInteractions(mockRecordBuffer);
+	}
+
 }
\ No newline at end of file
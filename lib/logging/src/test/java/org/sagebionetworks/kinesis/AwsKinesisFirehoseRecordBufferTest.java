@@ -0,0 +1,375 @@
+package org.sagebionetworks.kinesis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.MetricStats;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.util.Clock;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.services.kinesisfirehose.model.Record;
+
+@ExtendWith(MockitoExtension.class)
+public class AwsKinesisFirehoseRecordBufferTest {
+
+	@Mock
+	private AwsKinesisFirehoseBatchClient mockKinesisFirehoseBatchClient;
+
+	@Mock
+	private ScheduledExecutorService mockScheduler;
+
+	@Mock
+	private Clock mockClock;
+
+	@Mock
+	private StackConfiguration mockStackConfig;
+
+	@Mock
+	private Consumer mockConsumer;
+
+	@Captor
+	private ArgumentCaptor<List<AwsKinesisRecord>> batchCaptor;
+
+	@Captor
+	private ArgumentCaptor<List<ProfileData>> metricsCaptor;
+
+	@TempDir
+	Path spillDirectory;
+
+	private AwsKinesisFirehoseRecordBuffer buffer;
+
+	private String streamName;
+
+	@BeforeEach
+	public void before() {
+		buffer = new AwsKinesisFirehoseRecordBuffer(mockKinesisFirehoseBatchClient, mockScheduler, mockClock, spillDirectory);
+		streamName = "devtestStream";
+	}
+
+	private void configure(String policy, Integer capacity) {
+		when(mockStackConfig.getKinesisAsyncBackpressurePolicy()).thenReturn(policy);
+		when(mockStackConfig.getKinesisAsyncBufferCapacity()).thenReturn(capacity);
+		when(mockStackConfig.getStackInstance()).thenReturn("test");
+		buffer.configure(mockStackConfig);
+	}
+
+	private static AwsKinesisRecord record(int size) {
+		return new AwsKinesisRecord(new Record().withData(ByteBuffer.wrap(new byte[size])), size);
+	}
+
+	@Test
+	public void testConstructor() {
+		// The flusher is not started until a record is added
+		verifyNoMoreInteractions(mockScheduler);
+	}
+
+	@Test
+	public void testAddStartsFlusher() {
+		configure(null, null);
+
+		// call under test
+		buffer.add(streamName, record(1));
+		buffer.add("otherStream", record(1));
+
+		verify(mockScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(AwsKinesisFirehoseRecordBuffer.FLUSH_INTERVAL_MS),
+				eq(AwsKinesisFirehoseRecordBuffer.FLUSH_INTERVAL_MS), eq(TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testConfigureWithInvalidPolicy() {
+		when(mockStackConfig.getKinesisAsyncBackpressurePolicy()).thenReturn("WAIT");
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			buffer.configure(mockStackConfig);
+		});
+	}
+
+	@Test
+	public void testConfigureWithZeroCapacity() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			configure(null, 0);
+		}).getMessage();
+
+		assertEquals("The capacity of the buffer must be greater than 0", message);
+	}
+
+	@Test
+	public void testAddAndFlush() {
+		configure(null, null);
+		AwsKinesisRecord one = record(1);
+		AwsKinesisRecord two = record(2);
+
+		// call under test
+		buffer.add(streamName, one);
+		buffer.add(streamName, two);
+
+		assertEquals(2, buffer.getQueueDepth(streamName));
+		verifyNoMoreInteractions(mockKinesisFirehoseBatchClient);
+
+		buffer.flush();
+
+		verify(mockKinesisFirehoseBatchClient).sendBatch(streamName, List.of(one, two));
+		assertEquals(0, buffer.getQueueDepth(streamName));
+	}
+
+	@Test
+	public void testAddWithNullStream() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			buffer.add(null, record(1));
+		});
+	}
+
+	@Test
+	public void testAddWithNullRecord() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			buffer.add(streamName, null);
+		});
+	}
+
+	@Test
+	public void testAddWithFullBatch() {
+		configure(null, null);
+
+		for (int i = 0; i < AwsKinesisFirehoseConstants.PUT_BATCH_MAX_RECORD_LIMIT + 1; i++) {
+			// call under test
+			buffer.add(streamName, record(1));
+		}
+
+		// The flush is requested only once
+		verify(mockScheduler).execute(any(Runnable.class));
+	}
+
+	@Test
+	public void testFlushWithBatchLimits() {
+		configure(null, null);
+		// The size limit is reached after 4 of these records
+		int largeSize = AwsKinesisFirehoseConstants.RECORD_SIZE_LIMIT;
+		for (int i = 0; i < 5; i++) {
+			buffer.add(streamName, record(largeSize));
+		}
+		// The record limit is reached after 500 of these records
+		for (int i = 0; i < AwsKinesisFirehoseConstants.PUT_BATCH_MAX_RECORD_LIMIT + 1; i++) {
+			buffer.add(streamName, record(1));
+		}
+
+		// call under test
+		buffer.flush();
+
+		verify(mockKinesisFirehoseBatchClient, times(3)).sendBatch(eq(streamName), batchCaptor.capture());
+
+		List<Integer> sizes = batchCaptor.getAllValues().stream().map(List::size).collect(Collectors.toList());
+		assertEquals(List.of(4, 500, 2), sizes);
+	}
+
+	@Test
+	public void testFlushWithDeliveryFailure() {
+		configure(null, null);
+		buffer.setConsumer(mockConsumer);
+		doThrow(new AwsKinesisDeliveryException("failed")).when(mockKinesisFirehoseBatchClient).sendBatch(any(), anyList());
+		buffer.add(streamName, record(1));
+
+		// call under test
+		buffer.flushAndPublishMetrics();
+
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+		Map<String, ProfileData> metrics = metricsByName(metricsCaptor.getValue());
+		assertEquals(1.0, metrics.get(AwsKinesisFirehoseRecordBuffer.METRIC_DROPPED_COUNT).getValue());
+		assertFalse(metrics.containsKey(AwsKinesisFirehoseRecordBuffer.METRIC_DELIVERY_LATENCY));
+	}
+
+	@Test
+	public void testAddWithDropPolicy() {
+		configure("DROP", 2);
+		AwsKinesisRecord one = record(1);
+		AwsKinesisRecord two = record(2);
+		buffer.setConsumer(mockConsumer);
+
+		// call under test
+		buffer.add(streamName, one);
+		buffer.add(streamName, two);
+		buffer.add(streamName, record(3));
+
+		assertEquals(2, buffer.getQueueDepth(streamName));
+
+		buffer.flushAndPublishMetrics();
+
+		verify(mockKinesisFirehoseBatchClient).sendBatch(streamName, List.of(one, two));
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+		assertEquals(1.0, metricsByName(metricsCaptor.getValue()).get(AwsKinesisFirehoseRecordBuffer.METRIC_DROPPED_COUNT).getValue());
+	}
+
+	@Test
+	public void testAddWithSpillPolicy() throws Exception {
+		configure("SPILL", 1);
+		buffer.setConsumer(mockConsumer);
+		AwsKinesisRecord one = record(1);
+
+		// call under test
+		buffer.add(streamName, one);
+		buffer.add(streamName, new AwsKinesisRecord(new Record().withData(ByteBuffer.wrap(new byte[] { 1, 2, 3 })), 3));
+
+		assertEquals(1, buffer.getQueueDepth(streamName));
+		assertTrue(Files.exists(spillDirectory.resolve(streamName + ".spill")));
+
+		buffer.flushAndPublishMetrics();
+
+		// The spilled record is sent after the buffered ones
+		verify(mockKinesisFirehoseBatchClient, times(2)).sendBatch(eq(streamName), batchCaptor.capture());
+		assertEquals(List.of(one), batchCaptor.getAllValues().get(0));
+		List<AwsKinesisRecord> replayed = batchCaptor.getAllValues().get(1);
+		assertEquals(1, replayed.size());
+		assertEquals(3, replayed.get(0).size());
+		assertEquals(ByteBuffer.wrap(new byte[] { 1, 2, 3 }), replayed.get(0).getRecord().getData());
+
+		try (Stream<Path> files = Files.list(spillDirectory)) {
+			assertEquals(0, files.count());
+		}
+
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+		assertEquals(1.0, metricsByName(metricsCaptor.getValue()).get(AwsKinesisFirehoseRecordBuffer.METRIC_SPILLED_COUNT).getValue());
+	}
+
+	@Test
+	public void testAddWithBlockPolicyAndInterrupt() {
+		configure("BLOCK", 1);
+		buffer.add(streamName, record(1));
+
+		Thread.currentThread().interrupt();
+
+		assertThrows(AwsKinesisDeliveryException.class, () -> {
+			// call under test
+			buffer.add(streamName, record(1));
+		});
+
+		// Clears the interrupted flag
+		assertTrue(Thread.interrupted());
+	}
+
+	@Test
+	public void testPublishMetrics() {
+		configure(null, null);
+		buffer.setConsumer(mockConsumer);
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1500L, 2000L, 3000L, 4000L);
+
+		buffer.add(streamName, record(1));
+		buffer.add(streamName, record(1));
+		buffer.flush();
+		buffer.add(streamName, record(1));
+
+		// call under test
+		buffer.publishMetrics();
+
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+		Map<String, ProfileData> metrics = metricsByName(metricsCaptor.getValue());
+
+		assertEquals(4, metrics.size());
+
+		ProfileData queueDepth = metrics.get(AwsKinesisFirehoseRecordBuffer.METRIC_QUEUE_DEPTH);
+		assertEquals("Kinesis-Async-Logger - test", queueDepth.getNamespace());
+		assertEquals(StandardUnit.Count.name(), queueDepth.getUnit());
+		assertEquals(1.0, queueDepth.getValue());
+		assertEquals(Collections.singletonMap(AwsKinesisFirehoseRecordBuffer.DIMENSION_STREAM, streamName), queueDepth.getDimension());
+		assertEquals(new Date(4000L), queueDepth.getTimestamp());
+
+		ProfileData latency = metrics.get(AwsKinesisFirehoseRecordBuffer.METRIC_DELIVERY_LATENCY);
+		assertEquals(StandardUnit.Milliseconds.name(), latency.getUnit());
+		assertEquals(new MetricStats().setCount(2.0).setSum(1500.0).setMinimum(500.0).setMaximum(1000.0), latency.getMetricStats());
+
+		assertEquals(0.0, metrics.get(AwsKinesisFirehoseRecordBuffer.METRIC_DROPPED_COUNT).getValue());
+		assertEquals(0.0, metrics.get(AwsKinesisFirehoseRecordBuffer.METRIC_SPILLED_COUNT).getValue());
+	}
+
+	@Test
+	public void testPublishMetricsWithNoConsumer() {
+		configure(null, null);
+		buffer.add(streamName, record(1));
+
+		// call under test
+		buffer.publishMetrics();
+
+		verify(mockClock, times(1)).currentTimeMillis();
+	}
+
+	@Test
+	public void testShutdown() {
+		configure(null, null);
+		AwsKinesisRecord one = record(1);
+		buffer.add(streamName, one);
+
+		// call under test
+		buffer.shutdown();
+
+		verify(mockScheduler).shutdown();
+		verify(mockKinesisFirehoseBatchClient).sendBatch(streamName, List.of(one));
+	}
+
+	@Test
+	public void testDestroy() {
+		configure(null, null);
+		AwsKinesisRecord one = record(1);
+		buffer.add(streamName, one);
+
+		// call under test
+		buffer.destroy();
+
+		verify(mockScheduler).shutdown();
+		verify(mockKinesisFirehoseBatchClient).sendBatch(streamName, List.of(one));
+	}
+
+	@Test
+	public void testAddAfterShutdownWithFullBatch() {
+		configure(null, null);
+		when(mockScheduler.isShutdown()).thenReturn(true);
+
+		for (int i = 0; i < AwsKinesisFirehoseConstants.PUT_BATCH_MAX_RECORD_LIMIT; i++) {
+			// call under test
+			buffer.add(streamName, record(1));
+		}
+
+		verify(mockScheduler, never()).execute(any(Runnable.class));
+	}
+
+	private static Map<String, ProfileData> metricsByName(List<ProfileData> metrics) {
+		return metrics.stream().collect(Collectors.toMap(ProfileData::getName, Function.identity()));
+	}
+
+}
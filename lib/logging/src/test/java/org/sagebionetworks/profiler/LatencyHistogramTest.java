@@ -0,0 +1,169 @@
+package org.sagebionetworks.profiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+	private LatencyHistogram histogram = new LatencyHistogram();
+
+	@Test
+	public void testBucketIndex() {
+		assertEquals(0, LatencyHistogram.bucketIndex(0));
+		assertEquals(15, LatencyHistogram.bucketIndex(15));
+		assertEquals(16, LatencyHistogram.bucketIndex(16));
+		assertEquals(31, LatencyHistogram.bucketIndex(31));
+		// From 32 each bucket is two values wide
+		assertEquals(32, LatencyHistogram.bucketIndex(32));
+		assertEquals(32, LatencyHistogram.bucketIndex(33));
+		assertEquals(33, LatencyHistogram.bucketIndex(34));
+		assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(1L << LatencyHistogram.MAX_EXPONENT + 1));
+		assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testBucketBounds() {
+		for (int i = 0; i < LatencyHistogram.BUCKET_COUNT - 1; i++) {
+			long lower = LatencyHistogram.bucketLowerBound(i);
+			long upper = LatencyHistogram.bucketLowerBound(i + 1) - 1;
+			assertEquals(i, LatencyHistogram.bucketIndex(lower));
+			assertEquals(i, LatencyHistogram.bucketIndex(upper));
+			long value = LatencyHistogram.bucketValue(i);
+			assertTrue(value >= lower && value <= upper);
+			// The value of the bucket is within 1/32 of the values in the bucket
+			assertTrue(upper - value <= Math.max(1, value / 32));
+		}
+	}
+
+	@Test
+	public void testSnapshotWithNoValues() {
+		// call under test
+		LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+		assertEquals(0L, snapshot.getCount());
+		assertEquals(0L, snapshot.getMin());
+		assertEquals(0L, snapshot.getMax());
+		assertEquals(0.0, snapshot.getMean());
+		assertEquals(0L, snapshot.getValueAtPercentile(99));
+		assertEquals(Collections.emptyMap(), snapshot.getValueCounts());
+	}
+
+	@Test
+	public void testSnapshot() {
+		histogram.record(5);
+		histogram.record(1_000);
+		histogram.record(1_000);
+		histogram.record(-1);
+
+		// call under test
+		LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+		assertEquals(4L, snapshot.getCount());
+		assertEquals(2_005L, snapshot.getSum());
+		assertEquals(0L, snapshot.getMin());
+		assertEquals(1_000L, snapshot.getMax());
+		assertEquals(2_005 / 4.0, snapshot.getMean());
+		assertEquals(0L, snapshot.getValueAtPercentile(25));
+		assertEquals(5L, snapshot.getValueAtPercentile(50));
+		// Clamped to the max
+		assertEquals(1_000L, snapshot.getValueAtPercentile(99));
+
+		Map<Long, Long> expected = new LinkedHashMap<>();
+		expected.put(0L, 1L);
+		expected.put(5L, 1L);
+		expected.put(1_000L, 2L);
+		assertEquals(expected, snapshot.getValueCounts());
+	}
+
+	@Test
+	public void testGetValueAtPercentile() {
+		Random random = new Random(123);
+		List<Long> values = new ArrayList<>();
+		for (int i = 0; i < 100_000; i++) {
+			long value = (long) Math.exp(random.nextDouble() * 20);
+			values.add(value);
+			histogram.record(value);
+		}
+		Collections.sort(values);
+
+		LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+		for (double percentile : new double[] { 1, 50, 90, 99, 99.9, 100 }) {
+			long expected = values.get((int) Math.ceil(percentile / 100 * values.size()) - 1);
+			// call under test
+			long actual = snapshot.getValueAtPercentile(percentile);
+			assertTrue(Math.abs(actual - expected) <= Math.max(1, expected / 16), percentile + ": " + actual + " vs " + expected);
+		}
+	}
+
+	@Test
+	public void testMinus() {
+		histogram.record(100);
+		LatencyHistogram.Snapshot previous = histogram.getSnapshot();
+		histogram.record(2_000);
+		histogram.record(3_000);
+
+		// call under test
+		LatencyHistogram.Snapshot delta = histogram.getSnapshot().minus(previous);
+
+		assertEquals(2L, delta.getCount());
+		assertEquals(5_000L, delta.getSum());
+		assertEquals(LatencyHistogram.bucketLowerBound(LatencyHistogram.bucketIndex(2_000)), delta.getMin());
+		assertEquals(3_000L, delta.getMax());
+		assertEquals(2, delta.getValueCounts().size());
+	}
+
+	@Test
+	public void testMinusWithNoNewValues() {
+		histogram.record(100);
+		LatencyHistogram.Snapshot previous = histogram.getSnapshot();
+
+		// call under test
+		LatencyHistogram.Snapshot delta = histogram.getSnapshot().minus(previous);
+
+		assertEquals(0L, delta.getCount());
+		assertEquals(0L, delta.getSum());
+		assertEquals(0L, delta.getMax());
+	}
+
+	@Test
+	public void testRecordConcurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				long offset = t;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 10_000; i++) {
+						histogram.record(i + offset);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// call under test
+		LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+		assertEquals(40_000L, snapshot.getCount());
+		assertEquals(0L, snapshot.getMin());
+		assertEquals(10_002L, snapshot.getMax());
+	}
+
+}
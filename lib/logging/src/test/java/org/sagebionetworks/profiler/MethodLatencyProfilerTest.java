@@ -0,0 +1,92 @@
+package org.sagebionetworks.profiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.profiler.MethodLatencyProfiler.MethodKey;
+
+public class MethodLatencyProfilerTest {
+
+	private MethodLatencyProfiler profiler;
+
+	@BeforeEach
+	public void before() {
+		profiler = new MethodLatencyProfiler(1);
+	}
+
+	@Test
+	public void testGetMethodKey() throws Exception {
+		Method method = Object.class.getMethod("toString");
+		// call under test
+		MethodKey key = profiler.getMethodKey(ArrayList.class, method);
+
+		assertEquals("java.util.ArrayList.toString", key.getName());
+		assertSame(key, profiler.getMethodKey(ArrayList.class, method));
+		assertNotSame(key, profiler.getMethodKey(String.class, method));
+	}
+
+	@Test
+	public void testGetMethodKeyWithOverloadedMethods() throws Exception {
+		MethodKey first = profiler.getMethodKey(ArrayList.class, ArrayList.class.getMethod("add", Object.class));
+		// call under test
+		MethodKey second = profiler.getMethodKey(ArrayList.class, ArrayList.class.getMethod("add", int.class, Object.class));
+
+		assertNotSame(first, second);
+		assertEquals(first.getName(), second.getName());
+		assertSame(first.getHistogram(), second.getHistogram());
+	}
+
+	@Test
+	public void testRecordAndGetSnapshots() throws Exception {
+		MethodKey toString = profiler.getMethodKey(ArrayList.class, Object.class.getMethod("toString"));
+		MethodKey hashCode = profiler.getMethodKey(ArrayList.class, Object.class.getMethod("hashCode"));
+		// never recorded
+		profiler.getMethodKey(ArrayList.class, Object.class.getMethod("equals", Object.class));
+
+		// call under test
+		profiler.record(toString, 100);
+		profiler.record(toString, 200);
+		profiler.record(hashCode, 50);
+
+		Map<String, LatencyHistogram.Snapshot> snapshots = profiler.getSnapshots();
+
+		assertEquals(Arrays.asList("java.util.ArrayList.hashCode", "java.util.ArrayList.toString"), new ArrayList<>(snapshots.keySet()));
+		assertEquals(2L, snapshots.get("java.util.ArrayList.toString").getCount());
+		assertEquals(50L, snapshots.get("java.util.ArrayList.hashCode").getMax());
+	}
+
+	@Test
+	public void testShouldSample() {
+		assertTrue(new MethodLatencyProfiler(1).shouldSample());
+		assertFalse(new MethodLatencyProfiler(0).shouldSample());
+
+		profiler = new MethodLatencyProfiler(10);
+		int sampled = 0;
+		for (int i = 0; i < 10_000; i++) {
+			if (profiler.shouldSample()) {
+				sampled++;
+			}
+		}
+		assertTrue(sampled > 500 && sampled < 1500, "Sampled: " + sampled);
+	}
+
+	@Test
+	public void testConstructorWithNegativeSamplingRate() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			new MethodLatencyProfiler(-1);
+		}).getMessage();
+		assertEquals("The samplingRate cannot be negative", message);
+	}
+
+}
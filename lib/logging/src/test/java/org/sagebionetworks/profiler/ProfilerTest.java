@@ -1,5 +1,7 @@
 package org.sagebionetworks.profiler;
 
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
@@ -9,13 +11,16 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.lang.reflect.Method;
+
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.sagebionetworks.profiler.MethodLatencyProfiler.MethodKey;
 import org.springframework.test.util.ReflectionTestUtils;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -27,54 +32,125 @@ public class ProfilerTest {
 	@Mock
 	ProfilerFrameStackManager mockProfilerFrameStackManager;
 
+	@Mock
+	MethodLatencyProfiler mockMethodLatencyProfiler;
+
 	Profiler spyProfiler;
 
+	Object target;
+	Method method;
+	MethodSignature mockSignature;
+	MethodKey methodKey;
+
 	@Before
-	public void setUp(){
+	public void setUp() throws Exception {
 		Profiler profiler = new Profiler();
 		ReflectionTestUtils.setField(profiler, "frameStackManager", mockProfilerFrameStackManager);
+		ReflectionTestUtils.setField(profiler, "methodLatencyProfiler", mockMethodLatencyProfiler);
 
 		spyProfiler = spy(profiler);
+
+		target = new Object();
+		method = Object.class.getMethod("toString");
+		mockSignature = mock(MethodSignature.class);
+		methodKey = new MethodKey(target.getClass().getName() + "." + method.getName(), new LatencyHistogram());
 	}
 
 	@Test
 	public void testDoBasicProfiling_shouldNotCaptureData() throws Throwable{
 		doReturn(false).when(mockProfilerFrameStackManager).shouldCaptureData();
+		doReturn(false).when(mockMethodLatencyProfiler).shouldSample();
 
 		spyProfiler.doBasicProfiling(mockProceedingJoinPoint);
 
 		verify(mockProfilerFrameStackManager).shouldCaptureData();
+		verify(mockMethodLatencyProfiler).shouldSample();
 		verify(mockProceedingJoinPoint).proceed();
 
 		verifyNoMoreInteractions(mockProceedingJoinPoint);
 		verifyNoMoreInteractions(mockProfilerFrameStackManager);
+		verifyNoMoreInteractions(mockMethodLatencyProfiler);
 	}
 
 	@Test
 	public void testDoBasicProfiling_shouldCaptureData() throws Throwable{
 		doReturn(true).when(mockProfilerFrameStackManager).shouldCaptureData();
-		Object target = new Object();
-		String signatureName = "fakename()";
-		Signature mockSignature = mock(Signature.class);
-		when(mockSignature.getName()).thenReturn(signatureName);
-		String expectedMethodName = target.getClass().getName() + "." + signatureName;
-		when(mockProceedingJoinPoint.getTarget()).thenReturn(target);
-		when(mockProceedingJoinPoint.getSignature()).thenReturn(mockSignature);
-
+		doReturn(false).when(mockMethodLatencyProfiler).shouldSample();
+		setupMethodKey();
 
 		spyProfiler.doBasicProfiling(mockProceedingJoinPoint);
 
 		verify(mockProfilerFrameStackManager).shouldCaptureData();
 		verify(mockProceedingJoinPoint).getSignature();
 		verify(mockProceedingJoinPoint).getTarget();
-		verify(mockSignature).getName();
-		verify(mockProfilerFrameStackManager).startProfiling(expectedMethodName);
+		verify(mockSignature).getMethod();
+		verify(mockMethodLatencyProfiler).shouldSample();
+		verify(mockMethodLatencyProfiler).getMethodKey(Object.class, method);
+		verify(mockProfilerFrameStackManager).startProfiling(methodKey.getName());
 		verify(mockProceedingJoinPoint).proceed();
-		verify(mockProfilerFrameStackManager).endProfiling(eq(expectedMethodName), anyLong());
-
+		verify(mockProfilerFrameStackManager).endProfiling(eq(methodKey.getName()), anyLong());
 
 		verifyNoMoreInteractions(mockSignature);
 		verifyNoMoreInteractions(mockProceedingJoinPoint);
 		verifyNoMoreInteractions(mockProfilerFrameStackManager);
+		verifyNoMoreInteractions(mockMethodLatencyProfiler);
+	}
+
+	@Test
+	public void testDoBasicProfiling_shouldSample() throws Throwable{
+		doReturn(false).when(mockProfilerFrameStackManager).shouldCaptureData();
+		doReturn(true).when(mockMethodLatencyProfiler).shouldSample();
+		setupMethodKey();
+
+		spyProfiler.doBasicProfiling(mockProceedingJoinPoint);
+
+		verify(mockProfilerFrameStackManager).shouldCaptureData();
+		verify(mockMethodLatencyProfiler).shouldSample();
+		verify(mockMethodLatencyProfiler).getMethodKey(Object.class, method);
+		verify(mockProceedingJoinPoint).proceed();
+		verify(mockMethodLatencyProfiler).record(eq(methodKey), anyLong());
+
+		verifyNoMoreInteractions(mockProfilerFrameStackManager);
+		verifyNoMoreInteractions(mockMethodLatencyProfiler);
+	}
+
+	@Test
+	public void testDoBasicProfiling_shouldCaptureDataAndSample() throws Throwable{
+		doReturn(true).when(mockProfilerFrameStackManager).shouldCaptureData();
+		doReturn(true).when(mockMethodLatencyProfiler).shouldSample();
+		setupMethodKey();
+
+		spyProfiler.doBasicProfiling(mockProceedingJoinPoint);
+
+		verify(mockProfilerFrameStackManager).startProfiling(methodKey.getName());
+		verify(mockProceedingJoinPoint).proceed();
+		verify(mockMethodLatencyProfiler).record(eq(methodKey), anyLong());
+		verify(mockProfilerFrameStackManager).endProfiling(eq(methodKey.getName()), anyLong());
+	}
+
+	@Test
+	public void testDoBasicProfiling_shouldSampleWithException() throws Throwable{
+		doReturn(false).when(mockProfilerFrameStackManager).shouldCaptureData();
+		doReturn(true).when(mockMethodLatencyProfiler).shouldSample();
+		setupMethodKey();
+		IllegalStateException exception = new IllegalStateException("failed");
+		when(mockProceedingJoinPoint.proceed()).thenThrow(exception);
+
+		try {
+			spyProfiler.doBasicProfiling(mockProceedingJoinPoint);
+			fail();
+		} catch (IllegalStateException e) {
+			assertSame(exception, e);
+		}
+
+		// Failed calls are recorded as well
+		verify(mockMethodLatencyProfiler).record(eq(methodKey), anyLong());
+	}
+
+	private void setupMethodKey() {
+		when(mockProceedingJoinPoint.getTarget()).thenReturn(target);
+		when(mockProceedingJoinPoint.getSignature()).thenReturn(mockSignature);
+		when(mockSignature.getMethod()).thenReturn(method);
+		when(mockMethodLatencyProfiler.getMethodKey(Object.class, method)).thenReturn(methodKey);
 	}
 }
@@ -17,6 +17,7 @@ import org.sagebionetworks.repo.web.NotFoundException;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -277,6 +278,16 @@ public interface NodeDAO {
 	 */
 	public List<NameIdType> getEntityPath(String nodeId) throws DatastoreException, NotFoundException;
 	
+	/**
+	 * Batch version of {@link #getEntityPath(String)}, the paths of all the given
+	 * nodes are resolved with a fixed number of queries.
+	 * 
+	 * @param nodeIds
+	 * @return Map of node id to its path, ordered from the root to the node
+	 *         itself. Nodes that do not exist are not included.
+	 */
+	public Map<Long, List<NameIdType>> getEntityPaths(Collection<Long> nodeIds);
+	
 	/**
 	 * Get the IDs of the entities in the provided entityId's path.
 	 * @param nodeId
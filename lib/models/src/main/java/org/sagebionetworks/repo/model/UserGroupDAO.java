@@ -43,6 +43,11 @@ public interface UserGroupDAO {
 	 * Updates the etag the group with the given ID
 	 */
 	public void touch(Long principalId);
+
+	/**
+	 * Updates the etag of each of the principals with the given IDs
+	 */
+	public void touchAll(Collection<Long> principalIds);
 	
 	/**
 	 * @param dto
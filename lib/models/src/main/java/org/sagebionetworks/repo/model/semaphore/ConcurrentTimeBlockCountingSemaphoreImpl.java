@@ -0,0 +1,139 @@
+package org.sagebionetworks.repo.model.semaphore;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Lock-free implementation of the {@link MemoryTimeBlockCountingSemaphore}.
+ * Each key maps to an immutable time block holding an atomic counter, so
+ * callers for different keys never contend and callers for the same key only
+ * race on a compare-and-set. Expired blocks are replaced atomically when the
+ * key is used again. Each new block is also added to a queue ordered by
+ * expiration time, at most once every {@value #SWEEP_INTERVAL_MS} ms the
+ * caller that crosses the interval removes the expired blocks from the head of
+ * the queue, so the sweep only visits the expired blocks.
+ *
+ */
+public class ConcurrentTimeBlockCountingSemaphoreImpl implements MemoryTimeBlockCountingSemaphore {
+
+	static final long SWEEP_INTERVAL_MS = 10_000;
+
+	private final ConcurrentMap<String, TimeBlock> keyBlockMap = new ConcurrentHashMap<>();
+	private final PriorityBlockingQueue<TimeBlock> expirationQueue = new PriorityBlockingQueue<>();
+	private final AtomicLong nextSweepTimeMS = new AtomicLong();
+	// abstraction from the system clock.
+	private final Clock clock;
+
+	public ConcurrentTimeBlockCountingSemaphoreImpl(Clock clock) {
+		ValidateArgument.required(clock, "clock");
+		this.clock = clock;
+	}
+
+	@Override
+	public boolean attemptToAcquireLock(String key, long timeoutSec, long maxLockCount) {
+		ValidateArgument.required(key, "key");
+		ValidateArgument.requirement(timeoutSec >= 0, "timeoutSec must be a positive value");
+		ValidateArgument.requirement(maxLockCount >= 0, "maxLockCount must be a positive value");
+
+		if (maxLockCount == 0) {
+			// no need to track nor do anything if the max number of acquirable locks is 0
+			return false;
+		}
+
+		long now = clock.currentTimeMillis();
+		sweepExpiredIfNeeded(now);
+
+		while (true) {
+			TimeBlock block = keyBlockMap.get(key);
+			if (block != null && !block.isExpired(now)) {
+				return block.tryIncrement(maxLockCount);
+			}
+			// no block for the key yet or the block expired, start a new block with a count of one
+			TimeBlock newBlock = new TimeBlock(key, now + timeoutSec * 1000);
+			boolean started = block == null ? keyBlockMap.putIfAbsent(key, newBlock) == null
+					: keyBlockMap.replace(key, block, newBlock);
+			if (started) {
+				expirationQueue.add(newBlock);
+				return true;
+			}
+			// another thread changed the block for this key, try again with its block
+		}
+	}
+
+	@Override
+	public void releaseAllLocks() {
+		keyBlockMap.clear();
+		expirationQueue.clear();
+	}
+
+	/**
+	 * Remove the expired blocks at the head of the expiration queue if the sweep
+	 * interval elapsed. Only the thread that wins the update of the next sweep
+	 * time does the sweep.
+	 *
+	 * @param now
+	 */
+	void sweepExpiredIfNeeded(long now) {
+		long nextSweep = nextSweepTimeMS.get();
+		if (now < nextSweep || !nextSweepTimeMS.compareAndSet(nextSweep, now + SWEEP_INTERVAL_MS)) {
+			return;
+		}
+		for (TimeBlock block = expirationQueue.poll(); block != null; block = expirationQueue.poll()) {
+			if (!block.isExpired(now)) {
+				// The blocks after the head of the queue expire later
+				expirationQueue.add(block);
+				return;
+			}
+			// Only removes the entry if it still maps to the expired block
+			keyBlockMap.remove(block.key, block);
+		}
+	}
+
+	int size() {
+		return keyBlockMap.size();
+	}
+
+	int queueSize() {
+		return expirationQueue.size();
+	}
+
+	private static final class TimeBlock implements Comparable<TimeBlock> {
+
+		private final String key;
+		private final long expirationTimeMS;
+		private final AtomicInteger count = new AtomicInteger(1);
+
+		private TimeBlock(String key, long expirationTimeMS) {
+			this.key = key;
+			this.expirationTimeMS = expirationTimeMS;
+		}
+
+		@Override
+		public int compareTo(TimeBlock other) {
+			return Long.compare(expirationTimeMS, other.expirationTimeMS);
+		}
+
+		private boolean isExpired(long now) {
+			return now >= expirationTimeMS;
+		}
+
+		private boolean tryIncrement(long maxLockCount) {
+			while (true) {
+				int current = count.get();
+				if (current >= maxLockCount) {
+					return false;
+				}
+				if (count.compareAndSet(current, current + 1)) {
+					return true;
+				}
+			}
+		}
+	}
+
+}
@@ -85,6 +85,28 @@ public interface V2WikiPageDao {
 	 */
 	public String getMarkdown(WikiPageKey key, Long version) throws IOException, NotFoundException;
 	
+	/**
+	 * Get the markdown file of the current version of the wiki pages of the given
+	 * owner with a single query.
+	 * 
+	 * @param ownerId
+	 * @param ownerType
+	 * @param limit
+	 * @return The markdown files in the same order as the pages of
+	 *         {@link #getHeaderTree(String, ObjectType, Long, Long)}, empty if the
+	 *         owner has no wiki
+	 */
+	public List<V2WikiPageMarkdownFile> getCurrentMarkdownFiles(String ownerId, ObjectType ownerType, long limit);
+	
+	/**
+	 * Download the markdown of a wiki page as a string.
+	 * 
+	 * @param markdownFile
+	 * @return
+	 * @throws IOException
+	 */
+	public String downloadMarkdown(V2WikiPageMarkdownFile markdownFile) throws IOException;
+	
 	/**
 	 * Get ALL the file handle ids used (in the past/currently) for a wiki page.
 	 * @param key
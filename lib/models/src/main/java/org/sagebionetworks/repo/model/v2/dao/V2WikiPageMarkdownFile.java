@@ -0,0 +1,78 @@
+package org.sagebionetworks.repo.model.v2.dao;
+
+import java.util.Objects;
+
+/**
+ * The location of the markdown of a version of a wiki page. The markdown of a
+ * wiki version never changes.
+ *
+ */
+public class V2WikiPageMarkdownFile {
+
+	private final String wikiId;
+	private final Long markdownVersion;
+	private final String title;
+	private final Long fileHandleId;
+	private final String bucketName;
+	private final String key;
+
+	public V2WikiPageMarkdownFile(String wikiId, Long markdownVersion, String title, Long fileHandleId, String bucketName,
+			String key) {
+		this.wikiId = wikiId;
+		this.markdownVersion = markdownVersion;
+		this.title = title;
+		this.fileHandleId = fileHandleId;
+		this.bucketName = bucketName;
+		this.key = key;
+	}
+
+	public String getWikiId() {
+		return wikiId;
+	}
+
+	public Long getMarkdownVersion() {
+		return markdownVersion;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public Long getFileHandleId() {
+		return fileHandleId;
+	}
+
+	public String getBucketName() {
+		return bucketName;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(bucketName, fileHandleId, key, markdownVersion, title, wikiId);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof V2WikiPageMarkdownFile)) {
+			return false;
+		}
+		V2WikiPageMarkdownFile other = (V2WikiPageMarkdownFile) obj;
+		return Objects.equals(bucketName, other.bucketName) && Objects.equals(fileHandleId, other.fileHandleId)
+				&& Objects.equals(key, other.key) && Objects.equals(markdownVersion, other.markdownVersion)
+				&& Objects.equals(title, other.title) && Objects.equals(wikiId, other.wikiId);
+	}
+
+	@Override
+	public String toString() {
+		return "V2WikiPageMarkdownFile [wikiId=" + wikiId + ", markdownVersion=" + markdownVersion + ", title=" + title
+				+ ", fileHandleId=" + fileHandleId + ", bucketName=" + bucketName + ", key=" + key + "]";
+	}
+
+}
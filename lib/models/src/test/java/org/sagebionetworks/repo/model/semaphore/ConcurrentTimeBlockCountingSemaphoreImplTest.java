@@ -0,0 +1,214 @@
+package org.sagebionetworks.repo.model.semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.DefaultClock;
+
+@ExtendWith(MockitoExtension.class)
+public class ConcurrentTimeBlockCountingSemaphoreImplTest {
+
+	@Mock
+	private Clock mockClock;
+
+	private ConcurrentTimeBlockCountingSemaphoreImpl semaphore;
+
+	private String key;
+	private long timeoutSec;
+	private long limit;
+
+	@BeforeEach
+	public void before() {
+		semaphore = new ConcurrentTimeBlockCountingSemaphoreImpl(mockClock);
+		key = "some key";
+		timeoutSec = 2;
+		limit = 2;
+	}
+
+	@Test
+	public void testAcquireLockUpToLimit() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+
+		// call under test
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, limit));
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, limit));
+		assertFalse(semaphore.attemptToAcquireLock(key, timeoutSec, limit));
+		// other keys are counted separately
+		assertTrue(semaphore.attemptToAcquireLock("other key", timeoutSec, limit));
+	}
+
+	@Test
+	public void testAcquireLockWithExpiredBlock() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L, 2999L, 3000L);
+
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, limit));
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, limit));
+		assertFalse(semaphore.attemptToAcquireLock(key, timeoutSec, limit));
+
+		// call under test
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, limit));
+	}
+
+	@Test
+	public void testAcquireLockWithSweep() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L, 1000L + ConcurrentTimeBlockCountingSemaphoreImpl.SWEEP_INTERVAL_MS);
+
+		semaphore.attemptToAcquireLock(key, timeoutSec, limit);
+		semaphore.attemptToAcquireLock("other key", timeoutSec, limit);
+		assertEquals(2, semaphore.size());
+
+		// call under test
+		semaphore.attemptToAcquireLock("new key", timeoutSec, limit);
+
+		// the expired blocks are removed
+		assertEquals(1, semaphore.size());
+		assertEquals(1, semaphore.queueSize());
+	}
+
+	@Test
+	public void testAcquireLockWithSweepAndDifferentTimeouts() {
+		long sweepTime = 1000L + ConcurrentTimeBlockCountingSemaphoreImpl.SWEEP_INTERVAL_MS;
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L, 1000L, sweepTime);
+
+		// expires after the sweep
+		semaphore.attemptToAcquireLock("long key", 60, limit);
+		semaphore.attemptToAcquireLock(key, timeoutSec, limit);
+		semaphore.attemptToAcquireLock("other key", timeoutSec, limit);
+
+		// call under test
+		semaphore.attemptToAcquireLock("new key", timeoutSec, limit);
+
+		// only the expired blocks are removed
+		assertEquals(2, semaphore.size());
+		assertEquals(2, semaphore.queueSize());
+		assertFalse(semaphore.attemptToAcquireLock("long key", 60, 1));
+	}
+
+	@Test
+	public void testAcquireLockWithSweepAndReplacedBlock() {
+		long sweepTime = 1000L + ConcurrentTimeBlockCountingSemaphoreImpl.SWEEP_INTERVAL_MS;
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 5000L, sweepTime);
+
+		semaphore.attemptToAcquireLock(key, timeoutSec, limit);
+		// replaces the expired block, the new block expires after the sweep
+		semaphore.attemptToAcquireLock(key, 60, limit);
+		assertEquals(2, semaphore.queueSize());
+
+		// call under test
+		semaphore.attemptToAcquireLock("new key", timeoutSec, limit);
+
+		// the expired block does not remove the new block of the key
+		assertEquals(2, semaphore.size());
+		assertEquals(2, semaphore.queueSize());
+	}
+
+	@Test
+	public void testAcquireLockZeroMaxLocks() {
+		assertFalse(semaphore.attemptToAcquireLock(key, timeoutSec, 0));
+		assertEquals(0, semaphore.size());
+		verifyNoInteractions(mockClock);
+	}
+
+	@Test
+	public void testAcquireLockNullKey() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			semaphore.attemptToAcquireLock(null, timeoutSec, limit);
+		});
+	}
+
+	@Test
+	public void testAcquireLockNegativeTimeoutSec() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			semaphore.attemptToAcquireLock(key, -1, limit);
+		});
+	}
+
+	@Test
+	public void testAcquireLockNegativeMaxLock() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			semaphore.attemptToAcquireLock(key, timeoutSec, -1);
+		});
+	}
+
+	@Test
+	public void testReleaseAllLocks() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, 1));
+		assertFalse(semaphore.attemptToAcquireLock(key, timeoutSec, 1));
+
+		// call under test
+		semaphore.releaseAllLocks();
+
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, 1));
+	}
+
+	/**
+	 * Many threads competing for a few keys must never be issued more than the
+	 * limit for each key. Also compares the time taken with the synchronized
+	 * implementation.
+	 */
+	@Test
+	public void testAcquireLockWithContention() throws Exception {
+		int threadCount = 16;
+		int callsPerThread = 20_000;
+		int keyCount = 4;
+		long maxLockCount = 1000;
+
+		MemoryTimeBlockCountingSemaphore concurrent = new ConcurrentTimeBlockCountingSemaphoreImpl(new DefaultClock());
+		// call under test
+		long[] acquired = runContention(concurrent, threadCount, callsPerThread, keyCount, maxLockCount);
+
+		// Each key must hand out exactly its maximum number of locks
+		for (long count : acquired) {
+			assertEquals(maxLockCount, count);
+		}
+	}
+
+	private static long[] runContention(MemoryTimeBlockCountingSemaphore semaphore, int threadCount, int callsPerThread,
+			int keyCount, long maxLockCount) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<long[]>> futures = new ArrayList<>();
+			for (int t = 0; t < threadCount; t++) {
+				Callable<long[]> task = () -> {
+					long[] acquired = new long[keyCount];
+					for (int i = 0; i < callsPerThread; i++) {
+						int keyIndex = i % keyCount;
+						if (semaphore.attemptToAcquireLock("key" + keyIndex, 60, maxLockCount)) {
+							acquired[keyIndex]++;
+						}
+					}
+					return acquired;
+				};
+				futures.add(executor.submit(task));
+			}
+			long[] total = new long[keyCount];
+			for (Future<long[]> future : futures) {
+				long[] acquired = future.get();
+				for (int i = 0; i < keyCount; i++) {
+					total[i] += acquired[i];
+				}
+			}
+			return total;
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -264,6 +264,14 @@ public interface StackConfiguration {
 	 */
 	public boolean getSearchEnabled();
 
+	/**
+	 * The maximum total number of characters of wiki markdown cached by the worker
+	 * that builds the search documents.
+	 * 
+	 * @return
+	 */
+	public long getSearchMarkdownCacheMaxCharacters();
+
 	/**
 	 * Is the DOI feature enabled?
 	 * 
@@ -554,6 +562,14 @@ public interface StackConfiguration {
 	 */
 	public long getTableReadTimeoutMS();
 
+	/**
+	 * The maximum number of connections used to restore table indices with LOAD
+	 * DATA LOCAL INFILE.
+	 * 
+	 * @return
+	 */
+	public int getTableLoadDataMaxNumberConnections();
+
 	public Integer getMaxConcurrentRepoConnections();
 
 	/**
@@ -571,6 +587,15 @@ public interface StackConfiguration {
 	 */
 	public Integer getChangeSynchWorkerMinPageSize();
 
+	/**
+	 * Should the jobs of the worker stacks that opt into the virtual execution
+	 * mode run on virtual threads? Only effective on a runtime that supports
+	 * virtual threads.
+	 * 
+	 * @return
+	 */
+	public boolean getWorkerVirtualThreadsEnabled();
+
 	/**
 	 * Get the name of the audit access record bucket.
 	 * 
@@ -848,6 +873,19 @@ public interface StackConfiguration {
 	 */
 	Long getKinesisMaxRetryDelay();
 
+	/**
+	 * @return The name of the policy applied when the buffer of the asynchronous
+	 *         kinesis logger for a stream is full (BLOCK, DROP or SPILL), can be
+	 *         null
+	 */
+	String getKinesisAsyncBackpressurePolicy();
+
+	/**
+	 * @return The maximum number of records buffered for each stream by the
+	 *         asynchronous kinesis logger, can be null
+	 */
+	Integer getKinesisAsyncBufferCapacity();
+
 	/**
 	 * @return drs service endpoint
 	 */
@@ -442,6 +442,16 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return Boolean.parseBoolean(configuration.getProperty("org.sagebionetworks.search.enabled"));
 	}
 
+	/**
+	 * The maximum total number of characters of wiki markdown cached by the worker
+	 * that builds the search documents.
+	 * 
+	 * @return
+	 */
+	public long getSearchMarkdownCacheMaxCharacters() {
+		return Long.parseLong(configuration.getProperty("org.sagebionetworks.search.markdown.cache.max.characters"));
+	}
+
 	/**
 	 * Is the DOI feature enabled?
 	 * 
@@ -859,6 +869,16 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return Long.parseLong(configuration.getProperty("org.sagebionetworks.table.read.timeout.ms"));
 	}
 
+	/**
+	 * The maximum number of connections used to restore table indices with LOAD
+	 * DATA LOCAL INFILE.
+	 * 
+	 * @return
+	 */
+	public int getTableLoadDataMaxNumberConnections() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.table.load.data.max.number.connections"));
+	}
+
 	public Integer getMaxConcurrentRepoConnections() {
 		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.max.concurrent.repo.connections"));
 	}
@@ -882,6 +902,16 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.worker.change.synch.min.page.size"));
 	}
 
+	/**
+	 * Should the jobs of the worker stacks that opt into the virtual execution
+	 * mode run on virtual threads?
+	 * 
+	 * @return
+	 */
+	public boolean getWorkerVirtualThreadsEnabled() {
+		return Boolean.parseBoolean(configuration.getProperty("org.sagebionetworks.worker.virtual.threads.enabled"));
+	}
+
 	/**
 	 * Get the name of the audit access record bucket.
 	 * 
@@ -1253,6 +1283,22 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return null;
 	}
 
+	@Override
+	public String getKinesisAsyncBackpressurePolicy() {
+		if (configuration.hasProperty("org.sagebionetworks.kinesis.async.backpressure")) {
+			return configuration.getProperty("org.sagebionetworks.kinesis.async.backpressure");
+		}
+		return null;
+	}
+
+	@Override
+	public Integer getKinesisAsyncBufferCapacity() {
+		if (configuration.hasProperty("org.sagebionetworks.kinesis.async.capacity")) {
+			return Integer.parseInt(configuration.getProperty("org.sagebionetworks.kinesis.async.capacity"));
+		}
+		return null;
+	}
+
 	@Override
 	public String getDrsServiceEndpoint() {
 		return configuration.getProperty("org.sagebionetworks.drsservice.endpoint");
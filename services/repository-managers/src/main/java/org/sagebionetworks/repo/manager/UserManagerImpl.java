@@ -1,12 +1,15 @@
 package org.sagebionetworks.repo.manager;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.sagebionetworks.repo.manager.principal.NewUserUtils;
 import org.sagebionetworks.repo.model.AuthorizationConstants.BOOTSTRAP_PRINCIPAL;
@@ -41,9 +44,18 @@ import org.sagebionetworks.securitytools.PBKDF2Utils;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 
 public class UserManagerImpl implements UserManager {
+	
+	/**
+	 * The cached state of a principal is checked against the etag of the principal
+	 * on each use, the expiration only bounds the time an unused entry is kept.
+	 */
+	static final Duration PRINCIPAL_STATE_CACHE_EXPIRATION = Duration.ofMinutes(5);
+	private static final int PRINCIPAL_STATE_CACHE_MAX_SIZE = 50_000;
 
 	private final UserGroupDAO userGroupDAO;
 	private final UserProfileDAO userProfileDAO;
@@ -60,6 +72,8 @@ public class UserManagerImpl implements UserManager {
 	 */
 	private final DBOBasicDao basicDAO;
 	
+	private final Cache<Long, PrincipalState> principalStateCache;
+	
 	@Autowired
 	public UserManagerImpl(UserGroupDAO userGroupDAO, UserProfileDAO userProfileDAO, GroupMembersDAO groupMembersDAO,
 			AuthenticationDAO authDAO, PrincipalAliasDAO principalAliasDAO, NotificationEmailDAO notificationEmailDao,
@@ -74,6 +88,10 @@ public class UserManagerImpl implements UserManager {
 		this.notificationEmailDao = notificationEmailDao;
 		this.principalOidcBindingDao = principalOIDCBindingDao;
 		this.basicDAO = basicDAO;
+		this.principalStateCache = CacheBuilder.newBuilder()
+			.expireAfterWrite(PRINCIPAL_STATE_CACHE_EXPIRATION)
+			.maximumSize(PRINCIPAL_STATE_CACHE_MAX_SIZE)
+			.build();
 	}
 
 	@Override
@@ -212,11 +230,8 @@ public class UserManagerImpl implements UserManager {
 		groups.add(principalId);
 		groups.add(BOOTSTRAP_PRINCIPAL.PUBLIC_GROUP.getPrincipalId());
 		// Add all groups the user belongs to
-		List<UserGroup> groupFromDAO = groupMembersDAO.getUsersGroups(principal.getId());
-		// Add each group
-		for(UserGroup ug: groupFromDAO){
-			groups.add(Long.parseLong(ug.getId()));
-		}
+		PrincipalState state = getPrincipalState(principalId, principal.getEtag());
+		groups.addAll(state.getGroupIds());
 
 		// Check to see if the user is an Admin
 		boolean isAdmin = false;
@@ -229,10 +244,59 @@ public class UserManagerImpl implements UserManager {
 		ui.setCreationDate(principal.getCreationDate());
 		// Put all the pieces together
 		ui.setGroups(groups);
-		ui.setTwoFactorAuthEnabled(authDAO.isTwoFactorAuthEnabled(principalId));
+		ui.setTwoFactorAuthEnabled(state.isTwoFactorAuthEnabled());
 		ui.setContext(new CallersContext().setSessionId(SessionIdThreadLocal.getThreadsSessionId().orElse("missing")));
 		return ui;
 	}
+	
+	/**
+	 * Get the groups and the two factor authentication state of the principal with
+	 * the given id. Any change to either of them updates the etag of the principal,
+	 * the cached state is used only if it was loaded with the given etag.
+	 * 
+	 * @param principalId
+	 * @param etag        The current etag of the principal
+	 * @return
+	 */
+	PrincipalState getPrincipalState(Long principalId, String etag) {
+		PrincipalState state = principalStateCache.getIfPresent(principalId);
+		if (state != null && etag != null && etag.equals(state.getEtag())) {
+			return state;
+		}
+		Set<Long> groupIds = groupMembersDAO.getUsersGroups(principalId.toString()).stream()
+			.map(ug -> Long.parseLong(ug.getId()))
+			.collect(Collectors.toSet());
+		state = new PrincipalState(etag, groupIds, authDAO.isTwoFactorAuthEnabled(principalId));
+		if (etag != null) {
+			principalStateCache.put(principalId, state);
+		}
+		return state;
+	}
+	
+	static final class PrincipalState {
+		
+		private final String etag;
+		private final Set<Long> groupIds;
+		private final boolean twoFactorAuthEnabled;
+		
+		PrincipalState(String etag, Set<Long> groupIds, boolean twoFactorAuthEnabled) {
+			this.etag = etag;
+			this.groupIds = Collections.unmodifiableSet(groupIds);
+			this.twoFactorAuthEnabled = twoFactorAuthEnabled;
+		}
+		
+		String getEtag() {
+			return etag;
+		}
+		
+		Set<Long> getGroupIds() {
+			return groupIds;
+		}
+		
+		boolean isTwoFactorAuthEnabled() {
+			return twoFactorAuthEnabled;
+		}
+	}
 
 	@WriteTransaction
 	@Override
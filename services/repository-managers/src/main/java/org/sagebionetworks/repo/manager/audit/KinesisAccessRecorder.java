@@ -69,7 +69,8 @@ public class KinesisAccessRecorder implements AccessRecorder {
 					.map(record -> new KinesisJsonEntityRecord<>(record.getTimestamp(), record, record.getStack(), record.getInstance()))
 					.collect(Collectors.toList());
 
-			firehoseLogger.logBatch(ACCESS_RECORD_STREAM, kinesisJsonEntityRecords);
+			// Delivered by the background flusher of the logger, failures were already only logged
+			firehoseLogger.logBatchAsync(ACCESS_RECORD_STREAM, kinesisJsonEntityRecords);
 		} catch (Exception e) {
 			log.error("Failed to write batch", e);
 		}
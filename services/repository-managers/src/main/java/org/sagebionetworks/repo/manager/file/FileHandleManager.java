@@ -27,6 +27,7 @@ import java.io.UnsupportedEncodingException;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Manages uploading files.
@@ -173,6 +174,20 @@ public interface FileHandleManager {
 	 */
 	S3FileHandle uploadLocalFile(LocalFileUploadRequest request);
 
+	/**
+	 * Upload the data written by the given writer to the standard Synapse S3
+	 * bucket and creates a file handle for it. The data is sent as a multi-part
+	 * upload while it is written, without a local copy. The file to upload of the
+	 * request is not used and the file name is required. This is used by workers.
+	 * 
+	 * Note that NO permission check is performed on the user of the request.
+	 * 
+	 * @param request
+	 * @param writer
+	 * @return The created file handle, empty if the writer discarded the upload
+	 */
+	Optional<S3FileHandle> uploadStream(LocalFileUploadRequest request, UploadStreamWriter writer);
+
 	/**
 	 * Get the list of upload destinations for this parent
 	 * 
@@ -124,6 +124,7 @@ import com.amazonaws.services.s3.model.BucketCrossOriginConfiguration;
 import com.amazonaws.services.s3.model.CORSRule;
 import com.amazonaws.services.s3.model.CORSRule.AllowedMethods;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.ResponseHeaderOverrides;
@@ -788,6 +789,53 @@ public class FileHandleManagerImpl implements FileHandleManager {
 		} 
 	}
 
+	@Override
+	public Optional<S3FileHandle> uploadStream(LocalFileUploadRequest request, UploadStreamWriter writer) {
+		ValidateArgument.required(request, "request");
+		ValidateArgument.required(request.getFileName(), "request.fileName");
+		ValidateArgument.required(writer, "writer");
+		// This will return the default storage location if the input is null
+		StorageLocationSetting storageLocationSetting = storageLocationDAO.get(request.getStorageLocationId());
+		String bucket = MultipartUtils.getBucket(storageLocationSetting);
+		String key = MultipartUtils.createNewKey(request.getUserId(), request.getFileName(), storageLocationSetting);
+
+		S3FileHandle handle = new S3FileHandle();
+		handle.setBucketName(bucket);
+		handle.setKey(key);
+		handle.setContentType(request.getContentType());
+		handle.setCreatedBy(request.getUserId());
+		handle.setCreatedOn(new Date(System.currentTimeMillis()));
+		handle.setEtag(UUID.randomUUID().toString());
+		handle.setFileName(request.getFileName());
+		handle.setStorageLocationId(request.getStorageLocationId());
+
+		// The MD5 is not known before the upload, so it is not part of the object metadata
+		InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(bucket, key,
+				TransferUtils.prepareObjectMetadata(handle));
+		StorageClass storageClass = MultipartUtils.getS3StorageClass(storageLocationSetting);
+		if (storageClass != null) {
+			initiateRequest.withStorageClass(storageClass);
+		}
+
+		try (S3MultipartUploadOutputStream out = createMultipartUploadOutputStream(initiateRequest)) {
+			if (!writer.write(out)) {
+				// Closing the stream aborts the upload
+				return Optional.empty();
+			}
+			out.complete();
+			handle.setContentSize(out.getContentSize());
+			handle.setContentMd5(out.getContentMd5());
+		} catch (IOException e) {
+			throw new DatastoreException(e);
+		}
+		handle.setId(idGenerator.generateNewId(IdType.FILE_IDS).toString());
+		return Optional.of((S3FileHandle) fileHandleDao.createFile(handle));
+	}
+
+	S3MultipartUploadOutputStream createMultipartUploadOutputStream(InitiateMultipartUploadRequest initiateRequest) {
+		return new S3MultipartUploadOutputStream(s3Client, initiateRequest, S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES);
+	}
+
 	@Override
 	@Deprecated
 	public List<UploadDestination> getUploadDestinations(UserInfo userInfo, String parentId) throws DatastoreException,
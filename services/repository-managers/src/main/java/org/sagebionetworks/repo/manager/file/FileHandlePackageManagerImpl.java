@@ -1,14 +1,20 @@
 package org.sagebionetworks.repo.manager.file;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.manager.AuthorizationManager;
+import org.sagebionetworks.repo.manager.feature.FeatureManager;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.dbo.file.FileHandleDao;
+import org.sagebionetworks.repo.model.feature.Feature;
 import org.sagebionetworks.repo.model.file.BulkFileDownloadRequest;
 import org.sagebionetworks.repo.model.file.BulkFileDownloadResponse;
 import org.sagebionetworks.repo.model.file.FileConstants;
@@ -23,6 +29,7 @@ import org.sagebionetworks.repo.model.file.ZipFileFormat;
 import org.sagebionetworks.repo.model.jdo.NameValidation;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.util.Clock;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -32,10 +39,18 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -51,6 +66,18 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 	public static final String FILE_EXCEEDS_THE_MAXIMUM_SIZE_LIMIT = "File exceeds the maximum size limit.";
 	public static final String RESULT_FILE_HAS_REACHED_THE_MAXIMUM_SIZE = "Result file has reached the maximum size.";
 	public static final String FILE_ALREADY_ADDED = "File already added.";
+	public static final String DEFAULT_ZIP_FILE_NAME = "Job.zip";
+
+	// Limits of the files downloaded ahead when streaming a package
+	public static final int MAX_PREFETCH_FILES = 16;
+	public static final long MAX_PREFETCH_BYTES = 64L * 1024 * 1024;
+	public static final long MAX_PREFETCH_FILE_BYTES = 8L * 1024 * 1024;
+
+	static final String METRIC_NAMESPACE_PREFIX = "Bulk-Download-Packager-";
+	static final String METRIC_PACKAGE_SIZE = "PackageSize";
+	static final String METRIC_PACKAGE_FILE_COUNT = "PackageFileCount";
+	static final String METRIC_PACKAGE_BUILD_TIME = "PackageBuildTime";
+	static final String METRIC_PACKAGE_THROUGHPUT = "PackageThroughput";
 
 	private FileHandleDao fileHandleDao;
 	private SynapseS3Client s3client;
@@ -58,11 +85,16 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 	private FileHandleManager fileHandleManager;
 	private TransactionalMessenger messenger;
 	private StackConfiguration configuration;
+	private FeatureManager featureManager;
+	private ExecutorService threadPool;
+	private Consumer consumer;
+	private Clock clock;
 
 	@Autowired
 	public FileHandlePackageManagerImpl(FileHandleDao fileHandleDao, SynapseS3Client s3client,
 			AuthorizationManager fileHandleAuthorizationManager, FileHandleManager fileHandleManager,
-			TransactionalMessenger messenger, StackConfiguration configuration) {
+			TransactionalMessenger messenger, StackConfiguration configuration, FeatureManager featureManager,
+			ExecutorService cachedThreadPool, Consumer consumer, Clock clock) {
 		super();
 		this.fileHandleDao = fileHandleDao;
 		this.s3client = s3client;
@@ -70,6 +102,10 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 		this.fileHandleManager = fileHandleManager;
 		this.messenger = messenger;
 		this.configuration = configuration;
+		this.featureManager = featureManager;
+		this.threadPool = cachedThreadPool;
+		this.consumer = consumer;
+		this.clock = clock;
 	}
 
 	/*
@@ -150,6 +186,9 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 		if (request.getZipFileName() != null) {
 			NameValidation.validateName(request.getZipFileName());
 		}
+		if (featureManager.isFeatureEnabled(Feature.USE_STREAMING_BULK_DOWNLOAD_PACKAGER)) {
+			return buildZipStreaming(user, request, skipFileSizeCheck);
+		}
 		// The generated zip will be written to this temp file.
 		File tempResultFile = createTempFile("Job", ".zip");
 		try {
@@ -247,6 +286,33 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 	 */
 	String writeOneFileToZip(ZipOutputStream zipOut, long zipFileSize, FileHandleAssociationAuthorizationStatus fhas,
 			Set<String> fileIdsInZip, ZipEntryNameProvider zipEntryNameProvider, boolean skipFileSizeCheck) throws IOException {
+		S3FileHandle s3Handle = validateFileForZip(zipFileSize, fhas, fileIdsInZip, skipFileSizeCheck, this::getS3FileHandle);
+		// This file will be downloaded to this temp.
+		File downloadTemp = downloadToTempFile(s3Handle);
+		try {
+			// The entry name is the path plus file name.
+			String zipEntryName = zipEntryNameProvider.createZipEntryName(s3Handle.getFileName(),
+					Long.parseLong(s3Handle.getId()));
+			// write the file to the zip.
+			addFileToZip(zipOut, downloadTemp, zipEntryName);
+			return zipEntryName;
+		} finally {
+			downloadTemp.delete();
+		}
+	}
+
+	/**
+	 * Check that the given file can be added to the zip.
+	 * 
+	 * @param zipFileSize
+	 * @param fhas
+	 * @param fileIdsInZip
+	 * @param skipFileSizeCheck
+	 * @param fileHandleProvider Provides the S3FileHandle for a FileHandle.id
+	 * @return The S3FileHandle of the file
+	 */
+	S3FileHandle validateFileForZip(long zipFileSize, FileHandleAssociationAuthorizationStatus fhas, Set<String> fileIdsInZip,
+			boolean skipFileSizeCheck, Function<String, S3FileHandle> fileHandleProvider) {
 		String fileHandleId = fhas.getAssociation().getFileHandleId();
 		// Is the user authorized to download this file?
 		if (!fhas.getStatus().isAuthorized()) {
@@ -261,23 +327,189 @@ public class FileHandlePackageManagerImpl implements FileHandlePackageManager {
 			throw new BulkFileException(RESULT_FILE_HAS_REACHED_THE_MAXIMUM_SIZE, FileDownloadCode.EXCEEDS_SIZE_LIMIT);
 		}
 		// Get this filehandle.
-		S3FileHandle s3Handle = getS3FileHandle(fileHandleId);
+		S3FileHandle s3Handle = fileHandleProvider.apply(fileHandleId);
 		// Each file must be under the max.s
 		if (!skipFileSizeCheck && s3Handle.getContentSize() > FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES) {
 			throw new BulkFileException(FILE_EXCEEDS_THE_MAXIMUM_SIZE_LIMIT, FileDownloadCode.EXCEEDS_SIZE_LIMIT);
 		}
-		// This file will be downloaded to this temp.
-		File downloadTemp = downloadToTempFile(s3Handle);
-		try {
-			// The entry name is the path plus file name.
-			String zipEntryName = zipEntryNameProvider.createZipEntryName(s3Handle.getFileName(),
-					Long.parseLong(s3Handle.getId()));
-			// write the file to the zip.
-			addFileToZip(zipOut, downloadTemp, zipEntryName);
-			return zipEntryName;
-		} finally {
-			downloadTemp.delete();
+		return s3Handle;
+	}
+
+	/**
+	 * Build the zip without local files: the zip is uploaded to S3 while it is
+	 * written and the content of the next files is downloaded concurrently, see
+	 * {@link PackageFilePrefetcher}.
+	 * 
+	 * @param user
+	 * @param request
+	 * @param skipFileSizeCheck
+	 * @return
+	 */
+	BulkFileDownloadResponse buildZipStreaming(UserInfo user, BulkFileDownloadRequest request, boolean skipFileSizeCheck) {
+		long startMs = clock.currentTimeMillis();
+		String zipFileName = request.getZipFileName() == null ? DEFAULT_ZIP_FILE_NAME : request.getZipFileName();
+		List<FileDownloadSummary> results = new ArrayList<>();
+		Optional<S3FileHandle> resultHandle = fileHandleManager.uploadStream(new LocalFileUploadRequest().withFileName(zipFileName)
+				.withUserId(user.getId().toString()).withContentType(APPLICATION_ZIP), out -> {
+					results.addAll(streamFilesToZip(user, request, out, skipFileSizeCheck));
+					// must have at least one file.
+					return results.stream().anyMatch(f -> FileDownloadStatus.SUCCESS.equals(f.getStatus()));
+				});
+		String resultFileHandleId = resultHandle.map(S3FileHandle::getId).orElse(null);
+		resultHandle.ifPresent(handle -> publishPackageMetrics(handle, results, clock.currentTimeMillis() - startMs));
+
+		collectDownloadStatistics(user, resultFileHandleId, results);
+
+		BulkFileDownloadResponse response = new BulkFileDownloadResponse();
+		response.setFileSummary(results);
+		response.setUserId("" + user.getId());
+		response.setResultZipFileHandleId(resultFileHandleId);
+		return response;
+	}
+
+	/**
+	 * Write the requested files to a zip written to the given stream. The files
+	 * are written in the order of the request while the following files are
+	 * downloaded in the background.
+	 * <p>
+	 * A file that cannot be validated or opened is reported as a failure in the
+	 * summary. Once the entry of a file is started in the zip the failure cannot
+	 * be reported for that file only (the zip would contain a truncated entry),
+	 * so a failure while the content is copied aborts the whole package.
+	 * 
+	 * @param user
+	 * @param request
+	 * @param out
+	 * @param skipFileSizeCheck
+	 * @return
+	 * @throws IOException If the content of a file could not be fully written
+	 *                     to the zip
+	 */
+	List<FileDownloadSummary> streamFilesToZip(UserInfo user, BulkFileDownloadRequest request, OutputStream out, boolean skipFileSizeCheck)
+			throws IOException {
+		List<FileHandleAssociationAuthorizationStatus> authResults = fileHandleAuthorizationManager
+				.canDownLoadFile(user, request.getRequestedFiles());
+		ZipEntryNameProvider zipEntryNameProvider = createZipEntryNameProvider(request.getZipFileFormat());
+		Set<String> fileIdsInZip = new HashSet<>(authResults.size());
+		Map<String, S3FileHandle> fileHandles = new HashMap<>(authResults.size());
+		Function<String, S3FileHandle> fileHandleProvider = id -> fileHandles.computeIfAbsent(id, this::getS3FileHandle);
+		List<FileDownloadSummary> fileSummaries = new ArrayList<>(authResults.size());
+		CountingOutputStream countingOut = new CountingOutputStream(out);
+		// The zip stream is not closed as this would close the upload
+		ZipOutputStream zipOut = new ZipOutputStream(countingOut);
+		try (PackageFilePrefetcher prefetcher = createPackageFilePrefetcher()) {
+			int nextToPrefetch = 0;
+			for (int i = 0; i < authResults.size(); i++) {
+				nextToPrefetch = prefetchFiles(prefetcher, authResults, nextToPrefetch, i + MAX_PREFETCH_FILES, fileHandleProvider,
+						skipFileSizeCheck);
+				FileHandleAssociationAuthorizationStatus fhas = authResults.get(i);
+				String fileHandleId = fhas.getAssociation().getFileHandleId();
+				FileDownloadSummary summary = new FileDownloadSummary();
+				summary.setFileHandleId(fileHandleId);
+				summary.setAssociateObjectId(fhas.getAssociation().getAssociateObjectId());
+				summary.setAssociateObjectType(fhas.getAssociation().getAssociateObjectType());
+				fileSummaries.add(summary);
+				String zipEntryName = null;
+				boolean entryStarted = false;
+				try {
+					S3FileHandle s3Handle = validateFileForZip(countingOut.getByteCount(), fhas, fileIdsInZip, skipFileSizeCheck,
+							fileHandleProvider);
+					zipEntryName = zipEntryNameProvider.createZipEntryName(s3Handle.getFileName(),
+							Long.parseLong(s3Handle.getId()));
+					try (InputStream in = prefetcher.openContent(s3Handle)) {
+						entryStarted = true;
+						zipOut.putNextEntry(new ZipEntry(zipEntryName));
+						IOUtils.copy(in, zipOut);
+						zipOut.closeEntry();
+						entryStarted = false;
+					}
+					fileIdsInZip.add(fileHandleId);
+					summary.setStatus(FileDownloadStatus.SUCCESS);
+					summary.setZipEntryName(zipEntryName);
+				} catch (BulkFileException e) {
+					// known error conditions.
+					summary.setStatus(FileDownloadStatus.FAILURE);
+					summary.setFailureMessage(e.getMessage());
+					summary.setFailureCode(e.getFailureCode());
+				} catch (NotFoundException e) {
+					// file did not exist
+					summary.setStatus(FileDownloadStatus.FAILURE);
+					summary.setFailureMessage(e.getMessage());
+					summary.setFailureCode(FileDownloadCode.NOT_FOUND);
+				} catch (Exception e) {
+					if (entryStarted) {
+						// The zip already contains part of the entry
+						throw new IOException("Failed to write " + zipEntryName + " to the package: " + e.getMessage(), e);
+					}
+					// all unknown errors.
+					summary.setStatus(FileDownloadStatus.FAILURE);
+					summary.setFailureMessage(e.getMessage());
+					summary.setFailureCode(FileDownloadCode.UNKNOWN_ERROR);
+					log.error("Failed on: " + fhas.getAssociation(), e);
+				}
+			}
 		}
+		zipOut.finish();
+		return fileSummaries;
+	}
+
+	/**
+	 * Offer the files from the given index up to the given limit to the
+	 * prefetcher, until it is full.
+	 * 
+	 * @return The index of the next file to offer
+	 */
+	int prefetchFiles(PackageFilePrefetcher prefetcher, List<FileHandleAssociationAuthorizationStatus> authResults, int fromIndex,
+			int toIndex, Function<String, S3FileHandle> fileHandleProvider, boolean skipFileSizeCheck) {
+		int index = fromIndex;
+		for (; index < Math.min(toIndex, authResults.size()); index++) {
+			FileHandleAssociationAuthorizationStatus fhas = authResults.get(index);
+			if (!fhas.getStatus().isAuthorized()) {
+				continue;
+			}
+			S3FileHandle s3Handle;
+			try {
+				s3Handle = fileHandleProvider.apply(fhas.getAssociation().getFileHandleId());
+			} catch (RuntimeException e) {
+				// The failure is reported when the file is written
+				continue;
+			}
+			if (!skipFileSizeCheck && s3Handle.getContentSize() != null
+					&& s3Handle.getContentSize() > FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES) {
+				continue;
+			}
+			if (!prefetcher.prefetch(s3Handle)) {
+				break;
+			}
+		}
+		return index;
+	}
+
+	PackageFilePrefetcher createPackageFilePrefetcher() {
+		return new PackageFilePrefetcher(s3client, threadPool, MAX_PREFETCH_FILES, MAX_PREFETCH_BYTES, MAX_PREFETCH_FILE_BYTES);
+	}
+
+	void publishPackageMetrics(S3FileHandle resultHandle, List<FileDownloadSummary> results, long elapsedMs) {
+		Date now = clock.now();
+		String namespace = METRIC_NAMESPACE_PREFIX + configuration.getStackInstance();
+		long fileCount = results.stream().filter(f -> FileDownloadStatus.SUCCESS.equals(f.getStatus())).count();
+		long size = resultHandle.getContentSize();
+		// Avoid a division by zero for very fast packages
+		double throughput = size * 1000.0 / Math.max(1L, elapsedMs);
+		consumer.addProfileData(Arrays.asList(
+				createMetric(namespace, METRIC_PACKAGE_SIZE, size, StandardUnit.Bytes, now),
+				createMetric(namespace, METRIC_PACKAGE_FILE_COUNT, fileCount, StandardUnit.Count, now),
+				createMetric(namespace, METRIC_PACKAGE_BUILD_TIME, elapsedMs, StandardUnit.Milliseconds, now),
+				createMetric(namespace, METRIC_PACKAGE_THROUGHPUT, throughput, StandardUnit.BytesSecond, now)));
+	}
+
+	private static ProfileData createMetric(String namespace, String name, double value, StandardUnit unit, Date timestamp) {
+		return new ProfileData()
+				.setNamespace(namespace)
+				.setName(name)
+				.setValue(value)
+				.setUnit(unit.name())
+				.setTimestamp(timestamp);
 	}
 
 	void collectDownloadStatistics(UserInfo userInfo, String resultFileHandleId, List<FileDownloadSummary> results) {
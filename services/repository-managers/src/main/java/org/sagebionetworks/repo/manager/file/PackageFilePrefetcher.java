@@ -0,0 +1,139 @@
+package org.sagebionetworks.repo.manager.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+
+/**
+ * Downloads the files of a bulk download package into memory on a thread pool,
+ * ahead of the file that is being written to the zip.
+ * <p>
+ * The memory used is bounded by the content size of the files: at most
+ * maxPrefetchCount files are downloaded ahead and they do not exceed
+ * maxPrefetchBytes in total. Files larger than maxFileBytes are never
+ * downloaded ahead, their content is streamed from S3 when they are written.
+ * <p>
+ * This class is not thread safe, it is meant to be used by the thread that
+ * writes the zip.
+ */
+class PackageFilePrefetcher implements AutoCloseable {
+
+	private final SynapseS3Client s3Client;
+	private final ExecutorService threadPool;
+	private final int maxPrefetchCount;
+	private final long maxPrefetchBytes;
+	private final long maxFileBytes;
+
+	private final Map<String, PrefetchedFile> prefetched = new HashMap<>();
+	private long prefetchedBytes;
+
+	PackageFilePrefetcher(SynapseS3Client s3Client, ExecutorService threadPool, int maxPrefetchCount, long maxPrefetchBytes, long maxFileBytes) {
+		this.s3Client = s3Client;
+		this.threadPool = threadPool;
+		this.maxPrefetchCount = maxPrefetchCount;
+		this.maxPrefetchBytes = maxPrefetchBytes;
+		this.maxFileBytes = maxFileBytes;
+	}
+
+	/**
+	 * Start downloading the given file in the background if it is small enough.
+	 *
+	 * @param fileHandle
+	 * @return False if the file could not be downloaded because the limits are
+	 *         reached, the caller should offer it again once some content was
+	 *         consumed. True otherwise, including when the file is too large to
+	 *         be downloaded ahead.
+	 */
+	boolean prefetch(S3FileHandle fileHandle) {
+		Long size = fileHandle.getContentSize();
+		if (prefetched.containsKey(fileHandle.getId()) || size == null || size > maxFileBytes) {
+			return true;
+		}
+		if (prefetched.size() >= maxPrefetchCount || prefetchedBytes + size > maxPrefetchBytes) {
+			return false;
+		}
+		Future<byte[]> content = threadPool.submit(() -> download(fileHandle));
+		prefetched.put(fileHandle.getId(), new PrefetchedFile(size, content));
+		prefetchedBytes += size;
+		return true;
+	}
+
+	/**
+	 * Open the content of the given file, either from the data downloaded ahead or
+	 * directly from S3.
+	 *
+	 * @param fileHandle
+	 * @return
+	 * @throws IOException
+	 */
+	InputStream openContent(S3FileHandle fileHandle) throws IOException {
+		PrefetchedFile file = prefetched.remove(fileHandle.getId());
+		if (file == null) {
+			return s3Client.getObject(new GetObjectRequest(fileHandle.getBucketName(), fileHandle.getKey())).getObjectContent();
+		}
+		prefetchedBytes -= file.size;
+		try {
+			return new ByteArrayInputStream(file.content.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * @return The total content size of the files that are downloaded ahead and
+	 *         not consumed yet
+	 */
+	long getPrefetchedBytes() {
+		return prefetchedBytes;
+	}
+
+	/**
+	 * Cancel the downloads of the files that were not consumed.
+	 */
+	@Override
+	public void close() {
+		prefetched.values().forEach(file -> file.content.cancel(true));
+		prefetched.clear();
+		prefetchedBytes = 0;
+	}
+
+	private byte[] download(S3FileHandle fileHandle) throws IOException {
+		try (S3Object object = s3Client.getObject(new GetObjectRequest(fileHandle.getBucketName(), fileHandle.getKey()));
+				InputStream in = object.getObjectContent()) {
+			return IOUtils.toByteArray(in);
+		}
+	}
+
+	private static final class PrefetchedFile {
+
+		private final long size;
+		private final Future<byte[]> content;
+
+		private PrefetchedFile(long size, Future<byte[]> content) {
+			this.size = size;
+			this.content = content;
+		}
+	}
+
+}
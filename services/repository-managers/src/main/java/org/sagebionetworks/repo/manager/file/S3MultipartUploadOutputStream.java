@@ -0,0 +1,164 @@
+package org.sagebionetworks.repo.manager.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.util.ValidateArgument;
+
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+/**
+ * An OutputStream that uploads the written bytes to S3 as the parts of a
+ * multi-part upload, so that data of unknown size can be uploaded without a
+ * local copy. At most one part is held in memory.
+ * <p>
+ * The upload is started when the first part is full and must be finished with
+ * {@link #complete()}. Closing the stream before it is completed aborts the
+ * upload.
+ *
+ */
+public class S3MultipartUploadOutputStream extends OutputStream {
+
+	/**
+	 * The minimum size of all the parts but the last one allowed by S3.
+	 */
+	public static final int MIN_PART_SIZE_BYTES = 5 * 1024 * 1024;
+
+	private final SynapseS3Client s3Client;
+	private final InitiateMultipartUploadRequest initiateRequest;
+	private final byte[] buffer;
+	private final MessageDigest md5Digest;
+	private final List<PartETag> partETags;
+
+	private int bufferCount;
+	private long contentSize;
+	private String uploadId;
+	private String contentMd5;
+	private boolean finished;
+
+	public S3MultipartUploadOutputStream(SynapseS3Client s3Client, InitiateMultipartUploadRequest initiateRequest, int partSizeBytes) {
+		ValidateArgument.required(s3Client, "s3Client");
+		ValidateArgument.required(initiateRequest, "initiateRequest");
+		ValidateArgument.requirement(partSizeBytes >= MIN_PART_SIZE_BYTES, "The part size must be at least " + MIN_PART_SIZE_BYTES + " bytes");
+		this.s3Client = s3Client;
+		this.initiateRequest = initiateRequest;
+		this.buffer = new byte[partSizeBytes];
+		this.partETags = new ArrayList<>();
+		try {
+			this.md5Digest = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		ensureOpen();
+		md5Digest.update(bytes, offset, length);
+		contentSize += length;
+		while (length > 0) {
+			int toCopy = Math.min(length, buffer.length - bufferCount);
+			System.arraycopy(bytes, offset, buffer, bufferCount, toCopy);
+			bufferCount += toCopy;
+			offset += toCopy;
+			length -= toCopy;
+			if (bufferCount == buffer.length) {
+				uploadPart();
+			}
+		}
+	}
+
+	/**
+	 * Upload the remaining bytes as the last part and complete the upload.
+	 *
+	 * @throws IOException
+	 */
+	public void complete() throws IOException {
+		ensureOpen();
+		// The last part can be smaller than the minimum, there is always at least one part
+		if (bufferCount > 0 || partETags.isEmpty()) {
+			uploadPart();
+		}
+		s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(initiateRequest.getBucketName(),
+				initiateRequest.getKey(), uploadId, partETags));
+		contentMd5 = Hex.encodeHexString(md5Digest.digest());
+		finished = true;
+	}
+
+	/**
+	 * Abort the upload, the parts that were already uploaded are discarded. This
+	 * has no effect if the upload is already finished.
+	 */
+	public void abort() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		if (uploadId != null) {
+			s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(initiateRequest.getBucketName(),
+					initiateRequest.getKey(), uploadId));
+		}
+	}
+
+	/**
+	 * Aborts the upload if it was not completed.
+	 */
+	@Override
+	public void close() {
+		abort();
+	}
+
+	/**
+	 * @return The number of bytes written to the stream
+	 */
+	public long getContentSize() {
+		return contentSize;
+	}
+
+	/**
+	 * @return The hex encoded MD5 of the bytes written to the stream, only
+	 *         available once the upload is complete
+	 */
+	public String getContentMd5() {
+		ValidateArgument.requirement(contentMd5 != null, "The upload is not complete");
+		return contentMd5;
+	}
+
+	private void uploadPart() {
+		if (uploadId == null) {
+			uploadId = s3Client.initiateMultipartUpload(initiateRequest).getUploadId();
+		}
+		UploadPartRequest request = new UploadPartRequest()
+				.withBucketName(initiateRequest.getBucketName())
+				.withKey(initiateRequest.getKey())
+				.withUploadId(uploadId)
+				.withPartNumber(partETags.size() + 1)
+				.withInputStream(new ByteArrayInputStream(buffer, 0, bufferCount))
+				.withPartSize(bufferCount);
+		partETags.add(s3Client.uploadPart(request).getPartETag());
+		bufferCount = 0;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (finished) {
+			throw new IOException("The upload is already finished");
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package org.sagebionetworks.repo.manager.file;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the data of an upload to a stream, see
+ * {@link FileHandleManager#uploadStream(LocalFileUploadRequest, UploadStreamWriter)}
+ *
+ */
+@FunctionalInterface
+public interface UploadStreamWriter {
+
+	/**
+	 * Write the data to upload to the given stream. The stream must not be closed.
+	 * 
+	 * @param out
+	 * @return False if the upload should be discarded
+	 * @throws IOException
+	 */
+	boolean write(OutputStream out) throws IOException;
+
+}
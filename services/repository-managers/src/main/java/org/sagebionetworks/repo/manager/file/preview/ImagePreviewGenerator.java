@@ -5,9 +5,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
@@ -34,9 +37,25 @@ public class ImagePreviewGenerator implements PreviewGenerator {
 	public static final String IMAGE_PNG = "image/png";
 
 	/**
-	 * The maximum image size is 1001 x 1001 pixels.
+	 * The maximum image size is 1001 x 1001 pixels for
+	 * {@link #loadImageWithSizeCheck(InputStream, long)}.
 	 */
 	public static final long MAX_IMAGE_SIZE = 1000 * 1000;
+	/**
+	 * The maximum size of an image for which a preview is generated. The image is
+	 * decoded at a reduced resolution, so this only bounds the decoding time.
+	 */
+	public static final long MAX_SOURCE_IMAGE_SIZE = 16000L * 16000L;
+	/**
+	 * The decoded image is at least this many times larger than the preview in
+	 * each dimension, so that the final resize can smooth the subsampled pixels.
+	 */
+	public static final int OVERSAMPLING = 2;
+	/**
+	 * Memory used by each decoded pixel, for the decoded image and the copy made
+	 * when it is resized.
+	 */
+	static final long BYTES_PER_DECODED_PIXEL = 4 * 2;
 	/**
 	 * The supported content types for this generator, and the memory multipler that
 	 * should be used.
@@ -57,11 +76,12 @@ public class ImagePreviewGenerator implements PreviewGenerator {
 
 	@Override
 	public PreviewOutputMetadata generatePreview(InputStream from, OutputStream to) throws IOException {
-		// Determine the size of the image
-		// First load the image
+		int maxWidthPixels = StackConfigurationSingleton.singleton().getMaximumPreviewWidthPixels();
+		int maxHeightPixels = StackConfigurationSingleton.singleton().getMaximumPreviewHeightPixels();
+		// Load the image at a resolution close to the preview
 		BufferedImage image;
 		try {
-			image = loadImageWithSizeCheck(from, MAX_IMAGE_SIZE);
+			image = loadSubsampledImage(from, maxWidthPixels, maxHeightPixels, MAX_SOURCE_IMAGE_SIZE);
 		}catch (ArrayIndexOutOfBoundsException e){
 			throw new PreviewGenerationNotSupportedException("Improperly formatted image", e);
 		}
@@ -70,8 +90,6 @@ public class ImagePreviewGenerator implements PreviewGenerator {
 			throw new PreviewGenerationNotSupportedException("The passed input stream was not an image");
 		}
 		// Let image scalar do the heavy lifting!
-		int maxWidthPixels = StackConfigurationSingleton.singleton().getMaximumPreviewWidthPixels();
-		int maxHeightPixels = StackConfigurationSingleton.singleton().getMaximumPreviewHeightPixels();
 		// only resize if original image is bigger than our preview max size
 		int height = image.getHeight();
 		int width = image.getWidth();
@@ -94,7 +112,8 @@ public class ImagePreviewGenerator implements PreviewGenerator {
 	}
 
 	/**
-	 * Calculate the memory requirements of the passed list of files.
+	 * Calculate the memory requirements of the passed list of files. When no file
+	 * is passed, images of representative sizes are generated and measured.
 	 * 
 	 * @param args
 	 * @throws IOException
@@ -104,17 +123,131 @@ public class ImagePreviewGenerator implements PreviewGenerator {
 	 */
 	public static void main(String[] args)
 			throws IOException, InterruptedException, InstantiationException, IllegalAccessException {
-		for (String filePath : args) {
-			File toRead = new File(filePath);
+		List<File> toMeasure = new ArrayList<>();
+		if (args.length == 0) {
+			for (int[] size : BENCHMARK_IMAGE_SIZES) {
+				toMeasure.add(createBenchmarkImage(size[0], size[1], "png"));
+				toMeasure.add(createBenchmarkImage(size[0], size[1], "jpg"));
+			}
+		} else {
+			for (String filePath : args) {
+				toMeasure.add(new File(filePath));
+			}
+		}
+		for (File toRead : toMeasure) {
+			long start = System.currentTimeMillis();
 			PreviewGeneratorUtils.calculateMemoryRequirments(toRead, ImagePreviewGenerator.class);
+			System.out.println("\tElapsed: " + (System.currentTimeMillis() - start) + " ms");
+		}
+		if (args.length == 0) {
+			toMeasure.forEach(File::delete);
 		}
 	}
 
+	private static final int[][] BENCHMARK_IMAGE_SIZES = { { 1000, 1000 }, { 4000, 3000 }, { 8000, 6000 } };
+
+	/**
+	 * Write an image with a gradient and noise of the given size to a temporary
+	 * file.
+	 */
+	private static File createBenchmarkImage(int width, int height, String format) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+		Random random = new Random(width * 31 + height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int noise = random.nextInt(32);
+				image.setRGB(x, y, (((x * 255 / width) ^ noise) << 16) | (((y * 255 / height) ^ noise) << 8) | noise);
+			}
+		}
+		File file = File.createTempFile("ImagePreviewBenchmark" + width + "x" + height, "." + format);
+		ImageIO.write(image, format, file);
+		return file;
+	}
+
 	@Override
 	public long calculateNeededMemoryBytesForPreview(String mimeType, long contentSize) {
 		double multiplier = SUPPORTED_CONTENT_TYPES.get(mimeType);
 		long memoryNeededBytes = (long) Math.ceil((((double) contentSize) * multiplier));
-		return memoryNeededBytes;
+		// Large images are decoded at a reduced resolution, so the memory used is bounded by the preview size
+		int maxWidthPixels = StackConfigurationSingleton.singleton().getMaximumPreviewWidthPixels();
+		int maxHeightPixels = StackConfigurationSingleton.singleton().getMaximumPreviewHeightPixels();
+		return Math.min(memoryNeededBytes, calculateMaxDecodeMemoryBytes(maxWidthPixels, maxHeightPixels));
+	}
+
+	/**
+	 * The memory needed to decode and resize an image loaded with
+	 * {@link #loadSubsampledImage(InputStream, int, int, long)}. With the
+	 * subsampling, the decoded image is less than 2 * {@value #OVERSAMPLING} times
+	 * the preview size in each dimension.
+	 * 
+	 * @param maxWidth
+	 * @param maxHeight
+	 * @return
+	 */
+	static long calculateMaxDecodeMemoryBytes(int maxWidth, int maxHeight) {
+		long maxDecodedPixels = (2L * OVERSAMPLING * maxWidth) * (2L * OVERSAMPLING * maxHeight);
+		return maxDecodedPixels * BYTES_PER_DECODED_PIXEL;
+	}
+
+	/**
+	 * The source subsampling to use to decode an image of the given size for a
+	 * preview of the given maximum size. This is the largest factor that keeps the
+	 * decoded image at least {@value #OVERSAMPLING} times larger than the preview
+	 * in each dimension.
+	 * 
+	 * @param width
+	 * @param height
+	 * @param maxWidth
+	 * @param maxHeight
+	 * @return The subsampling factor, 1 if the image must be fully decoded
+	 */
+	static int calculateSubsampling(long width, long height, int maxWidth, int maxHeight) {
+		// The preview is scaled to fit the most constrained dimension
+		double downscale = Math.max(((double) width) / maxWidth, ((double) height) / maxHeight);
+		return (int) Math.max(1L, (long) Math.floor(downscale / OVERSAMPLING));
+	}
+
+	/**
+	 * Load an image from the given input stream at a resolution close to the given
+	 * preview size. Only the header of the image is read to get its size, the
+	 * image is then decoded with a source subsampling, so only one of every N
+	 * pixels in each dimension is kept in memory.
+	 * 
+	 * @param from
+	 * @param maxWidth      The maximum width of the preview
+	 * @param maxHeight     The maximum height of the preview
+	 * @param maxSourceSize The maximum size (width*height) of the source image.
+	 * @return The decoded image, null if the stream is not an image
+	 * @throws PreviewGenerationNotSupportedException if the given image size
+	 *                                                (width*height) is larger than
+	 *                                                the provided maxSourceSize.
+	 */
+	public static BufferedImage loadSubsampledImage(InputStream from, int maxWidth, int maxHeight, long maxSourceSize) throws IOException {
+		try (ImageInputStream stream = ImageIO.createImageInputStream(from)) {
+			if (stream == null) {
+				return null;
+			}
+			Iterator<ImageReader> iter = ImageIO.getImageReaders(stream);
+			if (!iter.hasNext()) {
+				return null;
+			}
+			ImageReader reader = iter.next();
+			try {
+				// Seeking forward only lets the stream discard the data that was decoded
+				reader.setInput(stream, true, true);
+				long width = reader.getWidth(0);
+				long height = reader.getHeight(0);
+				if (width * height > maxSourceSize) {
+					throw new PreviewGenerationNotSupportedException(IMAGE_EXCEEDS_THE_MAXIMUM_SIZE);
+				}
+				ImageReadParam param = reader.getDefaultReadParam();
+				int subsampling = calculateSubsampling(width, height, maxWidth, maxHeight);
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				return reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		}
 	}
 
 	/**
@@ -1,16 +1,28 @@
 package org.sagebionetworks.repo.manager.message;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.MetricStats;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeMessages;
@@ -21,19 +33,32 @@ import org.sagebionetworks.repo.transactions.NewWriteTransaction;
 import org.sagebionetworks.schema.adapter.JSONEntity;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.Clock;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.BatchResultErrorEntry;
 import com.amazonaws.services.sns.model.CreateTopicRequest;
 import com.amazonaws.services.sns.model.CreateTopicResult;
+import com.amazonaws.services.sns.model.PublishBatchRequest;
+import com.amazonaws.services.sns.model.PublishBatchRequestEntry;
+import com.amazonaws.services.sns.model.PublishBatchResult;
 import com.amazonaws.services.sns.model.PublishRequest;
 import com.google.common.collect.Lists;
 
 /**
  * The basic implementation of the RepositoryMessagePublisher.  This implementation will publish all messages to an AWS topic
  * where external subscribers can receive notification of changes to the repository.
+ * <p>
+ * The queued change messages are grouped by topic and sent with SNS PublishBatch requests of up to
+ * {@value #MAX_PUBLISH_BATCH_SIZE} messages, the topics are published in parallel. Only the messages that SNS accepted are
+ * registered as sent (in a new transaction, after the publish returns), the other messages are left unsent so that they are
+ * sent again by the change sent message synchronization. The publish lag (the time between the change and its publication)
+ * and the number of messages that could not be published are sent to CloudWatch for each topic.
  * 
  * @author John
  *
@@ -43,22 +68,48 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 		
 	static private Log log = LogFactory.getLog(RepositoryMessagePublisherImpl.class);
 
+	/**
+	 * The maximum number of entries in a single SNS PublishBatch request.
+	 */
+	public static final int MAX_PUBLISH_BATCH_SIZE = 10;
+	/**
+	 * The number of times a batch entry that failed is sent.
+	 */
+	public static final int MAX_PUBLISH_ATTEMPTS = 3;
+
+	public static final String METRIC_PUBLISH_LAG = "publishLag";
+	public static final String METRIC_PUBLISH_FAILURES = "publishFailures";
+	public static final String DIMENSION_OBJECT_TYPE = "objectType";
+
 	private TransactionalMessenger transactionalMessanger;
 
+	private TransactionTemplate readCommittedRequiresNew;
+
 	private AmazonSNS awsSNSClient;
 
 	private StackConfiguration stackConfiguration;
 
-	// Maps each object type to its topic
-	private Map<ObjectType, TopicInfo> typeToTopicMap = new HashMap<ObjectType, TopicInfo>();;
+	private ExecutorService threadPool;
+
+	private Consumer consumer;
+
+	private Clock clock;
+
+	// Maps each object type to its topic, the topics are published in parallel
+	private Map<ObjectType, TopicInfo> typeToTopicMap = new ConcurrentHashMap<ObjectType, TopicInfo>();
 
 	private ConcurrentLinkedQueue<Message> messageQueue = new ConcurrentLinkedQueue<Message>();
 
 	@Autowired
-	public RepositoryMessagePublisherImpl(TransactionalMessenger transactionalMessanger, AmazonSNS awsSNSClient, StackConfiguration stackConfiguration) {
+	public RepositoryMessagePublisherImpl(TransactionalMessenger transactionalMessanger, TransactionTemplate readCommittedRequiresNew,
+			AmazonSNS awsSNSClient, StackConfiguration stackConfiguration, ExecutorService cachedThreadPool, Consumer consumer, Clock clock) {
 		this.transactionalMessanger = transactionalMessanger;
+		this.readCommittedRequiresNew = readCommittedRequiresNew;
 		this.awsSNSClient = awsSNSClient;
 		this.stackConfiguration = stackConfiguration;
+		this.threadPool = cachedThreadPool;
+		this.consumer = consumer;
+		this.clock = clock;
 	}
 	
 	/**
@@ -128,20 +179,138 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 			}
 			return;
 		}
-		// Publish each message to the topic
+		// Group the messages by topic
+		Map<ObjectType, List<ChangeMessage>> messagesByType = new LinkedHashMap<>();
 		for (Message queueItem : currentQueue) {
+			if (queueItem instanceof ChangeMessage) {
+				ChangeMessage message = (ChangeMessage) queueItem;
+				messagesByType.computeIfAbsent(message.getObjectType(), (ObjectType type) -> new ArrayList<>()).add(message);
+			} else {
+				// If one messages fails, we must send the rest.
+				log.error("Failed to publish message.", new IllegalArgumentException("Unknown message type " + queueItem.getClass().getName()));
+			}
+		}
+		// Each topic is published in parallel
+		List<Future<List<ProfileData>>> futures = new ArrayList<>(messagesByType.size());
+		messagesByType.forEach((type, messages) -> {
+			Callable<List<ProfileData>> publishTask = () -> publishChangeMessages(type, messages);
+			futures.add(threadPool.submit(publishTask));
+		});
+		for (Future<List<ProfileData>> future : futures) {
 			try {
-				if (queueItem instanceof ChangeMessage) {
-					ChangeMessage message = (ChangeMessage) queueItem;
-					publishToTopic(message);
-				} else {
-					throw new IllegalArgumentException("Unknown message type " + queueItem.getClass().getName());
+				consumer.addProfileData(future.get());
+			} catch (ExecutionException e) {
+				log.error("Failed to publish messages.", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Publish the given change messages to the topic of the given type. The messages are published in batches of
+	 * {@value #MAX_PUBLISH_BATCH_SIZE}, each message is published as a {@link ChangeMessages} of a single message. Once a batch
+	 * is published, the messages that were accepted are registered as sent in a new write transaction. A message that could
+	 * not be published (or registered) is left unsent and will be sent again by the change sent message synchronization.
+	 * 
+	 * @param type
+	 * @param messages
+	 * @return The publish metrics of the topic
+	 */
+	List<ProfileData> publishChangeMessages(ObjectType type, List<ChangeMessage> messages) {
+		String topicArn = getTopicInfoLazy(type).getArn();
+		List<ChangeMessage> published = new ArrayList<>(messages.size());
+		long failedCount = 0;
+		for (List<ChangeMessage> batch : Lists.partition(messages, MAX_PUBLISH_BATCH_SIZE)) {
+			try {
+				List<ChangeMessage> failed = publishBatch(topicArn, batch);
+				failedCount += failed.size();
+				List<ChangeMessage> sent = new ArrayList<>(batch);
+				sent.removeAll(failed);
+				if (!sent.isEmpty()) {
+					// Write the messages that were published to sent table.
+					readCommittedRequiresNew.execute(status -> {
+						transactionalMessanger.registerMessagesSent(type, sent);
+						return null;
+					});
 				}
+				published.addAll(sent);
 			} catch (Throwable e) {
-				// If one messages fails, we must send the rest.
-				log.error("Failed to publish message.", e);
+				// If one batch fails, we must send the rest.
+				log.error("Failed to publish messages.", e);
+				failedCount += batch.size();
 			}
 		}
+		return createPublishMetrics(type, published, failedCount);
+	}
+
+	/**
+	 * Send the given messages in a single PublishBatch request. The entries that fail for a reason other than the
+	 * request itself are sent again, up to {@value #MAX_PUBLISH_ATTEMPTS} times.
+	 * 
+	 * @param topicArn
+	 * @param batch
+	 * @return The messages that could not be published
+	 */
+	List<ChangeMessage> publishBatch(String topicArn, List<ChangeMessage> batch) {
+		// The entry ids are the index of the message in the batch
+		Map<String, PublishBatchRequestEntry> pending = new LinkedHashMap<>();
+		for (int i = 0; i < batch.size(); i++) {
+			ChangeMessages messages = new ChangeMessages();
+			messages.setList(Collections.singletonList(batch.get(i)));
+			String id = String.valueOf(i);
+			pending.put(id, new PublishBatchRequestEntry().withId(id).withMessage(toJSON(messages)));
+		}
+		List<ChangeMessage> failed = new ArrayList<>();
+		for (int attempt = 1; !pending.isEmpty(); attempt++) {
+			PublishBatchResult result = awsSNSClient.publishBatch(new PublishBatchRequest()
+					.withTopicArn(topicArn)
+					.withPublishBatchRequestEntries(pending.values()));
+			Map<String, PublishBatchRequestEntry> retry = new LinkedHashMap<>();
+			for (BatchResultErrorEntry error : result.getFailed()) {
+				boolean canRetry = !Boolean.TRUE.equals(error.getSenderFault()) && attempt < MAX_PUBLISH_ATTEMPTS;
+				if (canRetry) {
+					retry.put(error.getId(), pending.get(error.getId()));
+				} else {
+					log.error("Failed to publish message to " + topicArn + ": " + error.getCode() + " " + error.getMessage());
+					failed.add(batch.get(Integer.parseInt(error.getId())));
+				}
+			}
+			pending = retry;
+		}
+		return failed;
+	}
+
+	private List<ProfileData> createPublishMetrics(ObjectType type, List<ChangeMessage> published, long failedCount) {
+		Date now = clock.now();
+		String namespace = "Repository-Messages-" + stackConfiguration.getStackInstance();
+		Map<String, String> dimension = Collections.singletonMap(DIMENSION_OBJECT_TYPE, type.name());
+		List<ProfileData> metrics = new ArrayList<>(2);
+		metrics.add(new ProfileData()
+				.setNamespace(namespace)
+				.setName(METRIC_PUBLISH_FAILURES)
+				.setValue(Double.valueOf(failedCount))
+				.setUnit(StandardUnit.Count.name())
+				.setDimension(dimension)
+				.setTimestamp(now));
+		if (!published.isEmpty()) {
+			LongSummaryStatistics lag = published.stream()
+					.mapToLong(message -> Math.max(0, now.getTime() - message.getTimestamp().getTime()))
+					.summaryStatistics();
+			metrics.add(new ProfileData()
+					.setNamespace(namespace)
+					.setName(METRIC_PUBLISH_LAG)
+					.setMetricStats(new MetricStats()
+							.setCount((double) lag.getCount())
+							.setSum((double) lag.getSum())
+							.setMinimum((double) lag.getMin())
+							.setMaximum((double) lag.getMax()))
+					.setUnit(StandardUnit.Milliseconds.name())
+					.setDimension(dimension)
+					.setTimestamp(now));
+		}
+		return metrics;
 	}
 	
 	/**
@@ -217,19 +386,22 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 	}
 
 	private void publish(JSONEntity message, String topicArn) {
-		String json;
-		try {
-			json = EntityFactory.createJSONStringForEntity(message);
-		} catch (JSONObjectAdapterException e) {
-			// should never occur
-			throw new RuntimeException(e);
-		}
+		String json = toJSON(message);
 		if (log.isTraceEnabled()) {
 			log.trace("Publishing a message: " + json);
 		}
 		// Publish the message to the topic.
 		awsSNSClient.publish(new PublishRequest(topicArn, json));
 	}
+
+	private static String toJSON(JSONEntity message) {
+		try {
+			return EntityFactory.createJSONStringForEntity(message);
+		} catch (JSONObjectAdapterException e) {
+			// should never occur
+			throw new RuntimeException(e);
+		}
+	}
 	
 	/**
 	 * Information about a topic.
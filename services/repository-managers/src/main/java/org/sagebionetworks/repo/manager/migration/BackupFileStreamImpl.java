@@ -8,6 +8,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -33,6 +34,8 @@ import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.common.collect.Iterators;
+
 @Service
 public class BackupFileStreamImpl implements BackupFileStream {
 	
@@ -41,7 +44,12 @@ public class BackupFileStreamImpl implements BackupFileStream {
 	private static final String UTF_8 = "UTF-8";
 
 	private static final String DOT = ".";
-	private static final String FILE_NAME_TEMPLATE = "%1$s.%2$d.json";
+	private static final String FILE_NAME_TEMPLATE = "%1$s.%2$d.%3$s";
+	/**
+	 * The format used to write new backup files. Files of any
+	 * {@link MigrationFileType} can be read.
+	 */
+	static final MigrationFileType WRITE_FILE_TYPE = MigrationFileType.NDJSON;
 
 	private final MigrationTypeProvider typeProvider;
 	private final Map<MigratableDatabaseObject<?, ?>, MigratableTableTranslation<?,?>> translatorCache;
@@ -68,7 +76,8 @@ public class BackupFileStreamImpl implements BackupFileStream {
 
 	/**
 	 * This Iterator will read one file at a time from the provided zip file. Note:
-	 * All data for any single file must fit in memory.
+	 * {@link MigrationFileType#NDJSON} files are read one object at a time, all
+	 * data for any single file of the other types must fit in memory.
 	 *
 	 */
 	private class InputStreamIterator
@@ -94,7 +103,7 @@ public class BackupFileStreamImpl implements BackupFileStream {
 				}
 			}
 			// read the next file from the zip.
-			this.currentFile = readBatchFromZip(this.zipInputStream, this.backupAliasType).iterator();
+			this.currentFile = readNextFileFromZip(this.zipInputStream, this.backupAliasType);
 			// The current file will be empty at the end of the stream.
 			return this.currentFile.hasNext();
 		}
@@ -135,15 +144,28 @@ public class BackupFileStreamImpl implements BackupFileStream {
 	}
 
 	/**
-	 * Create a FileName for zip entry.
+	 * Create a FileName for zip entry, of the type used to write new files.
 	 * 
 	 * @param type
 	 * @param index
 	 * @return
 	 */
 	public static String createFileName(MigrationType type, int index) {
+		return createFileName(type, index, WRITE_FILE_TYPE);
+	}
+
+	/**
+	 * Create a FileName for zip entry.
+	 * 
+	 * @param type
+	 * @param index
+	 * @param fileType
+	 * @return
+	 */
+	public static String createFileName(MigrationType type, int index, MigrationFileType fileType) {
 		ValidateArgument.required(type, "MigrationType");
-		return String.format(FILE_NAME_TEMPLATE, type.name(), index);
+		ValidateArgument.required(fileType, "MigrationFileType");
+		return String.format(FILE_NAME_TEMPLATE, type.name(), index, fileType.getFileExtension());
 	}
 
 	/*
@@ -236,7 +258,7 @@ public class BackupFileStreamImpl implements BackupFileStream {
 			backupObjects.add(backupObject);
 		}
 
-		typeProvider.writeObjects(backupObjects, writer);
+		typeProvider.writeObjects(backupObjects, writer, WRITE_FILE_TYPE);
 		writer.flush();
 	}
 
@@ -283,6 +305,62 @@ public class BackupFileStreamImpl implements BackupFileStream {
 		}		
 	}
 	
+	/**
+	 * Read the next file that contains data from the ZipInputStream.
+	 * {@link MigrationFileType#NDJSON} files are read lazily, the returned iterator
+	 * must be exhausted before moving to the next entry of the zip.
+	 * 
+	 * @param zipStream
+	 * @param backupAliasType
+	 * @return An empty iterator if no more data could be read from the stream.
+	 */
+	Iterator<MigratableDatabaseObject<?, ?>> readNextFileFromZip(ZipInputStream zipStream, BackupAliasType backupAliasType) {
+		try {
+			ZipEntry entry;
+			while ((entry = zipStream.getNextEntry()) != null) {
+				Iterator<MigratableDatabaseObject<?, ?>> result;
+				if (MigrationFileType.NDJSON == MigrationFileType.fromFileName(entry.getName())) {
+					result = streamFileFromStream(zipStream, entry.getName());
+				} else {
+					result = readFileFromStream(zipStream, backupAliasType, entry.getName())
+							.map(List::iterator).orElse(Collections.emptyIterator());
+				}
+				if (result.hasNext()) {
+					return result;
+				}
+			}
+			// No new data was found in the zip
+			return Collections.emptyIterator();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Lazily read and translate the objects of a single
+	 * {@link MigrationFileType#NDJSON} file.
+	 * 
+	 * @param input
+	 * @param fileName
+	 * @return
+	 */
+	<D extends DatabaseObject<D>, B> Iterator<MigratableDatabaseObject<?, ?>> streamFileFromStream(InputStream input,
+			String fileName) {
+		MigrationType type;
+		try {
+			type = getTypeFromFileName(fileName);
+		} catch (NotFoundException e) {
+			// Migration types that have been removed should be ignored. (See PLFM-5682)
+			log.warn("Migration type cannot be found so it will be ignored: "+e.getMessage());
+			return Collections.emptyIterator();
+		}
+		MigratableDatabaseObject<D, B> mdo = typeProvider.getObjectForType(type);
+		MigratableTableTranslation<D, B> translator = getCachedTranslator(mdo);
+		Iterator<B> backupObjects = typeProvider.streamObjects(mdo.getBackupClass(), input);
+		return Iterators.transform(backupObjects,
+				(B backupObject) -> (MigratableDatabaseObject<?, ?>) translator.createDatabaseObjectFromBackup(backupObject));
+	}
+
 	/**
 	 * Read all of the data from a single file.
 	 * @param input
@@ -8,6 +8,7 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -15,6 +16,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -81,6 +85,16 @@ public class MigrationManagerImpl implements MigrationManager {
 	
 	public static final String BACKUP_KEY_TEMPLATE = "%1$s-%2$s-%3$s-%4$s.zip";
 	public static final String MANIFEST_KEY_TEMPLATE = "%1$s/manifest.json";
+	/**
+	 * The maximum number of partitions of a single batch checksum request that are
+	 * calculated concurrently.
+	 */
+	public static final int MAX_CHECKSUM_PARTITIONS = 4;
+	/**
+	 * A batch checksum request is only partitioned if each partition would cover
+	 * at least this many batches.
+	 */
+	public static final long MIN_BATCHES_PER_CHECKSUM_PARTITION = 10;
 	public static String backupBucket = StackConfigurationSingleton.singleton().getSharedS3BackupBucket();
 	public static String stack = StackConfigurationSingleton.singleton().getStack();
 	public static String instance = StackConfigurationSingleton.singleton().getStackInstance();
@@ -91,6 +105,7 @@ public class MigrationManagerImpl implements MigrationManager {
 	private SynapseS3Client s3Client;
 	private FileProvider fileProvider;
 	private JdbcTemplate jdbcTemplate;
+	private ExecutorService threadPool;
 
 	/**
 	 * The list of migration listeners
@@ -103,7 +118,7 @@ public class MigrationManagerImpl implements MigrationManager {
 	static Set<MigrationType> PRINCIPAL_TYPES;
 	
 	@Autowired
-	public MigrationManagerImpl(MigratableTableDAO migratableTableDao, @Qualifier("migrationJdbcTemplate") JdbcTemplate jdbcTemplate, StackStatusDao stackStatusDao, BackupFileStream backupFileStream, SynapseS3Client s3Client, FileProvider fileProvider, List<? extends MigrationTypeListener> migrationListeners) {
+	public MigrationManagerImpl(MigratableTableDAO migratableTableDao, @Qualifier("migrationJdbcTemplate") JdbcTemplate jdbcTemplate, StackStatusDao stackStatusDao, BackupFileStream backupFileStream, SynapseS3Client s3Client, FileProvider fileProvider, List<? extends MigrationTypeListener> migrationListeners, ExecutorService cachedThreadPool) {
 		this.migratableTableDao = migratableTableDao;
 		this.jdbcTemplate = jdbcTemplate;
 		this.stackStatusDao = stackStatusDao;
@@ -111,6 +126,7 @@ public class MigrationManagerImpl implements MigrationManager {
 		this.s3Client = s3Client;
 		this.fileProvider = fileProvider;
 		this.migrationListeners = migrationListeners;
+		this.threadPool = cachedThreadPool;
 	}
 	
 	/**
@@ -723,15 +739,99 @@ public class MigrationManagerImpl implements MigrationManager {
 		return response;
 	}
 
+	/**
+	 * The checksum of each batch is independent of the other batches, so large
+	 * ranges are partitioned on batch boundaries and the partitions are calculated
+	 * concurrently. Each partition is a separate query, so the number of
+	 * partitions is bounded by {@link #MAX_CHECKSUM_PARTITIONS}.
+	 */
 	@Override
 	public BatchChecksumResponse calculateBatchChecksums(UserInfo user, BatchChecksumRequest request) {
 		ValidateArgument.required(user, "User");
 		validateUser(user);
-		List<RangeChecksum> batches = migratableTableDao.calculateBatchChecksums(request);
+		List<BatchChecksumRequest> partitions = partitionBatchChecksumRequest(request, MAX_CHECKSUM_PARTITIONS);
+		List<RangeChecksum> batches;
+		if (partitions.size() < 2) {
+			batches = migratableTableDao.calculateBatchChecksums(request);
+		} else {
+			List<Future<List<RangeChecksum>>> futures = new ArrayList<>(partitions.size());
+			for (BatchChecksumRequest partition : partitions) {
+				futures.add(threadPool.submit(() -> migratableTableDao.calculateBatchChecksums(partition)));
+			}
+			batches = new ArrayList<>();
+			for (Future<List<RangeChecksum>> future : futures) {
+				batches.addAll(getPartitionResult(future));
+			}
+		}
 		BatchChecksumResponse response = new BatchChecksumResponse();
 		response.setCheksums(batches);
 		response.setMigrationType(request.getMigrationType());
 		return response;
 	}
 
+	/**
+	 * Wait for the checksums of a single partition.
+	 * 
+	 * @param future
+	 * @return
+	 */
+	static List<RangeChecksum> getPartitionResult(Future<List<RangeChecksum>> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Split the given batch checksum request into at most maxPartitions requests
+	 * that together cover the same ID range. The batch of an ID is 'ID DIV
+	 * batchSize' so each partition starts on a batch boundary and no batch is
+	 * split between two partitions. The checksums of the partitions in order are
+	 * the checksums of the original request.
+	 * 
+	 * @param request
+	 * @param maxPartitions
+	 * @return A list with the original request if the range is too small to be
+	 *         partitioned.
+	 */
+	static List<BatchChecksumRequest> partitionBatchChecksumRequest(BatchChecksumRequest request, int maxPartitions) {
+		ValidateArgument.required(request, "request");
+		ValidateArgument.required(request.getMinimumId(), "request.minimumId");
+		ValidateArgument.required(request.getMaximumId(), "request.maximumId");
+		ValidateArgument.required(request.getBatchSize(), "request.batchSize");
+		long batchSize = request.getBatchSize();
+		long minimumId = request.getMinimumId();
+		long maximumId = request.getMaximumId();
+		if (batchSize < 1 || minimumId < 0 || maximumId < minimumId) {
+			return Collections.singletonList(request);
+		}
+		long firstBatch = minimumId / batchSize;
+		long lastBatch = maximumId / batchSize;
+		long batchCount = lastBatch - firstBatch + 1;
+		long partitionCount = Math.min(maxPartitions, batchCount / MIN_BATCHES_PER_CHECKSUM_PARTITION);
+		if (partitionCount < 2) {
+			return Collections.singletonList(request);
+		}
+		long batchesPerPartition = (batchCount + partitionCount - 1) / partitionCount;
+		List<BatchChecksumRequest> partitions = new ArrayList<>((int) partitionCount);
+		for (long startBatch = firstBatch; startBatch <= lastBatch; startBatch += batchesPerPartition) {
+			long endBatch = Math.min(lastBatch, startBatch + batchesPerPartition - 1);
+			BatchChecksumRequest partition = new BatchChecksumRequest();
+			partition.setMigrationType(request.getMigrationType());
+			partition.setSalt(request.getSalt());
+			partition.setBatchSize(batchSize);
+			partition.setMinimumId(Math.max(minimumId, startBatch * batchSize));
+			partition.setMaximumId(Math.min(maximumId, (endBatch + 1) * batchSize - 1));
+			partitions.add(partition);
+		}
+		return partitions;
+	}
+
 }
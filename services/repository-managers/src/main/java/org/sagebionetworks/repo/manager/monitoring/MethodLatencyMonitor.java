@@ -0,0 +1,99 @@
+package org.sagebionetworks.repo.manager.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.profiler.LatencyHistogram.Snapshot;
+import org.sagebionetworks.profiler.MethodLatencyProfiler;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+/**
+ * Publishes to CloudWatch the latency histograms recorded by the
+ * {@link MethodLatencyProfiler} since the last collection, so that the latency
+ * percentiles of a method can be queried. To limit the number of metrics only
+ * the {@value #MAX_METHODS} methods with the most time spent are published at
+ * each collection, the histograms of all the methods are available through the
+ * admin API.
+ */
+public class MethodLatencyMonitor {
+
+	static final int MAX_METHODS = 50;
+	// CloudWatch accepts at most 150 distinct values in a single metric datum
+	static final int MAX_VALUES_PER_DATUM = 150;
+	static final String METRIC_LATENCY = "latency";
+	static final String DIMENSION_METHOD = "method";
+
+	private final MethodLatencyProfiler profiler;
+	private final Consumer consumer;
+	private final String namespace;
+
+	private Map<String, Snapshot> previousSnapshots = Collections.emptyMap();
+
+	public MethodLatencyMonitor(ApplicationType applicationType, MethodLatencyProfiler profiler, Consumer consumer, String instance) {
+		this.profiler = profiler;
+		this.consumer = consumer;
+		this.namespace = String.format("%s-Methods-%s", StringUtils.capitalize(applicationType.name()), instance);
+	}
+
+	public void collectMetrics() {
+		Map<String, Snapshot> snapshots = profiler.getSnapshots();
+
+		List<Entry<String, Snapshot>> deltas = new ArrayList<>();
+		snapshots.forEach((method, snapshot) -> {
+			Snapshot previous = previousSnapshots.get(method);
+			Snapshot delta = previous == null ? snapshot : snapshot.minus(previous);
+			if (delta.getCount() > 0) {
+				deltas.add(Map.entry(method, delta));
+			}
+		});
+
+		previousSnapshots = snapshots;
+
+		deltas.sort(Comparator.comparingLong((Entry<String, Snapshot> entry) -> entry.getValue().getSum()).reversed());
+
+		List<ProfileData> metrics = new ArrayList<>();
+		deltas.stream().limit(MAX_METHODS).forEach(entry -> metrics.addAll(toProfileData(entry.getKey(), entry.getValue())));
+
+		if (!metrics.isEmpty()) {
+			consumer.addProfileData(metrics);
+		}
+	}
+
+	/**
+	 * The histogram is sent in microseconds, each count is scaled by the sampling
+	 * rate of the profiler to estimate the number of calls.
+	 */
+	private List<ProfileData> toProfileData(String method, Snapshot snapshot) {
+		double samplingRate = Math.max(1, profiler.getSamplingRate());
+		List<ProfileData> data = new ArrayList<>();
+		Map<Double, Double> valueCounts = new TreeMap<>();
+		for (Entry<Long, Long> bucket : snapshot.getValueCounts().entrySet()) {
+			if (valueCounts.size() == MAX_VALUES_PER_DATUM) {
+				data.add(profileData(method, valueCounts));
+				valueCounts = new TreeMap<>();
+			}
+			valueCounts.put(bucket.getKey() / 1000.0, bucket.getValue() * samplingRate);
+		}
+		data.add(profileData(method, valueCounts));
+		return data;
+	}
+
+	private ProfileData profileData(String method, Map<Double, Double> valueCounts) {
+		return new ProfileData()
+				.setNamespace(namespace)
+				.setName(METRIC_LATENCY)
+				.setUnit(StandardUnit.Microseconds.name())
+				.setDimension(Map.of(DIMENSION_METHOD, method))
+				.setValueCounts(valueCounts);
+	}
+
+}
@@ -1,5 +1,6 @@
 package org.sagebionetworks.repo.manager.schema;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.json.JSONObject;
@@ -18,6 +19,16 @@ public interface JsonSchemaValidationManager {
 	 */
 	ValidationResults validate(JsonSchema schema, JsonSubject subject);
 
+	/**
+	 * Validate each of the given subjects against the given schema. The schema is
+	 * only loaded once for the entire batch.
+	 * 
+	 * @param schema
+	 * @param subjects
+	 * @return The results for each subject, in the same order as the subjects.
+	 */
+	List<ValidationResults> validateBatch(JsonSchema schema, List<JsonSubject> subjects);
+
 	/**
 	 * Derived annotation are value-key-pairs that are derived from a combination of
 	 * existing annotations combined with a {@link JsonSchema} that defines one or
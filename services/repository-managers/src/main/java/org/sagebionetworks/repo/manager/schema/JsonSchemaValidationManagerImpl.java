@@ -1,8 +1,13 @@
 package org.sagebionetworks.repo.manager.schema;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.everit.json.schema.Schema;
 import org.everit.json.schema.Validator;
@@ -20,16 +25,33 @@ import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 @Service
 public class JsonSchemaValidationManagerImpl implements JsonSchemaValidationManager {
 
 	public static final String DRAFT_07 = "http://json-schema.org/draft-07/schema";
 
+	static final int SCHEMA_CACHE_MAX_SIZE = 1_000;
+	static final Duration SCHEMA_CACHE_EXPIRATION = Duration.ofHours(1);
+
 	private final ValidationListenerProvider listenerProvider;
+	/**
+	 * Loaded schemas keyed by a hash of the schema JSON, so any change to a schema
+	 * (or to any schema it references) results in a new key.
+	 */
+	private final Cache<String, Schema> schemaCache;
 
 	@Autowired
 	public JsonSchemaValidationManagerImpl(ValidationListenerProvider listenerProvider) {
 		this.listenerProvider = listenerProvider;
+		this.schemaCache = CacheBuilder.newBuilder()
+			.expireAfterAccess(SCHEMA_CACHE_EXPIRATION)
+			.maximumSize(SCHEMA_CACHE_MAX_SIZE)
+			.build();
 	}
 
 	@Override
@@ -41,10 +63,34 @@ public class JsonSchemaValidationManagerImpl implements JsonSchemaValidationMana
 		}
 	}
 
+	@Override
+	public List<ValidationResults> validateBatch(JsonSchema jsonSchema, List<JsonSubject> subjects) {
+		ValidateArgument.required(subjects, "subjects");
+		try {
+			boolean useDefaults = false;
+			Schema schemaValidator = loadSchema(jsonSchema, useDefaults);
+			List<ValidationResults> results = new ArrayList<>(subjects.size());
+			for (JsonSubject subject : subjects) {
+				ValidateArgument.required(subject, "subject");
+				results.add(validateSubject(jsonSchema, schemaValidator, subject));
+			}
+			return results;
+		} catch (JSONObjectAdapterException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	ValidationResults doValidate(JsonSchema jsonSchema, JsonSubject subject) throws JSONObjectAdapterException {
 		ValidateArgument.required(subject, "subject");
 		boolean useDefaults= false;
 		Schema schemaValidator = loadSchema(jsonSchema, useDefaults);
+		return validateSubject(jsonSchema, schemaValidator, subject);
+	}
+
+	/**
+	 * Validate a single subject against an already loaded schema.
+	 */
+	ValidationResults validateSubject(JsonSchema jsonSchema, Schema schemaValidator, JsonSubject subject) {
 		ValidationResults result = new ValidationResults();
 		result.setObjectId(subject.getObjectId());
 		result.setObjectType(subject.getObjectType());
@@ -87,7 +133,9 @@ public class JsonSchemaValidationManagerImpl implements JsonSchemaValidationMana
 	}
 
 	/**
-	 * Load the provide {@link JsonSchema} into the library {@link Schema}.
+	 * Load the provide {@link JsonSchema} into the library {@link Schema}. Loaded
+	 * schemas are cached, a {@link Schema} is immutable and can be shared by
+	 * concurrent validations.
 	 * 
 	 * @param jsonSchema
 	 * @param useDefaults When set to true, default values will be added to the
@@ -108,6 +156,16 @@ public class JsonSchemaValidationManagerImpl implements JsonSchemaValidationMana
 			jsonSchema.set$schema(DRAFT_07);
 		}
 		String validationSchemaJson = EntityFactory.createJSONStringForEntity(jsonSchema);
+		String cacheKey = useDefaults + "-" + DigestUtils.sha256Hex(validationSchemaJson);
+		try {
+			return schemaCache.get(cacheKey, () -> buildSchema(validationSchemaJson, useDefaults));
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	Schema buildSchema(String validationSchemaJson, boolean useDefaults) {
 		SchemaLoader loader = SchemaLoader.builder().schemaJson(new JSONObject(validationSchemaJson))
 				.schemaClient(new DefaultSchemaClient()).useDefaults(useDefaults).build();
 		return loader.load().build();
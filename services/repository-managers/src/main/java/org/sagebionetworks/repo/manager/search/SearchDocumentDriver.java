@@ -2,6 +2,7 @@ package org.sagebionetworks.repo.manager.search;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.sagebionetworks.repo.model.AccessControlList;
@@ -57,6 +58,15 @@ public interface SearchDocumentDriver {
 	 */
 	public EntityPath getEntityPath(String nodeId) throws NotFoundException;
 	
+	/**
+	 * Batch version of {@link #getEntityPath(String)}.
+	 * 
+	 * @param nodeIds
+	 * @return Map of each of the given node ids to its path, nodes that do not
+	 *         exist are not included
+	 */
+	public Map<String, EntityPath> getEntityPaths(List<String> nodeIds);
+	
 	/**
 	 * 
 	 * @param nodeIds
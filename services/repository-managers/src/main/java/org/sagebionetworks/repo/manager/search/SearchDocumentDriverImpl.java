@@ -12,10 +12,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.joda.time.DateTime;
+import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
 import org.sagebionetworks.repo.model.AccessControlList;
 import org.sagebionetworks.repo.model.AccessControlListDAO;
@@ -30,19 +34,21 @@ import org.sagebionetworks.repo.model.ResourceAccess;
 import org.sagebionetworks.repo.model.annotation.v2.Annotations;
 import org.sagebionetworks.repo.model.annotation.v2.AnnotationsV2Utils;
 import org.sagebionetworks.repo.model.annotation.v2.AnnotationsValue;
-import org.sagebionetworks.repo.model.dao.WikiPageKey;
-import org.sagebionetworks.repo.model.dao.WikiPageKeyHelper;
 import org.sagebionetworks.repo.model.entity.NameIdType;
+import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.search.Document;
 import org.sagebionetworks.repo.model.search.DocumentFields;
 import org.sagebionetworks.repo.model.search.DocumentTypeNames;
 import org.sagebionetworks.repo.model.v2.dao.V2WikiPageDao;
-import org.sagebionetworks.repo.model.v2.wiki.V2WikiHeader;
-import org.sagebionetworks.repo.model.v2.wiki.V2WikiPage;
+import org.sagebionetworks.repo.model.v2.dao.V2WikiPageMarkdownFile;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.search.SearchUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
 /**
  * This class writes out search documents in batch.
  * 
@@ -60,6 +66,17 @@ public class SearchDocumentDriverImpl implements SearchDocumentDriver {
 	 */
 	public static final int FIELD_VALUE_SIZE_LIMIT = 100;
 
+	/**
+	 * The maximum number of wiki pages included in a search document
+	 */
+	public static final long WIKI_PAGE_LIMIT = 100L;
+
+	/**
+	 * The maximum number of markdown files downloaded concurrently for a single
+	 * entity
+	 */
+	public static final int MAX_CONCURRENT_MARKDOWN_DOWNLOADS = 10;
+
 	private static Log log = LogFactory.getLog(SearchDocumentDriverImpl.class);
 
 	static final Map<String, List<String>> SEARCHABLE_NODE_ANNOTATIONS;
@@ -70,6 +87,18 @@ public class SearchDocumentDriverImpl implements SearchDocumentDriver {
 	private AccessControlListDAO aclDAO;
 	@Autowired
 	V2WikiPageDao wikiPageDao;
+	@Autowired
+	ExecutorService cachedThreadPool;
+	@Autowired
+	StackConfiguration stackConfig;
+
+	/**
+	 * The markdown of a wiki version never changes, the cache is keyed by the id
+	 * of the markdown file handle so that an update of a page is never served
+	 * stale. The driver is shared with the repository, the cache is only created
+	 * the first time a search document is built (on the search worker).
+	 */
+	private volatile Cache<Long, String> markdownCache;
 
 	static { // initialize SEARCHABLE_NODE_ANNOTATIONS
 		// NOTE: ORDER MATTERS. Earlier annotation key names will be preferred over later ones if both keys are present.
@@ -127,6 +156,21 @@ public class SearchDocumentDriverImpl implements SearchDocumentDriver {
 		return entityPath;
 	}
 	
+	@Override
+	public Map<String, EntityPath> getEntityPaths(List<String> nodeIds) {
+		Map<Long, String> idMap = new HashMap<>(nodeIds.size());
+		for (String nodeId : nodeIds) {
+			idMap.put(KeyFactory.stringToKey(nodeId), nodeId);
+		}
+		Map<String, EntityPath> entityPaths = new HashMap<>(nodeIds.size());
+		nodeDao.getEntityPaths(idMap.keySet()).forEach((id, path) -> {
+			EntityPath entityPath = new EntityPath();
+			entityPath.setPath(NameIdType.toEntityHeader(path));
+			entityPaths.put(idMap.get(id), entityPath);
+		});
+		return entityPaths;
+	}
+	
 	@Override
 	public List<IdAndAlias> getAliases(List<String> nodeIds) {
 		return nodeDao.getAliasByNodeId(nodeIds);
@@ -277,34 +321,85 @@ public class SearchDocumentDriverImpl implements SearchDocumentDriver {
 	 * @throws IOException 
 	 */
 	public String getAllWikiPageText(String nodeId) throws DatastoreException {
-		// Lookup all wiki pages for this node
-		try {
-			long limit = 100L;
-			long offset = 0L;
-			List<V2WikiHeader> wikiHeaders = wikiPageDao.getHeaderTree(nodeId,
-					ObjectType.ENTITY, limit, offset);
-			if (wikiHeaders == null)
-				return null;
-			// For each header get the wikipage
-			StringBuilder builder = new StringBuilder();
-			for (V2WikiHeader header : wikiHeaders) {
-				WikiPageKey key = WikiPageKeyHelper.createWikiPageKey(nodeId, ObjectType.ENTITY, header.getId());
-				V2WikiPage page = wikiPageDao.get(key, null);
-				// Append the title and markdown
-				if (page.getTitle() != null) {
-					builder.append("\n");
-					builder.append(page.getTitle());
-				}
-				String markdownString = wikiPageDao.getMarkdown(key, null);
+		// Lookup the markdown files of all wiki pages for this node with a single query
+		List<V2WikiPageMarkdownFile> markdownFiles = wikiPageDao.getCurrentMarkdownFiles(nodeId, ObjectType.ENTITY, WIKI_PAGE_LIMIT);
+		if (markdownFiles.isEmpty()) {
+			// There is no WikiPage for this node.
+			return null;
+		}
+		Map<Long, String> markdownByFileHandleId = getMarkdown(markdownFiles);
+		StringBuilder builder = new StringBuilder();
+		for (V2WikiPageMarkdownFile markdownFile : markdownFiles) {
+			// Append the title and markdown
+			if (markdownFile.getTitle() != null) {
 				builder.append("\n");
-				builder.append(markdownString);
+				builder.append(markdownFile.getTitle());
 			}
-			return builder.toString();
-		} catch (IOException e){
+			builder.append("\n");
+			builder.append(markdownByFileHandleId.get(markdownFile.getFileHandleId()));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Get the markdown of each of the given files, the files that are not cached
+	 * are downloaded concurrently.
+	 * 
+	 * @param markdownFiles
+	 * @return The markdown keyed by the id of the markdown file handle
+	 */
+	Map<Long, String> getMarkdown(List<V2WikiPageMarkdownFile> markdownFiles) {
+		Map<Long, String> markdownByFileHandleId = new HashMap<>(markdownFiles.size());
+		List<V2WikiPageMarkdownFile> toDownload = new ArrayList<>();
+		Cache<Long, String> markdownCache = getMarkdownCache();
+		for (V2WikiPageMarkdownFile markdownFile : markdownFiles) {
+			String markdown = markdownCache.getIfPresent(markdownFile.getFileHandleId());
+			if (markdown != null) {
+				markdownByFileHandleId.put(markdownFile.getFileHandleId(), markdown);
+			} else {
+				toDownload.add(markdownFile);
+			}
+		}
+		for (List<V2WikiPageMarkdownFile> batch : Lists.partition(toDownload, MAX_CONCURRENT_MARKDOWN_DOWNLOADS)) {
+			List<Future<String>> futures = new ArrayList<>(batch.size());
+			for (V2WikiPageMarkdownFile markdownFile : batch) {
+				futures.add(cachedThreadPool.submit(() -> wikiPageDao.downloadMarkdown(markdownFile)));
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				Long fileHandleId = batch.get(i).getFileHandleId();
+				String markdown = waitForMarkdown(futures.get(i));
+				markdownCache.put(fileHandleId, markdown);
+				markdownByFileHandleId.put(fileHandleId, markdown);
+			}
+		}
+		return markdownByFileHandleId;
+	}
+
+	Cache<Long, String> getMarkdownCache() {
+		Cache<Long, String> cache = markdownCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = markdownCache;
+				if (cache == null) {
+					cache = CacheBuilder.newBuilder()
+							.maximumWeight(stackConfig.getSearchMarkdownCacheMaxCharacters())
+							.weigher((Long fileHandleId, String markdown) -> markdown.length())
+							.build();
+					markdownCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	private static String waitForMarkdown(Future<String> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			throw new RuntimeException(e);
-		} catch (NotFoundException e) {
-			// There is no WikiPage for this node.
-			return null;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
 		}
 	}
 
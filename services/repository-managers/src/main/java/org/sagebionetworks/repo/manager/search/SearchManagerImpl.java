@@ -18,7 +18,6 @@ import org.sagebionetworks.repo.model.search.Document;
 import org.sagebionetworks.repo.model.search.Hit;
 import org.sagebionetworks.repo.model.search.SearchResults;
 import org.sagebionetworks.repo.model.search.query.SearchQuery;
-import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.search.CloudSearchLogger;
 import org.sagebionetworks.search.SearchConstants;
 import org.sagebionetworks.search.SearchDao;
@@ -85,13 +84,21 @@ public class SearchManagerImpl implements SearchManager{
 	 * @param hits
 	 */
 	public void addPathDataToHits(List<Hit> hits) {
-		// For each hit we need to add the path
+		if (hits.isEmpty()) {
+			return;
+		}
+		// The paths of all the hits are fetched at once
+		List<String> ids = new ArrayList<String>();
+		for (Hit hit : hits) {
+			ids.add(hit.getId());
+		}
+		Map<String, EntityPath> paths = searchDocumentDriver.getEntityPaths(ids);
 		List<Hit> toRemove = new LinkedList<>();
 		for(Hit hit: hits){
-			try {
-				EntityPath path = searchDocumentDriver.getEntityPath(hit.getId());
+			EntityPath path = paths.get(hit.getId());
+			if (path != null) {
 				hit.setPath(path);
-			} catch (NotFoundException e) {
+			} else {
 				// Add a warning and remove it from the hits
 				log.warn("Found a search document that did not exist in the repository: "+hit);
 				// We need to remove this from the hits
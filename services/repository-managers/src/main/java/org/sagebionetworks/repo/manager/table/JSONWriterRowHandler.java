@@ -0,0 +1,87 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.sagebionetworks.repo.model.dao.table.RowHandler;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.schema.adapter.JSONEntity;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * RowHandler that writes each row to the provided writer as JSON, one row at a
+ * time, so the org.json object tree of a full {@link RowSet} is never built.
+ * What is held in memory depends on the writer. The written JSON is a
+ * {@link RowSet} that can be read with
+ * {@link EntityFactory#createEntityFromJSONString(String, Class)}.
+ * <p>
+ * Call {@link #writeHeader(RowSet)} before the first row and
+ * {@link #writeFooter()} after the last row.
+ *
+ */
+public class JSONWriterRowHandler implements RowHandler {
+
+	private static final String ROWS_START = "\"rows\":[";
+	private static final String ROWS_END = "]}";
+
+	private final Writer writer;
+	private boolean firstRow = true;
+
+	public JSONWriterRowHandler(Writer writer) {
+		ValidateArgument.required(writer, "writer");
+		this.writer = writer;
+	}
+
+	/**
+	 * Write all of the fields of the given RowSet except for the rows.
+	 *
+	 * @param header A RowSet without rows.
+	 * @throws IOException
+	 */
+	public void writeHeader(RowSet header) throws IOException {
+		ValidateArgument.required(header, "header");
+		ValidateArgument.requirement(header.getRows() == null, "The rows of the header must be null");
+		String json = toJSON(header);
+		// Leave the object open so the rows can be appended.
+		String fields = json.substring(0, json.lastIndexOf('}'));
+		writer.write(fields);
+		if (!fields.trim().equals("{")) {
+			writer.write(',');
+		}
+		writer.write(ROWS_START);
+	}
+
+	@Override
+	public void nextRow(Row row) {
+		try {
+			if (!firstRow) {
+				writer.write(',');
+			}
+			writer.write(toJSON(row));
+			firstRow = false;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Close the rows array and the RowSet.
+	 *
+	 * @throws IOException
+	 */
+	public void writeFooter() throws IOException {
+		writer.write(ROWS_END);
+	}
+
+	private static String toJSON(JSONEntity entity) {
+		try {
+			return EntityFactory.createJSONStringForEntity(entity);
+		} catch (JSONObjectAdapterException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package org.sagebionetworks.repo.manager.table;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Optional;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -8,8 +10,10 @@ import org.sagebionetworks.repo.manager.message.RepositoryMessagePublisher;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.table.QueryCacheHitEvent;
 import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.repo.model.table.TableConstants;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.table.cluster.CachedQueryDto;
 import org.sagebionetworks.table.cluster.CachedQueryRequest;
 import org.sagebionetworks.table.cluster.TableIndexDAO;
 import org.sagebionetworks.util.ValidateArgument;
@@ -25,13 +29,15 @@ public class QueryCacheManagerImpl implements QueryCacheManager {
 	private ObjectMapper objectMapper;
 	private Clock clock;
 	private RepositoryMessagePublisher publisher;
+	private QueryNearCache nearCache;
 
 	@Autowired
-	public QueryCacheManagerImpl(ObjectMapper objectMapper, Clock clock, RepositoryMessagePublisher publisher) {
+	public QueryCacheManagerImpl(ObjectMapper objectMapper, Clock clock, RepositoryMessagePublisher publisher, QueryNearCache nearCache) {
 		super();
 		this.objectMapper = objectMapper;
 		this.clock = clock;
 		this.publisher = publisher;
+		this.nearCache = nearCache;
 	}
 
 	@Override
@@ -42,32 +48,64 @@ public class QueryCacheManagerImpl implements QueryCacheManager {
 		String requestJson = requestToJson(request);
 		String hash = DigestUtils.sha256Hex(requestJson);
 
-		Optional<String> optional = indexDao.getCachedQueryResults(hash);
+		// Unexpired results already parsed in memory do not need a round trip to the database
+		Optional<RowSet> nearResults = nearCache.get(hash);
+		if (nearResults.isPresent()) {
+			fireCacheHit(hash);
+			return nearResults.get();
+		}
+
+		Optional<CachedQueryDto> optional = indexDao.getCachedQuery(hash);
 		if (optional.isPresent()) {
-			RowSet results = parseRowSet(optional.get());
-			publisher.fireLocalStackMessage(
-					new QueryCacheHitEvent().setQueryRequestHash(hash).setObjectType(ObjectType.QUERY_CACHE_HIT));
+			RowSet results = parseRowSet(optional.get().getResultJson());
+			// The entry expires with the database row, expired results are returned while they are refreshed but are not kept in memory
+			nearCache.put(hash, results, optional.get().getResultJson(), optional.get().getExpiresOn());
+			fireCacheHit(hash);
 			return results;
 		} else {
 			return executeQueryAndSaveToCache(indexDao, request, requestJson, hash, request.getExpiresInSec());
 		}
 	}
 
+	void fireCacheHit(String hash) {
+		publisher.fireLocalStackMessage(
+				new QueryCacheHitEvent().setQueryRequestHash(hash).setObjectType(ObjectType.QUERY_CACHE_HIT));
+	}
+
+	/**
+	 * Execute the query and save its results to the cache. The rows are returned
+	 * to the caller so the full RowSet is kept in memory, its JSON is written row
+	 * by row to avoid building the JSON object tree of the whole RowSet.
+	 * <p>
+	 * The results are not streamed: the caller returns them through the
+	 * asynchronous job framework, which stores the whole response body, and the
+	 * cache keeps the JSON both in the database and in the near cache.
+	 */
 	RowSet executeQueryAndSaveToCache(TableIndexDAO indexDao, CachedQueryRequest request, String requestJson,
 			String hash, int expiresInSec) {
+		if (request.getSingleTableId() == null) {
+			throw TableConstants.JOIN_NOT_SUPPORTED_IN_THIS_CONTEXT.get();
+		}
 		long start = clock.currentTimeMillis();
 		RowSet results = indexDao.query(request);
 		long runtimeMS = clock.currentTimeMillis() - start;
-		indexDao.saveCachedQuery(hash, requestJson, rowSetToJson(results), runtimeMS, expiresInSec);
+		String resultJson = rowSetToJson(results);
+		indexDao.saveCachedQuery(hash, requestJson, resultJson, runtimeMS, expiresInSec);
+		nearCache.put(hash, results, resultJson, expiresInSec);
 		return results;
 	}
 
 	String rowSetToJson(RowSet rowSet) {
+		StringWriter writer = new StringWriter();
+		JSONWriterRowHandler jsonWriter = new JSONWriterRowHandler(writer);
 		try {
-			return EntityFactory.createJSONStringForEntity(rowSet);
-		} catch (JSONObjectAdapterException e) {
+			jsonWriter.writeHeader(new RowSet().setTableId(rowSet.getTableId()).setEtag(rowSet.getEtag()).setHeaders(rowSet.getHeaders()));
+			rowSet.getRows().forEach(jsonWriter::nextRow);
+			jsonWriter.writeFooter();
+		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
+		return writer.toString();
 	}
 
 	RowSet parseRowSet(String json) {
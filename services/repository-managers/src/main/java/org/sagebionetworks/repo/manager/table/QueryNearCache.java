@@ -0,0 +1,217 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+
+/**
+ * In-process cache of already parsed query results that sits in front of the
+ * QUERY_CACHE table. Entries are keyed by the request hash, expire with the
+ * same expiresInSec used for the database cache and are evicted by their
+ * estimated size in bytes.
+ */
+@Service
+public class QueryNearCache {
+
+	/**
+	 * The maximum total weight (estimated bytes) of the results kept in memory.
+	 */
+	static final long MAX_WEIGHT_BYTES = 64L * 1024L * 1024L;
+	/**
+	 * Results larger than this are never kept in memory.
+	 */
+	static final int MAX_ENTRY_WEIGHT_BYTES = 4 * 1024 * 1024;
+
+	static final String METRIC_HIT_COUNT = "hitCount";
+	static final String METRIC_MISS_COUNT = "missCount";
+	static final String METRIC_EVICTION_COUNT = "evictionCount";
+	static final String METRIC_WEIGHT = "weightBytes";
+
+	private final Clock clock;
+	private final Consumer metricsClient;
+	private final Cache<String, CachedResults> cache;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder totalWeight = new LongAdder();
+
+	private String namespace;
+
+	public QueryNearCache(Clock clock, Consumer metricsClient) {
+		this(clock, metricsClient, MAX_WEIGHT_BYTES);
+	}
+
+	QueryNearCache(Clock clock, Consumer metricsClient, long maxWeightBytes) {
+		this.clock = clock;
+		this.metricsClient = metricsClient;
+		this.cache = CacheBuilder.newBuilder()
+			.maximumWeight(maxWeightBytes)
+			.weigher((String hash, CachedResults results) -> results.weight)
+			.removalListener(notification -> {
+				totalWeight.add(-notification.getValue().weight);
+				if (RemovalCause.SIZE.equals(notification.getCause())) {
+					evictionCount.increment();
+				}
+			})
+			.build();
+	}
+
+	@Autowired
+	void configure(StackConfiguration config) {
+		this.namespace = "QueryNearCache-" + config.getStackInstance();
+	}
+
+	/**
+	 * Get the parsed results for the given request hash if they are in memory and
+	 * not expired.
+	 *
+	 * @param requestHash
+	 * @return A copy of the cached {@link RowSet} that can be safely modified by
+	 *         the caller.
+	 */
+	public Optional<RowSet> get(String requestHash) {
+		ValidateArgument.required(requestHash, "requestHash");
+		CachedResults results = cache.getIfPresent(requestHash);
+		if (results != null && results.expiresOn > clock.currentTimeMillis()) {
+			hitCount.increment();
+			return Optional.of(copy(results.rowSet));
+		}
+		if (results != null) {
+			cache.asMap().remove(requestHash, results);
+		}
+		missCount.increment();
+		return Optional.empty();
+	}
+
+	/**
+	 * Put the given results in memory.
+	 *
+	 * @param requestHash
+	 * @param rowSet       The parsed results
+	 * @param resultJson   The JSON the results were parsed from, used to estimate
+	 *                     the weight of the entry
+	 * @param expiresInSec
+	 */
+	public void put(String requestHash, RowSet rowSet, String resultJson, int expiresInSec) {
+		long now = clock.currentTimeMillis();
+		put(requestHash, rowSet, resultJson, now + expiresInSec * 1000L, now);
+	}
+
+	/**
+	 * Put the given results in memory until the given expiration date. Nothing is
+	 * kept if the results are already expired.
+	 *
+	 * @param requestHash
+	 * @param rowSet      The parsed results
+	 * @param resultJson  The JSON the results were parsed from, used to estimate
+	 *                    the weight of the entry
+	 * @param expiresOn
+	 */
+	public void put(String requestHash, RowSet rowSet, String resultJson, Date expiresOn) {
+		ValidateArgument.required(expiresOn, "expiresOn");
+		put(requestHash, rowSet, resultJson, expiresOn.getTime(), clock.currentTimeMillis());
+	}
+
+	private void put(String requestHash, RowSet rowSet, String resultJson, long expiresOn, long now) {
+		ValidateArgument.required(requestHash, "requestHash");
+		ValidateArgument.required(rowSet, "rowSet");
+		ValidateArgument.required(resultJson, "resultJson");
+		if (expiresOn <= now) {
+			return;
+		}
+		// Each JSON char takes two bytes in memory, the parsed object graph is of a similar size
+		long weight = 2L * resultJson.length();
+		if (weight > MAX_ENTRY_WEIGHT_BYTES) {
+			return;
+		}
+		CachedResults results = new CachedResults(copy(rowSet), (int) weight, expiresOn);
+		totalWeight.add(results.weight);
+		cache.put(requestHash, results);
+	}
+
+	/**
+	 * Remove the results for the given hash from memory.
+	 *
+	 * @param requestHash
+	 */
+	public void invalidate(String requestHash) {
+		ValidateArgument.required(requestHash, "requestHash");
+		cache.invalidate(requestHash);
+	}
+
+	/**
+	 * Removes the expired entries and pushes the hit, miss and eviction counts
+	 * since the last call to cloud watch. Invoked by a timer.
+	 */
+	public void collectMetrics() {
+		long now = clock.currentTimeMillis();
+		cache.asMap().values().removeIf(results -> results.expiresOn <= now);
+
+		Date timestamp = clock.now();
+		List<ProfileData> data = new ArrayList<>();
+		data.add(profileData(timestamp, METRIC_HIT_COUNT, hitCount.sumThenReset(), StandardUnit.Count));
+		data.add(profileData(timestamp, METRIC_MISS_COUNT, missCount.sumThenReset(), StandardUnit.Count));
+		data.add(profileData(timestamp, METRIC_EVICTION_COUNT, evictionCount.sumThenReset(), StandardUnit.Count));
+		data.add(profileData(timestamp, METRIC_WEIGHT, totalWeight.sum(), StandardUnit.Bytes));
+		metricsClient.addProfileData(data);
+	}
+
+	long size() {
+		return cache.size();
+	}
+
+	private ProfileData profileData(Date timestamp, String name, long value, StandardUnit unit) {
+		return new ProfileData()
+			.setTimestamp(timestamp)
+			.setNamespace(namespace)
+			.setName(name)
+			.setValue(Double.valueOf(value))
+			.setUnit(unit.name())
+			.setDimension(Map.of());
+	}
+
+	/**
+	 * Shallow copy of the given RowSet, the rows are shared but the lists and the
+	 * etag are not.
+	 */
+	static RowSet copy(RowSet rowSet) {
+		return new RowSet()
+			.setConcreteType(rowSet.getConcreteType())
+			.setTableId(rowSet.getTableId())
+			.setEtag(rowSet.getEtag())
+			.setHeaders(rowSet.getHeaders() == null ? null : new ArrayList<>(rowSet.getHeaders()))
+			.setRows(rowSet.getRows() == null ? null : new ArrayList<>(rowSet.getRows()));
+	}
+
+	private static final class CachedResults {
+
+		private final RowSet rowSet;
+		private final int weight;
+		private final long expiresOn;
+
+		private CachedResults(RowSet rowSet, int weight, long expiresOn) {
+			this.rowSet = rowSet;
+			this.weight = weight;
+			this.expiresOn = expiresOn;
+		}
+	}
+
+}
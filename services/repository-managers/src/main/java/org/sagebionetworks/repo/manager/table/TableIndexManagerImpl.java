@@ -7,11 +7,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.repo.manager.table.change.PrefetchingTableChangeIterator;
 import org.sagebionetworks.repo.manager.table.change.TableChangeMetaData;
 import org.sagebionetworks.repo.manager.table.metadata.DefaultColumnModel;
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProvider;
@@ -80,6 +82,10 @@ public class TableIndexManagerImpl implements TableIndexManager {
 	static private Logger log = LogManager.getLogger(TableIndexManagerImpl.class);
 
 	public static final int MAX_MYSQL_INDEX_COUNT = 60; // mysql only supports a max of 64 secondary indices per table.
+	// The maximum number of row change sets downloaded ahead of the change that is applied to the index.
+	public static final int MAX_PREFETCH_CHANGES = 8;
+	// The maximum estimated size of the change sets downloaded ahead of the change that is applied to the index.
+	public static final long MAX_PREFETCH_BYTES = 64L * 1024 * 1024;
 
 	public static final long MAX_BYTES_PER_BATCH = 1024*1024*5;// 5MB
 	
@@ -93,18 +99,21 @@ public class TableIndexManagerImpl implements TableIndexManager {
 	private final MetadataIndexProviderFactory metadataIndexProviderFactory;
 	private final ObjectFieldModelResolverFactory objectFieldModelResolverFactory;
 	private final TableRowSearchProcessor searchProcessor;
+	private final ExecutorService threadPool;
 
-	public TableIndexManagerImpl(TableIndexDAO dao, TableManagerSupport tableManagerSupport, MetadataIndexProviderFactory metadataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory, TableRowSearchProcessor searchProcessor){
+	public TableIndexManagerImpl(TableIndexDAO dao, TableManagerSupport tableManagerSupport, MetadataIndexProviderFactory metadataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory, TableRowSearchProcessor searchProcessor, ExecutorService cachedThreadPool){
 		ValidateArgument.required(dao, "TableIndexDao");
 		ValidateArgument.required(tableManagerSupport, "TableManagerSupport");
 		ValidateArgument.required(metadataIndexProviderFactory, "MetadataIndexProviderFactory");
 		ValidateArgument.required(objectFieldModelResolverFactory, "ObjectFieldModelResolverFactory");
 		ValidateArgument.required(searchProcessor, "RowSearchProcessor");
+		ValidateArgument.required(cachedThreadPool, "CachedThreadPool");
 		this.tableIndexDao = dao;
 		this.tableManagerSupport = tableManagerSupport;
 		this.metadataIndexProviderFactory = metadataIndexProviderFactory;
 		this.objectFieldModelResolverFactory = objectFieldModelResolverFactory;
 		this.searchProcessor = searchProcessor;
+		this.threadPool = cachedThreadPool;
 	}
 	/*
 	 * (non-Javadoc)
@@ -587,7 +596,7 @@ public class TableIndexManagerImpl implements TableIndexManager {
 	
 	/**
 	 * Build the table index up to the latest change.  The caller must hold the table's exclusive lock and manage
-	 * the status of the table.
+	 * the status of the table. The change sets of the next row changes are downloaded while the current change is applied.
 	 * @param tableId
 	 * @param iterator
 	 * @param lastChangeNumber
@@ -600,21 +609,27 @@ public class TableIndexManagerImpl implements TableIndexManager {
 		String lastEtag = null;
 		
 		long currentVersion = tableIndexDao.getMaxCurrentCompleteVersionForTable(idAndVersion);
-		// Inspect each change.
-		while(iterator.hasNext()) {
-			TableChangeMetaData changeMetadata = iterator.next();
-			if(changeMetadata.getChangeNumber() > targetChangeNumber) {
-				// all changes have been applied to the index.
-				break;
-			}
-			if(changeMetadata.getChangeNumber()> currentVersion) {
-				// This change needs to be applied to the table
-				tableManagerSupport.attemptToUpdateTableProgress(idAndVersion,
-						tableResetToken, "Applying change: " + changeMetadata.getChangeNumber(), changeMetadata.getChangeNumber(),
-						targetChangeNumber);
-				applyChangeToIndex(idAndVersion, changeMetadata);
-				lastEtag = changeMetadata.getETag();
-				currentVersion = tableIndexDao.getMaxCurrentCompleteVersionForTable(idAndVersion);
+		// Only the changes that will be applied are downloaded ahead
+		final long startVersion = currentVersion;
+		try (PrefetchingTableChangeIterator prefetchingIterator = new PrefetchingTableChangeIterator(iterator,
+				(TableChangeMetaData change) -> change.getChangeNumber() > startVersion && change.getChangeNumber() <= targetChangeNumber,
+				threadPool, MAX_PREFETCH_CHANGES, MAX_PREFETCH_BYTES)) {
+			// Inspect each change.
+			while(prefetchingIterator.hasNext()) {
+				TableChangeMetaData changeMetadata = prefetchingIterator.next();
+				if(changeMetadata.getChangeNumber() > targetChangeNumber) {
+					// all changes have been applied to the index.
+					break;
+				}
+				if(changeMetadata.getChangeNumber()> currentVersion) {
+					// This change needs to be applied to the table
+					tableManagerSupport.attemptToUpdateTableProgress(idAndVersion,
+							tableResetToken, "Applying change: " + changeMetadata.getChangeNumber(), changeMetadata.getChangeNumber(),
+							targetChangeNumber);
+					applyChangeToIndex(idAndVersion, changeMetadata);
+					lastEtag = changeMetadata.getETag();
+					currentVersion = tableIndexDao.getMaxCurrentCompleteVersionForTable(idAndVersion);
+				}
 			}
 		}
 
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
@@ -35,6 +36,8 @@ public class TableUploadManagerImpl implements TableUploadManager {
 	private SynapseS3Client s3Client;
 	@Autowired
 	private FileProvider fileProvider;
+	@Autowired
+	private ExecutorService cachedThreadPool;
 
 	@Override
 	public TableUpdateResponse uploadCSV(ProgressCallback progressCallback, UserInfo user, UploadToTableRequest request, UploadRowProcessor rowProcessor) {
@@ -57,7 +60,8 @@ public class TableUploadManagerImpl implements TableUploadManager {
 			s3Client.getObject(new GetObjectRequest(fileHandle.getBucketName(), fileHandle.getKey()), tempFile);
 			// Create a reader from the passed parameters
 			// Note: The CSVToRowIterator handles linesToSkip so we pass null linesToSkip for the reader.
-			reader = CSVUtils.createCSVReader(new InputStreamReader(fileProvider.createFileInputStream(tempFile), "UTF-8"), request.getCsvTableDescriptor(), null);
+			// The CSV is parsed in parallel chunks while the rows are processed in order.
+			reader = CSVUtils.createCSVReader(new InputStreamReader(fileProvider.createFileInputStream(tempFile), "UTF-8"), request.getCsvTableDescriptor(), null, cachedThreadPool);
 			
 			if(request.getColumnIds() != null && !request.getColumnIds().isEmpty()){
 				throw new IllegalArgumentException("Unsupported columnIds");
@@ -0,0 +1,228 @@
+package org.sagebionetworks.repo.manager.table.change;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.TableChangeType;
+import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.table.model.ChangeData;
+import org.sagebionetworks.table.model.SparseChangeSet;
+import org.sagebionetworks.table.model.SparseRow;
+import org.sagebionetworks.table.model.TableChange;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Iterator over table changes that loads the data of the next row changes on
+ * the given thread pool while the current change is applied. Loading a row
+ * change downloads and decodes its change set from S3.
+ * <p>
+ * At most maxPrefetchCount changes are read ahead. No new load is started while
+ * the estimated size of the changes that are loading or loaded but not consumed
+ * yet is greater than maxPrefetchBytes. Until its size is known, a load in
+ * flight counts for an equal share of maxPrefetchBytes. Only the row changes that match the given
+ * filter are prefetched, the other changes are loaded on demand. The loads that
+ * are still pending are cancelled on {@link #close()}.
+ *
+ */
+public class PrefetchingTableChangeIterator implements Iterator<TableChangeMetaData>, AutoCloseable {
+
+	// Rough estimate of the memory used by each row and cell of a change set
+	static final long ROW_OVERHEAD_BYTES = 64;
+	static final long CELL_OVERHEAD_BYTES = 48;
+
+	private final Iterator<TableChangeMetaData> source;
+	private final Predicate<TableChangeMetaData> prefetchFilter;
+	private final ExecutorService threadPool;
+	private final int maxPrefetchCount;
+	private final long maxPrefetchBytes;
+	// The size reserved for a load in flight
+	private final long loadReservationBytes;
+
+	private final Deque<PrefetchedChange> window = new ArrayDeque<>();
+	// The estimated size of the changes that are loading or were loaded but not consumed
+	private final AtomicLong prefetchedBytes = new AtomicLong();
+
+	public PrefetchingTableChangeIterator(Iterator<TableChangeMetaData> source, Predicate<TableChangeMetaData> prefetchFilter,
+			ExecutorService threadPool, int maxPrefetchCount, long maxPrefetchBytes) {
+		ValidateArgument.required(source, "source");
+		ValidateArgument.required(prefetchFilter, "prefetchFilter");
+		ValidateArgument.required(threadPool, "threadPool");
+		ValidateArgument.requirement(maxPrefetchCount > 0, "maxPrefetchCount must be greater than zero");
+		ValidateArgument.requirement(maxPrefetchBytes > 0, "maxPrefetchBytes must be greater than zero");
+		this.source = source;
+		this.prefetchFilter = prefetchFilter;
+		this.threadPool = threadPool;
+		this.maxPrefetchCount = maxPrefetchCount;
+		this.maxPrefetchBytes = maxPrefetchBytes;
+		this.loadReservationBytes = Math.max(1, maxPrefetchBytes / maxPrefetchCount);
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !window.isEmpty() || source.hasNext();
+	}
+
+	@Override
+	public TableChangeMetaData next() {
+		fillWindow();
+		PrefetchedChange next = window.poll();
+		if (next == null) {
+			throw new NoSuchElementException();
+		}
+		// Start loading the following changes before the caller applies this one
+		fillWindow();
+		return next;
+	}
+
+	/**
+	 * Cancel the loads that are still pending.
+	 */
+	@Override
+	public void close() {
+		window.forEach(PrefetchedChange::cancel);
+		window.clear();
+	}
+
+	/**
+	 * @return The estimated size in bytes of the changes that are loading or are
+	 *         loaded but not consumed yet
+	 */
+	long getPrefetchedBytes() {
+		return prefetchedBytes.get();
+	}
+
+	private void fillWindow() {
+		while (source.hasNext() && window.size() < maxPrefetchCount && (window.isEmpty() || prefetchedBytes.get() < maxPrefetchBytes)) {
+			TableChangeMetaData change = source.next();
+			PrefetchedChange prefetched = new PrefetchedChange(change);
+			// Over the limit the change is still read so that next() can return it, but its data is loaded on demand
+			if (prefetchedBytes.get() < maxPrefetchBytes && TableChangeType.ROW.equals(change.getChangeType()) && prefetchFilter.test(change)) {
+				prefetched.startLoad();
+			}
+			window.add(prefetched);
+		}
+	}
+
+	/**
+	 * Estimate the memory used by the given change.
+	 *
+	 * @param change
+	 * @return
+	 */
+	static long estimateSizeBytes(SparseChangeSet change) {
+		long size = 0;
+		for (SparseRow row : change.rowIterator()) {
+			size += ROW_OVERHEAD_BYTES;
+			for (ColumnModel column : change.getSchema()) {
+				if (row.hasCellValue(column.getId())) {
+					String value = row.getCellValue(column.getId());
+					size += CELL_OVERHEAD_BYTES + (value == null ? 0 : value.length() * 2L);
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * A change with its data possibly being loaded in the background.
+	 */
+	private final class PrefetchedChange implements TableChangeMetaData {
+
+		private final TableChangeMetaData wrapped;
+		private Future<ChangeData<SparseChangeSet>> loadedData;
+		// The bytes counted in prefetchedBytes for this change, set to 0 once released
+		private final AtomicLong reservedBytes = new AtomicLong();
+
+		private PrefetchedChange(TableChangeMetaData wrapped) {
+			this.wrapped = wrapped;
+		}
+
+		private void startLoad() {
+			long estimate = loadReservationBytes;
+			reservedBytes.set(estimate);
+			prefetchedBytes.addAndGet(estimate);
+			Callable<ChangeData<SparseChangeSet>> load = () -> {
+				try {
+					ChangeData<SparseChangeSet> data = wrapped.loadChangeData(SparseChangeSet.class);
+					long sizeBytes = estimateSizeBytes(data.getChange());
+					// Replace the reservation with the size of the data, unless the change was released (e.g. cancelled) in the meantime
+					if (reservedBytes.compareAndSet(estimate, sizeBytes)) {
+						prefetchedBytes.addAndGet(sizeBytes - estimate);
+					}
+					return data;
+				} catch (Exception e) {
+					// The load failed or was cancelled, its data will never be consumed
+					release();
+					throw e;
+				}
+			};
+			loadedData = threadPool.submit(load);
+		}
+
+		private void cancel() {
+			if (loadedData != null) {
+				loadedData.cancel(true);
+				// A load that did not start yet never runs, a load in flight no longer counts its data once released
+				release();
+			}
+		}
+
+		private void release() {
+			prefetchedBytes.addAndGet(-reservedBytes.getAndSet(0));
+		}
+
+		@Override
+		public Long getChangeNumber() {
+			return wrapped.getChangeNumber();
+		}
+
+		@Override
+		public TableChangeType getChangeType() {
+			return wrapped.getChangeType();
+		}
+
+		@Override
+		public String getETag() {
+			return wrapped.getETag();
+		}
+
+		@Override
+		public <T extends TableChange> ChangeData<T> loadChangeData(Class<T> clazz) throws NotFoundException, IOException {
+			if (loadedData == null) {
+				return wrapped.loadChangeData(clazz);
+			}
+			ChangeData<SparseChangeSet> data;
+			try {
+				data = loadedData.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new RuntimeException(cause);
+			} finally {
+				// The data is now owned by the caller (or was never loaded)
+				release();
+			}
+			return new ChangeData<>(data.getChangeNumber(), clazz.cast(data.getChange()));
+		}
+
+	}
+
+}
@@ -0,0 +1,195 @@
+package org.sagebionetworks.repo.manager.webhook;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.util.Clock;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps track of the requests in flight to each webhook endpoint so that a slow
+ * or failing endpoint cannot take all the delivery capacity:
+ * <ul>
+ * <li>No more than {@value #MAX_IN_FLIGHT_PER_ENDPOINT} requests can be in
+ * flight to the same endpoint.</li>
+ * <li>After {@value #FAILURE_THRESHOLD} consecutive failures the circuit of the
+ * endpoint opens and no request is sent for {@link #OPEN_CIRCUIT_DURATION}.
+ * Once that time elapsed a single trial request is let through, its success
+ * closes the circuit while a failure keeps it open for another period.</li>
+ * </ul>
+ * A request that cannot be sent should be retried later. Each request that is
+ * sent holds a {@link Permit}, so that only the release of the trial request
+ * lets another trial request through.
+ */
+@Service
+public class WebhookEndpointGuard {
+
+	private static final Logger LOG = LogManager.getLogger(WebhookEndpointGuard.class);
+
+	static final int MAX_IN_FLIGHT_PER_ENDPOINT = 10;
+	static final int FAILURE_THRESHOLD = 5;
+	static final Duration OPEN_CIRCUIT_DURATION = Duration.ofSeconds(10);
+
+	private Clock clock;
+
+	private ConcurrentHashMap<String, EndpointState> states = new ConcurrentHashMap<>();
+
+	public WebhookEndpointGuard(Clock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * Attempt to acquire a slot to send a request to the given endpoint, if
+	 * acquired the slot must be released with {@link #release(Permit, boolean)}
+	 * once the request completes.
+	 *
+	 * @param endpoint
+	 * @return The permit to send a request to the endpoint, empty if the endpoint
+	 *         has too many requests in flight or its circuit is open
+	 */
+	public Optional<Permit> tryAcquire(String endpoint) {
+		Permit[] permit = new Permit[1];
+		states.compute(endpoint, (key, existing) -> {
+			EndpointState state = existing == null ? new EndpointState() : existing;
+			permit[0] = state.tryAcquire(endpoint, clock.currentTimeMillis());
+			return state;
+		});
+		return Optional.ofNullable(permit[0]);
+	}
+
+	/**
+	 * Release the slot acquired for a request.
+	 *
+	 * @param permit The permit returned by {@link #tryAcquire(String)}
+	 * @param failed True if the endpoint failed to process the request (e.g. a
+	 *               timeout or a server error)
+	 */
+	public void release(Permit permit, boolean failed) {
+		String endpoint = permit.getEndpoint();
+		states.computeIfPresent(endpoint, (key, state) -> {
+			if (state.release(clock.currentTimeMillis(), permit.isTrial(), failed)) {
+				LOG.warn("The circuit of the webhook endpoint {} is open after {} consecutive failures.", endpoint, state.consecutiveFailures);
+			}
+			// Idle endpoints are removed so that the map only contains the active or failing endpoints
+			return state.isIdle() ? null : state;
+		});
+	}
+
+	/**
+	 * @param endpoint
+	 * @return The time in milliseconds before the open circuit of the given
+	 *         endpoint lets a trial request through, 0 if the circuit is not open
+	 *         or if that time already elapsed
+	 */
+	public long getOpenCircuitRemainingMs(String endpoint) {
+		long[] remainingMs = new long[1];
+		states.computeIfPresent(endpoint, (key, state) -> {
+			remainingMs[0] = state.getOpenCircuitRemainingMs(clock.currentTimeMillis());
+			return state;
+		});
+		return remainingMs[0];
+	}
+
+	/**
+	 * @param endpoint
+	 * @return True if the circuit of the given endpoint is currently open
+	 */
+	public boolean isCircuitOpen(String endpoint) {
+		EndpointState state = states.get(endpoint);
+		return state != null && state.consecutiveFailures >= FAILURE_THRESHOLD;
+	}
+
+	/**
+	 * The slot acquired to send a single request to an endpoint.
+	 */
+	public static final class Permit {
+
+		private final String endpoint;
+		private final boolean trial;
+
+		Permit(String endpoint, boolean trial) {
+			this.endpoint = endpoint;
+			this.trial = trial;
+		}
+
+		public String getEndpoint() {
+			return endpoint;
+		}
+
+		/**
+		 * @return True if this is the trial request of an open circuit
+		 */
+		public boolean isTrial() {
+			return trial;
+		}
+	}
+
+	/**
+	 * The state of a single endpoint, only accessed within the atomic compute
+	 * methods of the map.
+	 */
+	private static final class EndpointState {
+
+		private int inFlight = 0;
+		private int consecutiveFailures = 0;
+		private long openUntil = 0;
+		private boolean trialInFlight = false;
+
+		/**
+		 * @return The acquired permit, null if a request cannot be sent
+		 */
+		Permit tryAcquire(String endpoint, long now) {
+			boolean trial = false;
+			if (consecutiveFailures >= FAILURE_THRESHOLD) {
+				if (now < openUntil || trialInFlight) {
+					return null;
+				}
+				// Half open, a single request is let through to check if the endpoint recovered
+				trialInFlight = true;
+				trial = true;
+			} else if (inFlight >= MAX_IN_FLIGHT_PER_ENDPOINT) {
+				return null;
+			}
+			inFlight++;
+			return new Permit(endpoint, trial);
+		}
+
+		/**
+		 * @return True if this release opened the circuit
+		 */
+		boolean release(long now, boolean trial, boolean failed) {
+			inFlight = Math.max(0, inFlight - 1);
+			// The requests sent before the circuit opened do not end the trial
+			if (trial) {
+				trialInFlight = false;
+			}
+			if (!failed) {
+				consecutiveFailures = 0;
+				openUntil = 0;
+				return false;
+			}
+			consecutiveFailures++;
+			if (consecutiveFailures >= FAILURE_THRESHOLD) {
+				boolean opened = openUntil == 0;
+				openUntil = now + OPEN_CIRCUIT_DURATION.toMillis();
+				return opened;
+			}
+			return false;
+		}
+
+		long getOpenCircuitRemainingMs(long now) {
+			if (consecutiveFailures < FAILURE_THRESHOLD) {
+				return 0;
+			}
+			return Math.max(0, openUntil - now);
+		}
+
+		boolean isIdle() {
+			return inFlight == 0 && consecutiveFailures == 0;
+		}
+	}
+
+}
@@ -14,7 +14,9 @@ import java.time.Duration;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -26,6 +28,7 @@ import org.sagebionetworks.repo.manager.oauth.OIDCTokenManager;
 import org.sagebionetworks.repo.model.AuthorizationConstants;
 import org.sagebionetworks.repo.model.webhook.WebhookVerificationStatus;
 import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.workers.util.aws.message.DelayedRecoverableMessageException;
 import org.sagebionetworks.workers.util.aws.message.RecoverableMessageException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -72,6 +75,7 @@ public class WebhookMessageDispatcher {
 	private WebhookManager manager;
 	private OIDCTokenManager tokenManager;
 	private WebhookMetricsCollector metricsCollector;
+	private WebhookEndpointGuard endpointGuard;
 	private HttpClient webhookHttpClient;
 	private Clock clock;
 
@@ -79,10 +83,11 @@ public class WebhookMessageDispatcher {
 	private String userAgent;
 	private String tokenIssuer;
 
-	public WebhookMessageDispatcher(WebhookManager manager, OIDCTokenManager tokenManager, WebhookMetricsCollector metricsCollector, @Qualifier("webhookHttpClient") HttpClient webhookHttpClient, Clock clock) {
+	public WebhookMessageDispatcher(WebhookManager manager, OIDCTokenManager tokenManager, WebhookMetricsCollector metricsCollector, WebhookEndpointGuard endpointGuard, @Qualifier("webhookHttpClient") HttpClient webhookHttpClient, Clock clock) {
 		this.manager = manager;
 		this.tokenManager = tokenManager;
 		this.metricsCollector = metricsCollector;
+		this.endpointGuard = endpointGuard;
 		this.webhookHttpClient = webhookHttpClient;
 		this.clock = clock;
 	}
@@ -93,7 +98,18 @@ public class WebhookMessageDispatcher {
 		this.tokenIssuer = "https://repo-prod." + config.getStack() + ".sagebase.org/auth/v1";
 	}
 
-	public void dispatchMessage(Message message) {
+	/**
+	 * Sends the given webhook message to its endpoint without waiting for the
+	 * response.
+	 * 
+	 * @param message
+	 * @return A future that completes once the response is received and processed,
+	 *         it completes exceptionally with a {@link RecoverableMessageException}
+	 *         if the message should be sent again later
+	 * @throws RecoverableMessageException If the message cannot be sent at this
+	 *                                     time
+	 */
+	public CompletableFuture<Void> dispatchMessage(Message message) {
 		WebhookMessageAttributes attributes = new WebhookMessageAttributes(message.getMessageAttributes());
 		
 		if (attributes.isVerification()) {
@@ -118,46 +134,88 @@ public class WebhookMessageDispatcher {
 			.POST(BodyPublishers.ofString(message.getBody()))
 			.build();
 		
-		sendWebhookRequest(attributes, request);
+		return sendWebhookRequest(attributes, request);
 				
 	}
 	
-	void sendWebhookRequest(WebhookMessageAttributes attributes, HttpRequest request) {
-		long start = clock.currentTimeMillis();
+	CompletableFuture<Void> sendWebhookRequest(WebhookMessageAttributes attributes, HttpRequest request) {
+		String endpoint = attributes.getWebhookEndpoint();
+		
+		// A slow or failing endpoint should not take the capacity needed to deliver the messages of other endpoints
+		Optional<WebhookEndpointGuard.Permit> acquiredPermit = endpointGuard.tryAcquire(endpoint);
+		
+		if (acquiredPermit.isEmpty()) {
+			LOG.debug("The {} request (WebhookId: {}, MessageId: {}, Endpoint: {}) was postponed, the endpoint has too many requests in flight or is failing.", attributes.getMessageType(), attributes.getWebhookId(), attributes.getMessageId(), endpoint);
+			long openCircuitMs = endpointGuard.getOpenCircuitRemainingMs(endpoint);
+			if (openCircuitMs > 0) {
+				// The message would be rejected again until the circuit lets a request through
+				throw new DelayedRecoverableMessageException("The webhook endpoint is not available.", (int) ((openCircuitMs + 999) / 1000));
+			}
+			throw new RecoverableMessageException("The webhook endpoint is not available.");
+		}
+		
+		WebhookEndpointGuard.Permit permit = acquiredPermit.get();
 		
-		CompletableFuture<HttpResponse<Void>> asyncResponse = webhookHttpClient.sendAsync(request, DISCARDING_BODY_HANDLER);
+		long start = clock.currentTimeMillis();
 		
-		final HttpResponse<Void> response;
+		CompletableFuture<HttpResponse<Void>> asyncResponse;
 		
 		try {
-			// We wait for the response so that the worker controls the level of concurrency to avoid exhausting resources
-			response = asyncResponse.get(REQUEST_TIMEOUT.getSeconds(), TimeUnit.SECONDS);
-		} catch (Throwable ex) {
-			LOG.warn("The {} request (WebhookId: {}, MessageId: {}, Endpoint: {}) failed exceptionally:", attributes.getMessageType(), attributes.getWebhookId(), attributes.getMessageId(), attributes.getWebhookEndpoint(), ex);
+			asyncResponse = webhookHttpClient.sendAsync(request, DISCARDING_BODY_HANDLER);
+		} catch (RuntimeException ex) {
+			endpointGuard.release(permit, false);
+			throw ex;
+		}
+		
+		// The response is processed when it is received, no thread waits for it. The timeout covers the reading of the body that is not bound by the request timeout
+		return asyncResponse.orTimeout(REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS).handle((response, ex) -> {
+			handleWebhookResponse(attributes, permit, clock.currentTimeMillis() - start, response, ex);
+			return null;
+		});
+	}
+	
+	/**
+	 * Process the response (or the exception) of a webhook request, releasing the permit acquired to send it.
+	 * 
+	 * @throws CompletionException Wrapping a {@link RecoverableMessageException} if the message should be sent again
+	 */
+	void handleWebhookResponse(WebhookMessageAttributes attributes, WebhookEndpointGuard.Permit permit, long runtimeMs, HttpResponse<Void> response, Throwable ex) {
+		if (ex != null) {
+			Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+			
+			LOG.warn("The {} request (WebhookId: {}, MessageId: {}, Endpoint: {}) failed exceptionally:", attributes.getMessageType(), attributes.getWebhookId(), attributes.getMessageId(), attributes.getWebhookEndpoint(), cause);
 			
-			metricsCollector.requestCompleted(attributes.getWebhookId(), clock.currentTimeMillis() - start, true);
+			endpointGuard.release(permit, true);
 			
-			updateVerificationStatus(attributes, false, null, ex);
+			metricsCollector.requestCompleted(attributes.getWebhookId(), runtimeMs, true);
 			
-			throw new RecoverableMessageException(ex);
-		} 
+			updateVerificationStatus(attributes, false, null, cause);
+			
+			throw new CompletionException(new RecoverableMessageException(cause));
+		}
 
 		HttpStatus status = HttpStatus.resolve(response.statusCode());
 		
 		if (ACCEPTED_HTTP_STATUS.contains(status)) {
-			metricsCollector.requestCompleted(attributes.getWebhookId(), clock.currentTimeMillis() - start, false);
+			endpointGuard.release(permit, false);
+			metricsCollector.requestCompleted(attributes.getWebhookId(), runtimeMs, false);
 			updateVerificationStatus(attributes, true, response, null);
 			return;
 		}
 		
 		LOG.warn("The {} request (WebhookId: {}, MessageId: {}, Endpoint: {}) failed with status: {}.", attributes.getMessageType(), attributes.getWebhookId(), attributes.getMessageId(), attributes.getWebhookEndpoint(), response.statusCode());
+		
+		boolean retry = RETRY_HTTP_STATUS.contains(status);
+		
+		// Only the statuses that we retry count toward opening the circuit, other statuses are caused by the configuration of the endpoint
+		endpointGuard.release(permit, retry);
 
-		metricsCollector.requestCompleted(attributes.getWebhookId(), clock.currentTimeMillis() - start, true);
+		metricsCollector.requestCompleted(attributes.getWebhookId(), runtimeMs, true);
 		
 		updateVerificationStatus(attributes, false, response, null);
 		
-		if (RETRY_HTTP_STATUS.contains(status)) {
-			throw new RecoverableMessageException();
+		if (retry) {
+			throw new CompletionException(new RecoverableMessageException());
 		}
 	}
 	
@@ -181,7 +239,7 @@ public class WebhookMessageDispatcher {
 				messageBuilder.append(" with status ").append(response.statusCode()).append(".");
 			} else if (ex != null) {
 				Throwable cause = ex;
-				if (ex instanceof ExecutionException) {
+				if (ex instanceof ExecutionException || ex instanceof CompletionException) {
 					cause = ex.getCause();
 				}
 				
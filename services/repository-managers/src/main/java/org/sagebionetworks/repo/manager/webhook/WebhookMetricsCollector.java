@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.sagebionetworks.StackConfiguration;
@@ -22,8 +23,17 @@ public class WebhookMetricsCollector {
 	static final String METRIC_REQ_COUNT = "requestsCount";
 	static final String METRIC_FAIL_COUNT = "failureCount";
 	static final String METRIC_RUNTIME = "runtime";
+	static final String METRIC_LATENCY = "latency";
 	static final String WEBHOOK_ID_ALL = "all";
 	
+	/**
+	 * The upper bounds of the buckets of the latency histogram, each request is
+	 * counted in the first bucket whose bound is greater or equal than its runtime
+	 * (or the last bucket). CloudWatch computes the latency percentiles from the
+	 * histogram.
+	 */
+	static final double[] LATENCY_BUCKETS_MS = { 5, 10, 20, 30, 50, 75, 100, 150, 200, 300, 500, 750, 1000, 1500, 2000, 3000, 5000, 10000 };
+	
 	private Consumer metricsClient;
 	private Clock clock;
 	private String namespace;
@@ -62,6 +72,7 @@ public class WebhookMetricsCollector {
 			.setMinimum(Double.POSITIVE_INFINITY)
 			.setMaximum(Double.NEGATIVE_INFINITY)
 		);
+		ProfileData allLatency = WebhookMetrics.profileData(timestamp, namespace, METRIC_LATENCY, WEBHOOK_ID_ALL).setUnit(StandardUnit.Milliseconds.name()).setValueCounts(new TreeMap<>());
 		
 		metrics.keySet().forEach(webhookId -> {
 			WebhookMetrics webhookData = metrics.remove(webhookId);
@@ -70,7 +81,7 @@ public class WebhookMetricsCollector {
 				return;
 			}
 			
-			collectedMetrics.addAll(webhookData.toProfileData(timestamp, namespace, allRequests, allFailed, allRuntime));
+			collectedMetrics.addAll(webhookData.toProfileData(timestamp, namespace, allRequests, allFailed, allRuntime, allLatency));
 		});
 		
 		if (!collectedMetrics.isEmpty()) {
@@ -78,6 +89,7 @@ public class WebhookMetricsCollector {
 			collectedMetrics.add(allRequests);
 			collectedMetrics.add(allFailed);
 			collectedMetrics.add(allRuntime);
+			collectedMetrics.add(allLatency);
 			
 			metricsClient.addProfileData(collectedMetrics);
 			
@@ -102,6 +114,7 @@ public class WebhookMetricsCollector {
 		private double totalRuntime = 0;
 		private double minRuntime = Double.POSITIVE_INFINITY;
 		private double maxRuntime = Double.NEGATIVE_INFINITY;
+		private final long[] latencyCounts = new long[LATENCY_BUCKETS_MS.length];
 		
 		private WebhookMetrics(String webhookId) {
 			this.webhookId = webhookId;
@@ -115,11 +128,21 @@ public class WebhookMetricsCollector {
 			totalRuntime += runtimeMs;
 			minRuntime = Math.min(runtimeMs, minRuntime);
 			maxRuntime = Math.max(runtimeMs, maxRuntime);
+			latencyCounts[latencyBucket(runtimeMs)]++;
 			
 			return this;
 		}
 		
-		List<ProfileData> toProfileData(Date timestamp, String namespace, ProfileData requestAcc, ProfileData failureAcc, ProfileData runtimeAcc) {
+		static int latencyBucket(long runtimeMs) {
+			for (int i = 0; i < LATENCY_BUCKETS_MS.length - 1; i++) {
+				if (runtimeMs <= LATENCY_BUCKETS_MS[i]) {
+					return i;
+				}
+			}
+			return LATENCY_BUCKETS_MS.length - 1;
+		}
+		
+		List<ProfileData> toProfileData(Date timestamp, String namespace, ProfileData requestAcc, ProfileData failureAcc, ProfileData runtimeAcc, ProfileData latencyAcc) {
 			List<ProfileData> list = new ArrayList<>();
 			
 			list.add(profileData(timestamp, namespace, METRIC_REQ_COUNT, webhookId).setValue(totalCount));
@@ -133,6 +156,17 @@ public class WebhookMetricsCollector {
 			
 			list.add(profileData(timestamp, namespace, METRIC_RUNTIME, webhookId).setUnit(StandardUnit.Milliseconds.name()).setMetricStats(runtimeStats));			
 			
+			// Only the buckets with at least one request are sent
+			Map<Double, Double> latencyHistogram = new TreeMap<>();
+			for (int i = 0; i < latencyCounts.length; i++) {
+				if (latencyCounts[i] > 0) {
+					latencyHistogram.put(LATENCY_BUCKETS_MS[i], (double) latencyCounts[i]);
+					latencyAcc.getValueCounts().merge(LATENCY_BUCKETS_MS[i], (double) latencyCounts[i], Double::sum);
+				}
+			}
+			
+			list.add(profileData(timestamp, namespace, METRIC_LATENCY, webhookId).setUnit(StandardUnit.Milliseconds.name()).setValueCounts(latencyHistogram));
+			
 			requestAcc.setValue(requestAcc.getValue() + totalCount);
 			failureAcc.setValue(failureAcc.getValue() + failureCount);
 								
@@ -10,6 +10,7 @@ import org.sagebionetworks.repo.model.InvalidModelException;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.admin.ExpireQuarantinedEmailRequest;
+import org.sagebionetworks.repo.model.admin.MethodLatencyList;
 import org.sagebionetworks.repo.model.auth.LoginResponse;
 import org.sagebionetworks.repo.model.auth.NewIntegrationTestUser;
 import org.sagebionetworks.repo.model.feature.Feature;
@@ -174,5 +175,13 @@ public interface AdministrationService {
 	 * @param request
 	 */
 	void expireQuarantinedEmail(Long userId, ExpireQuarantinedEmailRequest request);
+	
+	/**
+	 * Get the latency percentiles of the methods sampled by the profiler on this instance
+	 * 
+	 * @param userId
+	 * @return
+	 */
+	MethodLatencyList getMethodLatencies(Long userId);
 
 }
@@ -3,8 +3,12 @@ package org.sagebionetworks.repo.service;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.sagebionetworks.ids.IdGenerator;
+import org.sagebionetworks.profiler.LatencyHistogram;
+import org.sagebionetworks.profiler.MethodLatencyProfiler;
 import org.sagebionetworks.repo.manager.AuthenticationManager;
 import org.sagebionetworks.repo.manager.SemaphoreManager;
 import org.sagebionetworks.repo.manager.UserManager;
@@ -19,6 +23,8 @@ import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.admin.ExpireQuarantinedEmailRequest;
+import org.sagebionetworks.repo.model.admin.MethodLatency;
+import org.sagebionetworks.repo.model.admin.MethodLatencyList;
 import org.sagebionetworks.repo.model.auth.LoginResponse;
 import org.sagebionetworks.repo.model.auth.NewIntegrationTestUser;
 import org.sagebionetworks.repo.model.auth.NewUser;
@@ -88,6 +94,9 @@ public class AdministrationServiceImpl implements AdministrationService  {
 	
 	@Autowired
 	private EmailQuarantineDao emailQuarantineDao;
+	
+	@Autowired
+	private MethodLatencyProfiler methodLatencyProfiler;
 
 	/* (non-Javadoc)
 	 * @see org.sagebionetworks.repo.web.service.AdministrationService#getStackStatus(java.lang.String, org.springframework.http.HttpHeaders, javax.servlet.http.HttpServletRequest)
@@ -254,5 +263,31 @@ public class AdministrationServiceImpl implements AdministrationService  {
 		
 		emailQuarantineDao.expireQuarantinedEmail(request.getEmail());		
 	}
+	
+	@Override
+	public MethodLatencyList getMethodLatencies(Long userId) {
+		adminCheck(userId);
+		
+		List<MethodLatency> latencies = methodLatencyProfiler.getSnapshots().entrySet().stream()
+				.map(entry -> toMethodLatency(entry.getKey(), entry.getValue()))
+				.collect(Collectors.toList());
+		
+		return new MethodLatencyList()
+				.setSamplingRate((long) methodLatencyProfiler.getSamplingRate())
+				.setList(latencies);
+	}
+	
+	static MethodLatency toMethodLatency(String methodName, LatencyHistogram.Snapshot snapshot) {
+		return new MethodLatency()
+				.setMethodName(methodName)
+				.setSampleCount(snapshot.getCount())
+				.setMinNanos(snapshot.getMin())
+				.setMaxNanos(snapshot.getMax())
+				.setMeanNanos(snapshot.getMean())
+				.setP50Nanos(snapshot.getValueAtPercentile(50))
+				.setP90Nanos(snapshot.getValueAtPercentile(90))
+				.setP99Nanos(snapshot.getValueAtPercentile(99))
+				.setP999Nanos(snapshot.getValueAtPercentile(99.9));
+	}
 
 }
@@ -200,6 +200,71 @@ public class UserManagerImplUnitTest {
 		assertTrue(userInfo.hasTwoFactorAuthEnabled());
 	}
 	
+	@Test
+	public void testGetUserInfoWithCachedState() {
+		Long principalId = 111L;
+		UserGroup principal = new UserGroup();
+		principal.setId(principalId.toString());
+		principal.setIsIndividual(true);
+		principal.setEtag("etag");
+		when(mockUserGroupDAO.get(principalId)).thenReturn(principal);
+		
+		UserGroup someGroup = new UserGroup();
+		someGroup.setIsIndividual(false);
+		someGroup.setId("222");
+		when(mockGroupMembersDAO.getUsersGroups(principalId.toString())).thenReturn(Collections.singletonList(someGroup));
+		when(mockAuthDAO.isTwoFactorAuthEnabled(anyLong())).thenReturn(true);
+		
+		UserInfo first = userManager.getUserInfo(principalId);
+		
+		// method under test
+		UserInfo second = userManager.getUserInfo(principalId);
+		
+		assertEquals(first.getGroups(), second.getGroups());
+		assertTrue(second.getGroups().contains(222L));
+		assertTrue(second.hasTwoFactorAuthEnabled());
+		
+		verify(mockUserGroupDAO, times(2)).get(principalId);
+		verify(mockGroupMembersDAO).getUsersGroups(principalId.toString());
+		verify(mockAuthDAO).isTwoFactorAuthEnabled(principalId);
+	}
+	
+	@Test
+	public void testGetUserInfoWithChangedEtag() {
+		Long principalId = 111L;
+		UserGroup principal = new UserGroup();
+		principal.setId(principalId.toString());
+		principal.setIsIndividual(true);
+		principal.setEtag("etag");
+		
+		UserGroup updatedPrincipal = new UserGroup();
+		updatedPrincipal.setId(principalId.toString());
+		updatedPrincipal.setIsIndividual(true);
+		updatedPrincipal.setEtag("updatedEtag");
+		
+		when(mockUserGroupDAO.get(principalId)).thenReturn(principal, updatedPrincipal);
+		
+		UserGroup someGroup = new UserGroup();
+		someGroup.setIsIndividual(false);
+		someGroup.setId("222");
+		when(mockGroupMembersDAO.getUsersGroups(principalId.toString())).thenReturn(Collections.singletonList(someGroup), Collections.emptyList());
+		when(mockAuthDAO.isTwoFactorAuthEnabled(anyLong())).thenReturn(true, false);
+		
+		UserInfo first = userManager.getUserInfo(principalId);
+		
+		assertTrue(first.getGroups().contains(222L));
+		assertTrue(first.hasTwoFactorAuthEnabled());
+		
+		// method under test
+		UserInfo second = userManager.getUserInfo(principalId);
+		
+		assertFalse(second.getGroups().contains(222L));
+		assertFalse(second.hasTwoFactorAuthEnabled());
+		
+		verify(mockGroupMembersDAO, times(2)).getUsersGroups(principalId.toString());
+		verify(mockAuthDAO, times(2)).isTwoFactorAuthEnabled(principalId);
+	}
+	
 	@Test
 	public void testCreateUserAdmin() throws Exception {
 		// Call with a non admin
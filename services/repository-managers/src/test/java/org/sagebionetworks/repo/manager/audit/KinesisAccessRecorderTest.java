@@ -43,14 +43,14 @@ public class KinesisAccessRecorderTest {
 		// Now fire the timer
 		recorder.timerFired();
 		// Get the saved record and check it
-		verify(mockAwsKinesisFirehoseLogger).logBatch(KinesisAccessRecorder.ACCESS_RECORD_STREAM, kinesisJsonEntityRecords);
+		verify(mockAwsKinesisFirehoseLogger).logBatchAsync(KinesisAccessRecorder.ACCESS_RECORD_STREAM, kinesisJsonEntityRecords);
 	}
 
 	@Test
 	public void testAwsKinesisFirehoseThrowException() throws IOException{
 		List<AccessRecord> toTest = createList(5, 100);
  		
-		doThrow(new IllegalArgumentException("test exception")).when(mockAwsKinesisFirehoseLogger).logBatch(any(),anyList());
+		doThrow(new IllegalArgumentException("test exception")).when(mockAwsKinesisFirehoseLogger).logBatchAsync(any(),anyList());
  		
  		List<KinesisJsonEntityRecord<AccessRecord>> kinesisJsonEntityRecords = toTest.stream()
  				.map( record -> new KinesisJsonEntityRecord<>(record.getTimestamp(), record, record.getStack(), record.getInstance()))
@@ -63,7 +63,7 @@ public class KinesisAccessRecorderTest {
 		// Now fire the timer
 		recorder.timerFired();
 		// Get the saved record and check it
-		verify(mockAwsKinesisFirehoseLogger).logBatch(KinesisAccessRecorder.ACCESS_RECORD_STREAM, kinesisJsonEntityRecords);
+		verify(mockAwsKinesisFirehoseLogger).logBatchAsync(KinesisAccessRecorder.ACCESS_RECORD_STREAM, kinesisJsonEntityRecords);
 	}
 	
 	private static List<AccessRecord> createList(int count, long startTimestamp){
@@ -121,6 +121,7 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.SdkClientException;
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.StorageClass;
@@ -3169,6 +3170,76 @@ public class FileHandleManagerImplTest {
 		
 	}
 
+	@Test
+	public void testUploadStream() throws IOException {
+		S3StorageLocationSetting storageLocationSetting = new S3StorageLocationSetting();
+		when(mockStorageLocationDao.get(any())).thenReturn(storageLocationSetting);
+		S3MultipartUploadOutputStream mockOut = mock(S3MultipartUploadOutputStream.class);
+		doReturn(mockOut).when(manager).createMultipartUploadOutputStream(any());
+		when(mockOut.getContentSize()).thenReturn(4L);
+		when(mockOut.getContentMd5()).thenReturn("md5");
+		when(mockIdGenerator.generateNewId(IdType.FILE_IDS)).thenReturn(987L);
+		when(mockFileHandleDao.createFile(any())).then(invocation -> invocation.getArgument(0));
+
+		LocalFileUploadRequest request = new LocalFileUploadRequest()
+				.withContentType("application/zip")
+				.withFileName("package.zip")
+				.withUserId("123");
+
+		// Call under test
+		Optional<S3FileHandle> result = manager.uploadStream(request, out -> {
+			out.write("data".getBytes(StandardCharsets.UTF_8));
+			return true;
+		});
+
+		ArgumentCaptor<InitiateMultipartUploadRequest> initiateCaptor = ArgumentCaptor.forClass(InitiateMultipartUploadRequest.class);
+		verify(manager).createMultipartUploadOutputStream(initiateCaptor.capture());
+		verify(mockOut).write("data".getBytes(StandardCharsets.UTF_8));
+		verify(mockOut).complete();
+		verify(mockOut).close();
+
+		S3FileHandle handle = result.get();
+		InitiateMultipartUploadRequest initiateRequest = initiateCaptor.getValue();
+		assertEquals(MultipartUtils.getBucket(storageLocationSetting), initiateRequest.getBucketName());
+		assertEquals(handle.getBucketName(), initiateRequest.getBucketName());
+		assertEquals(handle.getKey(), initiateRequest.getKey());
+		assertEquals("application/zip", initiateRequest.getObjectMetadata().getContentType());
+		assertEquals("987", handle.getId());
+		assertEquals("package.zip", handle.getFileName());
+		assertEquals("123", handle.getCreatedBy());
+		assertEquals(4L, handle.getContentSize());
+		assertEquals("md5", handle.getContentMd5());
+		verify(mockFileHandleDao).createFile(handle);
+	}
+
+	@Test
+	public void testUploadStreamWithDiscardedUpload() throws IOException {
+		when(mockStorageLocationDao.get(any())).thenReturn(new S3StorageLocationSetting());
+		S3MultipartUploadOutputStream mockOut = mock(S3MultipartUploadOutputStream.class);
+		doReturn(mockOut).when(manager).createMultipartUploadOutputStream(any());
+
+		LocalFileUploadRequest request = new LocalFileUploadRequest().withFileName("package.zip").withUserId("123");
+
+		// Call under test
+		Optional<S3FileHandle> result = manager.uploadStream(request, out -> false);
+
+		assertEquals(Optional.empty(), result);
+		// closing the stream aborts the upload
+		verify(mockOut).close();
+		verify(mockOut, never()).complete();
+		verify(mockFileHandleDao, never()).createFile(any());
+	}
+
+	@Test
+	public void testUploadStreamWithNoFileName() {
+		LocalFileUploadRequest request = new LocalFileUploadRequest().withUserId("123");
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			// Call under test
+			manager.uploadStream(request, out -> true);
+		});
+	}
+
 	private FileEvent getFileEvent(UserInfo user, Date timestamp, FileEventType fileHandleType, FileHandleAssociation fileHandleAssociation) {
 		FileEvent expectedFileEvent = FileEventUtils.buildFileEvent(fileHandleType, user.getId(), fileHandleAssociation, STACK, INSTANCE);
 		expectedFileEvent.setTimestamp(timestamp);
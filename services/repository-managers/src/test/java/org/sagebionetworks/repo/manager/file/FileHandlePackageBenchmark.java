@@ -0,0 +1,152 @@
+package org.sagebionetworks.repo.manager.file;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.repo.manager.AuthorizationManager;
+import org.sagebionetworks.repo.model.UserInfo;
+import org.sagebionetworks.repo.model.auth.AuthorizationStatus;
+import org.sagebionetworks.repo.model.dbo.file.FileHandleDao;
+import org.sagebionetworks.repo.model.file.BulkFileDownloadRequest;
+import org.sagebionetworks.repo.model.file.FileDownloadSummary;
+import org.sagebionetworks.repo.model.file.FileHandleAssociateType;
+import org.sagebionetworks.repo.model.file.FileHandleAssociation;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.repo.model.file.ZipFileFormat;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+
+/**
+ * JMH benchmark of the number of files per second packaged by the bulk
+ * download packager, with the temporary files of
+ * {@link FileHandlePackageManagerImpl#addFilesToZip} and with the streaming
+ * mode of {@link FileHandlePackageManagerImpl#streamFilesToZip}. S3 is replaced
+ * by an in-memory stub that waits s3LatencyMS before serving each object, the
+ * streamed zip is discarded instead of being uploaded. The name of the class
+ * keeps it out of the regular test run, run the main method from the test
+ * classpath (e.g. from an IDE or with exec:java and classpathScope=test).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FileHandlePackageBenchmark {
+
+	private static final int FILES_PER_PACKAGE = 100;
+
+	@Param({ "10240", "1048576" })
+	private int fileSizeBytes;
+
+	@Param({ "20" })
+	private long s3LatencyMS;
+
+	private ExecutorService threadPool;
+	private FileHandlePackageManagerImpl manager;
+	private UserInfo user;
+	private BulkFileDownloadRequest request;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		byte[] content = new byte[fileSizeBytes];
+		List<FileHandleAssociation> associations = new ArrayList<>(FILES_PER_PACKAGE);
+		List<FileHandleAssociationAuthorizationStatus> authResults = new ArrayList<>(FILES_PER_PACKAGE);
+		Map<String, S3FileHandle> fileHandles = new HashMap<>(FILES_PER_PACKAGE);
+		for (int i = 0; i < FILES_PER_PACKAGE; i++) {
+			String id = String.valueOf(i + 1);
+			FileHandleAssociation association = new FileHandleAssociation().setAssociateObjectId("syn" + id)
+					.setAssociateObjectType(FileHandleAssociateType.FileEntity).setFileHandleId(id);
+			associations.add(association);
+			authResults.add(new FileHandleAssociationAuthorizationStatus(association, AuthorizationStatus.authorized()));
+			fileHandles.put(id, new S3FileHandle().setId(id).setBucketName("bucket").setKey("key-" + id).setFileName("file" + id + ".txt")
+					.setContentSize((long) fileSizeBytes));
+		}
+		// The stubs do not record the invocations to keep the memory flat
+		SynapseS3Client s3Client = mock(SynapseS3Client.class, withSettings().stubOnly());
+		when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+			Thread.sleep(s3LatencyMS);
+			S3Object object = new S3Object();
+			object.setObjectContent(new ByteArrayInputStream(content));
+			return object;
+		});
+		doAnswer(invocation -> {
+			Thread.sleep(s3LatencyMS);
+			Files.write(((File) invocation.getArgument(1)).toPath(), content);
+			return new ObjectMetadata();
+		}).when(s3Client).getObject(any(GetObjectRequest.class), any(File.class));
+		FileHandleDao fileHandleDao = mock(FileHandleDao.class, withSettings().stubOnly());
+		when(fileHandleDao.get(any())).thenAnswer(invocation -> fileHandles.get(invocation.getArgument(0)));
+		AuthorizationManager authorizationManager = mock(AuthorizationManager.class, withSettings().stubOnly());
+		when(authorizationManager.canDownLoadFile(any(), any())).thenReturn(authResults);
+
+		threadPool = Executors.newCachedThreadPool();
+		manager = new FileHandlePackageManagerImpl(fileHandleDao, s3Client, authorizationManager, null, null, null, null, threadPool,
+				null, null);
+		user = new UserInfo(false, 123L);
+		request = new BulkFileDownloadRequest().setZipFileFormat(ZipFileFormat.Flat).setRequestedFiles(associations);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		threadPool.shutdownNow();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILES_PER_PACKAGE)
+	public List<FileDownloadSummary> packageWithTempFiles() throws IOException {
+		File zipFile = manager.createTempFile("Benchmark", ".zip");
+		try {
+			return manager.addFilesToZip(user, request, zipFile, false);
+		} finally {
+			zipFile.delete();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILES_PER_PACKAGE)
+	public List<FileDownloadSummary> packageWithStreaming() throws IOException {
+		return manager.streamFilesToZip(user, request, NullOutputStream.NULL_OUTPUT_STREAM, false);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FileHandlePackageBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -1,6 +1,8 @@
 package org.sagebionetworks.repo.manager.file;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 import com.google.common.collect.Sets;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,11 +16,15 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.manager.AuthorizationManager;
+import org.sagebionetworks.repo.manager.feature.FeatureManager;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.auth.AuthorizationStatus;
 import org.sagebionetworks.repo.model.auth.CallersContext;
 import org.sagebionetworks.repo.model.dbo.file.FileHandleDao;
+import org.sagebionetworks.repo.model.feature.Feature;
 import org.sagebionetworks.repo.model.file.BulkFileDownloadRequest;
 import org.sagebionetworks.repo.model.file.BulkFileDownloadResponse;
 import org.sagebionetworks.repo.model.file.ExternalFileHandle;
@@ -35,32 +41,49 @@ import org.sagebionetworks.repo.model.file.ZipFileFormat;
 import org.sagebionetworks.repo.model.jdo.NameValidation;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.util.Clock;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -93,6 +116,16 @@ public class FileHandlePackageManagerImplTest {
 	private TransactionalMessenger messenger;
 	@Mock
 	StackConfiguration mockStackConfig;
+	@Mock
+	private FeatureManager mockFeatureManager;
+	@Mock
+	private ExecutorService mockThreadPool;
+	@Mock
+	private Consumer mockConsumer;
+	@Mock
+	private Clock mockClock;
+	@Captor
+	private ArgumentCaptor<List<ProfileData>> metricsCaptor;
 	@Captor
 	private ArgumentCaptor<Set<String>> filesInZipCaptor;
 	@Captor
@@ -768,4 +801,208 @@ public class FileHandlePackageManagerImplTest {
 		assertNotNull(provider);
 		assertTrue(provider instanceof CommandLineCacheZipEntryNameProvider);
 	}
+
+	@Test
+	public void testBuildZipWithStreaming() throws IOException {
+		when(mockFeatureManager.isFeatureEnabled(Feature.USE_STREAMING_BULK_DOWNLOAD_PACKAGER)).thenReturn(true);
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 3000L);
+		when(mockClock.now()).thenReturn(new Date(3000L));
+		when(mockStackConfig.getStackInstance()).thenReturn(INSTANCE);
+		doReturn(summaryResults).when(fileHandleSupportSpy).streamFilesToZip(any(), any(), any(), anyBoolean());
+		doNothing().when(fileHandleSupportSpy).collectDownloadStatistics(any(), any(), any());
+		ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+		when(mockFileHandleManager.uploadStream(any(), any())).then(invocation -> {
+			UploadStreamWriter writer = invocation.getArgument(1);
+			assertTrue(writer.write(uploaded));
+			return Optional.of(resultFileHandle);
+		});
+
+		// call under test
+		BulkFileDownloadResponse response = fileHandleSupportSpy.buildZip(userInfo, request);
+
+		BulkFileDownloadResponse expected = new BulkFileDownloadResponse().setUserId(userInfo.getId().toString())
+				.setFileSummary(summaryResults).setResultZipFileHandleId(resultFileHandle.getId());
+		assertEquals(expected, response);
+		verify(mockFileHandleManager).uploadStream(eq(new LocalFileUploadRequest().withFileName(request.getZipFileName())
+				.withUserId(userInfo.getId().toString()).withContentType(FileHandlePackageManagerImpl.APPLICATION_ZIP)), any());
+		verify(fileHandleSupportSpy).streamFilesToZip(userInfo, request, uploaded, fileSizesChecked);
+		verify(fileHandleSupportSpy, never()).createTempFile(any(), any());
+		verify(fileHandleSupportSpy).collectDownloadStatistics(userInfo, resultFileHandle.getId(), summaryResults);
+
+		verify(mockConsumer).addProfileData(metricsCaptor.capture());
+		String namespace = FileHandlePackageManagerImpl.METRIC_NAMESPACE_PREFIX + INSTANCE;
+		List<ProfileData> expectedMetrics = Arrays.asList(
+				new ProfileData().setNamespace(namespace).setName(FileHandlePackageManagerImpl.METRIC_PACKAGE_SIZE)
+						.setValue(9999.0).setUnit(StandardUnit.Bytes.name()).setTimestamp(new Date(3000L)),
+				new ProfileData().setNamespace(namespace).setName(FileHandlePackageManagerImpl.METRIC_PACKAGE_FILE_COUNT)
+						.setValue(2.0).setUnit(StandardUnit.Count.name()).setTimestamp(new Date(3000L)),
+				new ProfileData().setNamespace(namespace).setName(FileHandlePackageManagerImpl.METRIC_PACKAGE_BUILD_TIME)
+						.setValue(2000.0).setUnit(StandardUnit.Milliseconds.name()).setTimestamp(new Date(3000L)),
+				new ProfileData().setNamespace(namespace).setName(FileHandlePackageManagerImpl.METRIC_PACKAGE_THROUGHPUT)
+						.setValue(4999.5).setUnit(StandardUnit.BytesSecond.name()).setTimestamp(new Date(3000L)));
+		assertEquals(expectedMetrics, metricsCaptor.getValue());
+	}
+
+	@Test
+	public void testBuildZipWithStreamingAndNoSuccess() throws IOException {
+		when(mockFeatureManager.isFeatureEnabled(Feature.USE_STREAMING_BULK_DOWNLOAD_PACKAGER)).thenReturn(true);
+		request.setZipFileName(null);
+		summaryResults = Arrays.asList(new FileDownloadSummary().setFileHandleId("11").setStatus(FileDownloadStatus.FAILURE));
+		doReturn(summaryResults).when(fileHandleSupportSpy).streamFilesToZip(any(), any(), any(), anyBoolean());
+		doNothing().when(fileHandleSupportSpy).collectDownloadStatistics(any(), any(), any());
+		when(mockFileHandleManager.uploadStream(any(), any())).then(invocation -> {
+			UploadStreamWriter writer = invocation.getArgument(1);
+			// The upload is discarded when no file was added
+			assertFalse(writer.write(new ByteArrayOutputStream()));
+			return Optional.empty();
+		});
+
+		// call under test
+		BulkFileDownloadResponse response = fileHandleSupportSpy.buildZip(userInfo, request);
+
+		BulkFileDownloadResponse expected = new BulkFileDownloadResponse().setUserId(userInfo.getId().toString())
+				.setFileSummary(summaryResults).setResultZipFileHandleId(null);
+		assertEquals(expected, response);
+		verify(mockFileHandleManager).uploadStream(eq(new LocalFileUploadRequest().withFileName(FileHandlePackageManagerImpl.DEFAULT_ZIP_FILE_NAME)
+				.withUserId(userInfo.getId().toString()).withContentType(FileHandlePackageManagerImpl.APPLICATION_ZIP)), any());
+		verify(fileHandleSupportSpy).collectDownloadStatistics(userInfo, null, summaryResults);
+		verify(mockConsumer, never()).addProfileData(any(List.class));
+	}
+
+	@Test
+	public void testStreamFilesToZip() throws IOException {
+		// S3 stand-in holding the content of each file
+		Map<String, String> s3Content = new HashMap<>();
+		S3FileHandle small = setupS3File("11", "small.txt", "small content", s3Content);
+		// larger than what can be downloaded ahead, so it is streamed from S3
+		S3FileHandle large = setupS3File("33", "large.txt", "large content", s3Content)
+				.setContentSize(FileHandlePackageManagerImpl.MAX_PREFETCH_FILE_BYTES + 1);
+		S3FileHandle other = setupS3File("44", "other.txt", "other content", s3Content);
+		when(mockFileHandleDao.get(any())).then(invocation -> {
+			String id = invocation.getArgument(0);
+			return Arrays.asList(small, large, other).stream().filter(h -> h.getId().equals(id)).findFirst()
+					.orElseThrow(() -> new NotFoundException("missing " + id));
+		});
+		when(mockS3client.getObject(any(GetObjectRequest.class))).then(invocation -> {
+			GetObjectRequest getRequest = invocation.getArgument(0);
+			S3Object object = new S3Object();
+			object.setObjectContent(new ByteArrayInputStream(s3Content.get(getRequest.getKey()).getBytes(StandardCharsets.UTF_8)));
+			return object;
+		});
+		doAnswer(invocation -> {
+			Callable<?> callable = invocation.getArgument(0);
+			return CompletableFuture.completedFuture(callable.call());
+		}).when(mockThreadPool).submit(any(Callable.class));
+
+		// @formatter:off
+		List<FileHandleAssociation> requested = Arrays.asList(
+				new FileHandleAssociation().setAssociateObjectId("syn1").setAssociateObjectType(FileEntity).setFileHandleId("11"),
+				new FileHandleAssociation().setAssociateObjectId("syn2").setAssociateObjectType(FileEntity).setFileHandleId("22"),
+				new FileHandleAssociation().setAssociateObjectId("syn3").setAssociateObjectType(FileEntity).setFileHandleId("33"),
+				new FileHandleAssociation().setAssociateObjectId("syn4").setAssociateObjectType(FileEntity).setFileHandleId("11"),
+				new FileHandleAssociation().setAssociateObjectId("syn5").setAssociateObjectType(FileEntity).setFileHandleId("55"),
+				new FileHandleAssociation().setAssociateObjectId("syn6").setAssociateObjectType(FileEntity).setFileHandleId("44")
+		);
+		authResults = Arrays.asList(
+				new FileHandleAssociationAuthorizationStatus(requested.get(0), AuthorizationStatus.authorized()),
+				new FileHandleAssociationAuthorizationStatus(requested.get(1), AuthorizationStatus.accessDenied("no")),
+				new FileHandleAssociationAuthorizationStatus(requested.get(2), AuthorizationStatus.authorized()),
+				new FileHandleAssociationAuthorizationStatus(requested.get(3), AuthorizationStatus.authorized()),
+				new FileHandleAssociationAuthorizationStatus(requested.get(4), AuthorizationStatus.authorized()),
+				new FileHandleAssociationAuthorizationStatus(requested.get(5), AuthorizationStatus.authorized())
+		);
+		// @formatter:on
+		request.setRequestedFiles(requested);
+		when(mockFileHandleAuthorizationManager.canDownLoadFile(any(), any())).thenReturn(authResults);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		fileSizesChecked = true;
+
+		// call under test
+		List<FileDownloadSummary> summary = fileHandleSupportSpy.streamFilesToZip(userInfo, request, out, fileSizesChecked);
+
+		// @formatter:off
+		List<FileDownloadSummary> expected = Arrays.asList(
+				createSummary(requested.get(0)).setStatus(FileDownloadStatus.SUCCESS).setZipEntryName("small.txt"),
+				createSummary(requested.get(1)).setStatus(FileDownloadStatus.FAILURE).setFailureMessage("no").setFailureCode(FileDownloadCode.UNAUTHORIZED),
+				createSummary(requested.get(2)).setStatus(FileDownloadStatus.SUCCESS).setZipEntryName("large.txt"),
+				createSummary(requested.get(3)).setStatus(FileDownloadStatus.FAILURE).setFailureMessage(FILE_ALREADY_ADDED).setFailureCode(FileDownloadCode.DUPLICATE),
+				createSummary(requested.get(4)).setStatus(FileDownloadStatus.FAILURE).setFailureMessage("missing 55").setFailureCode(FileDownloadCode.NOT_FOUND),
+				createSummary(requested.get(5)).setStatus(FileDownloadStatus.SUCCESS).setZipEntryName("other.txt")
+		);
+		// @formatter:on
+		assertEquals(expected, summary);
+
+		// The entries are written in the order of the request
+		try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			for (S3FileHandle handle : Arrays.asList(small, large, other)) {
+				ZipEntry entry = zipIn.getNextEntry();
+				assertEquals(handle.getFileName(), entry.getName());
+				assertEquals(s3Content.get(handle.getKey()), IOUtils.toString(zipIn, StandardCharsets.UTF_8));
+			}
+			assertNull(zipIn.getNextEntry());
+		}
+		// Only the small files are downloaded ahead
+		verify(mockThreadPool, times(2)).submit(any(Callable.class));
+		// Each file is only looked up once
+		verify(mockFileHandleDao).get("11");
+		verify(mockFileHandleDao).get("33");
+		verify(mockFileHandleDao).get("44");
+		verify(mockS3client, times(3)).getObject(any(GetObjectRequest.class));
+	}
+
+	@Test
+	public void testStreamFilesToZipWithFileOverMaxSize() throws IOException {
+		S3FileHandle tooLarge = new S3FileHandle().setId("11").setBucketName("bucket").setKey("key").setFileName("big.txt")
+				.setContentSize(FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES + 1);
+		when(mockFileHandleDao.get("11")).thenReturn(tooLarge);
+		authResults = Arrays.asList(
+				new FileHandleAssociationAuthorizationStatus(associations.get(0), AuthorizationStatus.authorized()));
+		when(mockFileHandleAuthorizationManager.canDownLoadFile(any(), any())).thenReturn(authResults);
+
+		// call under test
+		List<FileDownloadSummary> summary = fileHandleSupportSpy.streamFilesToZip(userInfo, request, new ByteArrayOutputStream(), fileSizesChecked);
+
+		List<FileDownloadSummary> expected = Arrays.asList(createSummary(associations.get(0)).setStatus(FileDownloadStatus.FAILURE)
+				.setFailureMessage(FILE_EXCEEDS_THE_MAXIMUM_SIZE_LIMIT).setFailureCode(FileDownloadCode.EXCEEDS_SIZE_LIMIT));
+		assertEquals(expected, summary);
+		verify(mockThreadPool, never()).submit(any(Callable.class));
+		verify(mockS3client, never()).getObject(any(GetObjectRequest.class));
+	}
+
+	@Test
+	public void testStreamFilesToZipWithFailureWhileCopying() throws IOException {
+		// Streamed from S3 when its entry is written
+		S3FileHandle large = new S3FileHandle().setId("11").setBucketName("bucket").setKey("key").setFileName("large.txt")
+				.setContentSize(FileHandlePackageManagerImpl.MAX_PREFETCH_FILE_BYTES + 1);
+		when(mockFileHandleDao.get("11")).thenReturn(large);
+		// The connection is lost after part of the content was read
+		InputStream failingContent = new SequenceInputStream(new ByteArrayInputStream("partial content".getBytes(StandardCharsets.UTF_8)),
+				new InputStream() {
+					@Override
+					public int read() throws IOException {
+						throw new IOException("Connection reset");
+					}
+				});
+		S3Object object = new S3Object();
+		object.setObjectContent(failingContent);
+		when(mockS3client.getObject(any(GetObjectRequest.class))).thenReturn(object);
+		authResults = Arrays.asList(
+				new FileHandleAssociationAuthorizationStatus(associations.get(0), AuthorizationStatus.authorized()));
+		when(mockFileHandleAuthorizationManager.canDownLoadFile(any(), any())).thenReturn(authResults);
+
+		String message = assertThrows(IOException.class, () -> {
+			// call under test
+			fileHandleSupportSpy.streamFilesToZip(userInfo, request, new ByteArrayOutputStream(), fileSizesChecked);
+		}).getMessage();
+
+		// The package is aborted instead of keeping a truncated entry
+		assertEquals("Failed to write large.txt to the package: Connection reset", message);
+	}
+
+	S3FileHandle setupS3File(String id, String fileName, String content, Map<String, String> s3Content) {
+		String key = "key-" + id;
+		s3Content.put(key, content);
+		return new S3FileHandle().setId(id).setBucketName("bucket").setKey(key).setFileName(fileName)
+				.setContentSize((long) content.length());
+	}
 }
@@ -0,0 +1,161 @@
+package org.sagebionetworks.repo.manager.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+
+@ExtendWith(MockitoExtension.class)
+public class PackageFilePrefetcherTest {
+
+	@Mock
+	private SynapseS3Client mockS3Client;
+	@Mock
+	private ExecutorService mockThreadPool;
+	@Mock
+	private Future<Object> mockFuture;
+
+	private PackageFilePrefetcher prefetcher;
+	private S3FileHandle one;
+	private S3FileHandle two;
+	private S3FileHandle three;
+
+	@BeforeEach
+	public void before() {
+		// at most two files and 10 bytes ahead, files up to 6 bytes
+		prefetcher = new PackageFilePrefetcher(mockS3Client, mockThreadPool, 2, 10L, 6L);
+		one = new S3FileHandle().setId("1").setBucketName("bucket").setKey("one").setContentSize(5L);
+		two = new S3FileHandle().setId("2").setBucketName("bucket").setKey("two").setContentSize(5L);
+		three = new S3FileHandle().setId("3").setBucketName("bucket").setKey("three").setContentSize(1L);
+	}
+
+	void setupS3Content() {
+		when(mockS3Client.getObject(any(GetObjectRequest.class))).then(invocation -> {
+			GetObjectRequest request = invocation.getArgument(0);
+			S3Object object = new S3Object();
+			object.setObjectContent(new ByteArrayInputStream(request.getKey().getBytes(StandardCharsets.UTF_8)));
+			return object;
+		});
+	}
+
+	void setupThreadPool() {
+		doAnswer(invocation -> {
+			Callable<?> callable = invocation.getArgument(0);
+			return CompletableFuture.completedFuture(callable.call());
+		}).when(mockThreadPool).submit(any(Callable.class));
+	}
+
+	@Test
+	public void testPrefetchAndOpen() throws IOException {
+		setupS3Content();
+		setupThreadPool();
+
+		// call under test
+		assertTrue(prefetcher.prefetch(one));
+		assertTrue(prefetcher.prefetch(two));
+		// over the count and byte limits
+		assertFalse(prefetcher.prefetch(three));
+		assertEquals(10L, prefetcher.getPrefetchedBytes());
+
+		try (InputStream in = prefetcher.openContent(one)) {
+			assertEquals("one", IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+		assertEquals(5L, prefetcher.getPrefetchedBytes());
+		// there is room again
+		assertTrue(prefetcher.prefetch(three));
+		try (InputStream in = prefetcher.openContent(two)) {
+			assertEquals("two", IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+		try (InputStream in = prefetcher.openContent(three)) {
+			assertEquals("three", IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+		assertEquals(0L, prefetcher.getPrefetchedBytes());
+		verify(mockThreadPool, times(3)).submit(any(Callable.class));
+		verify(mockS3Client, times(3)).getObject(any(GetObjectRequest.class));
+	}
+
+	@Test
+	public void testPrefetchWithLargeFile() throws IOException {
+		setupS3Content();
+		S3FileHandle large = new S3FileHandle().setId("4").setBucketName("bucket").setKey("large").setContentSize(7L);
+
+		// call under test
+		assertTrue(prefetcher.prefetch(large));
+		assertEquals(0L, prefetcher.getPrefetchedBytes());
+		verify(mockThreadPool, never()).submit(any(Callable.class));
+
+		// The content is streamed from S3
+		try (InputStream in = prefetcher.openContent(large)) {
+			assertEquals("large", IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+		verify(mockS3Client).getObject(any(GetObjectRequest.class));
+	}
+
+	@Test
+	public void testPrefetchWithSameFile() {
+		setupS3Content();
+		setupThreadPool();
+
+		assertTrue(prefetcher.prefetch(one));
+		// call under test
+		assertTrue(prefetcher.prefetch(one));
+
+		assertEquals(5L, prefetcher.getPrefetchedBytes());
+		verify(mockThreadPool).submit(any(Callable.class));
+	}
+
+	@Test
+	public void testOpenContentWithFailedDownload() {
+		IOException exception = new IOException("failed");
+		when(mockThreadPool.submit(any(Callable.class))).thenReturn(CompletableFuture.failedFuture(exception));
+		prefetcher.prefetch(one);
+
+		IOException result = assertThrows(IOException.class, () -> {
+			// call under test
+			prefetcher.openContent(one);
+		});
+		assertSame(exception, result);
+		assertEquals(0L, prefetcher.getPrefetchedBytes());
+	}
+
+	@Test
+	public void testClose() {
+		when(mockThreadPool.submit(any(Callable.class))).thenReturn(mockFuture);
+		prefetcher.prefetch(one);
+		prefetcher.prefetch(two);
+
+		// call under test
+		prefetcher.close();
+
+		verify(mockFuture, times(2)).cancel(true);
+		assertEquals(0L, prefetcher.getPrefetchedBytes());
+	}
+}
@@ -0,0 +1,162 @@
+package org.sagebionetworks.repo.manager.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.aws.SynapseS3Client;
+
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+@ExtendWith(MockitoExtension.class)
+public class S3MultipartUploadOutputStreamTest {
+
+	@Mock
+	private SynapseS3Client mockS3Client;
+	@Captor
+	private ArgumentCaptor<CompleteMultipartUploadRequest> completeCaptor;
+	@Captor
+	private ArgumentCaptor<AbortMultipartUploadRequest> abortCaptor;
+
+	private InitiateMultipartUploadRequest initiateRequest;
+	private S3MultipartUploadOutputStream out;
+	private List<byte[]> uploadedParts;
+
+	@BeforeEach
+	public void before() {
+		initiateRequest = new InitiateMultipartUploadRequest("bucket", "key", new ObjectMetadata());
+		out = new S3MultipartUploadOutputStream(mockS3Client, initiateRequest, S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES);
+		uploadedParts = new ArrayList<>();
+	}
+
+	void setupUpload() {
+		InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+		initiateResult.setUploadId("uploadId");
+		when(mockS3Client.initiateMultipartUpload(initiateRequest)).thenReturn(initiateResult);
+		when(mockS3Client.uploadPart(any())).then(invocation -> {
+			UploadPartRequest request = invocation.getArgument(0);
+			assertEquals("bucket", request.getBucketName());
+			assertEquals("key", request.getKey());
+			assertEquals("uploadId", request.getUploadId());
+			byte[] part = IOUtils.toByteArray(request.getInputStream());
+			assertEquals(request.getPartSize(), part.length);
+			uploadedParts.add(part);
+			UploadPartResult result = new UploadPartResult();
+			result.setPartNumber(request.getPartNumber());
+			result.setETag("etag-" + request.getPartNumber());
+			return result;
+		});
+	}
+
+	@Test
+	public void testWriteAndComplete() throws IOException {
+		setupUpload();
+		byte[] data = new byte[S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES * 2 + 10];
+		Arrays.fill(data, (byte) 7);
+
+		// call under test
+		out.write(data, 0, 100);
+		out.write(data, 100, data.length - 101);
+		out.write(data[data.length - 1]);
+		out.complete();
+		out.close();
+
+		assertEquals(3, uploadedParts.size());
+		assertEquals(S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES, uploadedParts.get(0).length);
+		assertEquals(S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES, uploadedParts.get(1).length);
+		assertEquals(10, uploadedParts.get(2).length);
+		assertEquals(data.length, out.getContentSize());
+		assertEquals(DigestUtils.md5Hex(data), out.getContentMd5());
+
+		verify(mockS3Client).initiateMultipartUpload(initiateRequest);
+		verify(mockS3Client).completeMultipartUpload(completeCaptor.capture());
+		CompleteMultipartUploadRequest complete = completeCaptor.getValue();
+		assertEquals("uploadId", complete.getUploadId());
+		assertEquals(Arrays.asList(1, 2, 3), complete.getPartETags().stream().map(PartETag::getPartNumber).collect(Collectors.toList()));
+		verify(mockS3Client, never()).abortMultipartUpload(any());
+	}
+
+	@Test
+	public void testCompleteWithSmallContent() throws IOException {
+		setupUpload();
+		byte[] data = "small".getBytes();
+
+		// call under test
+		out.write(data);
+		out.complete();
+
+		assertEquals(1, uploadedParts.size());
+		assertArrayEquals(data, uploadedParts.get(0));
+		verify(mockS3Client).completeMultipartUpload(any());
+	}
+
+	@Test
+	public void testCloseWithoutComplete() throws IOException {
+		setupUpload();
+		out.write(new byte[S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES + 1]);
+
+		// call under test
+		out.close();
+
+		verify(mockS3Client, times(1)).uploadPart(any());
+		verify(mockS3Client).abortMultipartUpload(abortCaptor.capture());
+		assertEquals("uploadId", abortCaptor.getValue().getUploadId());
+		verify(mockS3Client, never()).completeMultipartUpload(any());
+		assertThrows(IOException.class, () -> {
+			out.write(1);
+		});
+	}
+
+	@Test
+	public void testCloseBeforeFirstPart() throws IOException {
+		out.write(new byte[10]);
+
+		// call under test
+		out.close();
+
+		// Nothing was sent to S3
+		verify(mockS3Client, never()).initiateMultipartUpload(any());
+		verify(mockS3Client, never()).abortMultipartUpload(any());
+	}
+
+	@Test
+	public void testGetContentMd5BeforeComplete() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			out.getContentMd5();
+		});
+	}
+
+	@Test
+	public void testSmallPartSize() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new S3MultipartUploadOutputStream(mockS3Client, initiateRequest, S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES - 1);
+		});
+	}
+}
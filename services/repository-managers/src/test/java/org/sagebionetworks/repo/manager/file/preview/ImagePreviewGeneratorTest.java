@@ -2,15 +2,21 @@ package org.sagebionetworks.repo.manager.file.preview;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
 
 import javax.imageio.ImageIO;
 
@@ -85,4 +91,118 @@ public class ImagePreviewGeneratorTest {
 			temp.delete();
 		}
 	}
+
+	@Test
+	public void testGeneratePreviewOverMaxImageSize() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = ImagePreviewGeneratorTest.class.getClassLoader().getResourceAsStream(overMaxFileName)) {
+			assertNotNull("Failed to find a test file on the classpath: " + overMaxFileName, in);
+			// call under test
+			PreviewOutputMetadata meta = new ImagePreviewGenerator().generatePreview(in, out);
+			assertEquals("image/png", meta.getContentType());
+		}
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+		assertNotNull(image);
+		assertTrue(image.getWidth() < 1001);
+		assertTrue(image.getHeight() < 1001);
+	}
+
+	@Test
+	public void testLoadSubsampledImage() throws IOException {
+		BufferedImage source = new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(source, "png", out);
+		// call under test
+		BufferedImage image = ImagePreviewGenerator.loadSubsampledImage(new ByteArrayInputStream(out.toByteArray()), 1000, 1000,
+				ImagePreviewGenerator.MAX_SOURCE_IMAGE_SIZE);
+		assertNotNull(image);
+		// Every other pixel is decoded
+		assertEquals(2000, image.getWidth());
+		assertEquals(1500, image.getHeight());
+	}
+
+	@Test
+	public void testLoadSubsampledImageSmallImage() throws IOException {
+		try (InputStream in = ImagePreviewGeneratorTest.class.getClassLoader().getResourceAsStream(atMaxFileName);) {
+			assertNotNull("Failed to find a test file on the classpath: " + atMaxFileName, in);
+			// call under test
+			BufferedImage image = ImagePreviewGenerator.loadSubsampledImage(in, 1024, 768,
+					ImagePreviewGenerator.MAX_SOURCE_IMAGE_SIZE);
+			assertNotNull(image);
+			assertEquals(1000, image.getWidth());
+			assertEquals(1000, image.getHeight());
+		}
+	}
+
+	@Test
+	public void testLoadSubsampledImageOverLimit() throws IOException {
+		// Only the header is needed to reject the image
+		byte[] header = createPngHeader(20000, 20000);
+		try {
+			// call under test
+			ImagePreviewGenerator.loadSubsampledImage(new ByteArrayInputStream(header), 1024, 768,
+					ImagePreviewGenerator.MAX_SOURCE_IMAGE_SIZE);
+			fail();
+		} catch (PreviewGenerationNotSupportedException e) {
+			assertEquals(ImagePreviewGenerator.IMAGE_EXCEEDS_THE_MAXIMUM_SIZE, e.getMessage());
+		}
+	}
+
+	@Test
+	public void testLoadSubsampledImageNotAnImage() throws IOException {
+		byte[] notAnImage = "not an image".getBytes(StandardCharsets.UTF_8);
+		// call under test
+		BufferedImage image = ImagePreviewGenerator.loadSubsampledImage(new ByteArrayInputStream(notAnImage), 1024, 768,
+				ImagePreviewGenerator.MAX_SOURCE_IMAGE_SIZE);
+		assertNull(image);
+	}
+
+	@Test
+	public void testCalculateSubsampling() {
+		// smaller than the preview
+		assertEquals(1, ImagePreviewGenerator.calculateSubsampling(800, 600, 1024, 768));
+		// less than twice the preview
+		assertEquals(1, ImagePreviewGenerator.calculateSubsampling(2047, 1000, 1024, 768));
+		assertEquals(1, ImagePreviewGenerator.calculateSubsampling(4095, 3071, 1024, 768));
+		assertEquals(2, ImagePreviewGenerator.calculateSubsampling(4096, 3072, 1024, 768));
+		// the height is the most constrained dimension
+		assertEquals(5, ImagePreviewGenerator.calculateSubsampling(1000, 8000, 1024, 768));
+		assertEquals(10, ImagePreviewGenerator.calculateSubsampling(16000, 16000, 1024, 768));
+	}
+
+	@Test
+	public void testCalculateNeededMemoryBytesForPreview() {
+		ImagePreviewGenerator generator = new ImagePreviewGenerator();
+		// small images use the per type multiplier
+		long smallSize = 1000L;
+		assertEquals((long) Math.ceil(smallSize * 46.28f * 1.2f),
+				generator.calculateNeededMemoryBytesForPreview(ImagePreviewGenerator.IMAGE_PNG, smallSize));
+		// large images are bounded by the preview size
+		long largeSize = 100L * 1024 * 1024;
+		long expected = ImagePreviewGenerator.calculateMaxDecodeMemoryBytes(1024, 768);
+		assertEquals(expected, generator.calculateNeededMemoryBytesForPreview(ImagePreviewGenerator.IMAGE_PNG, largeSize));
+	}
+
+	/**
+	 * Create the signature and IHDR chunk of a PNG with the given size.
+	 */
+	private static byte[] createPngHeader(int width, int height) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' });
+		ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+		DataOutputStream chunkOut = new DataOutputStream(chunk);
+		chunkOut.write("IHDR".getBytes(StandardCharsets.US_ASCII));
+		chunkOut.writeInt(width);
+		chunkOut.writeInt(height);
+		// 8 bit RGB, default compression, filter and no interlace
+		chunkOut.write(new byte[] { 8, 2, 0, 0, 0 });
+		byte[] chunkBytes = chunk.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(chunkBytes);
+		out.writeInt(chunkBytes.length - 4);
+		out.write(chunkBytes);
+		out.writeInt((int) crc.getValue());
+		return bytes.toByteArray();
+	}
 }
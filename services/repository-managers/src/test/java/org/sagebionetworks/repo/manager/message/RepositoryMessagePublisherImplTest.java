@@ -3,30 +3,54 @@ package org.sagebionetworks.repo.manager.message;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.MetricStats;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
+import org.sagebionetworks.repo.model.message.ChangeMessages;
 import org.sagebionetworks.repo.model.message.ChangeType;
 import org.sagebionetworks.repo.model.message.LocalStackMessage;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.Clock;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.BatchResultErrorEntry;
 import com.amazonaws.services.sns.model.CreateTopicRequest;
 import com.amazonaws.services.sns.model.CreateTopicResult;
+import com.amazonaws.services.sns.model.PublishBatchRequest;
+import com.amazonaws.services.sns.model.PublishBatchRequestEntry;
+import com.amazonaws.services.sns.model.PublishBatchResult;
 import com.amazonaws.services.sns.model.PublishRequest;
 
 /**
@@ -41,9 +65,21 @@ public class RepositoryMessagePublisherImplTest {
 	@Mock
 	private TransactionalMessenger mockTransactionalMessanger;
 	@Mock
+	private TransactionTemplate mockTransactionTemplate;
+	@Mock
+	private TransactionStatus mockTransactionStatus;
+	@Mock
 	private AmazonSNS mockAwsSNSClient;
 	@Mock
 	private StackConfiguration mockConfig;
+	@Mock
+	private ExecutorService mockThreadPool;
+	@Mock
+	private Consumer mockConsumer;
+	@Mock
+	private Clock mockClock;
+	@Captor
+	private ArgumentCaptor<PublishBatchRequest> publishBatchCaptor;
 	
 	@InjectMocks
 	private RepositoryMessagePublisherImpl messagePublisher;
@@ -158,4 +194,240 @@ public class RepositoryMessagePublisherImplTest {
 		
 	}
 	
+	@Test
+	public void testTimerFired() throws JSONObjectAdapterException {
+		when(mockConfig.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		when(mockConfig.getRepositoryChangeTopic(any())).thenAnswer(invocation -> "topic-" + invocation.getArgument(0));
+		when(mockAwsSNSClient.createTopic(any(CreateTopicRequest.class))).thenAnswer(invocation -> 
+			new CreateTopicResult().withTopicArn(((CreateTopicRequest) invocation.getArgument(0)).getName() + "Arn")
+		);
+		when(mockAwsSNSClient.publishBatch(any())).thenReturn(new PublishBatchResult());
+		when(mockClock.now()).thenReturn(new Date());
+		setupTransactionTemplate();
+		doAnswer((invocation) -> {
+			Callable<List<ProfileData>> callable = invocation.getArgument(0);
+			return CompletableFuture.completedFuture(callable.call());
+		}).when(mockThreadPool).submit(any(Callable.class));
+		
+		List<ChangeMessage> entityMessages = new ArrayList<>();
+		for (int i = 0; i < RepositoryMessagePublisherImpl.MAX_PUBLISH_BATCH_SIZE + 2; i++) {
+			entityMessages.add(createMessage(i, ObjectType.ENTITY));
+		}
+		ChangeMessage fileMessage = createMessage(100, ObjectType.FILE);
+		
+		entityMessages.forEach(messagePublisher::fireChangeMessage);
+		messagePublisher.fireChangeMessage(fileMessage);
+		
+		// Call under test
+		messagePublisher.timerFired();
+		
+		// One task for each topic
+		verify(mockThreadPool, times(2)).submit(any(Callable.class));
+		// Each published batch is registered in its own transaction
+		verify(mockTransactionTemplate, times(3)).execute(any(TransactionCallback.class));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, entityMessages.subList(0, 10));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, entityMessages.subList(10, 12));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.FILE, Collections.singletonList(fileMessage));
+		
+		verify(mockAwsSNSClient, times(3)).publishBatch(publishBatchCaptor.capture());
+		
+		List<PublishBatchRequest> requests = publishBatchCaptor.getAllValues();
+		assertEquals("topic-ENTITYArn", requests.get(0).getTopicArn());
+		assertEquals(10, requests.get(0).getPublishBatchRequestEntries().size());
+		assertEquals(new PublishBatchRequestEntry().withId("0").withMessage(toJSON(entityMessages.get(0))), requests.get(0).getPublishBatchRequestEntries().get(0));
+		assertEquals("topic-ENTITYArn", requests.get(1).getTopicArn());
+		assertEquals(2, requests.get(1).getPublishBatchRequestEntries().size());
+		assertEquals(new PublishBatchRequestEntry().withId("1").withMessage(toJSON(entityMessages.get(11))), requests.get(1).getPublishBatchRequestEntries().get(1));
+		assertEquals("topic-FILEArn", requests.get(2).getTopicArn());
+		assertEquals(Collections.singletonList(new PublishBatchRequestEntry().withId("0").withMessage(toJSON(fileMessage))), requests.get(2).getPublishBatchRequestEntries());
+		
+		verify(mockConsumer, times(2)).addProfileData(any(List.class));
+	}
+	
+	@Test
+	public void testTimerFiredWithPublishDisabled() {
+		when(mockConfig.getShouldMessagesBePublishedToTopic()).thenReturn(false);
+		
+		messagePublisher.fireChangeMessage(message);
+		
+		// Call under test
+		messagePublisher.timerFired();
+		
+		verifyZeroInteractions(mockThreadPool);
+		verifyZeroInteractions(mockAwsSNSClient);
+		verifyZeroInteractions(mockTransactionalMessanger);
+	}
+	
+	@Test
+	public void testTimerFiredWithFailedTopic() {
+		when(mockConfig.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		when(mockThreadPool.submit(any(Callable.class))).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("failed")));
+		
+		messagePublisher.fireChangeMessage(message);
+		
+		// Call under test
+		messagePublisher.timerFired();
+		
+		verifyZeroInteractions(mockConsumer);
+	}
+	
+	@Test
+	public void testPublishBatchWithRetry() throws JSONObjectAdapterException {
+		List<ChangeMessage> batch = List.of(createMessage(1, ObjectType.ENTITY), createMessage(2, ObjectType.ENTITY));
+		
+		when(mockAwsSNSClient.publishBatch(any())).thenReturn(
+			new PublishBatchResult().withFailed(new BatchResultErrorEntry().withId("1").withCode("InternalError").withSenderFault(false)),
+			new PublishBatchResult()
+		);
+		
+		// Call under test
+		List<ChangeMessage> failed = messagePublisher.publishBatch("topicArn", batch);
+		
+		assertEquals(Collections.emptyList(), failed);
+		
+		verify(mockAwsSNSClient, times(2)).publishBatch(publishBatchCaptor.capture());
+		
+		// Only the failed entry is sent again
+		assertEquals(new PublishBatchRequest().withTopicArn("topicArn").withPublishBatchRequestEntries(
+			new PublishBatchRequestEntry().withId("1").withMessage(toJSON(batch.get(1)))
+		), publishBatchCaptor.getAllValues().get(1));
+	}
+	
+	@Test
+	public void testPublishBatchWithSenderFault() {
+		List<ChangeMessage> batch = List.of(createMessage(1, ObjectType.ENTITY), createMessage(2, ObjectType.ENTITY));
+		
+		when(mockAwsSNSClient.publishBatch(any())).thenReturn(
+			new PublishBatchResult().withFailed(new BatchResultErrorEntry().withId("0").withCode("InvalidParameter").withSenderFault(true))
+		);
+		
+		// Call under test
+		List<ChangeMessage> failed = messagePublisher.publishBatch("topicArn", batch);
+		
+		assertEquals(List.of(batch.get(0)), failed);
+		
+		verify(mockAwsSNSClient).publishBatch(any());
+	}
+	
+	@Test
+	public void testPublishBatchWithMaxAttempts() {
+		List<ChangeMessage> batch = List.of(createMessage(1, ObjectType.ENTITY));
+		
+		when(mockAwsSNSClient.publishBatch(any())).thenReturn(
+			new PublishBatchResult().withFailed(new BatchResultErrorEntry().withId("0").withCode("InternalError").withSenderFault(false))
+		);
+		
+		// Call under test
+		List<ChangeMessage> failed = messagePublisher.publishBatch("topicArn", batch);
+		
+		assertEquals(batch, failed);
+		
+		verify(mockAwsSNSClient, times(RepositoryMessagePublisherImpl.MAX_PUBLISH_ATTEMPTS)).publishBatch(any());
+	}
+	
+	@Test
+	public void testPublishChangeMessagesMetrics() {
+		ChangeMessage first = createMessage(1, ObjectType.ENTITY).setTimestamp(new Date(1000));
+		ChangeMessage second = createMessage(2, ObjectType.ENTITY).setTimestamp(new Date(3000));
+		ChangeMessage third = createMessage(3, ObjectType.ENTITY).setTimestamp(new Date(3000));
+		
+		when(mockConfig.getRepositoryChangeTopic(any())).thenReturn("topic");
+		when(mockConfig.getStackInstance()).thenReturn("test");
+		when(mockAwsSNSClient.createTopic(any(CreateTopicRequest.class))).thenReturn(new CreateTopicResult().withTopicArn("topicArn"));
+		when(mockAwsSNSClient.publishBatch(any())).thenReturn(
+			new PublishBatchResult().withFailed(new BatchResultErrorEntry().withId("2").withCode("InvalidParameter").withSenderFault(true))
+		);
+		when(mockClock.now()).thenReturn(new Date(5000));
+		setupTransactionTemplate();
+		
+		// Call under test
+		List<ProfileData> metrics = messagePublisher.publishChangeMessages(ObjectType.ENTITY, List.of(first, second, third));
+		
+		// The message that failed is not registered as sent
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, List.of(first, second));
+		
+		List<ProfileData> expected = List.of(
+			new ProfileData()
+				.setNamespace("Repository-Messages-test")
+				.setName(RepositoryMessagePublisherImpl.METRIC_PUBLISH_FAILURES)
+				.setValue(1.0)
+				.setUnit(StandardUnit.Count.name())
+				.setDimension(Collections.singletonMap(RepositoryMessagePublisherImpl.DIMENSION_OBJECT_TYPE, "ENTITY"))
+				.setTimestamp(new Date(5000)),
+			new ProfileData()
+				.setNamespace("Repository-Messages-test")
+				.setName(RepositoryMessagePublisherImpl.METRIC_PUBLISH_LAG)
+				.setMetricStats(new MetricStats().setCount(2.0).setSum(6000.0).setMinimum(2000.0).setMaximum(4000.0))
+				.setUnit(StandardUnit.Milliseconds.name())
+				.setDimension(Collections.singletonMap(RepositoryMessagePublisherImpl.DIMENSION_OBJECT_TYPE, "ENTITY"))
+				.setTimestamp(new Date(5000))
+		);
+		
+		assertEquals(expected, metrics);
+	}
+	
+	@Test
+	public void testPublishChangeMessagesWithRegisterFailure() {
+		when(mockConfig.getRepositoryChangeTopic(any())).thenReturn("topic");
+		when(mockConfig.getStackInstance()).thenReturn("test");
+		when(mockAwsSNSClient.createTopic(any(CreateTopicRequest.class))).thenReturn(new CreateTopicResult().withTopicArn("topicArn"));
+		when(mockAwsSNSClient.publishBatch(any())).thenReturn(new PublishBatchResult());
+		when(mockClock.now()).thenReturn(new Date(5000));
+		setupTransactionTemplate();
+		doThrow(new IllegalStateException("failed")).when(mockTransactionalMessanger).registerMessagesSent(any(), any());
+		
+		// Call under test
+		List<ProfileData> metrics = messagePublisher.publishChangeMessages(ObjectType.ENTITY, List.of(message));
+		
+		// The message is left unsent
+		assertEquals(1, metrics.size());
+		assertEquals(1.0, metrics.get(0).getValue());
+		verifyZeroInteractions(mockThreadPool);
+		verify(mockAwsSNSClient).publishBatch(any());
+	}
+	
+	@Test
+	public void testPublishChangeMessagesWithPublishFailure() {
+		ChangeMessage other = createMessage(2, ObjectType.ENTITY);
+		
+		when(mockConfig.getRepositoryChangeTopic(any())).thenReturn("topic");
+		when(mockConfig.getStackInstance()).thenReturn("test");
+		when(mockAwsSNSClient.createTopic(any(CreateTopicRequest.class))).thenReturn(new CreateTopicResult().withTopicArn("topicArn"));
+		when(mockAwsSNSClient.publishBatch(any())).thenThrow(new IllegalStateException("failed"));
+		when(mockClock.now()).thenReturn(new Date(5000));
+		
+		// Call under test
+		List<ProfileData> metrics = messagePublisher.publishChangeMessages(ObjectType.ENTITY, List.of(message, other));
+		
+		// Nothing is registered as sent
+		verifyZeroInteractions(mockTransactionTemplate);
+		verifyZeroInteractions(mockTransactionalMessanger);
+		assertEquals(1, metrics.size());
+		assertEquals(2.0, metrics.get(0).getValue());
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void setupTransactionTemplate() {
+		doAnswer(invocation -> {
+			TransactionCallback<Object> callback = (TransactionCallback<Object>) invocation.getArgument(0);
+			return callback.doInTransaction(mockTransactionStatus);
+		}).when(mockTransactionTemplate).execute(any(TransactionCallback.class));
+	}
+	
+	private static ChangeMessage createMessage(long changeNumber, ObjectType type) {
+		ChangeMessage message = new ChangeMessage();
+		message.setChangeNumber(changeNumber);
+		message.setTimestamp(new Date());
+		message.setChangeType(ChangeType.UPDATE);
+		message.setObjectId(String.valueOf(changeNumber));
+		message.setObjectType(type);
+		return message;
+	}
+	
+	private static String toJSON(ChangeMessage message) throws JSONObjectAdapterException {
+		ChangeMessages messages = new ChangeMessages();
+		messages.setList(Collections.singletonList(message));
+		return EntityFactory.createJSONStringForEntity(messages);
+	}
+	
 }
@@ -1,6 +1,7 @@
 package org.sagebionetworks.repo.manager.migration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -17,7 +18,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -223,7 +226,7 @@ public class BackupFileStreamImplTest {
 	public void testCreateFileName() {
 		// call under test
 		String name = BackupFileStreamImpl.createFileName(MigrationType.ACCESS_REQUIREMENT, 3);
-		assertEquals("ACCESS_REQUIREMENT.3.json", name);
+		assertEquals("ACCESS_REQUIREMENT.3.ndjson", name);
 	}
 	
 	@Test
@@ -315,7 +318,7 @@ public class BackupFileStreamImplTest {
 		String expectedName = BackupFileStreamImpl.createFileName(dboNodeOne.getMigratableTableType(), index);
 		assertEquals(expectedName, entry.getName());
 		List<DBONode> resultList = (List<DBONode>) typeProvider
-				.readObjects(dboNodeOne.getBackupClass(), backupAliasType, zipIn, MigrationFileType.JSON).get();
+				.readObjects(dboNodeOne.getBackupClass(), backupAliasType, zipIn, MigrationFileType.NDJSON).get();
 		assertEquals(currentBatch.size(), resultList.size());
 		assertEquals(currentBatch.get(0), resultList.get(0));
 		assertEquals(currentBatch.get(1), resultList.get(1));
@@ -335,7 +338,7 @@ public class BackupFileStreamImplTest {
 		String expectedName = BackupFileStreamImpl.createFileName(dboNodeOne.getMigratableTableType(), index);
 		assertEquals(expectedName, entry.getName());
 		List<DBONode> resultList = (List<DBONode>) typeProvider
-				.readObjects(dboNodeOne.getBackupClass(), backupAliasType, zipIn, MigrationFileType.JSON).get();
+				.readObjects(dboNodeOne.getBackupClass(), backupAliasType, zipIn, MigrationFileType.NDJSON).get();
 		assertEquals(currentBatch.size(), resultList.size());
 		assertEquals(currentBatch.get(0), resultList.get(0));
 		assertEquals(currentBatch.get(1), resultList.get(1));
@@ -349,10 +352,10 @@ public class BackupFileStreamImplTest {
 		ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
 		ZipEntry entry = zipIn.getNextEntry();
 		assertNotNull(entry);
-		assertEquals("NODE.0.json", entry.getName());
+		assertEquals("NODE.0.ndjson", entry.getName());
 		entry = zipIn.getNextEntry();
 		assertNotNull(entry);
-		assertEquals("NODE_REVISION.1.json", entry.getName());
+		assertEquals("NODE_REVISION.1.ndjson", entry.getName());
 		// no more files
 		entry = zipIn.getNextEntry();
 		assertEquals(null, entry);
@@ -366,16 +369,16 @@ public class BackupFileStreamImplTest {
 		ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
 		ZipEntry entry = zipIn.getNextEntry();
 		assertNotNull(entry);
-		assertEquals("NODE.0.json", entry.getName());
+		assertEquals("NODE.0.ndjson", entry.getName());
 		entry = zipIn.getNextEntry();
 		assertNotNull(entry);
-		assertEquals("NODE.1.json", entry.getName());
+		assertEquals("NODE.1.ndjson", entry.getName());
 		entry = zipIn.getNextEntry();
 		assertNotNull(entry);
-		assertEquals("NODE_REVISION.2.json", entry.getName());
+		assertEquals("NODE_REVISION.2.ndjson", entry.getName());
 		entry = zipIn.getNextEntry();
 		assertNotNull(entry);
-		assertEquals("NODE_REVISION.3.json", entry.getName());
+		assertEquals("NODE_REVISION.3.ndjson", entry.getName());
 		// no more files
 		entry = zipIn.getNextEntry();
 		assertEquals(null, entry);
@@ -496,7 +499,7 @@ public class BackupFileStreamImplTest {
 	public void testReadFileFromStreamEmptyFile() throws Exception {
 		StringInputStream input = new StringInputStream("");
 		int index = 0;
-		String fileName = BackupFileStreamImpl.createFileName(MigrationType.CREDENTIAL, index);
+		String fileName = BackupFileStreamImpl.createFileName(MigrationType.CREDENTIAL, index, MigrationFileType.JSON);
 		
 		String message = assertThrows(JSONException.class, ()->{
 			backupFileStream.readFileFromStream(input, backupAliasType, fileName);
@@ -518,7 +521,7 @@ public class BackupFileStreamImplTest {
 	public void testReadFileFromStreamNotXML() throws Exception {
 		StringInputStream input = new StringInputStream("This is not xml");
 		int index = 0;
-		String fileName = BackupFileStreamImpl.createFileName(MigrationType.CREDENTIAL, index);
+		String fileName = BackupFileStreamImpl.createFileName(MigrationType.CREDENTIAL, index, MigrationFileType.JSON);
 		
 		String message  = assertThrows(Exception.class, () -> {
 			// Call under test
@@ -549,6 +552,50 @@ public class BackupFileStreamImplTest {
 		verify(backupFileStreamSpy, times(2)).getCachedTranslator(new DBOCredential());
 	}
 	
+	@Test
+	public void testStreamFileFromStream() throws Exception {
+		doReturn(new DBOCredential().getTranslator()).when(backupFileStreamSpy).getCachedTranslator(any());
+		StringWriter writer = new StringWriter();
+		backupFileStreamSpy.writeBatchToStream(credentials, MigrationType.CREDENTIAL, backupAliasType, writer);
+		
+		StringInputStream input = new StringInputStream(writer.toString());
+		String fileName = BackupFileStreamImpl.createFileName(MigrationType.CREDENTIAL, index);
+		// Call under test
+		Iterator<MigratableDatabaseObject<?, ?>> results = backupFileStreamSpy.streamFileFromStream(input, fileName);
+		List<MigratableDatabaseObject<?, ?>> allResults = Lists.newArrayList(results);
+		assertEquals(credentials, allResults);
+	}
+	
+	@Test
+	public void testStreamFileFromStreamMigrationTypeDoesNotExist() throws Exception {
+		StringInputStream input = new StringInputStream("");
+		String fileName = "RemovedType.4.ndjson";
+		
+		// Call under test
+		assertFalse(backupFileStream.streamFileFromStream(input, fileName).hasNext());
+	}
+	
+	/**
+	 * Backups written before the switch to NDJSON must still be readable.
+	 */
+	@Test
+	public void testReadNextFileFromZipWithJSONFile() throws Exception {
+		backupAliasType = BackupAliasType.TABLE_NAME;
+		zipOutputStream.putNextEntry(new ZipEntry(BackupFileStreamImpl.createFileName(MigrationType.NODE, 0, MigrationFileType.JSON)));
+		StringWriter writer = new StringWriter();
+		typeProvider.writeObjects(Lists.newArrayList(dboNodeOne, dboNodeTwo), writer);
+		zipOutputStream.write(writer.toString().getBytes(StandardCharsets.UTF_8));
+		zipOutputStream.closeEntry();
+		IOUtils.closeQuietly(zipOutputStream);
+		ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+		
+		// Call under test
+		Iterator<MigratableDatabaseObject<?, ?>> results = backupFileStream.readNextFileFromZip(zipIn, backupAliasType);
+		assertEquals(Lists.newArrayList(dboNodeOne, dboNodeTwo), Lists.newArrayList(results));
+		// Call under test
+		assertFalse(backupFileStream.readNextFileFromZip(zipIn, backupAliasType).hasNext());
+	}
+	
 	@Test
 	public void testGetCachedTranslator() {
 		when(mockDatabaseObject.getTranslator()).thenReturn(mockTranslator);
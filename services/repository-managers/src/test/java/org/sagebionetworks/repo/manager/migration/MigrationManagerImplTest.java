@@ -10,6 +10,7 @@ import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
@@ -33,6 +34,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -123,6 +127,8 @@ public class MigrationManagerImplTest {
 	MigrationTypeListener<DatabaseObject<?>> mockMigrationListener;
 	@Captor
 	ArgumentCaptor<GetObjectRequest> getObjectRequestCaptor;
+	@Mock
+	ExecutorService mockThreadPool;
 	@InjectMocks
 	MigrationManagerImpl manager;
 	
@@ -1131,6 +1137,109 @@ public class MigrationManagerImplTest {
 		});
 	}
 	
+	@Test
+	public void testCalculateBatchChecksumsWithPartitions() throws Exception {
+		when(mockUser.isAdmin()).thenReturn(true);
+		doAnswer((invocation) -> {
+			Callable<List<RangeChecksum>> callable = invocation.getArgument(0);
+			return CompletableFuture.completedFuture(callable.call());
+		}).when(mockThreadPool).submit(any(Callable.class));
+		RangeChecksum first = new RangeChecksum().setBinNumber(0L).setChecksum("one");
+		RangeChecksum second = new RangeChecksum().setBinNumber(20L).setChecksum("two");
+		when(mockDao.calculateBatchChecksums(any())).thenReturn(Lists.newArrayList(first), Lists.newArrayList(second));
+		
+		BatchChecksumRequest request = new BatchChecksumRequest();
+		request.setBatchSize(10L);
+		request.setMinimumId(0L);
+		request.setMaximumId(249L);
+		request.setSalt("some salt");
+		request.setMigrationType(MigrationType.FILE_HANDLE);
+		// call under test
+		BatchChecksumResponse response = manager.calculateBatchChecksums(mockUser, request);
+		verify(mockThreadPool, times(2)).submit(any(Callable.class));
+		verify(mockDao, times(2)).calculateBatchChecksums(any());
+		assertEquals(Lists.newArrayList(first, second), response.getCheksums());
+		assertEquals(MigrationType.FILE_HANDLE, response.getMigrationType());
+	}
+	
+	@Test
+	public void testCalculateBatchChecksumsWithPartitionFailure() throws Exception {
+		when(mockUser.isAdmin()).thenReturn(true);
+		IllegalStateException exception = new IllegalStateException("failed");
+		doAnswer((invocation) -> {
+			return CompletableFuture.failedFuture(exception);
+		}).when(mockThreadPool).submit(any(Callable.class));
+		
+		BatchChecksumRequest request = new BatchChecksumRequest();
+		request.setBatchSize(10L);
+		request.setMinimumId(0L);
+		request.setMaximumId(399L);
+		request.setSalt("some salt");
+		request.setMigrationType(MigrationType.FILE_HANDLE);
+		IllegalStateException result = assertThrows(IllegalStateException.class, ()->{
+			// call under test
+			manager.calculateBatchChecksums(mockUser, request);
+		});
+		assertEquals(exception, result);
+	}
+	
+	@Test
+	public void testPartitionBatchChecksumRequest() {
+		BatchChecksumRequest request = new BatchChecksumRequest();
+		request.setBatchSize(10L);
+		request.setMinimumId(5L);
+		request.setMaximumId(1004L);
+		request.setSalt("some salt");
+		request.setMigrationType(MigrationType.FILE_HANDLE);
+		// call under test
+		List<BatchChecksumRequest> partitions = MigrationManagerImpl.partitionBatchChecksumRequest(request, 4);
+		assertEquals(4, partitions.size());
+		// each partition starts on a batch boundary.
+		long[][] expectedRanges = new long[][] { { 5L, 259L }, { 260L, 519L }, { 520L, 779L }, { 780L, 1004L } };
+		for (int i = 0; i < expectedRanges.length; i++) {
+			BatchChecksumRequest partition = partitions.get(i);
+			assertEquals(expectedRanges[i][0], partition.getMinimumId());
+			assertEquals(expectedRanges[i][1], partition.getMaximumId());
+			assertEquals(request.getBatchSize(), partition.getBatchSize());
+			assertEquals(request.getSalt(), partition.getSalt());
+			assertEquals(request.getMigrationType(), partition.getMigrationType());
+		}
+	}
+	
+	@Test
+	public void testPartitionBatchChecksumRequestWithSmallRange() {
+		BatchChecksumRequest request = new BatchChecksumRequest();
+		request.setBatchSize(10L);
+		request.setMinimumId(0L);
+		request.setMaximumId(199L);
+		request.setSalt("some salt");
+		request.setMigrationType(MigrationType.FILE_HANDLE);
+		// call under test
+		assertEquals(Collections.singletonList(request), MigrationManagerImpl.partitionBatchChecksumRequest(request, 4));
+	}
+	
+	@Test
+	public void testPartitionBatchChecksumRequestWithMinGreaterThanMax() {
+		BatchChecksumRequest request = new BatchChecksumRequest();
+		request.setBatchSize(10L);
+		request.setMinimumId(1000L);
+		request.setMaximumId(0L);
+		// call under test
+		assertEquals(Collections.singletonList(request), MigrationManagerImpl.partitionBatchChecksumRequest(request, 4));
+	}
+	
+	@Test
+	public void testPartitionBatchChecksumRequestWithNullBatchSize() {
+		BatchChecksumRequest request = new BatchChecksumRequest();
+		request.setMinimumId(0L);
+		request.setMaximumId(1000L);
+		String message = assertThrows(IllegalArgumentException.class, ()->{
+			// call under test
+			MigrationManagerImpl.partitionBatchChecksumRequest(request, 4);
+		}).getMessage();
+		assertEquals("request.batchSize is required.", message);
+	}
+	
 	
 	@Test
 	public void testProcessAsyncMigrationTypeCountsRequestWitNullUser() {
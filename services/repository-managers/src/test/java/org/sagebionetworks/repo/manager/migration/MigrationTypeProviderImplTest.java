@@ -1,19 +1,31 @@
 package org.sagebionetworks.repo.manager.migration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 
 import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.repo.model.AuthorizationConstants;
+import org.sagebionetworks.repo.model.daemon.BackupAliasType;
 import org.sagebionetworks.repo.model.dbo.MigratableDatabaseObject;
+import org.sagebionetworks.repo.model.dbo.migration.MigrationFileType;
 import org.sagebionetworks.repo.model.dbo.migration.MigrationTypeProvider;
 import org.sagebionetworks.repo.model.dbo.migration.MigrationTypeProviderImpl;
 import org.sagebionetworks.repo.model.dbo.persistence.DBOAccessControlList;
@@ -93,4 +105,79 @@ public class MigrationTypeProviderImplTest {
 		typeProvider.writeObjects(List.of(new DBOCredential(), new DBOCredential()), writer);
 		assertEquals("", writer.toString());
 	}
+
+	@Test
+	public void testWriteObjectsWithNDJSON() {
+		StringWriter writer = new StringWriter();
+
+		// call under test
+		typeProvider.writeObjects(List.of(new DBOCredential(), credentialOne, credentialTwo), writer, MigrationFileType.NDJSON);
+		String[] lines = writer.toString().split("\n");
+		// empty objects are not written
+		assertEquals(2, lines.length);
+		assertEquals(
+				"{\"principalId\":1,\"etag\":\"etag\",\"expiresOn\":10011,\"passHash\":\"adminHash\",\"secretKey\":\"adminKey\"}",
+				new JSONObject(lines[0]).toString(0));
+		assertEquals(
+				"{\"principalId\":456,\"etag\":\"etag2\",\"expiresOn\":20011,\"passHash\":\"hashTwo\",\"secretKey\":\"keyTwo\"}",
+				new JSONObject(lines[1]).toString(0));
+	}
+
+	@Test
+	public void testWriteObjectsWithNDJSONSmallerThanJSON() {
+		StringWriter json = new StringWriter();
+		typeProvider.writeObjects(credentials, json, MigrationFileType.JSON);
+		StringWriter ndjson = new StringWriter();
+
+		// call under test
+		typeProvider.writeObjects(credentials, ndjson, MigrationFileType.NDJSON);
+		assertTrue(ndjson.toString().length() < json.toString().length());
+	}
+
+	@Test
+	public void testWriteObjectsWithXML() {
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			typeProvider.writeObjects(credentials, new StringWriter(), MigrationFileType.XML);
+		}).getMessage();
+		assertEquals("Cannot write files of type: XML", message);
+	}
+
+	@Test
+	public void testStreamObjects() {
+		StringWriter writer = new StringWriter();
+		typeProvider.writeObjects(credentials, writer, MigrationFileType.NDJSON);
+		InputStream input = new ByteArrayInputStream(("\n" + writer.toString()).getBytes(StandardCharsets.UTF_8));
+
+		// call under test
+		Iterator<DBOCredential> iterator = typeProvider.streamObjects(DBOCredential.class, input);
+		assertTrue(iterator.hasNext());
+		assertEquals(credentialOne, iterator.next());
+		assertEquals(credentialTwo, iterator.next());
+		assertFalse(iterator.hasNext());
+		assertThrows(NoSuchElementException.class, () -> {
+			iterator.next();
+		});
+	}
+
+	@Test
+	public void testReadObjectsWithNDJSON() {
+		StringWriter writer = new StringWriter();
+		typeProvider.writeObjects(credentials, writer, MigrationFileType.NDJSON);
+		InputStream input = new ByteArrayInputStream(writer.toString().getBytes(StandardCharsets.UTF_8));
+
+		// call under test
+		Optional<List<DBOCredential>> results = typeProvider.readObjects(DBOCredential.class, BackupAliasType.TABLE_NAME,
+				input, MigrationFileType.NDJSON);
+		assertEquals(Optional.of(credentials), results.map(List::copyOf));
+	}
+
+	@Test
+	public void testReadObjectsWithEmptyNDJSON() {
+		InputStream input = new ByteArrayInputStream(new byte[0]);
+
+		// call under test
+		assertEquals(Optional.empty(), typeProvider.readObjects(DBOCredential.class, BackupAliasType.TABLE_NAME, input,
+				MigrationFileType.NDJSON));
+	}
 }
@@ -0,0 +1,127 @@
+package org.sagebionetworks.repo.manager.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.profiler.MethodLatencyProfiler;
+import org.sagebionetworks.profiler.MethodLatencyProfiler.MethodKey;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+@ExtendWith(MockitoExtension.class)
+public class MethodLatencyMonitorTest {
+
+	@Mock
+	private Consumer mockConsumer;
+
+	@Captor
+	private ArgumentCaptor<List<ProfileData>> dataCaptor;
+
+	private MethodLatencyProfiler profiler;
+	private MethodLatencyMonitor monitor;
+	private MethodKey fastMethod;
+	private MethodKey slowMethod;
+
+	@BeforeEach
+	public void before() throws Exception {
+		profiler = new MethodLatencyProfiler(10);
+		monitor = new MethodLatencyMonitor(ApplicationType.repository, profiler, mockConsumer, "test");
+		fastMethod = profiler.getMethodKey(String.class, Object.class.getMethod("hashCode"));
+		slowMethod = profiler.getMethodKey(String.class, Object.class.getMethod("toString"));
+	}
+
+	@Test
+	public void testCollectMetrics() {
+		profiler.record(fastMethod, 1_000);
+		profiler.record(fastMethod, 1_000);
+		profiler.record(slowMethod, 5_000_000);
+
+		// call under test
+		monitor.collectMetrics();
+
+		verify(mockConsumer).addProfileData(dataCaptor.capture());
+
+		List<ProfileData> expected = List.of(
+			new ProfileData()
+				.setNamespace("Repository-Methods-test")
+				.setName("latency")
+				.setUnit(StandardUnit.Microseconds.name())
+				.setDimension(Map.of("method", "java.lang.String.toString"))
+				.setValueCounts(Map.of(5_000.0, 10.0)),
+			new ProfileData()
+				.setNamespace("Repository-Methods-test")
+				.setName("latency")
+				.setUnit(StandardUnit.Microseconds.name())
+				.setDimension(Map.of("method", "java.lang.String.hashCode"))
+				.setValueCounts(Map.of(1.0, 20.0))
+		);
+
+		assertEquals(expected, dataCaptor.getValue());
+	}
+
+	@Test
+	public void testCollectMetricsSendsOnlyNewValues() {
+		profiler.record(fastMethod, 1_000);
+		profiler.record(slowMethod, 5_000_000);
+
+		monitor.collectMetrics();
+
+		profiler.record(fastMethod, 2_000);
+
+		// call under test
+		monitor.collectMetrics();
+
+		verify(mockConsumer, times(2)).addProfileData(dataCaptor.capture());
+
+		List<ProfileData> data = dataCaptor.getAllValues().get(1);
+		assertEquals(1, data.size());
+		assertEquals(Map.of("method", "java.lang.String.hashCode"), data.get(0).getDimension());
+		assertEquals(Map.of(2.0, 10.0), data.get(0).getValueCounts());
+	}
+
+	@Test
+	public void testCollectMetricsWithNoNewValues() {
+		profiler.record(fastMethod, 1_000);
+
+		monitor.collectMetrics();
+		verify(mockConsumer).addProfileData(dataCaptor.capture());
+
+		// call under test
+		monitor.collectMetrics();
+
+		verifyNoMoreInteractions(mockConsumer);
+	}
+
+	@Test
+	public void testCollectMetricsWithManyValues() {
+		// Each value falls in a different bucket
+		for (int i = 0; i < MethodLatencyMonitor.MAX_VALUES_PER_DATUM + 10; i++) {
+			profiler.record(fastMethod, (16L + i % 16) << (i / 16));
+		}
+
+		// call under test
+		monitor.collectMetrics();
+
+		verify(mockConsumer).addProfileData(dataCaptor.capture());
+
+		List<ProfileData> data = dataCaptor.getValue();
+		assertEquals(2, data.size());
+		assertEquals(MethodLatencyMonitor.MAX_VALUES_PER_DATUM, data.get(0).getValueCounts().size());
+		assertEquals(MethodLatencyMonitor.MAX_VALUES_PER_DATUM + 10, data.get(0).getValueCounts().size() + data.get(1).getValueCounts().size());
+	}
+
+}
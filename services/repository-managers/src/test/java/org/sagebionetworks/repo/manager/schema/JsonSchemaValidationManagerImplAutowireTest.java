@@ -4,6 +4,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
@@ -12,6 +14,7 @@ import static org.sagebionetworks.repo.manager.schema.SchemaTestUtils.loadSchema
 import java.util.List;
 import java.util.Optional;
 
+import org.everit.json.schema.Schema;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
@@ -123,6 +126,63 @@ public class JsonSchemaValidationManagerImplAutowireTest {
 		});
 	}
 
+	@Test
+	public void testValidateBatch() throws Exception {
+		JsonSchema schema = loadSchemaFromClasspath("schemas/Enum.json");
+		JsonSubject valid = setupSubject();
+		valid.toJson().put("enumKey", "a");
+		JsonSubject invalid = setupSubject();
+		invalid.toJson().put("enumKey", "c");
+		// call under test
+		List<ValidationResults> results = manager.validateBatch(schema, List.of(valid, invalid, valid));
+		assertEquals(3, results.size());
+		assertTrue(results.get(0).getIsValid());
+		assertFalse(results.get(1).getIsValid());
+		assertEquals(Lists.newArrayList("#/enumKey: c is not a valid enum value"), results.get(1).getAllValidationMessages());
+		assertTrue(results.get(2).getIsValid());
+		// the results must match single validation
+		assertEquals(manager.validate(schema, invalid).getAllValidationMessages(), results.get(1).getAllValidationMessages());
+	}
+
+	@Test
+	public void testValidateBatchWithNullSubject() throws Exception {
+		JsonSchema schema = loadSchemaFromClasspath("schemas/Enum.json");
+		assertThrows(IllegalArgumentException.class, () -> {
+			manager.validateBatch(schema, Lists.newArrayList(setupSubject(), null));
+		});
+	}
+
+	@Test
+	public void testValidateBatchWithNullSubjects() throws Exception {
+		JsonSchema schema = loadSchemaFromClasspath("schemas/Enum.json");
+		assertThrows(IllegalArgumentException.class, () -> {
+			manager.validateBatch(schema, null);
+		});
+	}
+
+	@Test
+	public void testValidateBatchLoadsSchemaOnce() throws Exception {
+		JsonSchema schema = loadSchemaFromClasspath("schemas/Enum.json");
+		JsonSchemaValidationManagerImpl managerSpy = Mockito.spy(manager);
+		// call under test
+		List<ValidationResults> results = managerSpy.validateBatch(schema, List.of(setupSubject(), setupSubject(), setupSubject()));
+		assertEquals(3, results.size());
+		Mockito.verify(managerSpy).loadSchema(schema, false);
+	}
+
+	@Test
+	public void testLoadSchemaIsCached() throws Exception {
+		JsonSchema schema = loadSchemaFromClasspath("schemas/Enum.json");
+		// call under test
+		Schema loaded = manager.loadSchema(schema, false);
+		assertSame(loaded, manager.loadSchema(loadSchemaFromClasspath("schemas/Enum.json"), false));
+		// defaults are part of the loaded schema
+		assertNotSame(loaded, manager.loadSchema(schema, true));
+		// any change to the schema must load a new schema
+		schema.setDescription("a new description");
+		assertNotSame(loaded, manager.loadSchema(schema, false));
+	}
+
 	/**
 	 * Expect validation to ignore the 'source' attribute.
 	 * 
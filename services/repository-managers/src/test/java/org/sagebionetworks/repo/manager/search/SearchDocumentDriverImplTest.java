@@ -10,15 +10,22 @@ import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 import static org.sagebionetworks.search.SearchConstants.FIELD_CONSORTIUM;
 import static org.sagebionetworks.search.SearchConstants.FIELD_DIAGNOSIS;
 import static org.sagebionetworks.search.SearchConstants.FIELD_ORGAN;
 import static org.sagebionetworks.search.SearchConstants.FIELD_TISSUE;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -26,14 +33,18 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.repo.model.AccessControlList;
 import org.sagebionetworks.repo.model.EntityType;
 import org.sagebionetworks.repo.model.Node;
+import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.annotation.v2.Annotations;
 import org.sagebionetworks.repo.model.annotation.v2.AnnotationsV2TestUtils;
 import org.sagebionetworks.repo.model.annotation.v2.AnnotationsValueType;
 import org.sagebionetworks.repo.model.search.Document;
 import org.sagebionetworks.repo.model.search.DocumentFields;
+import org.sagebionetworks.repo.model.v2.dao.V2WikiPageDao;
+import org.sagebionetworks.repo.model.v2.dao.V2WikiPageMarkdownFile;
 
 @RunWith(MockitoJUnitRunner.class)
 public class SearchDocumentDriverImplTest {
@@ -49,6 +60,12 @@ public class SearchDocumentDriverImplTest {
 	@Mock
 	private AccessControlList mockAcl;
 
+	@Mock
+	private V2WikiPageDao mockWikiPageDao;
+
+	@Mock
+	private StackConfiguration mockStackConfig;
+
 	private Node node;
 
 	private final String annoKey1 = "annoKey1";
@@ -72,6 +89,9 @@ public class SearchDocumentDriverImplTest {
 
 		documentFields = new DocumentFields();
 		spySearchDocumentDriver = Mockito.spy(new SearchDocumentDriverImpl());
+		spySearchDocumentDriver.wikiPageDao = mockWikiPageDao;
+		spySearchDocumentDriver.cachedThreadPool = Executors.newCachedThreadPool();
+		spySearchDocumentDriver.stackConfig = mockStackConfig;
 
 		annoValuesMap = new HashMap<>();
 
@@ -91,6 +111,11 @@ public class SearchDocumentDriverImplTest {
 
 	}
 
+	@After
+	public void after() {
+		spySearchDocumentDriver.cachedThreadPool.shutdownNow();
+	}
+
 
 	@Test
 	public void getFirsAnnotationValues__multipleValues(){
@@ -192,4 +217,64 @@ public class SearchDocumentDriverImplTest {
 		assertEquals(sanitizedString, result.getFields().getDescription());
 	}
 
+	@Test
+	public void getAllWikiPageText() throws Exception {
+		V2WikiPageMarkdownFile root = new V2WikiPageMarkdownFile("1", 0L, "Root", 11L, "bucket", "rootKey");
+		V2WikiPageMarkdownFile child = new V2WikiPageMarkdownFile("2", 3L, null, 22L, "bucket", "childKey");
+		when(mockWikiPageDao.getCurrentMarkdownFiles(node.getId(), ObjectType.ENTITY, SearchDocumentDriverImpl.WIKI_PAGE_LIMIT))
+				.thenReturn(Arrays.asList(root, child));
+		when(mockWikiPageDao.downloadMarkdown(root)).thenReturn("root markdown");
+		when(mockWikiPageDao.downloadMarkdown(child)).thenReturn("child markdown");
+		when(mockStackConfig.getSearchMarkdownCacheMaxCharacters()).thenReturn(1000L);
+
+		//method under test
+		assertEquals("\nRoot\nroot markdown\nchild markdown", spySearchDocumentDriver.getAllWikiPageText(node.getId()));
+		// The second call is served from the cache
+		assertEquals("\nRoot\nroot markdown\nchild markdown", spySearchDocumentDriver.getAllWikiPageText(node.getId()));
+
+		verify(mockWikiPageDao, times(1)).downloadMarkdown(root);
+		verify(mockWikiPageDao, times(1)).downloadMarkdown(child);
+		// The cache is created once
+		verify(mockStackConfig, times(1)).getSearchMarkdownCacheMaxCharacters();
+	}
+
+	@Test
+	public void getAllWikiPageText_cacheFull() throws Exception {
+		V2WikiPageMarkdownFile root = new V2WikiPageMarkdownFile("1", 0L, "Root", 11L, "bucket", "rootKey");
+		when(mockWikiPageDao.getCurrentMarkdownFiles(node.getId(), ObjectType.ENTITY, SearchDocumentDriverImpl.WIKI_PAGE_LIMIT))
+				.thenReturn(Arrays.asList(root));
+		when(mockWikiPageDao.downloadMarkdown(root)).thenReturn("root markdown");
+		// Too small to hold the markdown
+		when(mockStackConfig.getSearchMarkdownCacheMaxCharacters()).thenReturn(0L);
+
+		//method under test
+		assertEquals("\nRoot\nroot markdown", spySearchDocumentDriver.getAllWikiPageText(node.getId()));
+		assertEquals("\nRoot\nroot markdown", spySearchDocumentDriver.getAllWikiPageText(node.getId()));
+
+		verify(mockWikiPageDao, times(2)).downloadMarkdown(root);
+	}
+
+	@Test
+	public void getAllWikiPageText_noWiki(){
+		when(mockWikiPageDao.getCurrentMarkdownFiles(node.getId(), ObjectType.ENTITY, SearchDocumentDriverImpl.WIKI_PAGE_LIMIT))
+				.thenReturn(Collections.emptyList());
+
+		//method under test
+		assertNull(spySearchDocumentDriver.getAllWikiPageText(node.getId()));
+		// The cache is not created
+		verifyZeroInteractions(mockStackConfig);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void getAllWikiPageText_downloadFailure() throws Exception {
+		V2WikiPageMarkdownFile root = new V2WikiPageMarkdownFile("1", 0L, "Root", 11L, "bucket", "rootKey");
+		when(mockWikiPageDao.getCurrentMarkdownFiles(node.getId(), ObjectType.ENTITY, SearchDocumentDriverImpl.WIKI_PAGE_LIMIT))
+				.thenReturn(Arrays.asList(root));
+		when(mockWikiPageDao.downloadMarkdown(root)).thenThrow(new IOException("failed"));
+		when(mockStackConfig.getSearchMarkdownCacheMaxCharacters()).thenReturn(1000L);
+
+		//method under test
+		spySearchDocumentDriver.getAllWikiPageText(node.getId());
+	}
+
 }
@@ -17,10 +17,12 @@ import static org.sagebionetworks.search.SearchConstants.FIELD_PATH;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.Before;
@@ -39,7 +41,6 @@ import org.sagebionetworks.repo.model.search.Document;
 import org.sagebionetworks.repo.model.search.SearchResults;
 import org.sagebionetworks.repo.model.search.query.KeyValue;
 import org.sagebionetworks.repo.model.search.query.SearchQuery;
-import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.search.CloudSearchLogger;
 import org.sagebionetworks.search.SearchDao;
 import org.sagebionetworks.search.SearchUtil;
@@ -100,7 +101,7 @@ public class SearchManagerImplTest {
 		sample.getHits().withHit(hit);
 		when(mockSearchDao.executeSearch(any(SearchRequest.class))).thenReturn(sample);
 		// make sure the path is returned from the document driver
-		when(mockSearchDocumentDriver.getEntityPath("syn123")).thenReturn(new EntityPath());
+		when(mockSearchDocumentDriver.getEntityPaths(Collections.singletonList("syn123"))).thenReturn(Collections.singletonMap("syn123", new EntityPath()));
 
 		SearchQuery query = new SearchQuery();
 		query.setBooleanQuery(new LinkedList<>());
@@ -121,7 +122,7 @@ public class SearchManagerImplTest {
 		assertNotNull(results.getHits().get(0).getPath());
 		// Validate that path was not passed along to the search index as it is not there.
 		verify(mockSearchDao, times(1)).executeSearch(any(SearchRequest.class));
-		verify(mockSearchDocumentDriver,times(1)).getEntityPath("syn123");
+		verify(mockSearchDocumentDriver,times(1)).getEntityPaths(Collections.singletonList("syn123"));
 		verify(mockSearchDocumentDriver,times(1)).getAliases(Collections.singletonList("syn123"));
 	}
 
@@ -148,7 +149,7 @@ public class SearchManagerImplTest {
 		// The path should not be returned unless requested.
 		assertNull(results.getHits().get(0).getPath());
 		verify(mockSearchDao, times(1)).executeSearch(any(SearchRequest.class));
-		verify(mockSearchDocumentDriver,never()).getEntityPath(anyString());
+		verify(mockSearchDocumentDriver,never()).getEntityPaths(any());
 		verify(mockSearchDocumentDriver,times(1)).getAliases(Collections.singletonList("syn123"));
 	}
 
@@ -216,16 +217,33 @@ public class SearchManagerImplTest {
 		org.sagebionetworks.repo.model.search.Hit hit2 = new org.sagebionetworks.repo.model.search.Hit(); hit2.setId(id2); hits.add(hit2);
 		org.sagebionetworks.repo.model.search.Hit hit3 = new org.sagebionetworks.repo.model.search.Hit(); hit3.setId(id3); hits.add(hit3);
 
-		when(mockSearchDocumentDriver.getEntityPath(id1)).thenReturn(new EntityPath());
-		when(mockSearchDocumentDriver.getEntityPath(id2)).thenThrow(new NotFoundException(""));
-		when(mockSearchDocumentDriver.getEntityPath(id3)).thenReturn(new EntityPath());
+		// id2 does not exist
+		Map<String, EntityPath> paths = new HashMap<>();
+		paths.put(id1, new EntityPath());
+		paths.put(id3, new EntityPath());
+		when(mockSearchDocumentDriver.getEntityPaths(Arrays.asList(id1, id2, id3))).thenReturn(paths);
 		
 		// method under test
 		searchManager.addPathDataToHits(hits);
 		
 		assertEquals(2, hits.size());
 		assertEquals(id1, hits.get(0).getId());
+		assertEquals(paths.get(id1), hits.get(0).getPath());
 		assertEquals(id3, hits.get(1).getId());
+		assertEquals(paths.get(id3), hits.get(1).getPath());
+		// The paths are fetched with a single call
+		verify(mockSearchDocumentDriver).getEntityPaths(any());
+		verify(mockSearchDocumentDriver, never()).getEntityPath(anyString());
+	}
+	
+	@Test
+	public void testAddPathDataToHitsWithEmpty() {
+		List<org.sagebionetworks.repo.model.search.Hit> hits = new ArrayList<org.sagebionetworks.repo.model.search.Hit>();
+		
+		// method under test
+		searchManager.addPathDataToHits(hits);
+		
+		verify(mockSearchDocumentDriver, never()).getEntityPaths(any());
 	}
 	
 	@Test
@@ -0,0 +1,100 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.table.ColumnType;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.repo.model.table.SelectColumn;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+
+public class JSONWriterRowHandlerTest {
+
+	private StringWriter writer;
+	private JSONWriterRowHandler handler;
+	private RowSet header;
+	private List<Row> rows;
+
+	@BeforeEach
+	public void before() {
+		writer = new StringWriter();
+		handler = new JSONWriterRowHandler(writer);
+		header = new RowSet().setTableId("syn123").setEtag("etag")
+				.setHeaders(List.of(new SelectColumn().setName("foo").setColumnType(ColumnType.STRING).setId("1"),
+						new SelectColumn().setName("bar").setColumnType(ColumnType.INTEGER)));
+		rows = List.of(new Row().setRowId(1L).setVersionNumber(2L).setValues(Arrays.asList("a \"quoted\"\nvalue", "3")),
+				new Row().setRowId(4L).setVersionNumber(5L).setEtag("rowEtag").setValues(Arrays.asList("", "6")));
+	}
+
+	@Test
+	public void testWriteRowSet() throws IOException, JSONObjectAdapterException {
+		// call under test
+		handler.writeHeader(header);
+		rows.forEach(handler::nextRow);
+		handler.writeFooter();
+
+		RowSet result = EntityFactory.createEntityFromJSONString(writer.toString(), RowSet.class);
+		RowSet expected = new RowSet().setTableId(header.getTableId()).setEtag(header.getEtag())
+				.setHeaders(header.getHeaders()).setRows(rows);
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void testWriteRowSetWithNoRows() throws IOException, JSONObjectAdapterException {
+		// call under test
+		handler.writeHeader(header);
+		handler.writeFooter();
+
+		RowSet result = EntityFactory.createEntityFromJSONString(writer.toString(), RowSet.class);
+		assertEquals(new ArrayList<>(), result.getRows());
+		assertEquals(header.getHeaders(), result.getHeaders());
+	}
+
+	@Test
+	public void testWriteRowSetWithEmptyHeader() throws IOException, JSONObjectAdapterException {
+		// call under test
+		handler.writeHeader(new RowSet());
+		handler.nextRow(rows.get(0));
+		handler.writeFooter();
+
+		RowSet result = EntityFactory.createEntityFromJSONString(writer.toString(), RowSet.class);
+		assertEquals(List.of(rows.get(0)), result.getRows());
+	}
+
+	@Test
+	public void testWriteRowSetMatchesEntityFactory() throws IOException, JSONObjectAdapterException {
+		rows = List.of(rows.get(0), new Row().setRowId(7L).setValues(Arrays.asList(null, "8")));
+		RowSet rowSet = new RowSet().setTableId(header.getTableId()).setEtag(header.getEtag())
+				.setHeaders(header.getHeaders()).setRows(rows);
+		String expectedJson = EntityFactory.createJSONStringForEntity(rowSet);
+
+		// call under test
+		handler.writeHeader(header);
+		rows.forEach(handler::nextRow);
+		handler.writeFooter();
+
+		assertEquals(EntityFactory.createEntityFromJSONString(expectedJson, RowSet.class),
+				EntityFactory.createEntityFromJSONString(writer.toString(), RowSet.class));
+	}
+
+	@Test
+	public void testWriteHeaderWithRows() {
+		header.setRows(rows);
+
+		String message = assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			handler.writeHeader(header);
+		}).getMessage();
+		assertEquals("The rows of the header must be null", message);
+	}
+}
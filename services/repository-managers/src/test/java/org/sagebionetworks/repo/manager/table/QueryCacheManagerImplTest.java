@@ -1,8 +1,10 @@
 package org.sagebionetworks.repo.manager.table;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -10,6 +12,8 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.sql.Timestamp;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -17,6 +21,7 @@ import java.util.Optional;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -31,6 +36,7 @@ import org.sagebionetworks.repo.model.table.RowSet;
 import org.sagebionetworks.repo.model.table.SelectColumn;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.table.cluster.CachedQueryDto;
 import org.sagebionetworks.table.cluster.CachedQueryRequest;
 import org.sagebionetworks.table.cluster.TableIndexDAO;
 
@@ -49,6 +55,8 @@ public class QueryCacheManagerImplTest {
 	private RepositoryMessagePublisher mockPublisher;
 	@Mock
 	TableIndexDAO mockTableIndexDao;
+	@Mock
+	private QueryNearCache mockNearCache;
 
 	@InjectMocks
 	@Spy
@@ -61,7 +69,7 @@ public class QueryCacheManagerImplTest {
 				.setParameters(Map.of("limit", 18)).setSelectColumns(List.of(new SelectColumn().setName("foo")))
 				.setSingleTableId("syn123");
 
-		when(mockTableIndexDao.getCachedQueryResults(any())).thenReturn(Optional.empty());
+		when(mockTableIndexDao.getCachedQuery(any())).thenReturn(Optional.empty());
 		String requestJson = objectMapper.writeValueAsString(request);
 		when(mockObjectMapper.writeValueAsString(any())).thenReturn(requestJson);
 		String hash = DigestUtils.sha256Hex(requestJson);
@@ -73,7 +81,8 @@ public class QueryCacheManagerImplTest {
 		RowSet results = manager.getQueryResults(mockTableIndexDao, request);
 
 		assertEquals(toReturn, results);
-		verify(mockTableIndexDao).getCachedQueryResults(hash);
+		verify(mockNearCache).get(hash);
+		verify(mockTableIndexDao).getCachedQuery(hash);
 		verify(manager).executeQueryAndSaveToCache(mockTableIndexDao, request, requestJson, hash, 12);
 		verify(mockObjectMapper).writeValueAsString(request);
 		verifyZeroInteractions(mockPublisher);
@@ -89,7 +98,8 @@ public class QueryCacheManagerImplTest {
 		RowSet toReturn = new RowSet().setTableId("123").setRows(List.of(new Row().setRowId(88L)));
 		String resultJson = EntityFactory.createJSONStringForEntity(toReturn);
 
-		when(mockTableIndexDao.getCachedQueryResults(any())).thenReturn(Optional.of(resultJson));
+		Timestamp expiresOn = new Timestamp(123_000L);
+		when(mockTableIndexDao.getCachedQuery(any())).thenReturn(Optional.of(new CachedQueryDto().setResultJson(resultJson).setExpiresOn(expiresOn)));
 		String requestJson = objectMapper.writeValueAsString(request);
 		when(mockObjectMapper.writeValueAsString(any())).thenReturn(requestJson);
 		String hash = DigestUtils.sha256Hex(requestJson);
@@ -98,7 +108,10 @@ public class QueryCacheManagerImplTest {
 		RowSet results = manager.getQueryResults(mockTableIndexDao, request);
 
 		assertEquals(toReturn, results);
-		verify(mockTableIndexDao).getCachedQueryResults(hash);
+		verify(mockNearCache).get(hash);
+		verify(mockTableIndexDao).getCachedQuery(hash);
+		// The near cache entry expires with the database row
+		verify(mockNearCache).put(hash, toReturn, resultJson, expiresOn);
 		verify(manager, never()).executeQueryAndSaveToCache(mockTableIndexDao, request, requestJson, hash, 12);
 		verify(mockObjectMapper).writeValueAsString(request);
 		verify(mockPublisher).fireLocalStackMessage(
@@ -106,11 +119,36 @@ public class QueryCacheManagerImplTest {
 	}
 
 	@Test
-	public void testRowSetToFromJSON() {
+	public void testGetQueryResultsWithNearCacheHit() throws JsonProcessingException {
+		CachedQueryRequest request = new CachedQueryRequest().setExpiresInSec(12).setIncludeEntityEtag(true)
+				.setIncludesRowIdAndVersion(true).setOutputSQL("select * from syn123")
+				.setParameters(Map.of("limit", 18)).setSelectColumns(List.of(new SelectColumn().setName("foo")))
+				.setSingleTableId("syn123");
+
+		RowSet toReturn = new RowSet().setTableId("123").setRows(List.of(new Row().setRowId(88L)));
+		String requestJson = objectMapper.writeValueAsString(request);
+		when(mockObjectMapper.writeValueAsString(any())).thenReturn(requestJson);
+		String hash = DigestUtils.sha256Hex(requestJson);
+		when(mockNearCache.get(any())).thenReturn(Optional.of(toReturn));
+
+		// call under test
+		RowSet results = manager.getQueryResults(mockTableIndexDao, request);
+
+		assertEquals(toReturn, results);
+		verify(mockNearCache).get(hash);
+		verify(mockNearCache, never()).put(any(), any(), any(), anyInt());
+		verify(mockNearCache, never()).put(any(), any(), any(), any(Date.class));
+		verifyZeroInteractions(mockTableIndexDao);
+		verify(mockPublisher).fireLocalStackMessage(
+				new QueryCacheHitEvent().setQueryRequestHash(hash).setObjectType(ObjectType.QUERY_CACHE_HIT));
+		verify(manager, never()).parseRowSet(any());
+	}
+
+	@Test
+	public void testRowSetFromJSON() throws JSONObjectAdapterException {
 		RowSet toReturn = new RowSet().setTableId("123")
 				.setRows(List.of(new Row().setRowId(88L).setValues(List.of("one", "two"))));
-		// call under test
-		String json = manager.rowSetToJson(toReturn);
+		String json = EntityFactory.createJSONStringForEntity(toReturn);
 		// call under test
 		RowSet clone = manager.parseRowSet(json);
 		assertEquals(toReturn, clone);
@@ -184,19 +222,58 @@ public class QueryCacheManagerImplTest {
 				.setSingleTableId("syn123");
 		String requestJson = objectMapper.writeValueAsString(request);
 		int expiresInSec = 14;
-		RowSet rowSet = new RowSet().setTableId("syn123");
-		when(mockTableIndexDao.query(any())).thenReturn(rowSet);
+		List<Row> rows = List.of(new Row().setRowId(1L).setVersionNumber(2L).setValues(List.of("one")),
+				new Row().setRowId(3L).setVersionNumber(4L).setValues(List.of("two")));
+		RowSet expected = new RowSet().setTableId("syn123").setHeaders(request.getSelectColumns()).setRows(rows);
+		when(mockTableIndexDao.query(any())).thenReturn(expected);
 		when(mockClock.currentTimeMillis()).thenReturn(1L, 8L);
 		long runtime = 8-1;
-		String resultJson = "resultJson";
-		doReturn(resultJson).when(manager).rowSetToJson(any());
 		
 		// call under test
 		RowSet result = manager.executeQueryAndSaveToCache(mockTableIndexDao, request, requestJson, hash, expiresInSec);
-		assertEquals(rowSet, result);
+		assertEquals(expected, result);
 		
 		verify(mockTableIndexDao).query(request);
-		verify(mockTableIndexDao).saveCachedQuery(hash, requestJson, resultJson, runtime, expiresInSec);
+		ArgumentCaptor<String> jsonCaptor = ArgumentCaptor.forClass(String.class);
+		verify(mockTableIndexDao).saveCachedQuery(eq(hash), eq(requestJson), jsonCaptor.capture(), eq(runtime), eq(expiresInSec));
+		// the JSON written row by row must be a valid RowSet
+		assertEquals(expected, manager.parseRowSet(jsonCaptor.getValue()));
+		verify(mockNearCache).put(hash, expected, jsonCaptor.getValue(), expiresInSec);
 		verify(mockClock, times(2)).currentTimeMillis();
 	}
+	
+	@Test
+	public void testExecuteQueryAndSaveToCacheWithNoSingleTable() throws JsonProcessingException {
+		CachedQueryRequest request = new CachedQueryRequest().setOutputSQL("select * from syn123 join syn456")
+				.setSelectColumns(List.of(new SelectColumn().setName("foo")));
+		
+		assertThrows(IllegalArgumentException.class, ()->{
+			// call under test
+			manager.executeQueryAndSaveToCache(mockTableIndexDao, request, "requestJson", "someHash", 14);
+		});
+		verifyZeroInteractions(mockTableIndexDao);
+	}
+	
+	@Test
+	public void testRowSetToJson() {
+		RowSet rowSet = new RowSet().setTableId("syn123").setEtag("etag")
+				.setHeaders(List.of(new SelectColumn().setName("foo")))
+				.setRows(List.of(new Row().setRowId(1L).setVersionNumber(2L).setValues(List.of("one"))));
+		
+		// call under test
+		String json = manager.rowSetToJson(rowSet);
+		
+		assertEquals(rowSet, manager.parseRowSet(json));
+	}
+	
+	@Test
+	public void testRowSetToJsonWithNoRows() {
+		RowSet rowSet = new RowSet().setTableId("syn123").setHeaders(List.of(new SelectColumn().setName("foo")))
+				.setRows(List.of());
+		
+		// call under test
+		String json = manager.rowSetToJson(rowSet);
+		
+		assertEquals(rowSet, manager.parseRowSet(json));
+	}
 }
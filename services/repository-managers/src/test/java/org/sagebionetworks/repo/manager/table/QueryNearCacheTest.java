@@ -0,0 +1,213 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.repo.model.table.SelectColumn;
+import org.sagebionetworks.util.Clock;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+@ExtendWith(MockitoExtension.class)
+public class QueryNearCacheTest {
+
+	@Mock
+	private Clock mockClock;
+	@Mock
+	private Consumer mockConsumer;
+	@Mock
+	private StackConfiguration mockConfig;
+	@Captor
+	private ArgumentCaptor<List<ProfileData>> profileDataCaptor;
+
+	private QueryNearCache cache;
+	private RowSet rowSet;
+	private String resultJson;
+
+	@BeforeEach
+	public void before() {
+		cache = new QueryNearCache(mockClock, mockConsumer, 100);
+		rowSet = new RowSet().setTableId("syn123").setEtag("etag")
+				.setHeaders(List.of(new SelectColumn().setName("foo")))
+				.setRows(List.of(new Row().setRowId(1L).setValues(List.of("one"))));
+		resultJson = "0123456789";
+	}
+
+	@Test
+	public void testPutAndGet() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1999L);
+
+		cache.put("hash", rowSet, resultJson, 1);
+
+		// call under test
+		Optional<RowSet> result = cache.get("hash");
+
+		assertEquals(Optional.of(rowSet), result);
+		assertNotSame(rowSet, result.get());
+	}
+
+	@Test
+	public void testGetWithModifiedCopy() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1001L, 1002L);
+
+		cache.put("hash", rowSet, resultJson, 1);
+
+		cache.get("hash").get().setEtag("changed");
+
+		// call under test
+		Optional<RowSet> result = cache.get("hash");
+
+		assertEquals("etag", result.get().getEtag());
+	}
+
+	@Test
+	public void testGetWithExpired() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 2000L);
+
+		cache.put("hash", rowSet, resultJson, 1);
+
+		// call under test
+		Optional<RowSet> result = cache.get("hash");
+
+		assertEquals(Optional.empty(), result);
+		assertEquals(0L, cache.size());
+	}
+
+	@Test
+	public void testGetWithMiss() {
+		// call under test
+		Optional<RowSet> result = cache.get("hash");
+
+		assertEquals(Optional.empty(), result);
+	}
+
+	@Test
+	public void testGetWithNullHash() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			cache.get(null);
+		});
+	}
+
+	@Test
+	public void testPutWithNoExpiration() {
+		// call under test
+		cache.put("hash", rowSet, resultJson, 0);
+
+		assertEquals(0L, cache.size());
+	}
+
+	@Test
+	public void testPutWithExpiresOn() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1999L);
+
+		// call under test
+		cache.put("hash", rowSet, resultJson, new Date(2000L));
+
+		assertEquals(Optional.of(rowSet), cache.get("hash"));
+	}
+
+	@Test
+	public void testPutWithExpiresOnInThePast() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+
+		// call under test
+		cache.put("hash", rowSet, resultJson, new Date(1000L));
+
+		assertEquals(0L, cache.size());
+	}
+
+	@Test
+	public void testPutWithEvictionByWeight() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+
+		// Each entry weights 2 * 10 = 20 bytes, at most 5 fit in 100 bytes
+		for (int i = 0; i < 10; i++) {
+			cache.put("hash" + i, rowSet, resultJson, 60);
+		}
+
+		assertTrue(cache.size() <= 5L);
+	}
+
+	@Test
+	public void testInvalidate() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+
+		cache.put("hash", rowSet, resultJson, 60);
+
+		// call under test
+		cache.invalidate("hash");
+
+		assertEquals(Optional.empty(), cache.get("hash"));
+	}
+
+	@Test
+	public void testCollectMetrics() {
+		cache = new QueryNearCache(mockClock, mockConsumer, 1000);
+		when(mockConfig.getStackInstance()).thenReturn("stack");
+		cache.configure(mockConfig);
+
+		Date now = new Date();
+		when(mockClock.now()).thenReturn(now);
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+
+		for (int i = 0; i < 6; i++) {
+			cache.put("hash" + i, rowSet, resultJson, 60);
+		}
+		cache.get("hash5");
+		cache.get("hash0");
+		cache.get("missing");
+
+		// call under test
+		cache.collectMetrics();
+
+		verify(mockConsumer).addProfileData(profileDataCaptor.capture());
+
+		List<ProfileData> expected = List.of(
+				new ProfileData().setTimestamp(now).setNamespace("QueryNearCache-stack").setName("hitCount").setValue(2.0).setUnit(StandardUnit.Count.name()).setDimension(Map.of()),
+				new ProfileData().setTimestamp(now).setNamespace("QueryNearCache-stack").setName("missCount").setValue(1.0).setUnit(StandardUnit.Count.name()).setDimension(Map.of()),
+				new ProfileData().setTimestamp(now).setNamespace("QueryNearCache-stack").setName("evictionCount").setValue(0.0).setUnit(StandardUnit.Count.name()).setDimension(Map.of()),
+				new ProfileData().setTimestamp(now).setNamespace("QueryNearCache-stack").setName("weightBytes").setValue(120.0).setUnit(StandardUnit.Bytes.name()).setDimension(Map.of())
+		);
+
+		assertEquals(expected, profileDataCaptor.getValue());
+	}
+
+	@Test
+	public void testCollectMetricsWithExpired() {
+		cache = new QueryNearCache(mockClock, mockConsumer, 1000);
+		when(mockConfig.getStackInstance()).thenReturn("stack");
+		cache.configure(mockConfig);
+		when(mockClock.now()).thenReturn(new Date());
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L, 5000L);
+
+		cache.put("short", rowSet, resultJson, 1);
+		cache.put("long", rowSet, resultJson, 60);
+
+		// call under test
+		cache.collectMetrics();
+
+		assertEquals(1L, cache.size());
+	}
+}
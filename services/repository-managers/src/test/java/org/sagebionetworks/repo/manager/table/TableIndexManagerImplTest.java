@@ -33,6 +33,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
@@ -141,6 +144,8 @@ public class TableIndexManagerImplTest {
 	private ViewFilterBuilder mockFilterBuilder;
 	@Mock
 	private ViewFilter mockNewFilter;
+	@Mock
+	private ExecutorService mockThreadPool;
 	
 	@Captor
 	private ArgumentCaptor<List<ColumnChangeDetails>> changeCaptor;
@@ -183,7 +188,7 @@ public class TableIndexManagerImplTest {
 		objectType = ViewObjectType.ENTITY;
 		tableId = IdAndVersion.parse("syn123");
 		manager = new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory,
-				mockObjectFieldModelResolverFactory, mockSearchProcessor);
+				mockObjectFieldModelResolverFactory, mockSearchProcessor, mockThreadPool);
 		managerSpy = Mockito.spy(manager);
 		versionNumber = 99L;
 		schema = Arrays.asList(TableModelTestUtils.createColumn(99L, "aString", ColumnType.STRING),
@@ -239,7 +244,7 @@ public class TableIndexManagerImplTest {
 	public void testNullDao() {
 		assertThrows(IllegalArgumentException.class, () -> {
 			new TableIndexManagerImpl(null, mockManagerSupport, mockMetadataProviderFactory,
-					mockObjectFieldModelResolverFactory, mockSearchProcessor);
+					mockObjectFieldModelResolverFactory, mockSearchProcessor, mockThreadPool);
 		});
 	}
 
@@ -247,28 +252,35 @@ public class TableIndexManagerImplTest {
 	public void testNullSupport() {
 		assertThrows(IllegalArgumentException.class, () -> {
 			new TableIndexManagerImpl(mockIndexDao, null, mockMetadataProviderFactory,
-					mockObjectFieldModelResolverFactory, mockSearchProcessor);
+					mockObjectFieldModelResolverFactory, mockSearchProcessor, mockThreadPool);
 		});
 	}
 
 	@Test
 	public void testNullProviderFactory() {
 		assertThrows(IllegalArgumentException.class, () -> {
-			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, null, mockObjectFieldModelResolverFactory, mockSearchProcessor);
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, null, mockObjectFieldModelResolverFactory, mockSearchProcessor, mockThreadPool);
 		});
 	}
 
 	@Test
 	public void testNullObjectFieldFactory() {
 		assertThrows(IllegalArgumentException.class, () -> {
-			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, null, mockSearchProcessor);
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, null, mockSearchProcessor, mockThreadPool);
 		});
 	}
 	
 	@Test
 	public void testNullSearchProcessor() {
 		assertThrows(IllegalArgumentException.class, () -> {
-			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, null);
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, null, mockThreadPool);
+		});
+	}
+	
+	@Test
+	public void testNullThreadPool() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, mockSearchProcessor, null);
 		});
 	}
 	
@@ -1165,6 +1177,7 @@ public class TableIndexManagerImplTest {
 		
 	@Test
 	public void testBuildIndexToChangeNumberWithExclusiveLock() throws Exception {
+		setupThreadPool();
 		setupExecuteInWriteTransaction();
 		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L);
 		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
@@ -1192,6 +1205,7 @@ public class TableIndexManagerImplTest {
 
 	@Test
 	public void testBuildIndexToChangeNumberWithExclusiveLockWithVersion() throws Exception {
+		setupThreadPool();
 		setupExecuteInWriteTransaction();
 		tableId = IdAndVersion.parse("syn123.1");
 		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
@@ -1218,6 +1232,7 @@ public class TableIndexManagerImplTest {
 
 	@Test
 	public void testBuildIndexToChangeNumberWithExclusiveLockFirstChangeOnly() throws Exception {
+		setupThreadPool();
 		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L, 0L);
 		List<TableChangeMetaData> list = setupMockChanges();
 		Iterator<TableChangeMetaData> iterator = list.iterator();
@@ -2960,6 +2975,16 @@ public class TableIndexManagerImplTest {
 	}
 			
 	@SuppressWarnings("unchecked")
+	/**
+	 * Helper to run the prefetching of changes on the calling thread.
+	 */
+	void setupThreadPool() {
+		doAnswer((InvocationOnMock invocation) -> {
+			Callable<?> callable = invocation.getArgument(0);
+			return CompletableFuture.completedFuture(callable.call());
+		}).when(mockThreadPool).submit(any(Callable.class));
+	}
+
 	public void setupExecuteInWriteTransaction() {
 		// When a write transaction callback is used, we need to call the callback.
 		doAnswer(new Answer<Object>() {
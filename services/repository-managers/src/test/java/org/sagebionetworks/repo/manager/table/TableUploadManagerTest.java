@@ -20,7 +20,10 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -46,6 +49,7 @@ import org.sagebionetworks.repo.model.table.UploadToTableResult;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.util.FileProvider;
 import org.sagebionetworks.util.progress.ProgressCallback;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.util.StringInputStream;
@@ -74,6 +78,8 @@ public class TableUploadManagerTest {
 	@Mock
 	File mockFile;
 	
+	ExecutorService cachedThreadPool;
+	
 	@InjectMocks
 	TableUploadManagerImpl manager;
 	S3FileHandle fileHandle;
@@ -87,6 +93,8 @@ public class TableUploadManagerTest {
 	
 	@Before
 	public void before() throws Exception {
+		cachedThreadPool = Executors.newCachedThreadPool();
+		ReflectionTestUtils.setField(manager, "cachedThreadPool", cachedThreadPool);
 		// User
 		user = new UserInfo(false);
 		user.setId(999L);
@@ -138,6 +146,11 @@ public class TableUploadManagerTest {
 			}}).when(rowProcessor).processRows(eq(user), eq(uploadRequest.getTableId()), anyListOf(ColumnModel.class), any(Iterator.class), anyString(), eq(mockProgressCallback));
 	}
 	
+	@After
+	public void after() {
+		cachedThreadPool.shutdownNow();
+	}
+	
 	@Test
 	public void testHappyCase() throws IOException{
 		// call under test;
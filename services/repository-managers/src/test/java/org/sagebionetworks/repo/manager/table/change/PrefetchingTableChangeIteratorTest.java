@@ -0,0 +1,302 @@
+package org.sagebionetworks.repo.manager.table.change;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.manager.table.TestTableChangeMetaData;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.ColumnType;
+import org.sagebionetworks.repo.model.table.TableChangeType;
+import org.sagebionetworks.table.model.ChangeData;
+import org.sagebionetworks.table.model.SparseChangeSet;
+import org.sagebionetworks.table.model.SparseRow;
+
+@ExtendWith(MockitoExtension.class)
+public class PrefetchingTableChangeIteratorTest {
+
+	@Mock
+	private ExecutorService mockThreadPool;
+	@Mock
+	private Future<Object> mockFuture;
+	@Mock
+	private TableChangeMetaData mockChange;
+
+	private SparseChangeSet changeSet;
+	private List<TableChangeMetaData> changes;
+	private List<Callable<?>> submitted;
+
+	@BeforeEach
+	public void before() {
+		ColumnModel column = new ColumnModel().setId("1").setName("foo").setColumnType(ColumnType.STRING);
+		changeSet = new SparseChangeSet("syn123", List.of(column));
+		SparseRow row = changeSet.addEmptyRow();
+		row.setRowId(0L);
+		row.setCellValue("1", "abc");
+		row = changeSet.addEmptyRow();
+		row.setRowId(1L);
+
+		changes = new ArrayList<>();
+		changes.add(createChange(0L, TableChangeType.ROW));
+		changes.add(createChange(1L, TableChangeType.COLUMN));
+		changes.add(createChange(2L, TableChangeType.ROW));
+		changes.add(createChange(3L, TableChangeType.ROW));
+		submitted = new ArrayList<>();
+	}
+
+	TableChangeMetaData createChange(long changeNumber, TableChangeType type) {
+		TestTableChangeMetaData<SparseChangeSet> change = new TestTableChangeMetaData<>();
+		change.setChangeNumber(changeNumber);
+		change.setChangeType(type);
+		change.seteTag("etag-" + changeNumber);
+		change.setChangeData(new ChangeData<>(changeNumber, changeSet));
+		return change;
+	}
+
+	/**
+	 * Run the submitted loads on the calling thread.
+	 */
+	void setupThreadPool() {
+		doAnswer(invocation -> {
+			Callable<?> callable = invocation.getArgument(0);
+			submitted.add(callable);
+			return CompletableFuture.completedFuture(callable.call());
+		}).when(mockThreadPool).submit(any(Callable.class));
+	}
+
+	PrefetchingTableChangeIterator createIterator(int maxPrefetchCount, long maxPrefetchBytes) {
+		return new PrefetchingTableChangeIterator(changes.iterator(), change -> change.getChangeNumber() > 0L,
+				mockThreadPool, maxPrefetchCount, maxPrefetchBytes);
+	}
+
+	@Test
+	public void testIterate() throws Exception {
+		setupThreadPool();
+		long expectedSize = PrefetchingTableChangeIterator.estimateSizeBytes(changeSet);
+		try (PrefetchingTableChangeIterator iterator = createIterator(2, Long.MAX_VALUE)) {
+			List<Long> changeNumbers = new ArrayList<>();
+			// call under test
+			TableChangeMetaData first = iterator.next();
+			changeNumbers.add(first.getChangeNumber());
+			// change 0 is filtered and change 1 is not a row change, so only change 2 is loaded.
+			assertEquals(1, submitted.size());
+			assertEquals(expectedSize, iterator.getPrefetchedBytes());
+			ChangeData<SparseChangeSet> data = first.loadChangeData(SparseChangeSet.class);
+			assertSame(changeSet, data.getChange());
+			while (iterator.hasNext()) {
+				TableChangeMetaData change = iterator.next();
+				changeNumbers.add(change.getChangeNumber());
+				assertEquals("etag-" + change.getChangeNumber(), change.getETag());
+				if (TableChangeType.ROW.equals(change.getChangeType())) {
+					data = change.loadChangeData(SparseChangeSet.class);
+					assertEquals(change.getChangeNumber(), data.getChangeNumber());
+					assertSame(changeSet, data.getChange());
+				}
+			}
+			assertEquals(List.of(0L, 1L, 2L, 3L), changeNumbers);
+			assertEquals(2, submitted.size());
+			// All of the loaded data was consumed
+			assertEquals(0L, iterator.getPrefetchedBytes());
+			assertThrows(NoSuchElementException.class, () -> {
+				iterator.next();
+			});
+		}
+	}
+
+	@Test
+	public void testIterateWithByteLimit() throws Exception {
+		setupThreadPool();
+		changes.remove(1);
+		changes.add(createChange(4L, TableChangeType.ROW));
+		try (PrefetchingTableChangeIterator iterator = createIterator(8, 1L)) {
+			// call under test
+			iterator.next();
+			// The first load exceeds the limit so no other change is read ahead
+			assertEquals(1, submitted.size());
+			TableChangeMetaData second = iterator.next();
+			assertEquals(2L, second.getChangeNumber());
+			// change 3 is read but not loaded while over the limit
+			assertEquals(1, submitted.size());
+			second.loadChangeData(SparseChangeSet.class);
+			assertEquals(0L, iterator.getPrefetchedBytes());
+			// Once the data is consumed the following change is loaded
+			TableChangeMetaData third = iterator.next();
+			assertEquals(3L, third.getChangeNumber());
+			assertEquals(2, submitted.size());
+			assertSame(changeSet, third.loadChangeData(SparseChangeSet.class).getChange());
+			TableChangeMetaData fourth = iterator.next();
+			assertEquals(4L, fourth.getChangeNumber());
+			assertSame(changeSet, fourth.loadChangeData(SparseChangeSet.class).getChange());
+			assertFalse(iterator.hasNext());
+		}
+	}
+
+	@Test
+	public void testIterateWithNoPrefetch() throws Exception {
+		try (PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				change -> false, mockThreadPool, 2, Long.MAX_VALUE)) {
+			int count = 0;
+			while (iterator.hasNext()) {
+				TableChangeMetaData change = iterator.next();
+				// call under test
+				assertSame(changeSet, change.loadChangeData(SparseChangeSet.class).getChange());
+				count++;
+			}
+			assertEquals(4, count);
+		}
+		verify(mockThreadPool, never()).submit(any(Callable.class));
+	}
+
+	@Test
+	public void testLoadChangeDataWithIOException() throws Exception {
+		IOException exception = new IOException("failed");
+		when(mockThreadPool.submit(any(Callable.class))).thenReturn(CompletableFuture.failedFuture(exception));
+		try (PrefetchingTableChangeIterator iterator = createIterator(2, Long.MAX_VALUE)) {
+			iterator.next();
+			iterator.next();
+			TableChangeMetaData change = iterator.next();
+			IOException result = assertThrows(IOException.class, () -> {
+				// call under test
+				change.loadChangeData(SparseChangeSet.class);
+			});
+			assertSame(exception, result);
+		}
+	}
+
+	@Test
+	public void testLoadChangeDataWithRuntimeException() throws Exception {
+		IllegalStateException exception = new IllegalStateException("failed");
+		when(mockThreadPool.submit(any(Callable.class))).thenReturn(CompletableFuture.failedFuture(exception));
+		try (PrefetchingTableChangeIterator iterator = createIterator(2, Long.MAX_VALUE)) {
+			iterator.next();
+			iterator.next();
+			TableChangeMetaData change = iterator.next();
+			IllegalStateException result = assertThrows(IllegalStateException.class, () -> {
+				// call under test
+				change.loadChangeData(SparseChangeSet.class);
+			});
+			assertSame(exception, result);
+		}
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		when(mockThreadPool.submit(any(Callable.class))).thenReturn(mockFuture);
+		when(mockFuture.cancel(true)).thenReturn(true);
+		PrefetchingTableChangeIterator iterator = createIterator(4, Long.MAX_VALUE);
+		iterator.next();
+		// call under test
+		iterator.close();
+		verify(mockFuture, times(2)).cancel(true);
+		assertFalse(iterator.hasNext());
+		// The reservations of the cancelled loads are released
+		assertEquals(0L, iterator.getPrefetchedBytes());
+	}
+
+	/**
+	 * Keep the submitted loads without running them.
+	 */
+	void setupPendingThreadPool() {
+		doAnswer(invocation -> {
+			submitted.add(invocation.getArgument(0));
+			return mockFuture;
+		}).when(mockThreadPool).submit(any(Callable.class));
+	}
+
+	@Test
+	public void testIterateWithLoadsInFlight() throws Exception {
+		setupPendingThreadPool();
+		try (PrefetchingTableChangeIterator iterator = createIterator(4, 100L)) {
+			// call under test
+			iterator.next();
+			// change 2 and 3 are loading, each counts for a share of the limit
+			assertEquals(2, submitted.size());
+			assertEquals(50L, iterator.getPrefetchedBytes());
+			// Once loaded the reservation is replaced by the size of the data
+			submitted.get(0).call();
+			assertEquals(25L + PrefetchingTableChangeIterator.estimateSizeBytes(changeSet), iterator.getPrefetchedBytes());
+		}
+	}
+
+	@Test
+	public void testCloseWithLoadInFlight() throws Exception {
+		setupPendingThreadPool();
+		PrefetchingTableChangeIterator iterator = createIterator(4, 100L);
+		iterator.next();
+		// call under test
+		iterator.close();
+		assertEquals(0L, iterator.getPrefetchedBytes());
+		// A load that was already running when cancelled does not count its data
+		submitted.get(0).call();
+		assertEquals(0L, iterator.getPrefetchedBytes());
+	}
+
+	@Test
+	public void testLoadWithFailure() throws Exception {
+		setupPendingThreadPool();
+		when(mockChange.getChangeNumber()).thenReturn(2L);
+		when(mockChange.getChangeType()).thenReturn(TableChangeType.ROW);
+		when(mockChange.loadChangeData(SparseChangeSet.class)).thenThrow(new IOException("failed"));
+		changes.set(2, mockChange);
+		try (PrefetchingTableChangeIterator iterator = createIterator(4, 100L)) {
+			iterator.next();
+			assertEquals(50L, iterator.getPrefetchedBytes());
+			assertThrows(IOException.class, () -> {
+				// call under test
+				submitted.get(0).call();
+			});
+			// The failed load releases its reservation
+			assertEquals(25L, iterator.getPrefetchedBytes());
+		}
+	}
+
+	@Test
+	public void testEstimateSizeBytes() {
+		long expected = 2 * PrefetchingTableChangeIterator.ROW_OVERHEAD_BYTES
+				+ PrefetchingTableChangeIterator.CELL_OVERHEAD_BYTES + 2 * "abc".length();
+		// call under test
+		assertEquals(expected, PrefetchingTableChangeIterator.estimateSizeBytes(changeSet));
+	}
+
+	@Test
+	public void testConstructorWithInvalidCount() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			createIterator(0, 1L);
+		});
+	}
+
+	@Test
+	public void testConstructorWithInvalidBytes() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			createIterator(1, 0L);
+		});
+	}
+
+	@Test
+	public void testConstructorWithNullPool() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingTableChangeIterator(changes.iterator(), change -> true, null, 1, 1L);
+		});
+	}
+}
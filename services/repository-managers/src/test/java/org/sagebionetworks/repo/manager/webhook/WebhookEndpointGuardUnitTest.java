@@ -0,0 +1,187 @@
+package org.sagebionetworks.repo.manager.webhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.manager.webhook.WebhookEndpointGuard.Permit;
+import org.sagebionetworks.util.Clock;
+
+@ExtendWith(MockitoExtension.class)
+public class WebhookEndpointGuardUnitTest {
+
+	@Mock
+	private Clock mockClock;
+
+	@InjectMocks
+	private WebhookEndpointGuard guard;
+
+	private String endpoint = "https://my.endpoint";
+
+	@Test
+	public void testTryAcquireWithMaxInFlight() {
+		List<Permit> permits = new ArrayList<>();
+		for (int i = 0; i < WebhookEndpointGuard.MAX_IN_FLIGHT_PER_ENDPOINT; i++) {
+			// Call under test
+			Permit permit = guard.tryAcquire(endpoint).get();
+			assertEquals(endpoint, permit.getEndpoint());
+			assertFalse(permit.isTrial());
+			permits.add(permit);
+		}
+
+		// Call under test
+		assertTrue(guard.tryAcquire(endpoint).isEmpty());
+		// Other endpoints are not affected
+		assertTrue(guard.tryAcquire("https://other.endpoint").isPresent());
+
+		guard.release(permits.get(0), false);
+
+		// Call under test
+		assertTrue(guard.tryAcquire(endpoint).isPresent());
+	}
+
+	@Test
+	public void testTryAcquireWithOpenCircuit() {
+		when(mockClock.currentTimeMillis()).thenReturn(0L);
+
+		for (int i = 0; i < WebhookEndpointGuard.FAILURE_THRESHOLD; i++) {
+			assertFalse(guard.isCircuitOpen(endpoint));
+			guard.release(guard.tryAcquire(endpoint).get(), true);
+		}
+
+		assertTrue(guard.isCircuitOpen(endpoint));
+
+		// Call under test
+		assertTrue(guard.tryAcquire(endpoint).isEmpty());
+
+		when(mockClock.currentTimeMillis()).thenReturn(WebhookEndpointGuard.OPEN_CIRCUIT_DURATION.toMillis());
+
+		// Call under test, a single trial request is let through
+		Permit trial = guard.tryAcquire(endpoint).get();
+		assertTrue(trial.isTrial());
+		assertTrue(guard.tryAcquire(endpoint).isEmpty());
+
+		// The trial request failed
+		guard.release(trial, true);
+
+		// Call under test
+		assertTrue(guard.tryAcquire(endpoint).isEmpty());
+
+		when(mockClock.currentTimeMillis()).thenReturn(WebhookEndpointGuard.OPEN_CIRCUIT_DURATION.toMillis() * 2);
+
+		trial = guard.tryAcquire(endpoint).get();
+		assertTrue(trial.isTrial());
+
+		// The trial request succeeded
+		guard.release(trial, false);
+
+		assertFalse(guard.isCircuitOpen(endpoint));
+
+		// Call under test
+		assertFalse(guard.tryAcquire(endpoint).get().isTrial());
+		assertFalse(guard.tryAcquire(endpoint).get().isTrial());
+	}
+
+	@Test
+	public void testTryAcquireWithOpenCircuitAndStaleRelease() {
+		when(mockClock.currentTimeMillis()).thenReturn(0L);
+
+		// Requests sent before the circuit opened are still in flight
+		Permit stale = guard.tryAcquire(endpoint).get();
+		Permit otherStale = guard.tryAcquire(endpoint).get();
+
+		for (int i = 0; i < WebhookEndpointGuard.FAILURE_THRESHOLD; i++) {
+			guard.release(guard.tryAcquire(endpoint).get(), true);
+		}
+
+		assertTrue(guard.isCircuitOpen(endpoint));
+
+		when(mockClock.currentTimeMillis()).thenReturn(WebhookEndpointGuard.OPEN_CIRCUIT_DURATION.toMillis());
+
+		Permit trial = guard.tryAcquire(endpoint).get();
+		assertTrue(trial.isTrial());
+
+		// A request sent before the circuit opened fails while the trial is in flight
+		guard.release(stale, true);
+
+		// Call under test, the trial is still in flight
+		assertTrue(guard.tryAcquire(endpoint).isEmpty());
+
+		when(mockClock.currentTimeMillis()).thenReturn(WebhookEndpointGuard.OPEN_CIRCUIT_DURATION.toMillis() * 3);
+
+		// Call under test, the period of the circuit elapsed but the trial is still in flight
+		assertTrue(guard.tryAcquire(endpoint).isEmpty());
+
+		// The trial request succeeded
+		guard.release(trial, false);
+
+		assertFalse(guard.isCircuitOpen(endpoint));
+
+		// Call under test
+		assertFalse(guard.tryAcquire(endpoint).get().isTrial());
+
+		guard.release(otherStale, false);
+	}
+
+	@Test
+	public void testGetOpenCircuitRemainingMs() {
+		when(mockClock.currentTimeMillis()).thenReturn(0L);
+
+		// Call under test
+		assertEquals(0L, guard.getOpenCircuitRemainingMs(endpoint));
+
+		for (int i = 0; i < WebhookEndpointGuard.FAILURE_THRESHOLD; i++) {
+			guard.release(guard.tryAcquire(endpoint).get(), true);
+		}
+
+		// Call under test
+		assertEquals(WebhookEndpointGuard.OPEN_CIRCUIT_DURATION.toMillis(), guard.getOpenCircuitRemainingMs(endpoint));
+
+		when(mockClock.currentTimeMillis()).thenReturn(3_000L);
+
+		// Call under test
+		assertEquals(WebhookEndpointGuard.OPEN_CIRCUIT_DURATION.toMillis() - 3_000L, guard.getOpenCircuitRemainingMs(endpoint));
+
+		when(mockClock.currentTimeMillis()).thenReturn(WebhookEndpointGuard.OPEN_CIRCUIT_DURATION.toMillis() + 1);
+
+		// Call under test, a trial request can be sent
+		assertEquals(0L, guard.getOpenCircuitRemainingMs(endpoint));
+	}
+
+	@Test
+	public void testGetOpenCircuitRemainingMsWithFailuresUnderThreshold() {
+		when(mockClock.currentTimeMillis()).thenReturn(0L);
+
+		for (int i = 0; i < WebhookEndpointGuard.FAILURE_THRESHOLD - 1; i++) {
+			guard.release(guard.tryAcquire(endpoint).get(), true);
+		}
+
+		// Call under test
+		assertEquals(0L, guard.getOpenCircuitRemainingMs(endpoint));
+	}
+
+	@Test
+	public void testReleaseWithSuccessResetsFailures() {
+		when(mockClock.currentTimeMillis()).thenReturn(0L);
+
+		for (int i = 0; i < WebhookEndpointGuard.FAILURE_THRESHOLD - 1; i++) {
+			guard.release(guard.tryAcquire(endpoint).get(), true);
+		}
+
+		guard.release(guard.tryAcquire(endpoint).get(), false);
+
+		guard.release(guard.tryAcquire(endpoint).get(), true);
+
+		assertFalse(guard.isCircuitOpen(endpoint));
+	}
+
+}
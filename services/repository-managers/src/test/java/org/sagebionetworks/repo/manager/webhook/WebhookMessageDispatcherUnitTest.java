@@ -2,17 +2,26 @@ package org.sagebionetworks.repo.manager.webhook;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.net.ConnectException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpConnectTimeoutException;
@@ -24,7 +33,9 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Stream;
@@ -43,10 +54,12 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.repo.manager.oauth.OIDCTokenManager;
+import org.sagebionetworks.repo.manager.webhook.WebhookEndpointGuard.Permit;
 import org.sagebionetworks.repo.manager.webhook.WebhookMessageDispatcher.WebhookMessageAttributes;
 import org.sagebionetworks.repo.model.webhook.Webhook;
 import org.sagebionetworks.repo.model.webhook.WebhookVerificationStatus;
 import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.workers.util.aws.message.DelayedRecoverableMessageException;
 import org.sagebionetworks.workers.util.aws.message.RecoverableMessageException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -54,6 +67,7 @@ import org.springframework.http.MediaType;
 
 import com.amazonaws.services.sqs.model.Message;
 import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.sun.net.httpserver.HttpServer;
 
 @ExtendWith(MockitoExtension.class)
 public class WebhookMessageDispatcherUnitTest {
@@ -73,6 +87,9 @@ public class WebhookMessageDispatcherUnitTest {
 	@Mock
 	private WebhookMetricsCollector mockMetricsCollector;
 	
+	@Mock
+	private WebhookEndpointGuard mockEndpointGuard;
+	
 	@Mock
 	private StackConfiguration mockConfig;
 	
@@ -90,13 +107,14 @@ public class WebhookMessageDispatcherUnitTest {
 	private HttpResponse<Void> mockResponse;
 	
 	@Mock
-	private CompletableFuture<HttpResponse<Void>> mockFutureResponse;	
+	private CompletableFuture<Void> mockFuture;
 		
 	private String userAgent;
 	private Webhook webhook;
 	private WebhookMessageType messageType;
 	private String tokenIssuer;
 	private String authToken;
+	private Permit permit;
 
 	@BeforeEach
 	public void before() {
@@ -116,6 +134,7 @@ public class WebhookMessageDispatcherUnitTest {
 		messageType = WebhookMessageType.SynapseEvent;
 		tokenIssuer = "https://repo-prod.dev.sagebase.org/auth/v1";
 		authToken = "authToken";
+		permit = new Permit(webhook.getInvokeEndpoint(), false);
 	}
 	
 	private Map<String, MessageAttributeValue> expectedMessageAttributes() {
@@ -145,10 +164,10 @@ public class WebhookMessageDispatcherUnitTest {
 		when(mockMessage.getMD5OfBody()).thenReturn("messageMd5");
 		when(mockTokenManager.createWebhookMessageToken(tokenIssuer, "messageId", "messageMd5", webhook.getCreatedBy(), 30)).thenReturn(authToken);
 		
-		doNothing().when(dispatcher).sendWebhookRequest(expectedAttributes(), expectedRequest());
+		doReturn(mockFuture).when(dispatcher).sendWebhookRequest(expectedAttributes(), expectedRequest());
 		
 		// Call under test
-		dispatcher.dispatchMessage(mockMessage);
+		assertSame(mockFuture, dispatcher.dispatchMessage(mockMessage));
 
 		verifyNoMoreInteractions(mockManager);
 	}
@@ -164,10 +183,10 @@ public class WebhookMessageDispatcherUnitTest {
 		when(mockManager.getWebhookVerificationStatus(webhook.getId(), "messageId")).thenReturn(Optional.of(status));
 		when(mockTokenManager.createWebhookMessageToken(tokenIssuer, "messageId", "messageMd5", webhook.getCreatedBy(), 30)).thenReturn(authToken);		
 		
-		doNothing().when(dispatcher).sendWebhookRequest(expectedAttributes(), expectedRequest());
+		doReturn(mockFuture).when(dispatcher).sendWebhookRequest(expectedAttributes(), expectedRequest());
 		
 		// Call under test
-		dispatcher.dispatchMessage(mockMessage);
+		assertSame(mockFuture, dispatcher.dispatchMessage(mockMessage));
 
 		verifyNoMoreInteractions(mockManager);
 	}
@@ -219,9 +238,9 @@ public class WebhookMessageDispatcherUnitTest {
 	@EnumSource(value = HttpStatus.class, mode = Mode.INCLUDE, names = {"OK", "ACCEPTED", "CREATED", "NO_CONTENT"})
 	public void testSendWebhookRequest() throws Exception {
 		
+		when(mockEndpointGuard.tryAcquire(webhook.getInvokeEndpoint())).thenReturn(Optional.of(permit));
 		when(mockClock.currentTimeMillis()).thenReturn(0l, 150l);
-		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenReturn(mockFutureResponse);
-		when(mockFutureResponse.get(WebhookMessageDispatcher.REQUEST_TIMEOUT.getSeconds(), TimeUnit.SECONDS)).thenReturn(mockResponse);
+		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenReturn(CompletableFuture.completedFuture(mockResponse));
 		when(mockResponse.statusCode()).thenReturn(200);
 		
 		doNothing().when(dispatcher).updateVerificationStatus(any(), anyBoolean(), any(), any());
@@ -229,34 +248,123 @@ public class WebhookMessageDispatcherUnitTest {
 		WebhookMessageAttributes attributes = expectedAttributes();
 		
 		// Call under test
-		dispatcher.sendWebhookRequest(attributes, mockRequest);
+		assertNull(dispatcher.sendWebhookRequest(attributes, mockRequest).get());
 		
+		verify(mockEndpointGuard).release(permit, false);
 		verify(mockMetricsCollector).requestCompleted(webhook.getId(), 150, false);
 		verify(dispatcher).updateVerificationStatus(attributes, true, mockResponse, null);
 		
 		verifyNoMoreInteractions(mockMetricsCollector);
 	}
-		
+	
 	@Test
-	public void testSendWebhookRequestWithException() throws Exception {
+	public void testSendWebhookRequestWithPendingResponse() throws Exception {
 		
-		Throwable ex = new ExecutionException(new RuntimeException("Failed"));
+		CompletableFuture<HttpResponse<Void>> asyncResponse = new CompletableFuture<>();
 		
+		when(mockEndpointGuard.tryAcquire(webhook.getInvokeEndpoint())).thenReturn(Optional.of(permit));
 		when(mockClock.currentTimeMillis()).thenReturn(0l, 150l);
-		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenReturn(mockFutureResponse);
-		when(mockFutureResponse.get(WebhookMessageDispatcher.REQUEST_TIMEOUT.getSeconds(), TimeUnit.SECONDS)).thenThrow(ex);
+		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenReturn(asyncResponse);
+		when(mockResponse.statusCode()).thenReturn(200);
 		
 		doNothing().when(dispatcher).updateVerificationStatus(any(), anyBoolean(), any(), any());
 		
 		WebhookMessageAttributes attributes = expectedAttributes();
 		
-		Throwable result = assertThrows(RecoverableMessageException.class, () -> {			
+		// Call under test
+		CompletableFuture<Void> result = dispatcher.sendWebhookRequest(attributes, mockRequest);
+		
+		// The call does not wait for the response
+		assertFalse(result.isDone());
+		verifyZeroInteractions(mockMetricsCollector);
+		
+		asyncResponse.complete(mockResponse);
+		
+		assertTrue(result.isDone());
+		verify(mockMetricsCollector).requestCompleted(webhook.getId(), 150, false);
+		verify(dispatcher).updateVerificationStatus(attributes, true, mockResponse, null);
+	}
+	
+	@Test
+	public void testSendWebhookRequestWithUnavailableEndpoint() throws Exception {
+		
+		when(mockEndpointGuard.tryAcquire(webhook.getInvokeEndpoint())).thenReturn(Optional.empty());
+		
+		WebhookMessageAttributes attributes = expectedAttributes();
+		
+		RecoverableMessageException ex = assertThrows(RecoverableMessageException.class, () -> {
 			// Call under test
 			dispatcher.sendWebhookRequest(attributes, mockRequest);
 		});
 		
+		// The endpoint has too many requests in flight, the message is retried with the default delay
+		assertFalse(ex instanceof DelayedRecoverableMessageException);
+		
+		verifyZeroInteractions(mockClient, mockMetricsCollector, mockManager);
+		verify(mockEndpointGuard, never()).release(any(), anyBoolean());
+	}
+	
+	@Test
+	public void testSendWebhookRequestWithOpenCircuit() throws Exception {
+		
+		when(mockEndpointGuard.tryAcquire(webhook.getInvokeEndpoint())).thenReturn(Optional.empty());
+		when(mockEndpointGuard.getOpenCircuitRemainingMs(webhook.getInvokeEndpoint())).thenReturn(7_001L);
+		
+		WebhookMessageAttributes attributes = expectedAttributes();
+		
+		DelayedRecoverableMessageException ex = assertThrows(DelayedRecoverableMessageException.class, () -> {
+			// Call under test
+			dispatcher.sendWebhookRequest(attributes, mockRequest);
+		});
+		
+		// The message is not visible again before the circuit lets a request through
+		assertEquals(8, ex.getRetryVisibilityTimeoutSec());
+		
+		verifyZeroInteractions(mockClient, mockMetricsCollector, mockManager);
+		verify(mockEndpointGuard, never()).release(any(), anyBoolean());
+	}
+	
+	@Test
+	public void testSendWebhookRequestWithSendException() throws Exception {
+		
+		IllegalArgumentException ex = new IllegalArgumentException("Failed");
+		
+		when(mockEndpointGuard.tryAcquire(webhook.getInvokeEndpoint())).thenReturn(Optional.of(permit));
+		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenThrow(ex);
+		
+		WebhookMessageAttributes attributes = expectedAttributes();
+		
+		assertEquals(ex, assertThrows(IllegalArgumentException.class, () -> {
+			// Call under test
+			dispatcher.sendWebhookRequest(attributes, mockRequest);
+		}));
+		
+		verify(mockEndpointGuard).release(permit, false);
+	}
+		
+	@Test
+	public void testSendWebhookRequestWithException() throws Exception {
+		
+		Throwable ex = new HttpTimeoutException("Failed");
+		
+		when(mockEndpointGuard.tryAcquire(webhook.getInvokeEndpoint())).thenReturn(Optional.of(permit));
+		when(mockClock.currentTimeMillis()).thenReturn(0l, 150l);
+		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenReturn(CompletableFuture.failedFuture(ex));
+		
+		doNothing().when(dispatcher).updateVerificationStatus(any(), anyBoolean(), any(), any());
+		
+		WebhookMessageAttributes attributes = expectedAttributes();
+		
+		Throwable result = assertThrows(ExecutionException.class, () -> {			
+			// Call under test
+			dispatcher.sendWebhookRequest(attributes, mockRequest).get();
+		}).getCause();
+		
+		assertTrue(result instanceof RecoverableMessageException);
 		assertEquals(ex, result.getCause());
 		
+		verify(mockEndpointGuard).release(permit, true);
+		
 		verify(mockMetricsCollector).requestCompleted(webhook.getId(), 150, true);
 		
 		verify(dispatcher).updateVerificationStatus(attributes, false, null, ex);
@@ -268,20 +376,23 @@ public class WebhookMessageDispatcherUnitTest {
 	@EnumSource(value = HttpStatus.class, mode = Mode.INCLUDE, names = {"TOO_MANY_REQUESTS", "INTERNAL_SERVER_ERROR", "BAD_GATEWAY", "SERVICE_UNAVAILABLE", "GATEWAY_TIMEOUT"})
 	public void testSendWebhookRequestWithRecoverableResponseStatus(HttpStatus status) throws Exception {
 		
+		when(mockEndpointGuard.tryAcquire(webhook.getInvokeEndpoint())).thenReturn(Optional.of(permit));
 		when(mockClock.currentTimeMillis()).thenReturn(0l, 150l);
-		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenReturn(mockFutureResponse);
-		when(mockFutureResponse.get(WebhookMessageDispatcher.REQUEST_TIMEOUT.getSeconds(), TimeUnit.SECONDS)).thenReturn(mockResponse);
+		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenReturn(CompletableFuture.completedFuture(mockResponse));
 		when(mockResponse.statusCode()).thenReturn(status.value());
 		
 		doNothing().when(dispatcher).updateVerificationStatus(any(), anyBoolean(), any(), any());
 		
 		WebhookMessageAttributes attributes = expectedAttributes();
 		
-		assertThrows(RecoverableMessageException.class, () -> {			
+		Throwable result = assertThrows(ExecutionException.class, () -> {			
 			// Call under test
-			dispatcher.sendWebhookRequest(attributes, mockRequest);
-		});
+			dispatcher.sendWebhookRequest(attributes, mockRequest).get();
+		}).getCause();
+		
+		assertTrue(result instanceof RecoverableMessageException);
 
+		verify(mockEndpointGuard).release(permit, true);
 		verify(mockMetricsCollector).requestCompleted(webhook.getId(), 150, true);
 		
 		verify(dispatcher).updateVerificationStatus(attributes, false, mockResponse, null);
@@ -293,9 +404,9 @@ public class WebhookMessageDispatcherUnitTest {
 	@EnumSource(value = HttpStatus.class, mode = Mode.EXCLUDE, names = {"OK", "ACCEPTED", "CREATED", "NO_CONTENT", "TOO_MANY_REQUESTS", "INTERNAL_SERVER_ERROR", "BAD_GATEWAY", "SERVICE_UNAVAILABLE", "GATEWAY_TIMEOUT"})
 	public void testSendWebhookRequestWithUnrecoverableResponseStatus(HttpStatus status) throws Exception {
 		
+		when(mockEndpointGuard.tryAcquire(webhook.getInvokeEndpoint())).thenReturn(Optional.of(permit));
 		when(mockClock.currentTimeMillis()).thenReturn(0l, 150l);
-		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenReturn(mockFutureResponse);
-		when(mockFutureResponse.get(WebhookMessageDispatcher.REQUEST_TIMEOUT.getSeconds(), TimeUnit.SECONDS)).thenReturn(mockResponse);
+		when(mockClient.sendAsync(mockRequest, WebhookMessageDispatcher.DISCARDING_BODY_HANDLER)).thenReturn(CompletableFuture.completedFuture(mockResponse));
 		when(mockResponse.statusCode()).thenReturn(status.value());
 		
 		doNothing().when(dispatcher).updateVerificationStatus(any(), anyBoolean(), any(), any());
@@ -303,8 +414,9 @@ public class WebhookMessageDispatcherUnitTest {
 		WebhookMessageAttributes attributes = expectedAttributes();	
 		
 		// Call under test
-		dispatcher.sendWebhookRequest(attributes, mockRequest);
+		assertNull(dispatcher.sendWebhookRequest(attributes, mockRequest).get());
 
+		verify(mockEndpointGuard).release(permit, false);
 		verify(mockMetricsCollector).requestCompleted(webhook.getId(), 150, true);
 		
 		verify(dispatcher).updateVerificationStatus(attributes, false, mockResponse, null);
@@ -512,4 +624,60 @@ public class WebhookMessageDispatcherUnitTest {
 		verify(mockManager).updateWebhookVerificationStatus(webhook.getId(), attributes.getMessageId(), WebhookVerificationStatus.FAILED, "The request to the webhook endpoint failed (Reason: " + expectedReason + ").");
 	}
 	
+	@Test
+	public void testSendWebhookRequestWithSlowEndpoint() throws Exception {
+		// A local HTTP server stands in for the webhook endpoints
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		
+		CountDownLatch slowEndpointLatch = new CountDownLatch(1);
+		
+		server.createContext("/slow", exchange -> {
+			try {
+				slowEndpointLatch.await(WebhookMessageDispatcher.REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(HttpStatus.OK.value(), -1);
+			exchange.close();
+		});
+		
+		server.createContext("/fast", exchange -> {
+			exchange.sendResponseHeaders(HttpStatus.OK.value(), -1);
+			exchange.close();
+		});
+		
+		server.start();
+		
+		try {
+			WebhookMessageDispatcher httpDispatcher = new WebhookMessageDispatcher(mockManager, mockTokenManager, mockMetricsCollector, new WebhookEndpointGuard(mockClock), HttpClient.newHttpClient(), mockClock);
+			httpDispatcher.configure(mockConfig);
+			
+			String baseUrl = "http://localhost:" + server.getAddress().getPort();
+			
+			webhook.setInvokeEndpoint(baseUrl + "/slow");
+			WebhookMessageAttributes slowAttributes = expectedAttributes();
+			
+			webhook.setInvokeEndpoint(baseUrl + "/fast");
+			WebhookMessageAttributes fastAttributes = expectedAttributes();
+			
+			// Call under test
+			CompletableFuture<Void> slowResponse = httpDispatcher.sendWebhookRequest(slowAttributes, HttpRequest.newBuilder(URI.create(slowAttributes.getWebhookEndpoint())).POST(BodyPublishers.ofString("messageBody")).build());
+			CompletableFuture<Void> fastResponse = httpDispatcher.sendWebhookRequest(fastAttributes, HttpRequest.newBuilder(URI.create(fastAttributes.getWebhookEndpoint())).POST(BodyPublishers.ofString("messageBody")).build());
+			
+			// The slow endpoint does not delay the delivery to the fast endpoint
+			fastResponse.get(WebhookMessageDispatcher.REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+			assertFalse(slowResponse.isDone());
+			
+			slowEndpointLatch.countDown();
+			
+			slowResponse.get(WebhookMessageDispatcher.REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+			
+			verify(mockMetricsCollector, times(2)).requestCompleted(any(), anyLong(), eq(false));
+		} finally {
+			slowEndpointLatch.countDown();
+			server.stop(0);
+		}
+	}
+	
 }
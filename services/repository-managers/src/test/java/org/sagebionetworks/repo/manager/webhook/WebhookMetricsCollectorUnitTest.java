@@ -6,6 +6,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.repo.manager.webhook.WebhookMetricsCollector.METRIC_FAIL_COUNT;
+import static org.sagebionetworks.repo.manager.webhook.WebhookMetricsCollector.METRIC_LATENCY;
 import static org.sagebionetworks.repo.manager.webhook.WebhookMetricsCollector.METRIC_REQ_COUNT;
 import static org.sagebionetworks.repo.manager.webhook.WebhookMetricsCollector.METRIC_RUNTIME;
 import static org.sagebionetworks.repo.manager.webhook.WebhookMetricsCollector.WEBHOOK_ID_ALL;
@@ -77,9 +78,11 @@ public class WebhookMetricsCollectorUnitTest {
 			expectedProfileData(METRIC_REQ_COUNT, webhookId, null).setValue(1.0),
 			expectedProfileData(METRIC_FAIL_COUNT, webhookId, null).setValue(0.0),
 			expectedProfileData(METRIC_RUNTIME, webhookId, expectedMetricStats(1, 150, 150, 150)),
+			expectedLatency(webhookId, Map.of(150.0, 1.0)),
 			expectedProfileData(METRIC_REQ_COUNT, WEBHOOK_ID_ALL, null).setValue(1.0),
 			expectedProfileData(METRIC_FAIL_COUNT, WEBHOOK_ID_ALL, null).setValue(0.0),
-			expectedProfileData(METRIC_RUNTIME, WEBHOOK_ID_ALL, expectedMetricStats(1, 150, 150, 150))
+			expectedProfileData(METRIC_RUNTIME, WEBHOOK_ID_ALL, expectedMetricStats(1, 150, 150, 150)),
+			expectedLatency(WEBHOOK_ID_ALL, Map.of(150.0, 1.0))
 		));
 	}
 	
@@ -108,9 +111,11 @@ public class WebhookMetricsCollectorUnitTest {
 			expectedProfileData(METRIC_REQ_COUNT, webhookId, null).setValue(1.0),
 			expectedProfileData(METRIC_FAIL_COUNT, webhookId, null).setValue(1.0),
 			expectedProfileData(METRIC_RUNTIME, webhookId, expectedMetricStats(1, 150, 150, 150)),
+			expectedLatency(webhookId, Map.of(150.0, 1.0)),
 			expectedProfileData(METRIC_REQ_COUNT, WEBHOOK_ID_ALL, null).setValue(1.0),
 			expectedProfileData(METRIC_FAIL_COUNT, WEBHOOK_ID_ALL, null).setValue(1.0),
-			expectedProfileData(METRIC_RUNTIME, WEBHOOK_ID_ALL, expectedMetricStats(1, 150, 150, 150))
+			expectedProfileData(METRIC_RUNTIME, WEBHOOK_ID_ALL, expectedMetricStats(1, 150, 150, 150)),
+			expectedLatency(WEBHOOK_ID_ALL, Map.of(150.0, 1.0))
 		));
 	}	
 			
@@ -136,15 +141,38 @@ public class WebhookMetricsCollectorUnitTest {
 			expectedProfileData(METRIC_REQ_COUNT, webhookId1, null).setValue(3.0),
 			expectedProfileData(METRIC_FAIL_COUNT, webhookId1, null).setValue(1.0),
 			expectedProfileData(METRIC_RUNTIME, webhookId1, expectedMetricStats(3, 300, 50, 150)),
+			expectedLatency(webhookId1, Map.of(50.0, 1.0, 100.0, 1.0, 150.0, 1.0)),
 			expectedProfileData(METRIC_REQ_COUNT, webhookId2, null).setValue(3.0),
 			expectedProfileData(METRIC_FAIL_COUNT, webhookId2, null).setValue(1.0),
 			expectedProfileData(METRIC_RUNTIME, webhookId2, expectedMetricStats(3, 450, 100, 250)),
+			expectedLatency(webhookId2, Map.of(100.0, 2.0, 300.0, 1.0)),
 			expectedProfileData(METRIC_REQ_COUNT, WEBHOOK_ID_ALL, null).setValue(6.0),
 			expectedProfileData(METRIC_FAIL_COUNT, WEBHOOK_ID_ALL, null).setValue(2.0),
-			expectedProfileData(METRIC_RUNTIME, WEBHOOK_ID_ALL, expectedMetricStats(6, 750, 50, 250))
+			expectedProfileData(METRIC_RUNTIME, WEBHOOK_ID_ALL, expectedMetricStats(6, 750, 50, 250)),
+			expectedLatency(WEBHOOK_ID_ALL, Map.of(50.0, 1.0, 100.0, 3.0, 150.0, 1.0, 300.0, 1.0))
 		));
 	}
 	
+	@Test
+	public void testCollectMetricsWithLatencyAboveLastBucket() {
+		when(mockClock.now()).thenReturn(timestamp);
+		
+		String webhookId = "123";
+		
+		collector.requestCompleted(webhookId, 0, false);
+		collector.requestCompleted(webhookId, 60_000, true);
+		
+		// Call under test
+		collector.collectMetrics();
+		
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<ProfileData>> captor = ArgumentCaptor.forClass(List.class);
+		
+		verify(mockMetricsClient).addProfileData(captor.capture());
+		
+		assertEquals(expectedLatency(webhookId, Map.of(5.0, 1.0, 10000.0, 1.0)), captor.getValue().get(3));
+	}
+	
 	@Test
 	public void testCollectMetricsWithMultipleThreads() throws InterruptedException {
 		when(mockClock.now()).thenReturn(timestamp);
@@ -187,6 +215,7 @@ public class WebhookMetricsCollectorUnitTest {
 		Map<String, Double> total = new HashMap<>();
 		Map<String, Double> failed = new HashMap<>();
 		Map<String, Double> runtime = new HashMap<>();
+		Map<String, Double> latencyCount = new HashMap<>();
 				
 		for (List<ProfileData> sentData : captor.getAllValues()) {
 			for (ProfileData data : sentData) {
@@ -195,8 +224,10 @@ public class WebhookMetricsCollectorUnitTest {
 					total.merge(webhookId, data.getValue(), (oldValue, newValue) -> oldValue + newValue);
 				} else if (data.getName().equals(METRIC_FAIL_COUNT)) {
 					failed.merge(webhookId, data.getValue(), (oldValue, newValue) -> oldValue + newValue);
-				} else {
+				} else if (data.getName().equals(METRIC_RUNTIME)) {
 					runtime.merge(webhookId, data.getMetricStats().getSum(), (oldValue, newValue) -> oldValue + newValue);
+				} else {
+					data.getValueCounts().values().forEach(count -> latencyCount.merge(webhookId, count, (oldValue, newValue) -> oldValue + newValue));
 				}
 			}
 		}
@@ -222,6 +253,7 @@ public class WebhookMetricsCollectorUnitTest {
 		assertEquals(expectedTotal, total);
 		assertEquals(expectedFail, failed);
 		assertEquals(expectedRuntime, runtime);
+		assertEquals(expectedTotal, latencyCount);
 		
 	}
 	
@@ -235,6 +267,16 @@ public class WebhookMetricsCollectorUnitTest {
 			.setMetricStats(withStats);
 	}
 	
+	ProfileData expectedLatency(String webhookId, Map<Double, Double> valueCounts) {
+		return new ProfileData()
+			.setTimestamp(timestamp)
+			.setNamespace(namespace)
+			.setDimension(Map.of("webhookId", webhookId))
+			.setName(METRIC_LATENCY)
+			.setUnit(StandardUnit.Milliseconds.name())
+			.setValueCounts(valueCounts);
+	}
+	
 	MetricStats expectedMetricStats(double count, double sum, double min, double max) {
 		return new MetricStats()
 			.setCount(count)
@@ -11,6 +11,9 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.ids.IdGenerator;
+import org.sagebionetworks.profiler.LatencyHistogram;
+import org.sagebionetworks.profiler.MethodLatencyProfiler;
 import org.sagebionetworks.repo.manager.AuthenticationManager;
 import org.sagebionetworks.repo.manager.UserManager;
 import org.sagebionetworks.repo.manager.message.MessageSyndication;
@@ -30,6 +35,8 @@ import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.admin.ExpireQuarantinedEmailRequest;
+import org.sagebionetworks.repo.model.admin.MethodLatency;
+import org.sagebionetworks.repo.model.admin.MethodLatencyList;
 import org.sagebionetworks.repo.model.auth.LoginResponse;
 import org.sagebionetworks.repo.model.auth.NewIntegrationTestUser;
 import org.sagebionetworks.repo.model.dbo.dao.DBOChangeDAO;
@@ -65,6 +72,8 @@ public class AdministrationServiceImplTest {
 	private PasswordValidator mockPasswordValidator;
 	@Mock
 	private EmailQuarantineDao mockEmailQuarantineDao;
+	@Mock
+	private MethodLatencyProfiler mockMethodLatencyProfiler;
 
 	@InjectMocks
 	private AdministrationServiceImpl adminService;
@@ -271,4 +280,49 @@ public class AdministrationServiceImplTest {
 		
 		verifyZeroInteractions(mockEmailQuarantineDao);
 	}
+	
+	@Test
+	public void testGetMethodLatencies() {
+		when(mockUserManager.getUserInfo(any())).thenReturn(admin);
+		
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1_000);
+		histogram.record(3_000);
+		
+		Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+		snapshots.put("org.sagebionetworks.Foo.bar", histogram.getSnapshot());
+		
+		when(mockMethodLatencyProfiler.getSnapshots()).thenReturn(snapshots);
+		when(mockMethodLatencyProfiler.getSamplingRate()).thenReturn(10);
+		
+		MethodLatencyList expected = new MethodLatencyList()
+				.setSamplingRate(10L)
+				.setList(Collections.singletonList(new MethodLatency()
+						.setMethodName("org.sagebionetworks.Foo.bar")
+						.setSampleCount(2L)
+						.setMinNanos(1_000L)
+						.setMaxNanos(3_000L)
+						.setMeanNanos(2_000.0)
+						.setP50Nanos(1_007L)
+						.setP90Nanos(3_000L)
+						.setP99Nanos(3_000L)
+						.setP999Nanos(3_000L)));
+		
+		// Call under test
+		MethodLatencyList result = adminService.getMethodLatencies(adminUserId);
+		
+		assertEquals(expected, result);
+	}
+	
+	@Test
+	public void testGetMethodLatenciesWithUnauthorized() {
+		when(mockUserManager.getUserInfo(any())).thenReturn(nonAdmin);
+		
+		assertThrows(UnauthorizedException.class, () -> {
+			// Call under test
+			adminService.getMethodLatencies(nonAdminUserId);
+		});
+		
+		verifyZeroInteractions(mockMethodLatencyProfiler);
+	}
 }
@@ -1266,6 +1266,11 @@ public class UrlHelpers {
 	
 	public static final String ADMIN_EMAIL_QUARANTINE_EXPIRE = ADMIN + "/emailQuarantine/expire";
 	
+	/**
+	 * Obtains the latency of the methods sampled by the profiler on the instance serving the request
+	 */
+	public static final String ADMIN_PROFILER_METHOD_LATENCY = ADMIN + "/profiler/latency";
+	
 	/**
 	 * Request paramter to specify a target user id
 	 */
@@ -7,12 +7,15 @@ import org.apache.commons.dbcp2.BasicDataSource;
 import org.sagebionetworks.LoggerProvider;
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.profiler.MethodLatencyProfiler;
 import org.sagebionetworks.repo.manager.audit.AccessRecorder;
 import org.sagebionetworks.repo.manager.config.SimpleTriggerBuilder;
 import org.sagebionetworks.repo.manager.monitoring.ApplicationType;
 import org.sagebionetworks.repo.manager.monitoring.DataSourcePoolMonitor;
 import org.sagebionetworks.repo.manager.monitoring.DiskMonitor;
+import org.sagebionetworks.repo.manager.monitoring.MethodLatencyMonitor;
 import org.sagebionetworks.repo.manager.monitoring.TempDiskProviderImpl;
+import org.sagebionetworks.repo.manager.table.QueryNearCache;
 import org.sagebionetworks.repo.web.controller.ObjectTypeSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -79,6 +82,26 @@ public class RepoWebConfiguration implements WebMvcConfigurer {
 				.build();
 	}
 	
+	@Bean
+	public SimpleTriggerFactoryBean methodLatencyMonitorTrigger(MethodLatencyProfiler methodLatencyProfiler) {
+		return new SimpleTriggerBuilder()
+				.withTargetObject(new MethodLatencyMonitor(ApplicationType.repository, methodLatencyProfiler, consumer, config.getStackInstance()))
+				.withTargetMethod("collectMetrics")
+				.withRepeatInterval(60_000)
+				.withStartDelay(60_000)
+				.build();
+	}
+	
+	@Bean
+	public SimpleTriggerFactoryBean queryNearCacheMetricsTrigger(QueryNearCache queryNearCache) {
+		return new SimpleTriggerBuilder()
+				.withTargetObject(queryNearCache)
+				.withTargetMethod("collectMetrics")
+				.withRepeatInterval(60_000)
+				.withStartDelay(60_000)
+				.build();
+	}
+	
 	// The following beans are not exposed as they are used in place here
 	
 	private ContentNegotiationManager exceptionContentNegotiationManager() {
@@ -16,6 +16,7 @@ import org.sagebionetworks.repo.model.NotReadyException;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.admin.ExpireQuarantinedEmailRequest;
+import org.sagebionetworks.repo.model.admin.MethodLatencyList;
 import org.sagebionetworks.repo.model.asynch.AsynchronousAdminRequestBody;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.auth.LoginResponse;
@@ -401,5 +402,21 @@ public class AdministrationController {
 			throws NotFoundException, UnauthorizedException {
 		serviceProvider.getAdministrationService().expireQuarantinedEmail(userId, request);
 	}
+	
+	/**
+	 * Obtains the latency percentiles of the methods sampled by the profiler since the start of the instance that serves
+	 * the request. Note that each instance keeps its own statistics.
+	 * 
+	 * @param userId
+	 * @return
+	 * @throws UnauthorizedException
+	 */
+	@RequiredScope({view})
+	@ResponseStatus(HttpStatus.OK)
+	@RequestMapping(value = UrlHelpers.ADMIN_PROFILER_METHOD_LATENCY, method = RequestMethod.GET)
+	public @ResponseBody MethodLatencyList getMethodLatencies(@RequestParam(value = AuthorizationConstants.USER_ID_PARAM) Long userId)
+			throws UnauthorizedException {
+		return serviceProvider.getAdministrationService().getMethodLatencies(userId);
+	}
 
 }
@@ -0,0 +1,117 @@
+package org.sagebionetworks.repo.web.filter.throttle;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sagebionetworks.repo.model.throttle.ThrottleLimit;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Rate limiter based on the generic cell rate algorithm (GCRA), the continuous
+ * form of a token bucket. For a {@link ThrottleLimit} of N calls every P
+ * seconds a call is "emitted" every P/N seconds and a burst of up to N calls is
+ * allowed. Unlike fixed time blocks a client cannot make 2N calls around a block
+ * boundary.
+ * <p>
+ * The only state per (normalized path, client) is the theoretical arrival time
+ * (TAT) of the next call, kept in an {@link AtomicLong} and updated with a
+ * compare-and-set. Checking an existing client does not allocate. Entries with
+ * a TAT in the past are equivalent to a new client and are swept incrementally,
+ * at most once every {@value #SWEEP_INTERVAL_MS} ms.
+ *
+ */
+public class GcraRateLimiter {
+
+	static final long SWEEP_INTERVAL_MS = 60_000;
+
+	private static final long MICROS_PER_MS = 1000L;
+	private static final long MICROS_PER_SEC = 1000_000L;
+
+	// normalized path -> client key -> TAT in microseconds
+	private final ConcurrentMap<String, ConcurrentMap<String, AtomicLong>> pathStates = new ConcurrentHashMap<>();
+	private final AtomicLong nextSweepTimeMS = new AtomicLong();
+	private final Clock clock;
+
+	public GcraRateLimiter(Clock clock) {
+		ValidateArgument.required(clock, "clock");
+		this.clock = clock;
+	}
+
+	/**
+	 * Attempt to make a call to the given path.
+	 *
+	 * @param normalizedPath
+	 * @param clientKey      Identifies the caller
+	 * @param limit
+	 * @return Zero if the call is allowed, otherwise the number of milliseconds the
+	 *         client must wait before the next call is allowed.
+	 */
+	public long tryAcquire(String normalizedPath, String clientKey, ThrottleLimit limit) {
+		ValidateArgument.required(normalizedPath, "normalizedPath");
+		ValidateArgument.required(clientKey, "clientKey");
+		ValidateArgument.required(limit, "limit");
+		long maxCalls = limit.getMaxCallsPerUserPerPeriod();
+		long periodMicros = limit.getCallPeriodSec() * MICROS_PER_SEC;
+		if (maxCalls <= 0 || periodMicros <= 0) {
+			// Nothing can be allowed, wait for a full period
+			return Math.max(periodMicros / MICROS_PER_MS, MICROS_PER_SEC / MICROS_PER_MS);
+		}
+		long emissionIntervalMicros = Math.max(1, periodMicros / maxCalls);
+
+		long nowMS = clock.currentTimeMillis();
+		sweepIfNeeded(nowMS);
+		long now = nowMS * MICROS_PER_MS;
+
+		ConcurrentMap<String, AtomicLong> clients = pathStates.computeIfAbsent(normalizedPath, (String path) -> new ConcurrentHashMap<>());
+		AtomicLong tat = clients.get(clientKey);
+		if (tat == null) {
+			// Only allocates for the first call of a client
+			AtomicLong created = new AtomicLong(now);
+			tat = clients.putIfAbsent(clientKey, created);
+			if (tat == null) {
+				tat = created;
+			}
+		}
+		while (true) {
+			long current = tat.get();
+			long newTat = Math.max(current, now) + emissionIntervalMicros;
+			long waitMicros = newTat - now - periodMicros;
+			if (waitMicros > 0) {
+				// Round up so that a client retrying after the wait is allowed
+				return (waitMicros + MICROS_PER_MS - 1) / MICROS_PER_MS;
+			}
+			if (tat.compareAndSet(current, newTat)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Forget the state of all clients.
+	 */
+	public void clear() {
+		pathStates.clear();
+	}
+
+	/**
+	 * Remove the clients whose TAT is in the past. A client racing with the sweep
+	 * may see one extra call allowed, which is acceptable.
+	 *
+	 * @param nowMS
+	 */
+	void sweepIfNeeded(long nowMS) {
+		long nextSweep = nextSweepTimeMS.get();
+		if (nowMS < nextSweep || !nextSweepTimeMS.compareAndSet(nextSweep, nowMS + SWEEP_INTERVAL_MS)) {
+			return;
+		}
+		long now = nowMS * MICROS_PER_MS;
+		pathStates.values().forEach(clients -> clients.values().removeIf(tat -> tat.get() <= now));
+	}
+
+	int size() {
+		return pathStates.values().stream().mapToInt(ConcurrentMap::size).sum();
+	}
+
+}
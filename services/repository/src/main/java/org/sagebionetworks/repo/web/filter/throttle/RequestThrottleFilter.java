@@ -1,5 +1,6 @@
 package org.sagebionetworks.repo.web.filter.throttle;
 
+import static org.sagebionetworks.repo.web.filter.throttle.ThrottleUtils.RETRY_AFTER_HEADER;
 import static org.sagebionetworks.repo.web.filter.throttle.ThrottleUtils.THROTTLED_HTTP_STATUS;
 import static org.sagebionetworks.repo.web.filter.throttle.ThrottleUtils.isMigrationAdmin;
 
@@ -11,6 +12,7 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
 
 import org.sagebionetworks.cloudwatch.Consumer;
 import org.sagebionetworks.repo.model.AuthorizationUtils;
@@ -47,6 +49,9 @@ public class RequestThrottleFilter implements Filter {
 		} catch(RequestThrottledException e){//This exception indicates request needs to be throttled
 			//log throttling in CloudWatch and return HTTP response
 			consumer.addProfileData(e.getProfileData());
+			if (e.getRetryAfterSec() != null) {
+				((HttpServletResponse) response).setHeader(RETRY_AFTER_HEADER, String.valueOf(e.getRetryAfterSec()));
+			}
 			ThrottleUtils.setResponseError(response, THROTTLED_HTTP_STATUS, e.getMessage());
 		} catch(Exception e){
 			//Thrown when the RequestThrottlerCleanup.close() encounters an exception.
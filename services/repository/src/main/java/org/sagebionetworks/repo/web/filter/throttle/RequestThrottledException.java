@@ -7,12 +7,22 @@ import org.sagebionetworks.cloudwatch.ProfileData;
  */
 public class RequestThrottledException extends Exception{
 	private ProfileData profileData;
+	private Long retryAfterSec;
 
 	public RequestThrottledException(String message, ProfileData profileData){
 		super(message);
 		this.profileData = profileData;
 	}
 
+	/**
+	 * @param retryAfterSec the number of seconds the client should wait before retrying,
+	 * returned in the Retry-After header.
+	 */
+	public RequestThrottledException(String message, ProfileData profileData, long retryAfterSec){
+		this(message, profileData);
+		this.retryAfterSec = retryAfterSec;
+	}
+
 	/**
 	 *
 	 * @return data to be passed to a CloudWatch {@link org.sagebionetworks.cloudwatch.Consumer}
@@ -22,4 +32,12 @@ public class RequestThrottledException extends Exception{
 		return profileData;
 	}
 
+	/**
+	 *
+	 * @return the number of seconds the client should wait before retrying, null if unknown.
+	 */
+	public Long getRetryAfterSec() {
+		return retryAfterSec;
+	}
+
 }
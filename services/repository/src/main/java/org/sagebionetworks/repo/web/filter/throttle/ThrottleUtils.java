@@ -15,6 +15,7 @@ public class ThrottleUtils {
 	public static int THROTTLED_HTTP_STATUS = HttpStatus.TOO_MANY_REQUESTS.value();
 	public static String JSON_HTTP_CONTENT_TYPE = "application/json";
 	public static String UTF8_ENCODING = "UTF-8";
+	public static String RETRY_AFTER_HEADER = "Retry-After";
 	
 	/**
 	 * reports to Cloudwatch that a lock could not be acquired
@@ -7,7 +7,6 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.sagebionetworks.cloudwatch.ProfileData;
-import org.sagebionetworks.repo.model.semaphore.MemoryTimeBlockCountingSemaphore;
 import org.sagebionetworks.repo.model.throttle.ThrottleLimit;
 import org.sagebionetworks.repo.web.HttpRequestIdentifier;
 import org.sagebionetworks.util.PathNormalizer;
@@ -17,17 +16,14 @@ public class UserApiFrequencyThrottler implements RequestThrottler {
 	
 	public static final String CLOUDWATCH_EVENT_NAME = "apiFrequencyLockUnavaliable";
 	private static final String REASON_USER_THROTTLED_API_FORMAT = 
-	"{\"reason\": \"Requests are too frequent for API call: %s. Allowed %d requests every %d seconds.\"}";
+	"{\"reason\": \"Requests are too frequent for API call: %s. Allowed %d requests every %d seconds. Retry after %d seconds.\"}";
 	private static final RequestThrottlerCleanup NO_OP_THROTTLER_CLEANUP = new RequestThrottlerCleanupNoOpImpl();
 	
 	@Autowired
 	ThrottleRulesCache throttleRulesCache;
 	
 	@Autowired
-	MemoryTimeBlockCountingSemaphore userApiThrottleMemoryTimeBlockSemaphore;
-
-
-
+	GcraRateLimiter apiRateLimiter;
 
 	@Override
 	public RequestThrottlerCleanup doThrottle(HttpRequestIdentifier httpRequestIdentifier) throws RequestThrottledException {
@@ -39,8 +35,8 @@ public class UserApiFrequencyThrottler implements RequestThrottler {
 			//no throttle exists for this URI
 			return NO_OP_THROTTLER_CLEANUP;
 		}
-		boolean lockAcquired = userApiThrottleMemoryTimeBlockSemaphore.attemptToAcquireLock(userMachineIdentifierString + ":" + normalizedPath, limit.getCallPeriodSec(), limit.getMaxCallsPerUserPerPeriod());
-		if(!lockAcquired){
+		long waitMS = apiRateLimiter.tryAcquire(normalizedPath, userMachineIdentifierString, limit);
+		if(waitMS > 0){
 			//add extra dimensions for recording the throttled API
 			Map<String, String> dimensions = new HashMap<>();
 			dimensions.put("UserId", String.valueOf(httpRequestIdentifier.getUserId()));
@@ -49,8 +45,10 @@ public class UserApiFrequencyThrottler implements RequestThrottler {
 			dimensions.put("ThrottledAPI", normalizedPath);
 			ProfileData report = generateCloudwatchProfiledata( CLOUDWATCH_EVENT_NAME, this.getClass().getName(), Collections.unmodifiableMap(dimensions));
 
-			throw new RequestThrottledException(String.format(REASON_USER_THROTTLED_API_FORMAT, normalizedPath, limit.getMaxCallsPerUserPerPeriod(), limit.getCallPeriodSec()),
-												report);
+			// Retry-After is in whole seconds
+			long retryAfterSec = (waitMS + 999) / 1000;
+			throw new RequestThrottledException(String.format(REASON_USER_THROTTLED_API_FORMAT, normalizedPath, limit.getMaxCallsPerUserPerPeriod(), limit.getCallPeriodSec(), retryAfterSec),
+												report, retryAfterSec);
 		}
 
 		return NO_OP_THROTTLER_CLEANUP;
@@ -0,0 +1,138 @@
+package org.sagebionetworks.repo.web.filter.throttle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.model.throttle.ThrottleLimit;
+import org.sagebionetworks.util.Clock;
+
+@ExtendWith(MockitoExtension.class)
+public class GcraRateLimiterTest {
+
+	@Mock
+	private Clock mockClock;
+
+	private GcraRateLimiter limiter;
+	private String path;
+	private String client;
+	private ThrottleLimit limit;
+
+	@BeforeEach
+	public void before() {
+		limiter = new GcraRateLimiter(mockClock);
+		path = "/entity/#";
+		client = "123|session|1.1.1.1";
+		// one call every 500 ms, bursts of up to 4 calls
+		limit = new ThrottleLimit(4, 2);
+	}
+
+	@Test
+	public void testTryAcquireWithBurst() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+
+		for (int i = 0; i < 4; i++) {
+			// call under test
+			assertEquals(0L, limiter.tryAcquire(path, client, limit));
+		}
+		// the next call is allowed in 500 ms
+		assertEquals(500L, limiter.tryAcquire(path, client, limit));
+	}
+
+	@Test
+	public void testTryAcquireWithSteadyRate() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L, 1000L, 1000L, 1200L, 1500L, 1900L, 2000L);
+
+		for (int i = 0; i < 4; i++) {
+			assertEquals(0L, limiter.tryAcquire(path, client, limit));
+		}
+
+		// call under test
+		assertEquals(300L, limiter.tryAcquire(path, client, limit));
+		// a rejected call does not consume capacity
+		assertEquals(0L, limiter.tryAcquire(path, client, limit));
+		assertEquals(100L, limiter.tryAcquire(path, client, limit));
+		assertEquals(0L, limiter.tryAcquire(path, client, limit));
+	}
+
+	@Test
+	public void testTryAcquireWithNoDoubleBurst() {
+		// A fixed time block would allow 8 calls around the block boundary
+		when(mockClock.currentTimeMillis()).thenReturn(2999L, 2999L, 2999L, 2999L, 3000L);
+
+		for (int i = 0; i < 4; i++) {
+			assertEquals(0L, limiter.tryAcquire(path, client, limit));
+		}
+
+		// call under test
+		assertEquals(499L, limiter.tryAcquire(path, client, limit));
+	}
+
+	@Test
+	public void testTryAcquireWithSeparateClientsAndPaths() {
+		limit = new ThrottleLimit(1, 10);
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+
+		assertEquals(0L, limiter.tryAcquire(path, client, limit));
+		assertEquals(10_000L, limiter.tryAcquire(path, client, limit));
+
+		// call under test
+		assertEquals(0L, limiter.tryAcquire(path, "other client", limit));
+		assertEquals(0L, limiter.tryAcquire("/other/path", client, limit));
+	}
+
+	@Test
+	public void testTryAcquireWithZeroMaxCalls() {
+		limit = new ThrottleLimit(0, 10);
+
+		// call under test
+		assertEquals(10_000L, limiter.tryAcquire(path, client, limit));
+	}
+
+	@Test
+	public void testTryAcquireWithSweep() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L, 1000L + GcraRateLimiter.SWEEP_INTERVAL_MS);
+
+		limiter.tryAcquire(path, client, limit);
+		limiter.tryAcquire(path, "other client", limit);
+		assertEquals(2, limiter.size());
+
+		// call under test
+		limiter.tryAcquire(path, "new client", limit);
+
+		assertEquals(1, limiter.size());
+	}
+
+	@Test
+	public void testClear() {
+		limit = new ThrottleLimit(1, 10);
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		assertEquals(0L, limiter.tryAcquire(path, client, limit));
+
+		// call under test
+		limiter.clear();
+
+		assertEquals(0L, limiter.tryAcquire(path, client, limit));
+	}
+
+	@Test
+	public void testTryAcquireWithNullPath() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			limiter.tryAcquire(null, client, limit);
+		});
+	}
+
+	@Test
+	public void testTryAcquireWithNullLimit() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			limiter.tryAcquire(path, client, null);
+		});
+	}
+}
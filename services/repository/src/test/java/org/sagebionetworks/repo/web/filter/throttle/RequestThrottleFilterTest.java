@@ -104,11 +104,28 @@ public class RequestThrottleFilterTest {
 		verify(mockConsumer).addProfileData(profileData);
 		assertEquals(THROTTLED_HTTP_STATUS, mockResponse.getStatus());
 		assertEquals(throttleMessage, mockResponse.getContentAsString().trim());
+		assertEquals(null, mockResponse.getHeader(ThrottleUtils.RETRY_AFTER_HEADER));
 
 		verifyZeroInteractions(mockRequestThrottlerCleanup);
 		verifyZeroInteractions(mockFilterChain);
 	}
 
+	@Test
+	public void testThrottlerThrottledWithRetryAfter() throws Exception {
+		String throttleMessage = "You got throttled";
+		ProfileData profileData = new ProfileData();
+		when(mockRequestThrottler.doThrottle(any(HttpRequestIdentifier.class)))
+				.thenThrow(new RequestThrottledException(throttleMessage, profileData, 3));
+
+		//method under test
+		filter.doFilter(mockRequest, mockResponse, mockFilterChain);
+
+		verify(mockConsumer).addProfileData(profileData);
+		assertEquals(THROTTLED_HTTP_STATUS, mockResponse.getStatus());
+		assertEquals("3", mockResponse.getHeader(ThrottleUtils.RETRY_AFTER_HEADER));
+		verifyZeroInteractions(mockFilterChain);
+	}
+
 	@Test
 	public void testThrottlerPassed() throws Exception {
 		when(mockRequestThrottler.doThrottle(any(HttpRequestIdentifier.class))).thenReturn(mockRequestThrottlerCleanup);
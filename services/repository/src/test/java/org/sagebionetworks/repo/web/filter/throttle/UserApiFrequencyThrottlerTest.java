@@ -13,7 +13,6 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.sagebionetworks.repo.model.semaphore.MemoryCountingSemaphore;
-import org.sagebionetworks.repo.model.semaphore.MemoryTimeBlockCountingSemaphore;
 import org.sagebionetworks.repo.model.throttle.ThrottleLimit;
 import org.sagebionetworks.repo.web.HttpRequestIdentifier;
 import org.sagebionetworks.util.PathNormalizer;
@@ -32,7 +31,7 @@ public class UserApiFrequencyThrottlerTest {
 	private MemoryCountingSemaphore userThrottleGate;
 
 	@Mock
-	private MemoryTimeBlockCountingSemaphore userFrequencyThrottleGate;
+	private GcraRateLimiter mockRateLimiter;
 
 	private static final String userId = "123";
 	private static final String sessionId = "session-id";
@@ -44,13 +43,12 @@ public class UserApiFrequencyThrottlerTest {
 
 	private HttpRequestIdentifier requestIdentifier = new HttpRequestIdentifier(Long.valueOf(userId), sessionId, ipAddress, path);
 	private final String userMachineIdentifierString = requestIdentifier.getUserMachineIdentifierString();
-	private final String keyForSemaphore = userMachineIdentifierString + ":" + normalizedPath;
 
 
 	@Before
 	public void setupFilter() throws Exception {
 		throttler = new UserApiFrequencyThrottler();
-		ReflectionTestUtils.setField(throttler, "userApiThrottleMemoryTimeBlockSemaphore", userFrequencyThrottleGate);
+		ReflectionTestUtils.setField(throttler, "apiRateLimiter", mockRateLimiter);
 		ReflectionTestUtils.setField(throttler, "throttleRulesCache", throttleRulesCache);
 
 	}
@@ -63,19 +61,19 @@ public class UserApiFrequencyThrottlerTest {
 		RequestThrottlerCleanup cleanup = throttler.doThrottle(requestIdentifier);
 
 		verify(throttleRulesCache).getThrottleLimit(normalizedPath);
-		verifyZeroInteractions(userFrequencyThrottleGate);
+		verifyZeroInteractions(mockRateLimiter);
 		assertEquals(RequestThrottlerCleanupNoOpImpl.class, cleanup.getClass());
 	}
 
 	@Test
 	public void testUserUnderThrottleLimit() throws Exception {
 		when(throttleRulesCache.getThrottleLimit(normalizedPath)).thenReturn(throttleLimit);
-		when(userFrequencyThrottleGate.attemptToAcquireLock(keyForSemaphore, throttleLimit.getCallPeriodSec(), throttleLimit.getMaxCallsPerUserPerPeriod())).thenReturn(true);
+		when(mockRateLimiter.tryAcquire(normalizedPath, userMachineIdentifierString, throttleLimit)).thenReturn(0L);
 
 		//method under test
 		RequestThrottlerCleanup cleanup = throttler.doThrottle(requestIdentifier);
 
-		verify(userFrequencyThrottleGate).attemptToAcquireLock(keyForSemaphore, throttleLimit.getCallPeriodSec(), throttleLimit.getMaxCallsPerUserPerPeriod());
+		verify(mockRateLimiter).tryAcquire(normalizedPath, userMachineIdentifierString, throttleLimit);
 		assertEquals(RequestThrottlerCleanupNoOpImpl.class, cleanup.getClass());
 	}
 
@@ -83,7 +81,7 @@ public class UserApiFrequencyThrottlerTest {
 	public void testNoEmptyRequestFrequencySlots() throws Exception {
 
 		when(throttleRulesCache.getThrottleLimit(normalizedPath)).thenReturn(throttleLimit);
-		when(userFrequencyThrottleGate.attemptToAcquireLock(keyForSemaphore, throttleLimit.getCallPeriodSec(), throttleLimit.getMaxCallsPerUserPerPeriod())).thenReturn(false);
+		when(mockRateLimiter.tryAcquire(normalizedPath, userMachineIdentifierString, throttleLimit)).thenReturn(1500L);
 
 		try {
 			//method under test
@@ -91,8 +89,10 @@ public class UserApiFrequencyThrottlerTest {
 			fail("Expected RequestThrottledException to be thrown");
 		}catch (RequestThrottledException e){ //expected
 			assertEquals(CLOUDWATCH_EVENT_NAME, e.getProfileData().getName());
+			// rounded up to whole seconds
+			assertEquals(Long.valueOf(2), e.getRetryAfterSec());
 		}
 
-		verify(userFrequencyThrottleGate).attemptToAcquireLock(keyForSemaphore, throttleLimit.getCallPeriodSec(), throttleLimit.getMaxCallsPerUserPerPeriod());
+		verify(mockRateLimiter).tryAcquire(normalizedPath, userMachineIdentifierString, throttleLimit);
 	}
 }
@@ -1,17 +1,22 @@
 package org.sagebionetworks.webhook.workers;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.sagebionetworks.repo.manager.webhook.WebhookMessageDispatcher;
 import org.sagebionetworks.util.progress.ProgressCallback;
-import org.sagebionetworks.workers.util.aws.message.MessageDrivenRunner;
+import org.sagebionetworks.workers.util.aws.message.AsyncMessageDrivenRunner;
 import org.sagebionetworks.workers.util.aws.message.RecoverableMessageException;
 import org.springframework.stereotype.Service;
 
 import com.amazonaws.services.sqs.model.Message;
 
+/**
+ * Delivers the webhook messages, the message is acknowledged when the response
+ * of the endpoint is received so that no worker thread waits for the endpoints.
+ */
 @Service
-public class WebhookMessageWorker implements MessageDrivenRunner {
+public class WebhookMessageWorker implements AsyncMessageDrivenRunner {
 
 	private static final List<String> ATTR_NAMES = List.of("All");
 	
@@ -22,8 +27,8 @@ public class WebhookMessageWorker implements MessageDrivenRunner {
 	}
 	
 	@Override
-	public void run(ProgressCallback progressCallback, Message message) throws RecoverableMessageException, Exception {
-		dispatcher.dispatchMessage(message);
+	public CompletableFuture<Void> runAsync(ProgressCallback progressCallback, Message message) throws RecoverableMessageException, Exception {
+		return dispatcher.dispatchMessage(message);
 	}
 	
 	@Override
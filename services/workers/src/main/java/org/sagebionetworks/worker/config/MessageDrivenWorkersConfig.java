@@ -3,6 +3,7 @@ package org.sagebionetworks.worker.config;
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.asynchronous.workers.concurrent.ConcurrentManager;
 import org.sagebionetworks.asynchronous.workers.concurrent.ConcurrentWorkerStack;
+import org.sagebionetworks.asynchronous.workers.concurrent.WorkerExecutionMode;
 import org.sagebionetworks.database.semaphore.CountingSemaphore;
 import org.sagebionetworks.file.worker.FileEventRecordWorker;
 import org.sagebionetworks.file.worker.FileHandleAssociationScanRangeWorker;
@@ -202,6 +203,8 @@ public class MessageDrivenWorkersConfig {
 						.withSemaphoreMaxLockCount(5)
 						.withSemaphoreLockAndMessageVisibilityTimeoutSec(30)
 						.withMaxThreadsPerMachine(10)
+						// The jobs mostly wait on the table database
+						.withExecutionMode(WorkerExecutionMode.VIRTUAL)
 						.withSingleton(concurrentStackManager)
 						.withCanRunInReadOnly(true)
 						.withQueueName(queueName)
@@ -223,7 +226,8 @@ public class MessageDrivenWorkersConfig {
 						.withSemaphoreLockKey("webhookMessageWorker")
 						.withSemaphoreMaxLockCount(8)
 						.withSemaphoreLockAndMessageVisibilityTimeoutSec(30)
-						.withMaxThreadsPerMachine(5)
+						// The worker is asynchronous, this is the maximum number of requests in flight on each machine
+						.withMaxThreadsPerMachine(50)
 						.withSingleton(concurrentStackManager)
 						.withCanRunInReadOnly(false)
 						.withQueueName(queueName)
@@ -6,17 +6,22 @@ import java.util.Map;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.sagebionetworks.LoggerProvider;
 import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.asynchronous.workers.concurrent.BatchingMessageAcknowledger;
 import org.sagebionetworks.asynchronous.workers.concurrent.ConcurrentManager;
 import org.sagebionetworks.asynchronous.workers.concurrent.ConcurrentManagerImpl;
 import org.sagebionetworks.cloudwatch.Consumer;
 import org.sagebionetworks.database.semaphore.CountingSemaphore;
+import org.sagebionetworks.profiler.MethodLatencyProfiler;
 import org.sagebionetworks.repo.manager.config.SimpleTriggerBuilder;
 import org.sagebionetworks.repo.manager.monitoring.ApplicationType;
 import org.sagebionetworks.repo.manager.monitoring.DataSourcePoolMonitor;
 import org.sagebionetworks.repo.manager.monitoring.DiskMonitor;
+import org.sagebionetworks.repo.manager.monitoring.MethodLatencyMonitor;
 import org.sagebionetworks.repo.manager.monitoring.TempDiskProviderImpl;
+import org.sagebionetworks.repo.manager.table.QueryNearCache;
 import org.sagebionetworks.repo.manager.webhook.WebhookMetricsCollector;
 import org.sagebionetworks.repo.model.StackStatusDao;
+import org.sagebionetworks.worker.utils.MessageAcknowledgerMonitor;
 import org.sagebionetworks.worker.utils.StackStatusGate;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,9 +47,25 @@ public class WorkersInfraConfig {
 		return new StackStatusGate();
 	}
 
+	@Bean(destroyMethod = "shutdown")
+	public BatchingMessageAcknowledger messageAcknowledger(AmazonSQSClient amazonSQSClient) {
+		return new BatchingMessageAcknowledger(amazonSQSClient);
+	}
+
+	@Bean
+	public SimpleTriggerFactoryBean messageAcknowledgerMonitorTrigger(BatchingMessageAcknowledger messageAcknowledger) {
+		return new SimpleTriggerBuilder()
+				.withTargetObject(new MessageAcknowledgerMonitor(messageAcknowledger, consumer, config.getStackInstance()))
+				.withTargetMethod("collectMetrics")
+				.withRepeatInterval(Duration.ofMinutes(1).toMillis())
+				.withStartDelay(Duration.ofMinutes(1).toMillis())
+				.build();
+	}
+
 	@Bean
-	public ConcurrentManager concurrentStackManager(CountingSemaphore countingSemaphore, AmazonSQSClient amazonSQSClient, StackStatusDao stackStatusDao) {
-		return new ConcurrentManagerImpl(countingSemaphore, amazonSQSClient, stackStatusDao);
+	public ConcurrentManager concurrentStackManager(CountingSemaphore countingSemaphore, AmazonSQSClient amazonSQSClient,
+			BatchingMessageAcknowledger messageAcknowledger, StackStatusDao stackStatusDao) {
+		return new ConcurrentManagerImpl(countingSemaphore, amazonSQSClient, messageAcknowledger, stackStatusDao, config);
 	}
 	
 	@Bean
@@ -66,6 +87,16 @@ public class WorkersInfraConfig {
 				.build();
 	}
 	
+	@Bean
+	public SimpleTriggerFactoryBean methodLatencyMonitorTrigger(MethodLatencyProfiler methodLatencyProfiler) {
+		return new SimpleTriggerBuilder()
+				.withTargetObject(new MethodLatencyMonitor(ApplicationType.workers, methodLatencyProfiler, consumer, config.getStackInstance()))
+				.withTargetMethod("collectMetrics")
+				.withRepeatInterval(Duration.ofMinutes(1).toMillis())
+				.withStartDelay(Duration.ofMinutes(1).toMillis())
+				.build();
+	}
+	
 	@Bean
 	public SimpleTriggerFactoryBean webhookMetricsTrigger(WebhookMetricsCollector metricsCollector) {
 		return new SimpleTriggerBuilder()
@@ -75,5 +106,15 @@ public class WorkersInfraConfig {
 				.withStartDelay(Duration.ofMinutes(5).toMillis())
 				.build();
 	}
+	
+	@Bean
+	public SimpleTriggerFactoryBean queryNearCacheMetricsTrigger(QueryNearCache queryNearCache) {
+		return new SimpleTriggerBuilder()
+				.withTargetObject(queryNearCache)
+				.withTargetMethod("collectMetrics")
+				.withRepeatInterval(Duration.ofMinutes(1).toMillis())
+				.withStartDelay(Duration.ofMinutes(1).toMillis())
+				.build();
+	}
 
 }
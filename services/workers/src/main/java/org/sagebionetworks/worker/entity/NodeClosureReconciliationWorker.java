@@ -0,0 +1,77 @@
+package org.sagebionetworks.worker.entity;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.LoggerProvider;
+import org.sagebionetworks.repo.model.dbo.entity.NodeClosureDao;
+import org.sagebionetworks.util.progress.ProgressCallback;
+import org.sagebionetworks.util.progress.ProgressingRunner;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * This worker scans the nodes by ranges of ids and rebuilds the closure rows of
+ * any node whose closure does not match the node hierarchy. It backfills the
+ * closure table of a new stack and repairs the closure of nodes that were
+ * restored by the migration. Each range starts at the first existing node id so
+ * that gaps in the ids are skipped, and once it reaches the last node the scan
+ * starts over from the first one. Since the position of the scan is only a
+ * lower bound on the ids, a restarted worker starts over from the first node.
+ *
+ */
+public class NodeClosureReconciliationWorker implements ProgressingRunner {
+
+	static final long RANGE_SIZE = 10_000;
+	static final int MAX_RANGES_PER_RUN = 10;
+
+	private final NodeClosureDao nodeClosureDao;
+
+	private Logger logger;
+
+	/**
+	 * The lower bound of the next range to check.
+	 */
+	private long nextNodeId = 0;
+
+	@Autowired
+	public NodeClosureReconciliationWorker(NodeClosureDao nodeClosureDao) {
+		this.nodeClosureDao = nodeClosureDao;
+	}
+
+	@Autowired
+	public void configureLogger(LoggerProvider loggerProvider) {
+		logger = loggerProvider.getLogger(NodeClosureReconciliationWorker.class.getName());
+	}
+
+	@Override
+	public void run(ProgressCallback progressCallback) throws Exception {
+		long startTime = System.currentTimeMillis();
+		long firstNodeId = nextNodeId;
+		int repairedCount = 0;
+
+		for (int i = 0; i < MAX_RANGES_PER_RUN; i++) {
+			Optional<Long> rangeStart = nodeClosureDao.getFirstNodeId(nextNodeId);
+			if (!rangeStart.isPresent()) {
+				// All the nodes were checked, start over on the next run
+				nextNodeId = 0;
+				break;
+			}
+			long rangeEnd = rangeStart.get() + RANGE_SIZE - 1;
+			List<Long> inconsistentIds = nodeClosureDao.getInconsistentNodeIds(rangeStart.get(), rangeEnd);
+			if (!inconsistentIds.isEmpty()) {
+				nodeClosureDao.rebuildClosure(inconsistentIds);
+				repairedCount += inconsistentIds.size();
+			}
+			nextNodeId = rangeEnd + 1;
+		}
+
+		logger.info("Checked node closure of ids from {} (Next: {}, Repaired: {}, Time: {} ms).", firstNodeId, nextNodeId,
+				repairedCount, System.currentTimeMillis() - startTime);
+	}
+
+	long getNextNodeId() {
+		return nextNodeId;
+	}
+
+}
@@ -0,0 +1,64 @@
+package org.sagebionetworks.worker.utils;
+
+import java.util.List;
+
+import org.sagebionetworks.asynchronous.workers.concurrent.BatchingMessageAcknowledger;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+/**
+ * Publishes to CloudWatch the number of message deletes and visibility changes
+ * requested by the worker jobs, the number of SQS batch requests sent by the
+ * {@link BatchingMessageAcknowledger} and the number of SQS calls saved by the
+ * batching, since the last collection.
+ */
+public class MessageAcknowledgerMonitor {
+
+	static final String METRIC_REQUESTED_COUNT = "requestedCount";
+	static final String METRIC_API_CALL_COUNT = "apiCallCount";
+	static final String METRIC_SAVED_API_CALL_COUNT = "savedApiCallCount";
+
+	private final BatchingMessageAcknowledger acknowledger;
+	private final Consumer consumer;
+	private final String namespace;
+
+	private long previousRequestedCount = 0;
+	private long previousApiCallCount = 0;
+
+	public MessageAcknowledgerMonitor(BatchingMessageAcknowledger acknowledger, Consumer consumer, String instance) {
+		this.acknowledger = acknowledger;
+		this.consumer = consumer;
+		this.namespace = String.format("Workers-SQS-Acknowledger-%s", instance);
+	}
+
+	public void collectMetrics() {
+		long requestedCount = acknowledger.getRequestedCount();
+		long apiCallCount = acknowledger.getApiCallCount();
+
+		long requested = requestedCount - previousRequestedCount;
+		long apiCalls = apiCallCount - previousApiCallCount;
+
+		previousRequestedCount = requestedCount;
+		previousApiCallCount = apiCallCount;
+
+		if (requested == 0 && apiCalls == 0) {
+			return;
+		}
+
+		consumer.addProfileData(List.of(
+				profileData(METRIC_REQUESTED_COUNT, requested),
+				profileData(METRIC_API_CALL_COUNT, apiCalls),
+				profileData(METRIC_SAVED_API_CALL_COUNT, requested - apiCalls)));
+	}
+
+	private ProfileData profileData(String name, long value) {
+		return new ProfileData()
+				.setNamespace(namespace)
+				.setName(name)
+				.setValue(Double.valueOf(value))
+				.setUnit(StandardUnit.Count.name());
+	}
+
+}
@@ -1,9 +1,12 @@
 package org.sagebionetworks.webhook.workers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,8 +30,22 @@ public class WebhookMessageWorkerUnitTest {
 	@Mock
 	private Message mockMessage;
 	
+	@Test
+	public void testRunAsync() throws RecoverableMessageException, Exception {
+		CompletableFuture<Void> response = new CompletableFuture<>();
+		
+		when(dispatcher.dispatchMessage(mockMessage)).thenReturn(response);
+		
+		// Call under test
+		assertSame(response, worker.runAsync(null, mockMessage));
+		
+		verify(dispatcher).dispatchMessage(mockMessage);
+	}
+	
 	@Test
 	public void testRun() throws RecoverableMessageException, Exception {
+		when(dispatcher.dispatchMessage(mockMessage)).thenReturn(CompletableFuture.completedFuture(null));
+		
 		// Call under test
 		worker.run(null, mockMessage);
 		
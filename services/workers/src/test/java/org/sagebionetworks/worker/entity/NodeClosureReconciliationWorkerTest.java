@@ -0,0 +1,117 @@
+package org.sagebionetworks.worker.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.LoggerProvider;
+import org.sagebionetworks.repo.model.dbo.entity.NodeClosureDao;
+import org.sagebionetworks.util.progress.ProgressCallback;
+
+@ExtendWith(MockitoExtension.class)
+public class NodeClosureReconciliationWorkerTest {
+
+	@Mock
+	private NodeClosureDao mockNodeClosureDao;
+
+	@Mock
+	private LoggerProvider mockLoggerProvider;
+
+	@Mock
+	private Logger mockLogger;
+
+	@Mock
+	private ProgressCallback mockCallback;
+
+	@InjectMocks
+	private NodeClosureReconciliationWorker worker;
+
+	@BeforeEach
+	public void before() {
+		when(mockLoggerProvider.getLogger(any())).thenReturn(mockLogger);
+		worker.configureLogger(mockLoggerProvider);
+	}
+
+	@Test
+	public void testRun() throws Exception {
+		long rangeSize = NodeClosureReconciliationWorker.RANGE_SIZE;
+		when(mockNodeClosureDao.getFirstNodeId(0L)).thenReturn(Optional.of(5L));
+		when(mockNodeClosureDao.getFirstNodeId(rangeSize + 5)).thenReturn(Optional.of(rangeSize + 8));
+		when(mockNodeClosureDao.getFirstNodeId(2 * rangeSize + 8)).thenReturn(Optional.empty());
+		when(mockNodeClosureDao.getInconsistentNodeIds(5L, rangeSize + 4)).thenReturn(List.of(7L, 9L));
+		when(mockNodeClosureDao.getInconsistentNodeIds(rangeSize + 8, 2 * rangeSize + 7)).thenReturn(Collections.emptyList());
+
+		// call under test
+		worker.run(mockCallback);
+
+		verify(mockNodeClosureDao).rebuildClosure(List.of(7L, 9L));
+		verify(mockNodeClosureDao, times(1)).rebuildClosure(anyList());
+		// All the nodes were checked, the next run starts over
+		assertEquals(0L, worker.getNextNodeId());
+	}
+
+	@Test
+	public void testRunWithGapInIds() throws Exception {
+		long rangeSize = NodeClosureReconciliationWorker.RANGE_SIZE;
+		when(mockNodeClosureDao.getFirstNodeId(0L)).thenReturn(Optional.of(1_000_000L));
+		when(mockNodeClosureDao.getFirstNodeId(1_000_000L + rangeSize)).thenReturn(Optional.empty());
+		when(mockNodeClosureDao.getInconsistentNodeIds(anyLong(), anyLong())).thenReturn(Collections.emptyList());
+
+		// call under test
+		worker.run(mockCallback);
+
+		// The empty ranges before the first node are skipped
+		verify(mockNodeClosureDao).getInconsistentNodeIds(1_000_000L, 1_000_000L + rangeSize - 1);
+		verify(mockNodeClosureDao, times(1)).getInconsistentNodeIds(anyLong(), anyLong());
+		assertEquals(0L, worker.getNextNodeId());
+	}
+
+	@Test
+	public void testRunWithMoreRangesThanLimit() throws Exception {
+		long rangeSize = NodeClosureReconciliationWorker.RANGE_SIZE;
+		int maxRanges = NodeClosureReconciliationWorker.MAX_RANGES_PER_RUN;
+		// Each range contains nodes
+		when(mockNodeClosureDao.getFirstNodeId(anyLong())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+		when(mockNodeClosureDao.getInconsistentNodeIds(anyLong(), anyLong())).thenReturn(Collections.emptyList());
+
+		// call under test
+		worker.run(mockCallback);
+
+		verify(mockNodeClosureDao, times(maxRanges)).getInconsistentNodeIds(anyLong(), anyLong());
+		verify(mockNodeClosureDao, never()).rebuildClosure(anyList());
+		assertEquals(rangeSize * maxRanges, worker.getNextNodeId());
+
+		// call under test
+		worker.run(mockCallback);
+
+		verify(mockNodeClosureDao).getInconsistentNodeIds(rangeSize * maxRanges, rangeSize * (maxRanges + 1) - 1);
+		assertEquals(rangeSize * maxRanges * 2, worker.getNextNodeId());
+	}
+
+	@Test
+	public void testRunWithNoNodes() throws Exception {
+		when(mockNodeClosureDao.getFirstNodeId(0L)).thenReturn(Optional.empty());
+
+		// call under test
+		worker.run(mockCallback);
+
+		verify(mockNodeClosureDao, never()).getInconsistentNodeIds(anyLong(), anyLong());
+		assertEquals(0L, worker.getNextNodeId());
+	}
+}
@@ -0,0 +1,89 @@
+package org.sagebionetworks.worker.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.asynchronous.workers.concurrent.BatchingMessageAcknowledger;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageAcknowledgerMonitorTest {
+
+	@Mock
+	private BatchingMessageAcknowledger mockAcknowledger;
+
+	@Mock
+	private Consumer mockConsumer;
+
+	@Captor
+	private ArgumentCaptor<List<ProfileData>> dataCaptor;
+
+	private MessageAcknowledgerMonitor monitor;
+
+	@BeforeEach
+	public void before() {
+		monitor = new MessageAcknowledgerMonitor(mockAcknowledger, mockConsumer, "test");
+	}
+
+	@Test
+	public void testCollectMetrics() {
+		when(mockAcknowledger.getRequestedCount()).thenReturn(25L, 40L);
+		when(mockAcknowledger.getApiCallCount()).thenReturn(4L, 6L);
+
+		// call under test
+		monitor.collectMetrics();
+		monitor.collectMetrics();
+
+		verify(mockConsumer, times(2)).addProfileData(dataCaptor.capture());
+
+		// The second collection only publishes the counts since the first one
+		assertEquals(List.of(
+				profileData(MessageAcknowledgerMonitor.METRIC_REQUESTED_COUNT, 25),
+				profileData(MessageAcknowledgerMonitor.METRIC_API_CALL_COUNT, 4),
+				profileData(MessageAcknowledgerMonitor.METRIC_SAVED_API_CALL_COUNT, 21)
+		), dataCaptor.getAllValues().get(0));
+		assertEquals(List.of(
+				profileData(MessageAcknowledgerMonitor.METRIC_REQUESTED_COUNT, 15),
+				profileData(MessageAcknowledgerMonitor.METRIC_API_CALL_COUNT, 2),
+				profileData(MessageAcknowledgerMonitor.METRIC_SAVED_API_CALL_COUNT, 13)
+		), dataCaptor.getAllValues().get(1));
+	}
+
+	@Test
+	public void testCollectMetricsWithNoActivity() {
+		when(mockAcknowledger.getRequestedCount()).thenReturn(25L);
+		when(mockAcknowledger.getApiCallCount()).thenReturn(4L);
+
+		monitor.collectMetrics();
+
+		// call under test
+		monitor.collectMetrics();
+
+		verify(mockConsumer).addProfileData(dataCaptor.capture());
+		verifyNoMoreInteractions(mockConsumer);
+	}
+
+	private static ProfileData profileData(String name, long value) {
+		return new ProfileData()
+				.setNamespace("Workers-SQS-Acknowledger-test")
+				.setName(name)
+				.setValue(Double.valueOf(value))
+				.setUnit(StandardUnit.Count.name());
+	}
+
+}